@@ -0,0 +1,195 @@
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+/*
+  PRUEBA DE CARGA DE LA API LOCAL DE PACIENTES
+  Apunta a una instancia local del Trabajo Integrador Java levantada con:
+      java -cp ... main.Main --servidor --puerto 8080
+  No necesita acceso a internet.
+
+  Ejecución:
+      k6 run K6/pacientes-api-test.js
+      k6 run -e BASE_URL=http://localhost:9090 -e SEMILLA=200 K6/pacientes-api-test.js
+
+  Variables de entorno:
+  - BASE_URL: URL de la API (por defecto http://localhost:8080)
+  - SEMILLA: cantidad de pacientes que se crean en setup() para las lecturas (por defecto 50)
+*/
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SEMILLA = parseInt(__ENV.SEMILLA || '50', 10);
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+/*
+  CONFIGURACIÓN DE LA PRUEBA
+  - escrituras: usuarios virtuales que recorren el flujo completo
+    (alta con historia clínica, búsqueda por DNI, listado, modificación y baja lógica)
+  - lecturas: tasa creciente de consultas sobre los pacientes sembrados en setup()
+  - thresholds: p95/p99 por endpoint (tag "name") y tasa de errores global
+*/
+export const options = {
+    scenarios: {
+        escrituras: {
+            executor: 'ramping-vus',
+            exec: 'flujoPaciente',
+            startVUs: 0,
+            stages: [
+                { duration: '20s', target: 10 },  // Ramp-up: subir progresivamente hasta 10 usuarios
+                { duration: '1m', target: 10 },   // Carga estable
+                { duration: '20s', target: 0 },   // Ramp-down: bajar progresivamente a 0
+            ],
+        },
+        lecturas: {
+            executor: 'ramping-arrival-rate',
+            exec: 'consultas',
+            startRate: 10,
+            timeUnit: '1s',
+            preAllocatedVUs: 20,
+            maxVUs: 100,
+            stages: [
+                { duration: '20s', target: 50 },  // Subir a 50 consultas por segundo
+                { duration: '1m', target: 200 },  // Subir a 200 consultas por segundo
+                { duration: '20s', target: 0 },   // Bajar a 0
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],    // Menos del 1% de las requests pueden fallar
+        checks: ['rate>0.99'],
+
+        // Escrituras: abren transacción, se les da más margen
+        'http_req_duration{name:crear_paciente}': ['p(95)<300', 'p(99)<600'],
+        'http_req_duration{name:actualizar_paciente}': ['p(95)<250', 'p(99)<500'],
+        'http_req_duration{name:eliminar_paciente}': ['p(95)<250', 'p(99)<500'],
+
+        // Lecturas: camino caliente de la aplicación
+        'http_req_duration{name:buscar_por_dni}': ['p(95)<50', 'p(99)<100'],
+        'http_req_duration{name:obtener_por_id}': ['p(95)<50', 'p(99)<100'],
+        'http_req_duration{name:listar_pagina}': ['p(95)<150', 'p(99)<300'],
+    },
+};
+
+/*
+  Genera un DNI de 8 dígitos que no se repite dentro de la corrida.
+  El desplazamiento aleatorio de cada corrida evita chocar con los datos de corridas anteriores.
+*/
+function generarDni(desplazamiento, vu, iteracion) {
+    const numero = 10000000 + ((desplazamiento + vu * 100000 + iteracion) % 89999999);
+    return String(numero);
+}
+
+function nuevoPaciente(dni) {
+    return {
+        apellido: 'Carga',
+        nombre: 'Prueba',
+        dni: dni,
+        fechaNacimiento: '1985-06-15',
+        historiaClinica: {
+            nroHistoria: 'K6-' + dni,
+            grupoSanguineo: 'O+',
+            antecedentes: 'Sin antecedentes relevantes',
+            medicacionActual: 'Ninguna',
+            observaciones: 'Paciente generado por la prueba de carga',
+        },
+    };
+}
+
+/*
+  SETUP()
+  Se ejecuta UNA sola vez antes de comenzar la prueba.
+  Siembra pacientes para el escenario de lecturas.
+*/
+export function setup() {
+    const desplazamiento = Math.floor(Math.random() * 80000000);
+    const sembrados = [];
+
+    for (let i = 0; i < SEMILLA; i++) {
+        // VU 0 queda reservado para la siembra
+        const dni = generarDni(desplazamiento, 0, i);
+        const res = http.post(`${BASE_URL}/pacientes`, JSON.stringify(nuevoPaciente(dni)),
+            Object.assign({ tags: { name: 'semilla' } }, JSON_HEADERS));
+
+        check(res, { 'semilla creada (201)': (r) => r.status === 201 });
+        if (res.status === 201) {
+            sembrados.push({ id: res.json('id'), dni: dni });
+        }
+    }
+
+    if (sembrados.length === 0) {
+        throw new Error(`No se pudo sembrar ningún paciente en ${BASE_URL}. ¿Está levantado el servidor?`);
+    }
+    return { desplazamiento, sembrados };
+}
+
+/*
+  ESCENARIO "escrituras"
+  Flujo completo de un paciente nuevo por iteración.
+*/
+export function flujoPaciente(data) {
+    const dni = generarDni(data.desplazamiento, __VU, __ITER);
+
+    // 1. Alta del paciente con su historia clínica (una transacción)
+    const alta = http.post(`${BASE_URL}/pacientes`, JSON.stringify(nuevoPaciente(dni)),
+        Object.assign({ tags: { name: 'crear_paciente' } }, JSON_HEADERS));
+    if (!check(alta, { 'alta 201': (r) => r.status === 201 })) {
+        return;
+    }
+    const id = alta.json('id');
+
+    sleep(0.5); // Simula el tiempo entre acciones del usuario
+
+    // 2. Búsqueda por DNI
+    const busqueda = http.get(`${BASE_URL}/pacientes/dni/${dni}`, { tags: { name: 'buscar_por_dni' } });
+    check(busqueda, {
+        'búsqueda 200': (r) => r.status === 200,
+        'búsqueda devuelve el mismo paciente': (r) => r.status === 200 && r.json('id') === id,
+    });
+
+    // 3. Listado paginado
+    const pagina = http.get(`${BASE_URL}/pacientes?tamanio=20`, { tags: { name: 'listar_pagina' } });
+    check(pagina, { 'listado 200': (r) => r.status === 200 });
+
+    sleep(0.5);
+
+    // 4. Modificación
+    const modificado = nuevoPaciente(dni);
+    delete modificado.historiaClinica;
+    modificado.nombre = 'Modificado';
+    const cambio = http.put(`${BASE_URL}/pacientes/${id}`, JSON.stringify(modificado),
+        Object.assign({ tags: { name: 'actualizar_paciente' } }, JSON_HEADERS));
+    check(cambio, { 'modificación 200': (r) => r.status === 200 });
+
+    // 5. Baja lógica
+    const baja = http.del(`${BASE_URL}/pacientes/${id}`, null, { tags: { name: 'eliminar_paciente' } });
+    check(baja, { 'baja 204': (r) => r.status === 204 });
+
+    sleep(1);
+}
+
+/*
+  ESCENARIO "lecturas"
+  Consultas sobre los pacientes sembrados: DNI, ID y páginas a partir de un cursor.
+*/
+export function consultas(data) {
+    const paciente = data.sembrados[Math.floor(Math.random() * data.sembrados.length)];
+
+    const porDni = http.get(`${BASE_URL}/pacientes/dni/${paciente.dni}`, { tags: { name: 'buscar_por_dni' } });
+    check(porDni, { 'consulta por DNI 200': (r) => r.status === 200 });
+
+    const porId = http.get(`${BASE_URL}/pacientes/${paciente.id}`, { tags: { name: 'obtener_por_id' } });
+    check(porId, { 'consulta por ID 200': (r) => r.status === 200 });
+
+    // Página que empieza justo antes del paciente elegido (paginación por clave)
+    const pagina = http.get(`${BASE_URL}/pacientes?despuesDeId=${paciente.id - 1}&tamanio=20`,
+        { tags: { name: 'listar_pagina' } });
+    check(pagina, { 'página 200': (r) => r.status === 200 });
+}
+
+/*
+  TEARDOWN()
+  Se ejecuta UNA sola vez al final: da de baja los pacientes sembrados.
+*/
+export function teardown(data) {
+    for (const paciente of data.sembrados) {
+        http.del(`${BASE_URL}/pacientes/${paciente.id}`, null, { tags: { name: 'limpieza' } });
+    }
+}
@@ -4,21 +4,28 @@ use pacienteHistoriaClinica;
 CREATE TABLE paciente (
 id INT auto_increment primary key NOT NULL,
 eliminado boolean NOT NULL default false,
+version INT NOT NULL default 0,
 apellido varchar(40) NOT NULL,
 nombre varchar(40) NOT NULL,
 dni varchar(15) NOT NULL unique,
 fecha_nac date NOT NULL,
+INDEX idx_paciente_eliminado_id (eliminado, id),
+INDEX idx_paciente_apellido_nombre (apellido, nombre),
+INDEX idx_paciente_eliminado_fecha_nac (eliminado, fecha_nac),
 CONSTRAINT chk_paciente_eliminado CHECK (eliminado IN (0,1))); 
 
 CREATE TABLE historiaClinica (
 id INT auto_increment primary key NOT NULL,
 eliminado boolean NOT NULL default false,
+version INT NOT NULL default 0,
 nro_historia varchar(20) NOT NULL unique,
 grupo_sangre varchar(10) NOT NULL,
 antecedentes text NOT NULL,
 observaciones text NOT NULL,
 medicacionActual varchar(255),
 id_paciente INT NOT NULL unique,
+INDEX idx_hc_paciente_eliminado (id_paciente, eliminado),
+INDEX idx_hc_eliminado_id (eliminado, id),
 CONSTRAINT fk_HC_paciente FOREIGN KEY (id_paciente) REFERENCES paciente (id),
 CONSTRAINT chk_HC_eliminado CHECK (eliminado IN (0,1)));
 
@@ -0,0 +1,14 @@
+-- ============================================================================
+-- Migración 001: columna version (control de concurrencia optimista)
+-- Para bases creadas con una versión anterior de db.sql; las nuevas ya la incluyen.
+-- Cada UPDATE de la aplicación incrementa version y solo modifica la fila si la
+-- versión coincide con la que se leyó (WHERE id = ? AND version = ?).
+-- ============================================================================
+
+USE pacienteHistoriaClinica;
+
+ALTER TABLE paciente
+    ADD COLUMN version INT NOT NULL DEFAULT 0 AFTER eliminado;
+
+ALTER TABLE historiaClinica
+    ADD COLUMN version INT NOT NULL DEFAULT 0 AFTER eliminado;
@@ -0,0 +1,24 @@
+-- ============================================================================
+-- Migración 002: índices compuestos para las consultas de los DAO
+-- Para bases creadas con una versión anterior de db.sql; las nuevas ya los incluyen.
+-- Con "java -cp ... main.Main --explicar" se revisa el plan de cada consulta de
+-- PacienteDao e HistoriaClinicaDao y se informan los recorridos completos de tabla.
+-- ============================================================================
+
+USE pacienteHistoriaClinica;
+
+-- Listado y paginación de activos: WHERE eliminado = false AND id > ? ORDER BY id
+-- Búsqueda por apellido y nombre
+-- Rango de fechas de nacimiento de activos (exportación con --desde / --hasta)
+ALTER TABLE paciente
+    ADD INDEX idx_paciente_eliminado_id (eliminado, id),
+    ADD INDEX idx_paciente_apellido_nombre (apellido, nombre),
+    ADD INDEX idx_paciente_eliminado_fecha_nac (eliminado, fecha_nac);
+
+-- LEFT JOIN ... ON p.id = hc.id_paciente AND hc.eliminado = false y búsqueda por paciente
+-- Listado y paginación de activos
+ALTER TABLE historiaClinica
+    ADD INDEX idx_hc_paciente_eliminado (id_paciente, eliminado),
+    ADD INDEX idx_hc_eliminado_id (eliminado, id);
+
+ANALYZE TABLE paciente, historiaClinica;
@@ -0,0 +1,33 @@
+-- ============================================================================
+-- Migración 003 (opcional): almacenamiento compacto de historiaClinica.grupo_sangre
+-- Reemplaza el texto del grupo ("A+", varchar) por su código (TINYINT, 1 byte) y
+-- agrega un índice para contar por grupo sin leer las filas.
+-- Después de ejecutarla, configurar db.grupoSanguineo.compacto=true: con el valor
+-- por defecto los DAO leen y escriben el texto. datos_prueba.sql inserta textos,
+-- así que debe cargarse antes de la migración.
+-- ============================================================================
+
+USE pacienteHistoriaClinica;
+
+-- Código de GrupoSanguineo.getCodigo(). Un valor que no es un grupo válido queda NULL
+-- y el UPDATE falla (la columna es NOT NULL) sin modificar ninguna fila.
+UPDATE historiaClinica
+SET grupo_sangre = CASE UPPER(grupo_sangre)
+    WHEN 'A+' THEN '1'
+    WHEN 'A-' THEN '2'
+    WHEN 'B+' THEN '3'
+    WHEN 'B-' THEN '4'
+    WHEN 'AB+' THEN '5'
+    WHEN 'AB-' THEN '6'
+    WHEN 'O+' THEN '7'
+    WHEN 'O-' THEN '8'
+END
+WHERE id > 0;
+
+-- Conteo por grupo de activos: WHERE eliminado = false GROUP BY grupo_sangre
+ALTER TABLE historiaClinica
+    MODIFY grupo_sangre TINYINT UNSIGNED NOT NULL,
+    ADD CONSTRAINT chk_HC_grupo_sangre CHECK (grupo_sangre BETWEEN 1 AND 8),
+    ADD INDEX idx_hc_eliminado_grupo (eliminado, grupo_sangre);
+
+ANALYZE TABLE historiaClinica;
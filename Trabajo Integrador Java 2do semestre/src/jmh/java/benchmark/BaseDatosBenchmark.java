@@ -0,0 +1,103 @@
+package benchmark;
+
+import config.DatabaseConnection;
+import dao.HistoriaClinicaDao;
+import dao.PacienteDao;
+import entities.HistoriaClinica;
+import entities.Paciente;
+import enums.GrupoSanguineo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilidades compartidas por los benchmarks: crea el esquema en la base H2
+ * embebida y genera datos de prueba con el mismo formato que datos_prueba.sql
+ */
+public final class BaseDatosBenchmark {
+
+    /** DNI inicial de los pacientes generados (8 dígitos, válido para Validador) */
+    public static final int DNI_BASE = 10_000_000;
+
+    private static final GrupoSanguineo[] GRUPOS = GrupoSanguineo.values();
+
+    private BaseDatosBenchmark() {
+    }
+
+    /**
+     * Crea (o recrea) las tablas a partir de schema-benchmark.sql
+     */
+    public static void crearEsquema() {
+        String script;
+        try (InputStream input = BaseDatosBenchmark.class.getClassLoader()
+                .getResourceAsStream("schema-benchmark.sql")) {
+            if (input == null) {
+                throw new IllegalStateException("No se encontró schema-benchmark.sql");
+            }
+            script = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error al leer schema-benchmark.sql", e);
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String sentencia : script.split(";")) {
+                String limpia = sentencia.replaceAll("(?m)^--.*$", "").trim();
+                if (!limpia.isEmpty()) {
+                    stmt.execute(limpia);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error al crear el esquema de benchmark", e);
+        }
+    }
+
+    /**
+     * Recrea el esquema e inserta la cantidad indicada de pacientes, cada uno con su historia clínica
+     */
+    public static void poblar(int cantidad) {
+        crearEsquema();
+
+        List<Paciente> pacientes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            pacientes.add(nuevoPaciente(i));
+        }
+        new PacienteDao().crearEnLote(pacientes);
+
+        List<HistoriaClinica> historias = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            HistoriaClinica hc = nuevaHistoria(i);
+            hc.setIdPaciente(pacientes.get(i).getId());
+            historias.add(hc);
+        }
+        new HistoriaClinicaDao().crearEnLote(historias);
+    }
+
+    public static Paciente nuevoPaciente(int i) {
+        Paciente paciente = new Paciente();
+        paciente.setApellido("APELLIDO");
+        paciente.setNombre("NOMBRE");
+        paciente.setDni(String.valueOf(DNI_BASE + i));
+        paciente.setFechaNacimiento(LocalDate.of(1950, 1, 1).plusDays(i % 20000));
+        paciente.setEliminado(false);
+        return paciente;
+    }
+
+    public static HistoriaClinica nuevaHistoria(int i) {
+        HistoriaClinica hc = new HistoriaClinica();
+        hc.setNroHistoria("HC-B-" + i);
+        hc.setGrupoSanguineo(GRUPOS[i % GRUPOS.length]);
+        hc.setAntecedentes("Hipertensión arterial desde 2015. Alergia a la penicilina.");
+        hc.setMedicacionActual("Enalapril 10mg - 1 vez al día");
+        hc.setObservaciones("Paciente estable. Control cada 6 meses.");
+        hc.setEliminado(false);
+        return hc;
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import config.DatabaseConnection;
+import dao.Pagina;
+import dao.PacienteDao;
+import entities.Paciente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compara leerTodos (lista completa), leerTodosStream y la paginación por clave
+ * a distintos tamaños de tabla
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.config=benchmark.properties")
+public class LeerTodosBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int filas;
+
+    private final PacienteDao dao = new PacienteDao();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        BaseDatosBenchmark.poblar(filas);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        DatabaseConnection.cerrarPool();
+    }
+
+    @Benchmark
+    public List<Paciente> leerTodos() {
+        return dao.leerTodos();
+    }
+
+    @Benchmark
+    public void leerTodosStream(Blackhole bh) {
+        try (Stream<Paciente> pacientes = dao.leerTodosStream()) {
+            pacientes.forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public void leerPaginado(Blackhole bh) {
+        Pagina<Paciente> pagina = dao.leerPagina(null, 500);
+        while (true) {
+            pagina.getElementos().forEach(bh::consume);
+            if (!pagina.hayMas()) {
+                break;
+            }
+            pagina = dao.leerPagina(pagina.getUltimoId(), 500);
+        }
+    }
+}
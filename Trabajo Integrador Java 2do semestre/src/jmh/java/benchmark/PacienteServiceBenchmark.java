@@ -0,0 +1,77 @@
+package benchmark;
+
+import config.DatabaseConnection;
+import entities.HistoriaClinica;
+import entities.Paciente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.PacienteService;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorridos completos de PacienteService (validación + DAO + JDBC)
+ * contra la base H2 embebida
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.config=benchmark.properties")
+public class PacienteServiceBenchmark {
+
+    private static final int PACIENTES_INICIALES = 10_000;
+
+    private PacienteService service;
+
+    // Los DNI de los pacientes insertados durante el benchmark continúan después de los iniciales
+    private int siguiente = PACIENTES_INICIALES;
+    private int lectura;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        BaseDatosBenchmark.poblar(PACIENTES_INICIALES);
+        service = new PacienteService();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        DatabaseConnection.cerrarPool();
+    }
+
+    @Benchmark
+    public Paciente insertar() {
+        return service.insertar(BaseDatosBenchmark.nuevoPaciente(siguiente++));
+    }
+
+    @Benchmark
+    public Paciente crearConHistoriaClinica() {
+        int i = siguiente++;
+        HistoriaClinica hc = BaseDatosBenchmark.nuevaHistoria(i);
+        return service.crearConHistoriaClinica(BaseDatosBenchmark.nuevoPaciente(i), hc);
+    }
+
+    @Benchmark
+    public Optional<Paciente> obtenerPorId() {
+        lectura = (lectura % PACIENTES_INICIALES) + 1;
+        return service.obtenerPorId((long) lectura);
+    }
+
+    @Benchmark
+    public Optional<Paciente> buscarPorDni() {
+        lectura = (lectura + 1) % PACIENTES_INICIALES;
+        return service.buscarPorDni(String.valueOf(BaseDatosBenchmark.DNI_BASE + lectura));
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import enums.GrupoSanguineo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import util.Validador;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las validaciones de Validador y las conversiones de GrupoSanguineo (fromString y
+ * fromCodigo, según cómo se almacena grupo_sangre), que se ejecutan en cada alta/modificación
+ * y en cada fila mapeada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidadorBenchmark {
+
+    private final String dni = "12345678";
+    private final String apellido = "RODRÍGUEZ";
+    private final String nombre = "MARÍA FERNANDA";
+    private final LocalDate fechaNacimiento = LocalDate.of(1990, 7, 22);
+    private final String[] grupos = {"A+", "ab-", "O+", "B-", "AB+", "o-"};
+    private int indiceGrupo;
+
+    @Benchmark
+    public void validarDni() {
+        Validador.validarDni(dni);
+    }
+
+    @Benchmark
+    public void validarSoloLetras() {
+        Validador.validarSoloLetras(apellido, "Apellido");
+        Validador.validarSoloLetras(nombre, "Nombre");
+    }
+
+    @Benchmark
+    public void validarFechaNacimiento() {
+        Validador.validarFechaNacimiento(fechaNacimiento);
+    }
+
+    @Benchmark
+    public void validarLongitudes() {
+        Validador.validarLongitudMaxima(apellido, 40, "Apellido");
+        Validador.validarLongitudMaxima(nombre, 40, "Nombre");
+        Validador.validarLongitudMaxima(dni, 15, "DNI");
+    }
+
+    @Benchmark
+    public void grupoSanguineoFromString(Blackhole bh) {
+        indiceGrupo = (indiceGrupo + 1) % grupos.length;
+        bh.consume(GrupoSanguineo.fromString(grupos[indiceGrupo]));
+    }
+
+    @Benchmark
+    public void grupoSanguineoFromCodigo(Blackhole bh) {
+        indiceGrupo = (indiceGrupo + 1) % grupos.length;
+        bh.consume(GrupoSanguineo.fromCodigo(indiceGrupo + 1));
+    }
+}
@@ -0,0 +1,187 @@
+package dao;
+
+import benchmark.BaseDatosBenchmark;
+import config.DatabaseConnection;
+import entities.HistoriaClinica;
+import entities.Paciente;
+import enums.GrupoSanguineo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el costo de convertir filas de un ResultSet en entidades: el mapeo de los DAO
+ * (nuevoMapeador, columnas por posición resueltas una vez por ResultSet) contra el mapeo
+ * anterior, que buscaba cada columna por etiqueta en cada fila (*PorEtiqueta).
+ * El ResultSet es scrollable y se rebobina en cada invocación, así se mide
+ * casi exclusivamente el mapeo y no la ejecución de la consulta.
+ * Está en el paquete dao para acceder a nuevoMapeador.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.config=benchmark.properties")
+public class MapeoResultSetBenchmark {
+
+    private static final String SQL_PACIENTES =
+        "SELECT p.id, p.eliminado, p.version, p.apellido, p.nombre, p.dni, p.fecha_nac, hc.id as hc_id, hc.eliminado as hc_eliminado, hc.version as hc_version, hc.nro_historia, " +
+        "hc.grupo_sangre, hc.antecedentes, hc.medicacionActual, hc.observaciones " +
+        "FROM paciente p " +
+        "LEFT JOIN historiaClinica hc ON p.id = hc.id_paciente AND hc.eliminado = false " +
+        "WHERE p.eliminado = false";
+
+    private static final String SQL_HISTORIAS =
+        "SELECT id, eliminado, version, nro_historia, grupo_sangre, antecedentes, medicacionActual, " +
+        "observaciones, id_paciente FROM historiaClinica WHERE eliminado = false";
+
+    @Param({"1000", "100000"})
+    private int filas;
+
+    private final PacienteDao pacienteDao = new PacienteDao();
+    private final HistoriaClinicaDao historiaClinicaDao = new HistoriaClinicaDao();
+
+    private Connection conexion;
+    private PreparedStatement stmtPacientes;
+    private PreparedStatement stmtHistorias;
+    private ResultSet rsPacientes;
+    private ResultSet rsHistorias;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        BaseDatosBenchmark.poblar(filas);
+        conexion = DatabaseConnection.getConnection();
+        stmtPacientes = conexion.prepareStatement(SQL_PACIENTES,
+            ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        stmtHistorias = conexion.prepareStatement(SQL_HISTORIAS,
+            ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        rsPacientes = stmtPacientes.executeQuery();
+        rsHistorias = stmtHistorias.executeQuery();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        rsPacientes.close();
+        rsHistorias.close();
+        stmtPacientes.close();
+        stmtHistorias.close();
+        conexion.close();
+        DatabaseConnection.cerrarPool();
+    }
+
+    @Benchmark
+    public void mapearPacientes(Blackhole bh) throws SQLException {
+        MapeadorFila<Paciente> mapeador = pacienteDao.nuevoMapeador();
+        rsPacientes.beforeFirst();
+        while (rsPacientes.next()) {
+            bh.consume(mapeador.mapear(rsPacientes));
+        }
+    }
+
+    @Benchmark
+    public void mapearPacientesPorEtiqueta(Blackhole bh) throws SQLException {
+        rsPacientes.beforeFirst();
+        while (rsPacientes.next()) {
+            bh.consume(pacientePorEtiqueta(rsPacientes));
+        }
+    }
+
+    @Benchmark
+    public void mapearHistoriasClinicas(Blackhole bh) throws SQLException {
+        MapeadorFila<HistoriaClinica> mapeador = historiaClinicaDao.nuevoMapeador();
+        rsHistorias.beforeFirst();
+        while (rsHistorias.next()) {
+            bh.consume(mapeador.mapear(rsHistorias));
+        }
+    }
+
+    @Benchmark
+    public void mapearHistoriasClinicasPorEtiqueta(Blackhole bh) throws SQLException {
+        rsHistorias.beforeFirst();
+        while (rsHistorias.next()) {
+            bh.consume(historiaPorEtiqueta(rsHistorias));
+        }
+    }
+
+    /**
+     * Mapeo anterior de PacienteDao: cada columna por etiqueta en cada fila
+     */
+    private static Paciente pacientePorEtiqueta(ResultSet rs) throws SQLException {
+        Paciente paciente = new Paciente();
+        paciente.setId(rs.getLong("id"));
+        paciente.setEliminado(rs.getBoolean("eliminado"));
+        paciente.setVersion(rs.getInt("version"));
+        paciente.setApellido(rs.getString("apellido"));
+        paciente.setNombre(rs.getString("nombre"));
+        paciente.setDni(rs.getString("dni"));
+
+        Date fechaNac = rs.getDate("fecha_nac");
+        if (fechaNac != null) {
+            paciente.setFechaNacimiento(fechaNac.toLocalDate());
+        }
+
+        long hcId = rs.getLong("hc_id");
+        if (!rs.wasNull() && hcId > 0) {
+            HistoriaClinica hc = new HistoriaClinica();
+            hc.setId(hcId);
+            hc.setEliminado(rs.getBoolean("hc_eliminado"));
+            hc.setVersion(rs.getInt("hc_version"));
+            hc.setNroHistoria(rs.getString("nro_historia"));
+
+            String grupoSangre = rs.getString("grupo_sangre");
+            if (grupoSangre != null) {
+                hc.setGrupoSanguineo(GrupoSanguineo.fromString(grupoSangre));
+            }
+
+            hc.setAntecedentes(rs.getString("antecedentes"));
+            hc.setMedicacionActual(rs.getString("medicacionActual"));
+            hc.setObservaciones(rs.getString("observaciones"));
+            hc.setIdPaciente(paciente.getId());
+
+            paciente.setHistoriaClinica(hc);
+        }
+
+        return paciente;
+    }
+
+    /**
+     * Mapeo anterior de HistoriaClinicaDao: cada columna por etiqueta en cada fila
+     */
+    private static HistoriaClinica historiaPorEtiqueta(ResultSet rs) throws SQLException {
+        HistoriaClinica hc = new HistoriaClinica();
+        hc.setId(rs.getLong("id"));
+        hc.setEliminado(rs.getBoolean("eliminado"));
+        hc.setVersion(rs.getInt("version"));
+        hc.setNroHistoria(rs.getString("nro_historia"));
+        hc.setGrupoSanguineo(GrupoSanguineo.fromString(rs.getString("grupo_sangre")));
+        hc.setAntecedentes(rs.getString("antecedentes"));
+        hc.setMedicacionActual(rs.getString("medicacionActual"));
+        hc.setObservaciones(rs.getString("observaciones"));
+
+        long idPaciente = rs.getLong("id_paciente");
+        if (!rs.wasNull()) {
+            hc.setIdPaciente(idPaciente);
+        }
+
+        return hc;
+    }
+}
@@ -0,0 +1,30 @@
+-- Esquema equivalente a db.sql para H2 (sin trigger ni DELIMITER)
+DROP TABLE IF EXISTS historiaClinica;
+DROP TABLE IF EXISTS paciente;
+
+CREATE TABLE paciente (
+id INT auto_increment primary key NOT NULL,
+eliminado boolean NOT NULL default false,
+version INT NOT NULL default 0,
+apellido varchar(40) NOT NULL,
+nombre varchar(40) NOT NULL,
+dni varchar(15) NOT NULL unique,
+fecha_nac date NOT NULL);
+
+CREATE TABLE historiaClinica (
+id INT auto_increment primary key NOT NULL,
+eliminado boolean NOT NULL default false,
+version INT NOT NULL default 0,
+nro_historia varchar(20) NOT NULL unique,
+grupo_sangre varchar(10) NOT NULL,
+antecedentes text NOT NULL,
+observaciones text NOT NULL,
+medicacionActual varchar(255),
+id_paciente INT unique,
+CONSTRAINT fk_HC_paciente FOREIGN KEY (id_paciente) REFERENCES paciente (id));
+
+CREATE INDEX idx_paciente_eliminado_id ON paciente (eliminado, id);
+CREATE INDEX idx_paciente_apellido_nombre ON paciente (apellido, nombre);
+CREATE INDEX idx_paciente_eliminado_fecha_nac ON paciente (eliminado, fecha_nac);
+CREATE INDEX idx_hc_paciente_eliminado ON historiaClinica (id_paciente, eliminado);
+CREATE INDEX idx_hc_eliminado_id ON historiaClinica (eliminado, id);
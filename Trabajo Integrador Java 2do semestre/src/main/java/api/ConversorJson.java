@@ -0,0 +1,219 @@
+package api;
+
+import dao.Pagina;
+import entities.HistoriaClinica;
+import entities.Paciente;
+import enums.GrupoSanguineo;
+import exceptions.ValidacionException;
+import service.IndiceNombresPacientes;
+import util.Json;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Conversión entre las entidades y su representación JSON en la API
+ */
+public class ConversorJson {
+
+    private ConversorJson() {
+    }
+
+    public static String paciente(Paciente paciente) {
+        StringBuilder json = new StringBuilder(256);
+        escribirPaciente(json, paciente);
+        return json.toString();
+    }
+
+    public static String historiaClinica(HistoriaClinica hc) {
+        StringBuilder json = new StringBuilder(256);
+        escribirHistoriaClinica(json, hc);
+        return json.toString();
+    }
+
+    public static String paginaPacientes(Pagina<Paciente> pagina) {
+        return pagina(pagina, ConversorJson::escribirPaciente);
+    }
+
+    public static String paginaHistorias(Pagina<HistoriaClinica> pagina) {
+        return pagina(pagina, ConversorJson::escribirHistoriaClinica);
+    }
+
+    /**
+     * {"elementos": [...]} en el orden de la lista
+     */
+    public static String listaHistorias(List<HistoriaClinica> historias) {
+        StringBuilder json = new StringBuilder(256 * (historias.size() + 1));
+        json.append("{\"elementos\":[");
+        for (int i = 0; i < historias.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            escribirHistoriaClinica(json, historias.get(i));
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    /**
+     * {"elementos": [{"id", "apellido", "nombre", "dni", "distancia"}, ...], "hayMas": true|false}
+     *
+     * @param coincidencias resultados de la búsqueda, con uno más que el tamaño si hay otra página
+     */
+    public static String coincidenciasPacientes(List<IndiceNombresPacientes.Coincidencia> coincidencias, int tamanio) {
+        int cantidad = Math.min(coincidencias.size(), tamanio);
+        StringBuilder json = new StringBuilder(96 * (cantidad + 1));
+        json.append("{\"elementos\":[");
+        for (int i = 0; i < cantidad; i++) {
+            IndiceNombresPacientes.Coincidencia c = coincidencias.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('{');
+            Json.escribirCampo(json, "id", c.getId());
+            json.append(',');
+            Json.escribirCampo(json, "apellido", c.getApellido());
+            json.append(',');
+            Json.escribirCampo(json, "nombre", c.getNombre());
+            json.append(',');
+            Json.escribirCampo(json, "dni", c.getDni());
+            json.append(',');
+            Json.escribirCampo(json, "distancia", c.getDistancia());
+            json.append('}');
+        }
+        json.append("],\"hayMas\":").append(coincidencias.size() > tamanio).append('}');
+        return json.toString();
+    }
+
+    /**
+     * {"elementos": [...], "ultimoId": n, "hayMas": true|false}
+     */
+    private static <T> String pagina(Pagina<T> pagina, BiConsumer<StringBuilder, T> escritor) {
+        StringBuilder json = new StringBuilder(256 * (pagina.getElementos().size() + 1));
+        json.append("{\"elementos\":[");
+        List<T> elementos = pagina.getElementos();
+        for (int i = 0; i < elementos.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            escritor.accept(json, elementos.get(i));
+        }
+        json.append("],");
+        Json.escribirCampo(json, "ultimoId", pagina.getUltimoId());
+        json.append(",\"hayMas\":").append(pagina.hayMas()).append('}');
+        return json.toString();
+    }
+
+    private static void escribirPaciente(StringBuilder json, Paciente p) {
+        json.append('{');
+        Json.escribirCampo(json, "id", p.getId());
+        json.append(',');
+        Json.escribirCampo(json, "version", p.getVersion());
+        json.append(',');
+        Json.escribirCampo(json, "apellido", p.getApellido());
+        json.append(',');
+        Json.escribirCampo(json, "nombre", p.getNombre());
+        json.append(',');
+        Json.escribirCampo(json, "dni", p.getDni());
+        json.append(',');
+        Json.escribirCampo(json, "fechaNacimiento",
+                p.getFechaNacimiento() != null ? p.getFechaNacimiento().toString() : null);
+        json.append(",\"historiaClinica\":");
+        if (p.getHistoriaClinica() != null) {
+            escribirHistoriaClinica(json, p.getHistoriaClinica());
+        } else {
+            json.append("null");
+        }
+        json.append('}');
+    }
+
+    private static void escribirHistoriaClinica(StringBuilder json, HistoriaClinica hc) {
+        json.append('{');
+        Json.escribirCampo(json, "id", hc.getId());
+        json.append(',');
+        Json.escribirCampo(json, "version", hc.getVersion());
+        json.append(',');
+        Json.escribirCampo(json, "nroHistoria", hc.getNroHistoria());
+        json.append(',');
+        Json.escribirCampo(json, "grupoSanguineo",
+                hc.getGrupoSanguineo() != null ? hc.getGrupoSanguineo().getValor() : null);
+        json.append(',');
+        Json.escribirCampo(json, "antecedentes", hc.getAntecedentes());
+        json.append(',');
+        Json.escribirCampo(json, "medicacionActual", hc.getMedicacionActual());
+        json.append(',');
+        Json.escribirCampo(json, "observaciones", hc.getObservaciones());
+        json.append(',');
+        Json.escribirCampo(json, "idPaciente", hc.getIdPaciente());
+        json.append('}');
+    }
+
+    /**
+     * Arma un Paciente con los campos del JSON (sin historia clínica)
+     */
+    public static Paciente aPaciente(Map<String, Object> json) {
+        Paciente paciente = new Paciente();
+        paciente.setApellido(Json.texto(json, "apellido"));
+        paciente.setNombre(Json.texto(json, "nombre"));
+        paciente.setDni(Json.texto(json, "dni"));
+        paciente.setFechaNacimiento(aFecha(Json.texto(json, "fechaNacimiento")));
+        paciente.setVersion(aVersion(json));
+        return paciente;
+    }
+
+    /**
+     * Arma una HistoriaClinica con los campos del JSON
+     */
+    public static HistoriaClinica aHistoriaClinica(Map<String, Object> json) {
+        HistoriaClinica hc = new HistoriaClinica();
+        hc.setNroHistoria(Json.texto(json, "nroHistoria"));
+        String grupo = Json.texto(json, "grupoSanguineo");
+        if (grupo != null) {
+            try {
+                hc.setGrupoSanguineo(GrupoSanguineo.fromString(grupo));
+            } catch (IllegalArgumentException e) {
+                throw new ValidacionException(e.getMessage());
+            }
+        }
+        hc.setAntecedentes(Json.texto(json, "antecedentes"));
+        hc.setMedicacionActual(Json.texto(json, "medicacionActual"));
+        hc.setObservaciones(Json.texto(json, "observaciones"));
+        Object idPaciente = json.get("idPaciente");
+        if (idPaciente instanceof Number) {
+            hc.setIdPaciente(((Number) idPaciente).longValue());
+        } else if (idPaciente != null) {
+            throw new ValidacionException("El campo idPaciente debe ser numérico");
+        }
+        hc.setVersion(aVersion(json));
+        return hc;
+    }
+
+    /**
+     * Versión leída por el cliente (opcional): si se envía, el PUT falla con 409
+     * cuando el registro cambió desde esa versión
+     */
+    private static Integer aVersion(Map<String, Object> json) {
+        Object version = json.get("version");
+        if (version == null) {
+            return null;
+        }
+        if (!(version instanceof Number)) {
+            throw new ValidacionException("El campo version debe ser numérico");
+        }
+        return ((Number) version).intValue();
+    }
+
+    private static LocalDate aFecha(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new ValidacionException("Fecha inválida (se espera AAAA-MM-DD): " + valor);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package api;
+
+import util.Json;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de latencia por ruta de la API (cantidad, errores, promedio y máximo)
+ */
+public class MetricasHttp {
+
+    private final Map<String, MetricaRuta> porRuta = new ConcurrentHashMap<>();
+    private final LongAdder rechazadasPorCarga = new LongAdder();
+
+    /**
+     * Registra una solicitud atendida
+     *
+     * @param ruta el patrón de la ruta (por ejemplo "GET /pacientes/{id}")
+     * @param estado el código HTTP devuelto
+     * @param nanos la duración de la solicitud
+     */
+    public void registrar(String ruta, int estado, long nanos) {
+        porRuta.computeIfAbsent(ruta, r -> new MetricaRuta()).registrar(estado, nanos);
+    }
+
+    /**
+     * Registra una solicitud rechazada con 503 por superar el límite de concurrencia
+     */
+    public void registrarRechazo() {
+        rechazadasPorCarga.increment();
+    }
+
+    /**
+     * Métricas en formato JSON
+     */
+    public String aJson() {
+        StringBuilder json = new StringBuilder("{\"rechazadasPorCarga\":");
+        json.append(rechazadasPorCarga.sum()).append(",\"rutas\":{");
+        boolean primera = true;
+        for (Map.Entry<String, MetricaRuta> entrada : new TreeMap<>(porRuta).entrySet()) {
+            if (!primera) {
+                json.append(',');
+            }
+            primera = false;
+            MetricaRuta m = entrada.getValue();
+            long cantidad = m.cantidad.sum();
+            Json.escribirCadena(json, entrada.getKey());
+            json.append(":{\"cantidad\":").append(cantidad)
+                .append(",\"errores\":").append(m.errores.sum())
+                .append(",\"promedioMs\":").append(String.format(Locale.ROOT, "%.3f",
+                        cantidad == 0 ? 0.0 : m.nanosTotales.sum() / 1_000_000.0 / cantidad))
+                .append(",\"maximoMs\":").append(String.format(Locale.ROOT, "%.3f",
+                        m.nanosMaximo.get() / 1_000_000.0))
+                .append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    private static class MetricaRuta {
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder nanosTotales = new LongAdder();
+        private final AtomicLong nanosMaximo = new AtomicLong();
+
+        void registrar(int estado, long nanos) {
+            cantidad.increment();
+            if (estado >= 500) {
+                errores.increment();
+            }
+            nanosTotales.add(nanos);
+            nanosMaximo.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package api;
+
+import entities.HistoriaClinica;
+import exceptions.ValidacionException;
+import service.HistoriaClinicaService;
+
+/**
+ * Rutas de la API para historias clínicas
+ *
+ * GET    /historias?despuesDeId=&tamanio=   página de historias activas
+ * GET    /historias/buscar?q=&tamanio=    búsqueda por contenido clínico, por relevancia
+ * GET    /historias/{id}
+ * GET    /historias/nro/{nroHistoria}
+ * POST   /historias                         (requiere idPaciente)
+ * PUT    /historias/{id}
+ * DELETE /historias/{id}
+ */
+class RecursosHistoriaClinica {
+
+    private RecursosHistoriaClinica() {
+    }
+
+    static void registrar(ServidorHttp servidor, HistoriaClinicaService servicio) {
+        servidor.registrar("GET", "/historias", s -> Respuesta.ok(ConversorJson.paginaHistorias(
+            servicio.obtenerPagina(s.parametroConsultaLong("despuesDeId", null), RecursosPaciente.tamanioPagina(s)))));
+
+        // Antes de /historias/{id} para que "buscar" no se tome como un ID
+        servidor.registrar("GET", "/historias/buscar", s -> {
+            String consulta = s.parametroConsulta("q");
+            if (consulta == null || consulta.isBlank()) {
+                throw new ValidacionException("Falta el parámetro q con la búsqueda");
+            }
+            return Respuesta.ok(ConversorJson.listaHistorias(
+                servicio.buscarPorContenido(consulta, RecursosPaciente.tamanioPagina(s))));
+        });
+
+        servidor.registrar("GET", "/historias/{id}", s -> servicio.obtenerPorId(s.idRuta(0))
+            .map(hc -> Respuesta.ok(ConversorJson.historiaClinica(hc)))
+            .orElseGet(() -> Respuesta.noEncontrado("No existe una historia clínica con ID: " + s.parametroRuta(0))));
+
+        servidor.registrar("GET", "/historias/nro/{nro}", s -> servicio.buscarPorNumero(s.parametroRuta(0))
+            .map(hc -> Respuesta.ok(ConversorJson.historiaClinica(hc)))
+            .orElseGet(() -> Respuesta.noEncontrado("No existe una historia clínica con el número: " + s.parametroRuta(0))));
+
+        servidor.registrar("POST", "/historias", s -> {
+            HistoriaClinica hc = ConversorJson.aHistoriaClinica(s.cuerpoJson());
+            return Respuesta.creado(ConversorJson.historiaClinica(servicio.insertar(hc)));
+        });
+
+        servidor.registrar("PUT", "/historias/{id}", s -> {
+            HistoriaClinica hc = ConversorJson.aHistoriaClinica(s.cuerpoJson());
+            hc.setId(s.idRuta(0));
+            servicio.actualizar(hc);
+            return servicio.obtenerPorId(hc.getId())
+                .map(actual -> Respuesta.ok(ConversorJson.historiaClinica(actual)))
+                .orElseGet(() -> Respuesta.ok(ConversorJson.historiaClinica(hc)));
+        });
+
+        servidor.registrar("DELETE", "/historias/{id}", s -> {
+            servicio.eliminar(s.idRuta(0));
+            return Respuesta.sinContenido();
+        });
+    }
+}
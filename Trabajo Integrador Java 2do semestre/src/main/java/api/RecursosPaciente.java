@@ -0,0 +1,103 @@
+package api;
+
+import entities.HistoriaClinica;
+import entities.Paciente;
+import exceptions.ValidacionException;
+import service.IndiceNombresPacientes;
+import service.PacienteService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rutas de la API para pacientes
+ *
+ * GET    /pacientes?despuesDeId=&tamanio=   página de pacientes activos
+ * GET    /pacientes/buscar?q=&desde=&tamanio=  búsqueda por apellido y nombre (prefijos, tolera un error)
+ * GET    /pacientes/{id}
+ * GET    /pacientes/dni/{dni}
+ * POST   /pacientes                         (con "historiaClinica" crea ambos en una transacción)
+ * PUT    /pacientes/{id}
+ * DELETE /pacientes/{id}
+ */
+class RecursosPaciente {
+
+    static final int TAMANIO_PAGINA_POR_DEFECTO = 20;
+    static final int TAMANIO_PAGINA_MAXIMO = 500;
+
+    private RecursosPaciente() {
+    }
+
+    static void registrar(ServidorHttp servidor, PacienteService servicio) {
+        servidor.registrar("GET", "/pacientes", s -> Respuesta.ok(ConversorJson.paginaPacientes(
+            servicio.obtenerPagina(s.parametroConsultaLong("despuesDeId", null), tamanioPagina(s)))));
+
+        // Antes de /pacientes/{id} para que "buscar" no se tome como un ID
+        servidor.registrar("GET", "/pacientes/buscar", s -> {
+            String consulta = s.parametroConsulta("q");
+            if (consulta == null || consulta.isBlank()) {
+                throw new ValidacionException("Falta el parámetro q con la búsqueda");
+            }
+            long desde = s.parametroConsultaLong("desde", 0L);
+            if (desde < 0) {
+                throw new ValidacionException("El parámetro desde no puede ser negativo");
+            }
+            int tamanio = tamanioPagina(s);
+            // Se pide uno más para saber si hay otra página
+            List<IndiceNombresPacientes.Coincidencia> resultados =
+                servicio.buscarPorNombre(consulta, (int) Math.min(desde, Integer.MAX_VALUE), tamanio + 1);
+            return Respuesta.ok(ConversorJson.coincidenciasPacientes(resultados, tamanio));
+        });
+
+        servidor.registrar("GET", "/pacientes/{id}", s -> servicio.obtenerPorId(s.idRuta(0))
+            .map(p -> Respuesta.ok(ConversorJson.paciente(p)))
+            .orElseGet(() -> Respuesta.noEncontrado("No existe un paciente con ID: " + s.parametroRuta(0))));
+
+        servidor.registrar("GET", "/pacientes/dni/{dni}", s -> servicio.buscarPorDni(s.parametroRuta(0))
+            .map(p -> Respuesta.ok(ConversorJson.paciente(p)))
+            .orElseGet(() -> Respuesta.noEncontrado("No existe un paciente con DNI: " + s.parametroRuta(0))));
+
+        servidor.registrar("POST", "/pacientes", s -> {
+            Map<String, Object> json = s.cuerpoJson();
+            Paciente paciente = ConversorJson.aPaciente(json);
+            Object hcJson = json.get("historiaClinica");
+            Paciente creado;
+            if (hcJson instanceof Map) {
+                @SuppressWarnings("unchecked")
+                HistoriaClinica hc = ConversorJson.aHistoriaClinica((Map<String, Object>) hcJson);
+                creado = servicio.crearConHistoriaClinica(paciente, hc);
+            } else if (hcJson == null) {
+                creado = servicio.insertar(paciente);
+            } else {
+                throw new ValidacionException("El campo historiaClinica debe ser un objeto");
+            }
+            return Respuesta.creado(ConversorJson.paciente(creado));
+        });
+
+        servidor.registrar("PUT", "/pacientes/{id}", s -> {
+            Paciente paciente = ConversorJson.aPaciente(s.cuerpoJson());
+            paciente.setId(s.idRuta(0));
+            servicio.actualizar(paciente);
+            // Se vuelve a leer para devolver también la historia clínica
+            return servicio.obtenerPorId(paciente.getId())
+                .map(p -> Respuesta.ok(ConversorJson.paciente(p)))
+                .orElseGet(() -> Respuesta.ok(ConversorJson.paciente(paciente)));
+        });
+
+        servidor.registrar("DELETE", "/pacientes/{id}", s -> {
+            servicio.eliminar(s.idRuta(0));
+            return Respuesta.sinContenido();
+        });
+    }
+
+    /**
+     * Tamaño de página pedido (?tamanio=), acotado al máximo permitido
+     */
+    static int tamanioPagina(Solicitud solicitud) {
+        long tamanio = solicitud.parametroConsultaLong("tamanio", (long) TAMANIO_PAGINA_POR_DEFECTO);
+        if (tamanio < 1) {
+            throw new ValidacionException("El parámetro tamanio debe ser positivo");
+        }
+        return (int) Math.min(tamanio, TAMANIO_PAGINA_MAXIMO);
+    }
+}
@@ -0,0 +1,61 @@
+package api;
+
+import util.Json;
+
+/**
+ * Respuesta HTTP (JSON salvo que se indique otro tipo de contenido)
+ */
+public class Respuesta {
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    private final int estado;
+    private final String cuerpo;
+    private final String tipoContenido;
+
+    public Respuesta(int estado, String cuerpo) {
+        this(estado, cuerpo, TIPO_JSON);
+    }
+
+    public Respuesta(int estado, String cuerpo, String tipoContenido) {
+        this.estado = estado;
+        this.cuerpo = cuerpo;
+        this.tipoContenido = tipoContenido;
+    }
+
+    public static Respuesta ok(String json) {
+        return new Respuesta(200, json);
+    }
+
+    public static Respuesta creado(String json) {
+        return new Respuesta(201, json);
+    }
+
+    public static Respuesta sinContenido() {
+        return new Respuesta(204, null);
+    }
+
+    /**
+     * Respuesta de error con cuerpo {"error": "mensaje"}
+     */
+    public static Respuesta error(int estado, String mensaje) {
+        StringBuilder json = new StringBuilder("{");
+        Json.escribirCampo(json, "error", mensaje);
+        return new Respuesta(estado, json.append('}').toString());
+    }
+
+    public static Respuesta noEncontrado(String mensaje) {
+        return error(404, mensaje);
+    }
+
+    public int getEstado() {
+        return estado;
+    }
+
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+}
@@ -0,0 +1,299 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import config.DatabaseConnection;
+import config.SesionLectura;
+import exceptions.ConflictoConcurrenciaException;
+import exceptions.DatabaseException;
+import exceptions.ValidacionException;
+import metricas.RegistroMetricas;
+import service.HistoriaClinicaService;
+import service.PacienteService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor HTTP embebido (com.sun.net.httpserver) que expone los servicios como API JSON.
+ *
+ * Cada solicitud se atiende en su propio hilo virtual. Un semáforo limita la cantidad de
+ * solicitudes en proceso (para no superar lo que el pool de conexiones puede atender):
+ * si no se obtiene un permiso dentro de la espera máxima se responde 503.
+ *
+ * GET /metricas devuelve las métricas de la API en JSON y GET /metricas/prometheus
+ * todas las métricas de la aplicación (DAO, pool y HTTP) en formato Prometheus.
+ *
+ * El encabezado X-Sesion identifica al cliente para la lectura propia con réplicas (SesionLectura).
+ *
+ * Configuración opcional en database.properties:
+ * http.puerto (8080), http.maxConcurrencia (64), http.esperaMaximaMs (100)
+ */
+public class ServidorHttp {
+
+    private static final int TAMANIO_MAXIMO_CUERPO = 1024 * 1024;
+    private static final String ENCABEZADO_SESION = "X-Sesion";
+
+    /**
+     * Atiende una solicitud ya enrutada
+     */
+    @FunctionalInterface
+    public interface Manejador {
+        Respuesta manejar(Solicitud solicitud);
+    }
+
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final Semaphore permisos;
+    private final long esperaMaximaMs;
+    private final MetricasHttp metricas = new MetricasHttp();
+    private final List<Ruta> rutas = new ArrayList<>();
+
+    public ServidorHttp(int puerto, int maxConcurrencia, long esperaMaximaMs) throws IOException {
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.permisos = new Semaphore(Math.max(1, maxConcurrencia));
+        this.esperaMaximaMs = Math.max(0, esperaMaximaMs);
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/", this::atender);
+    }
+
+    /**
+     * Crea el servidor con la configuración de database.properties y registra todas las rutas
+     *
+     * @param puerto el puerto a usar, o null para tomarlo de http.puerto
+     */
+    public static ServidorHttp crear(Integer puerto) throws IOException {
+        ServidorHttp servidor = new ServidorHttp(
+            puerto != null ? puerto : DatabaseConnection.getPropiedadEntera("http.puerto", 8080),
+            DatabaseConnection.getPropiedadEntera("http.maxConcurrencia", 64),
+            DatabaseConnection.getPropiedadEntera("http.esperaMaximaMs", 100)
+        );
+        RecursosPaciente.registrar(servidor, new PacienteService());
+        RecursosHistoriaClinica.registrar(servidor, new HistoriaClinicaService());
+        servidor.registrar("GET", "/metricas", s -> Respuesta.ok(servidor.metricas.aJson()));
+        servidor.registrar("GET", "/metricas/prometheus", s -> new Respuesta(200,
+            RegistroMetricas.global().aPrometheus(), "text/plain; version=0.0.4; charset=utf-8"));
+        return servidor;
+    }
+
+    /**
+     * Registra una ruta. Los segmentos {nombre} del patrón se entregan en Solicitud.parametroRuta.
+     */
+    public void registrar(String metodo, String patron, Manejador manejador) {
+        rutas.add(new Ruta(metodo, patron, manejador));
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    public MetricasHttp getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Deja de aceptar solicitudes y espera hasta segundos a que terminen las que están en curso
+     */
+    public void detener(int segundos) {
+        servidor.stop(segundos);
+        ejecutor.shutdown();
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        long inicio = System.nanoTime();
+        String nombreRuta = "NO_ENCONTRADA";
+        Respuesta respuesta;
+
+        try {
+            boolean adquirido;
+            try {
+                adquirido = permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                adquirido = false;
+            }
+            if (!adquirido) {
+                metricas.registrarRechazo();
+                intercambio.getResponseHeaders().set("Retry-After", "1");
+                enviar(intercambio, Respuesta.error(503, "Servidor ocupado, reintente más tarde"));
+                return;
+            }
+
+            try {
+                String metodo = intercambio.getRequestMethod();
+                String ruta = normalizarRuta(intercambio.getRequestURI().getPath());
+                boolean rutaExiste = false;
+                respuesta = null;
+
+                for (Ruta candidata : rutas) {
+                    Matcher coincidencia = candidata.expresion.matcher(ruta);
+                    if (!coincidencia.matches()) {
+                        continue;
+                    }
+                    rutaExiste = true;
+                    if (!candidata.metodo.equals(metodo)) {
+                        continue;
+                    }
+                    nombreRuta = candidata.metodo + " " + candidata.patron;
+                    respuesta = ejecutar(candidata, coincidencia, intercambio);
+                    break;
+                }
+                if (respuesta == null) {
+                    respuesta = rutaExiste
+                            ? Respuesta.error(405, "Método no permitido: " + metodo)
+                            : Respuesta.noEncontrado("Ruta no encontrada: " + ruta);
+                }
+            } finally {
+                permisos.release();
+            }
+
+            enviar(intercambio, respuesta);
+            long duracion = System.nanoTime() - inicio;
+            metricas.registrar(nombreRuta, respuesta.getEstado(), duracion);
+            RegistroMetricas.global().registrar("http " + nombreRuta, duracion, respuesta.getEstado() >= 500);
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    private Respuesta ejecutar(Ruta ruta, Matcher coincidencia, HttpExchange intercambio) {
+        try {
+            List<String> parametrosRuta = new ArrayList<>(coincidencia.groupCount());
+            for (int i = 1; i <= coincidencia.groupCount(); i++) {
+                parametrosRuta.add(URLDecoder.decode(coincidencia.group(i), StandardCharsets.UTF_8));
+            }
+            Solicitud solicitud = new Solicitud(
+                intercambio.getRequestMethod(),
+                parametrosRuta,
+                leerConsulta(intercambio.getRequestURI().getRawQuery()),
+                leerCuerpo(intercambio)
+            );
+            // Leer lo propio con réplicas: las solicitudes con el mismo X-Sesion comparten la ventana
+            String sesion = intercambio.getRequestHeaders().getFirst(ENCABEZADO_SESION);
+            return SesionLectura.ejecutar(sesion, () -> ruta.manejador.manejar(solicitud));
+        } catch (RuntimeException e) {
+            return traducirError(e);
+        } catch (IOException e) {
+            return Respuesta.error(400, "No se pudo leer el cuerpo de la solicitud: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Convierte una excepción de los servicios en una respuesta HTTP.
+     * Los servicios a veces envuelven la ValidacionException en una DatabaseException,
+     * por eso se busca en toda la cadena de causas.
+     */
+    static Respuesta traducirError(RuntimeException e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ValidacionException) {
+                String mensaje = causa.getMessage();
+                int estado = mensaje != null && mensaje.startsWith("No existe") ? 404 : 400;
+                return Respuesta.error(estado, mensaje);
+            }
+            if (causa instanceof ConflictoConcurrenciaException) {
+                return Respuesta.error(409, causa.getMessage());
+            }
+            if (causa instanceof CuerpoDemasiadoGrandeException) {
+                return Respuesta.error(413, causa.getMessage());
+            }
+            if (causa.getCause() == causa) {
+                break;
+            }
+        }
+        if (e instanceof DatabaseException) {
+            return Respuesta.error(500, e.getMessage());
+        }
+        if (e instanceof IllegalArgumentException) {
+            return Respuesta.error(400, e.getMessage());
+        }
+        System.err.println("[HTTP] Error inesperado: " + e);
+        return Respuesta.error(500, "Error interno del servidor");
+    }
+
+    private static void enviar(HttpExchange intercambio, Respuesta respuesta) throws IOException {
+        if (respuesta.getCuerpo() == null) {
+            intercambio.sendResponseHeaders(respuesta.getEstado(), -1);
+            return;
+        }
+        byte[] cuerpo = respuesta.getCuerpo().getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", respuesta.getTipoContenido());
+        intercambio.sendResponseHeaders(respuesta.getEstado(), cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    private static String leerCuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            byte[] bytes = entrada.readNBytes(TAMANIO_MAXIMO_CUERPO + 1);
+            if (bytes.length > TAMANIO_MAXIMO_CUERPO) {
+                throw new CuerpoDemasiadoGrandeException();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> leerConsulta(String consulta) {
+        if (consulta == null || consulta.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parametros = new HashMap<>();
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nombre = igual >= 0 ? par.substring(0, igual) : par;
+            String valor = igual >= 0 ? par.substring(igual + 1) : "";
+            parametros.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static String normalizarRuta(String ruta) {
+        if (ruta.length() > 1 && ruta.endsWith("/")) {
+            return ruta.substring(0, ruta.length() - 1);
+        }
+        return ruta;
+    }
+
+    private static class Ruta {
+        private final String metodo;
+        private final String patron;
+        private final Pattern expresion;
+        private final Manejador manejador;
+
+        Ruta(String metodo, String patron, Manejador manejador) {
+            this.metodo = metodo;
+            this.patron = patron;
+            // Cada {nombre} del patrón captura un segmento de la ruta
+            this.expresion = Pattern.compile(patron.replaceAll("\\{[^/]+}", "([^/]+)"));
+            this.manejador = manejador;
+        }
+    }
+
+    private static class CuerpoDemasiadoGrandeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CuerpoDemasiadoGrandeException() {
+            super("El cuerpo de la solicitud supera el máximo de " + TAMANIO_MAXIMO_CUERPO + " bytes");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package api;
+
+import exceptions.ValidacionException;
+import util.Json;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Datos de una solicitud HTTP ya enrutada
+ */
+public class Solicitud {
+    private final String metodo;
+    private final List<String> parametrosRuta;
+    private final Map<String, String> parametrosConsulta;
+    private final String cuerpo;
+
+    public Solicitud(String metodo, List<String> parametrosRuta, Map<String, String> parametrosConsulta, String cuerpo) {
+        this.metodo = metodo;
+        this.parametrosRuta = parametrosRuta;
+        this.parametrosConsulta = parametrosConsulta;
+        this.cuerpo = cuerpo;
+    }
+
+    public String getMetodo() {
+        return metodo;
+    }
+
+    /**
+     * Valor del segmento variable número indice de la ruta (por ejemplo el {id} de /pacientes/{id})
+     */
+    public String parametroRuta(int indice) {
+        return parametrosRuta.get(indice);
+    }
+
+    /**
+     * Segmento variable de la ruta convertido a ID
+     *
+     * @throws ValidacionException si no es un número
+     */
+    public Long idRuta(int indice) {
+        String valor = parametroRuta(indice);
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new ValidacionException("ID inválido: " + valor);
+        }
+    }
+
+    public String parametroConsulta(String nombre) {
+        return parametrosConsulta.get(nombre);
+    }
+
+    /**
+     * Parámetro numérico de la consulta (?tamanio=20), o el valor por defecto si no está
+     */
+    public Long parametroConsultaLong(String nombre, Long porDefecto) {
+        String valor = parametrosConsulta.get(nombre);
+        if (valor == null || valor.isBlank()) {
+            return porDefecto;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new ValidacionException("El parámetro " + nombre + " debe ser numérico");
+        }
+    }
+
+    /**
+     * Cuerpo de la solicitud interpretado como objeto JSON
+     *
+     * @throws ValidacionException si el cuerpo está vacío o no es un objeto JSON
+     */
+    public Map<String, Object> cuerpoJson() {
+        if (cuerpo == null || cuerpo.isBlank()) {
+            throw new ValidacionException("El cuerpo de la solicitud es obligatorio");
+        }
+        try {
+            return Json.parsearObjeto(cuerpo);
+        } catch (IllegalArgumentException e) {
+            throw new ValidacionException("JSON inválido: " + e.getMessage());
+        }
+    }
+}
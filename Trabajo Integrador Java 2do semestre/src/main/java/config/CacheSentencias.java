@@ -0,0 +1,265 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de PreparedStatement de una conexión física del pool.
+ *
+ * Los DAO preparan siempre las mismas constantes SQL_*; con esta caché la sentencia
+ * se prepara (y con useServerPrepStmts se parsea en el servidor) una sola vez por
+ * conexión física. El close() de la sentencia entregada solo limpia los parámetros
+ * y la deja disponible para el siguiente prepareStatement con el mismo SQL.
+ *
+ * No es thread-safe: una conexión del pool la usa un único hilo a la vez.
+ */
+class CacheSentencias {
+
+    private final Connection real;
+    private final int tamanioMaximo;
+    private final LinkedHashMap<Clave, Entrada> entradas;
+
+    // Contadores compartidos por todas las conexiones del pool
+    private final AtomicLong aciertos;
+    private final AtomicLong fallos;
+
+    CacheSentencias(Connection real, int tamanioMaximo, AtomicLong aciertos, AtomicLong fallos) {
+        this.real = real;
+        this.tamanioMaximo = tamanioMaximo;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        // accessOrder = true para desalojar la sentencia usada hace más tiempo
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> mayor) {
+                if (size() > CacheSentencias.this.tamanioMaximo) {
+                    mayor.getValue().desalojar();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Indica si la llamada a prepareStatement se puede resolver desde la caché.
+     * Solo se cachean prepareStatement(sql) y prepareStatement(sql, autoGeneratedKeys);
+     * las variantes con tipo de ResultSet (streaming) se preparan siempre de nuevo.
+     */
+    static boolean esCacheable(Method metodo, Object[] args) {
+        if (!metodo.getName().equals("prepareStatement") || args == null) {
+            return false;
+        }
+        Class<?>[] tipos = metodo.getParameterTypes();
+        return (tipos.length == 1 && tipos[0] == String.class)
+            || (tipos.length == 2 && tipos[0] == String.class && tipos[1] == int.class);
+    }
+
+    /**
+     * Devuelve una sentencia para el SQL indicado, reutilizando la cacheada si está libre
+     *
+     * @param conexionProxy el proxy de la conexión, devuelto por getConnection() de la sentencia
+     */
+    PreparedStatement preparar(Connection conexionProxy, Object[] args) throws SQLException {
+        String sql = (String) args[0];
+        int clavesGeneradas = args.length > 1 ? (Integer) args[1] : -1;
+        Clave clave = new Clave(sql, clavesGeneradas);
+
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && entrada.desalojada) {
+            entradas.remove(clave);
+            entrada = null;
+        }
+        if (entrada != null && entrada.enUso) {
+            // La misma sentencia ya está abierta (por ejemplo, consultas anidadas): se prepara una aparte
+            fallos.incrementAndGet();
+            return prepararReal(sql, clavesGeneradas);
+        }
+        if (entrada == null) {
+            fallos.incrementAndGet();
+            entrada = new Entrada(prepararReal(sql, clavesGeneradas));
+            entradas.put(clave, entrada);
+        } else {
+            aciertos.incrementAndGet();
+        }
+
+        entrada.enUso = true;
+        return entrada.crearProxy(conexionProxy);
+    }
+
+    private PreparedStatement prepararReal(String sql, int clavesGeneradas) throws SQLException {
+        return clavesGeneradas >= 0 ? real.prepareStatement(sql, clavesGeneradas) : real.prepareStatement(sql);
+    }
+
+    /**
+     * Libera las sentencias que quedaron marcadas en uso al devolver la conexión
+     * (sentencias que el llamador no cerró)
+     */
+    void liberarTodas() {
+        for (Entrada entrada : entradas.values()) {
+            entrada.liberar();
+        }
+    }
+
+    /**
+     * Cierra todas las sentencias cacheadas (al cerrar la conexión física)
+     */
+    void cerrarTodas() {
+        List<Entrada> copia = new ArrayList<>(entradas.values());
+        entradas.clear();
+        for (Entrada entrada : copia) {
+            entrada.cerrarReal();
+        }
+    }
+
+    private static final class Clave {
+        private final String sql;
+        private final int clavesGeneradas;
+
+        Clave(String sql, int clavesGeneradas) {
+            this.sql = sql;
+            this.clavesGeneradas = clavesGeneradas;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Clave)) {
+                return false;
+            }
+            Clave otra = (Clave) o;
+            return clavesGeneradas == otra.clavesGeneradas && sql.equals(otra.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, clavesGeneradas);
+        }
+    }
+
+    /**
+     * Sentencia real cacheada
+     */
+    private static final class Entrada {
+        private final PreparedStatement sentencia;
+        private boolean enUso;
+        private boolean desalojada;
+        private ManejadorSentencia manejadorActual;
+
+        Entrada(PreparedStatement sentencia) {
+            this.sentencia = sentencia;
+        }
+
+        PreparedStatement crearProxy(Connection conexionProxy) {
+            manejadorActual = new ManejadorSentencia(this, conexionProxy);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                manejadorActual
+            );
+        }
+
+        /**
+         * Cierre lógico: deja la sentencia lista para reutilizar
+         */
+        void devolver() {
+            enUso = false;
+            manejadorActual = null;
+            if (desalojada) {
+                cerrarReal();
+                return;
+            }
+            try {
+                sentencia.clearParameters();
+                sentencia.clearBatch();
+            } catch (SQLException e) {
+                // Si no se puede limpiar se descarta; el próximo prepareStatement la vuelve a crear
+                desalojada = true;
+                cerrarReal();
+            }
+        }
+
+        void liberar() {
+            if (enUso && manejadorActual != null) {
+                manejadorActual.cerrada = true;
+                devolver();
+            }
+        }
+
+        void desalojar() {
+            desalojada = true;
+            if (!enUso) {
+                cerrarReal();
+            }
+        }
+
+        void cerrarReal() {
+            try {
+                sentencia.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la sentencia cacheada: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Intercepta las llamadas a la sentencia entregada al llamador
+     */
+    private static final class ManejadorSentencia implements InvocationHandler {
+        private final Entrada entrada;
+        private final Connection conexionProxy;
+        private boolean cerrada;
+
+        ManejadorSentencia(Entrada entrada, Connection conexionProxy) {
+            this.entrada = entrada;
+            this.conexionProxy = conexionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cerrada = true;
+                        entrada.devolver();
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada;
+                case "getConnection":
+                    return conexionProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SentenciaCacheada[" + entrada.sentencia + "]";
+                default:
+                    break;
+            }
+
+            if (cerrada) {
+                throw new SQLException("La sentencia ya fue cerrada");
+            }
+
+            try {
+                return metodo.invoke(entrada.sentencia, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package config;
+
+import java.util.Properties;
+
+/**
+ * Parámetros del pool de conexiones, leídos desde database.properties
+ *
+ * Claves soportadas (todas opcionales):
+ * db.pool.tamanioMinimo, db.pool.tamanioMaximo, db.pool.timeoutAdquisicionMs,
+ * db.pool.tiempoMaximoInactivoMs, db.pool.umbralFugaMs, db.pool.timeoutValidacionSeg,
+ * db.pool.periodoMantenimientoMs, db.pool.cacheSentencias (0 desactiva la caché de sentencias)
+ */
+public class ConfiguracionPool {
+
+    private int tamanioMinimo = 2;
+    private int tamanioMaximo = 10;
+    private long timeoutAdquisicionMs = 5000;
+    private long tiempoMaximoInactivoMs = 300000;
+    private long umbralFugaMs = 0;
+    private int timeoutValidacionSeg = 2;
+    private long periodoMantenimientoMs = 30000;
+    private int tamanioCacheSentencias = 50;
+
+    /**
+     * Construye la configuración a partir de las propiedades, usando valores por defecto
+     * para las claves ausentes
+     */
+    public static ConfiguracionPool desde(Properties propiedades) {
+        ConfiguracionPool config = new ConfiguracionPool();
+        config.tamanioMinimo = leerEntero(propiedades, "db.pool.tamanioMinimo", config.tamanioMinimo);
+        config.tamanioMaximo = leerEntero(propiedades, "db.pool.tamanioMaximo", config.tamanioMaximo);
+        config.timeoutAdquisicionMs = leerLong(propiedades, "db.pool.timeoutAdquisicionMs", config.timeoutAdquisicionMs);
+        config.tiempoMaximoInactivoMs = leerLong(propiedades, "db.pool.tiempoMaximoInactivoMs", config.tiempoMaximoInactivoMs);
+        config.umbralFugaMs = leerLong(propiedades, "db.pool.umbralFugaMs", config.umbralFugaMs);
+        config.timeoutValidacionSeg = leerEntero(propiedades, "db.pool.timeoutValidacionSeg", config.timeoutValidacionSeg);
+        config.periodoMantenimientoMs = leerLong(propiedades, "db.pool.periodoMantenimientoMs", config.periodoMantenimientoMs);
+        config.tamanioCacheSentencias = leerEntero(propiedades, "db.pool.cacheSentencias", config.tamanioCacheSentencias);
+
+        if (config.tamanioMaximo < 1) {
+            throw new IllegalArgumentException("db.pool.tamanioMaximo debe ser al menos 1");
+        }
+        if (config.tamanioMinimo < 0 || config.tamanioMinimo > config.tamanioMaximo) {
+            throw new IllegalArgumentException("db.pool.tamanioMinimo debe estar entre 0 y db.pool.tamanioMaximo");
+        }
+        return config;
+    }
+
+    static int leerEntero(Properties propiedades, String clave, int porDefecto) {
+        String valor = propiedades.getProperty(clave);
+        if (valor == null || valor.isBlank()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + clave + ": " + valor);
+        }
+    }
+
+    static long leerLong(Properties propiedades, String clave, long porDefecto) {
+        String valor = propiedades.getProperty(clave);
+        if (valor == null || valor.isBlank()) {
+            return porDefecto;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + clave + ": " + valor);
+        }
+    }
+
+    public int getTamanioMinimo() {
+        return tamanioMinimo;
+    }
+
+    public int getTamanioMaximo() {
+        return tamanioMaximo;
+    }
+
+    public long getTimeoutAdquisicionMs() {
+        return timeoutAdquisicionMs;
+    }
+
+    public long getTiempoMaximoInactivoMs() {
+        return tiempoMaximoInactivoMs;
+    }
+
+    public long getUmbralFugaMs() {
+        return umbralFugaMs;
+    }
+
+    public int getTimeoutValidacionSeg() {
+        return timeoutValidacionSeg;
+    }
+
+    public long getPeriodoMantenimientoMs() {
+        return periodoMantenimientoMs;
+    }
+
+    public int getTamanioCacheSentencias() {
+        return tamanioCacheSentencias;
+    }
+}
@@ -0,0 +1,410 @@
+package config;
+
+import exceptions.DatabaseException;
+import metricas.RegistroMetricas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ *
+ * Mantiene entre tamanioMinimo y tamanioMaximo conexiones físicas abiertas y
+ * entrega a los llamadores un proxy cuyo close() devuelve la conexión al pool
+ * en lugar de cerrarla. Incluye timeout de adquisición, desalojo de conexiones
+ * inactivas, validación al préstamo y detección de fugas.
+ *
+ * Cada conexión física guarda además una caché de PreparedStatement (ver CacheSentencias),
+ * de modo que las constantes SQL de los DAO se preparan una sola vez por conexión.
+ */
+public class ConnectionPool {
+
+    // Nombre de la métrica con el tiempo de obtención de conexiones
+    private static final String OPERACION_OBTENER = "pool.obtenerConexion";
+
+    private final String url;
+    private final Properties propiedadesConexion;
+    private final int tamanioMinimo;
+    private final int tamanioMaximo;
+    private final long timeoutAdquisicionMs;
+    private final long tiempoMaximoInactivoMs;
+    private final long umbralFugaMs;
+    private final int timeoutValidacionSeg;
+    private final int tamanioCacheSentencias;
+
+    private final Semaphore permisos;
+    private final LinkedBlockingDeque<ConexionFisica> disponibles = new LinkedBlockingDeque<>();
+    private final Set<ConexionFisica> prestadas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConexiones = new AtomicInteger();
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado = false;
+
+    // Contadores para las estadísticas
+    private final AtomicLong prestamos = new AtomicLong();
+    private final AtomicLong conexionesCreadas = new AtomicLong();
+    private final AtomicLong conexionesDestruidas = new AtomicLong();
+    private final AtomicLong timeoutsAdquisicion = new AtomicLong();
+    private final AtomicLong validacionesFallidas = new AtomicLong();
+    private final AtomicLong fugasDetectadas = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong sentenciasReutilizadas = new AtomicLong();
+    private final AtomicLong sentenciasPreparadas = new AtomicLong();
+
+    // Registro de consultas lentas (null si está desactivado)
+    private volatile MonitorConsultas monitorConsultas;
+
+    /**
+     * @param url la URL JDBC
+     * @param propiedadesConexion propiedades pasadas al driver (user, password y opciones del driver)
+     * @param configuracion parámetros del pool
+     */
+    public ConnectionPool(String url, Properties propiedadesConexion, ConfiguracionPool configuracion) {
+        this.url = url;
+        this.propiedadesConexion = propiedadesConexion;
+        this.tamanioMinimo = configuracion.getTamanioMinimo();
+        this.tamanioMaximo = configuracion.getTamanioMaximo();
+        this.timeoutAdquisicionMs = configuracion.getTimeoutAdquisicionMs();
+        this.tiempoMaximoInactivoMs = configuracion.getTiempoMaximoInactivoMs();
+        this.umbralFugaMs = configuracion.getUmbralFugaMs();
+        this.timeoutValidacionSeg = configuracion.getTimeoutValidacionSeg();
+        this.tamanioCacheSentencias = configuracion.getTamanioCacheSentencias();
+        this.permisos = new Semaphore(tamanioMaximo, true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "pool-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1000, configuracion.getPeriodoMantenimientoMs());
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre las conexiones mínimas configuradas
+     */
+    public void precalentar() {
+        while (totalConexiones.get() < tamanioMinimo) {
+            try {
+                disponibles.offerLast(crearConexionFisica());
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al inicializar el pool de conexiones: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Obtiene una conexión del pool, esperando como máximo el timeout de adquisición
+     *
+     * @return proxy de la conexión; al cerrarlo vuelve al pool
+     * @throws DatabaseException si no hay conexiones disponibles a tiempo o falla la conexión
+     */
+    public Connection obtenerConexion() {
+        if (cerrado) {
+            throw new DatabaseException("El pool de conexiones está cerrado");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(timeoutAdquisicionMs, TimeUnit.MILLISECONDS)) {
+                timeoutsAdquisicion.incrementAndGet();
+                RegistroMetricas.global().registrar(OPERACION_OBTENER, System.nanoTime() - inicio, true);
+                throw new DatabaseException("Tiempo de espera agotado al obtener una conexión del pool ("
+                        + timeoutAdquisicionMs + " ms, máximo " + tamanioMaximo + " conexiones)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrumpido mientras se esperaba una conexión del pool", e);
+        }
+
+        try {
+            ConexionFisica conexion = tomarConexionValida();
+            conexion.marcarPrestada();
+            prestadas.add(conexion);
+            prestamos.incrementAndGet();
+            long espera = System.nanoTime() - inicio;
+            esperaTotalNanos.addAndGet(espera);
+            RegistroMetricas.global().registrar(OPERACION_OBTENER, espera, false);
+            return conexion.crearProxy();
+        } catch (SQLException e) {
+            permisos.release();
+            RegistroMetricas.global().registrar(OPERACION_OBTENER, System.nanoTime() - inicio, true);
+            throw new DatabaseException("Error al conectar a la base de datos: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Toma una conexión ociosa válida o crea una nueva.
+     * Las conexiones que no pasan la validación se descartan.
+     */
+    private ConexionFisica tomarConexionValida() throws SQLException {
+        ConexionFisica conexion;
+        while ((conexion = disponibles.pollFirst()) != null) {
+            if (conexion.esValida()) {
+                return conexion;
+            }
+            validacionesFallidas.incrementAndGet();
+            destruir(conexion);
+        }
+        return crearConexionFisica();
+    }
+
+    private ConexionFisica crearConexionFisica() throws SQLException {
+        Connection real = DriverManager.getConnection(url, propiedadesConexion);
+        totalConexiones.incrementAndGet();
+        conexionesCreadas.incrementAndGet();
+        return new ConexionFisica(real);
+    }
+
+    /**
+     * Devuelve una conexión al pool (invocado desde el proxy al cerrarla)
+     */
+    private void devolver(ConexionFisica conexion) {
+        prestadas.remove(conexion);
+        try {
+            if (cerrado || !conexion.restablecer()) {
+                destruir(conexion);
+            } else {
+                // LIFO: la conexión usada más recientemente es la que se reutiliza primero,
+                // así las que sobran quedan inactivas y el mantenimiento las puede desalojar
+                disponibles.offerFirst(conexion);
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private void destruir(ConexionFisica conexion) {
+        totalConexiones.decrementAndGet();
+        conexionesDestruidas.incrementAndGet();
+        conexion.cerrarFisica();
+    }
+
+    /**
+     * Tarea periódica: desaloja conexiones inactivas por encima del mínimo
+     * y reporta conexiones prestadas por más tiempo que el umbral de fuga
+     */
+    private void mantener() {
+        long ahora = System.currentTimeMillis();
+
+        if (tiempoMaximoInactivoMs > 0) {
+            Iterator<ConexionFisica> it = disponibles.descendingIterator();
+            while (it.hasNext() && totalConexiones.get() > tamanioMinimo) {
+                ConexionFisica conexion = it.next();
+                if (ahora - conexion.ultimoUso > tiempoMaximoInactivoMs && disponibles.remove(conexion)) {
+                    destruir(conexion);
+                }
+            }
+        }
+
+        if (umbralFugaMs > 0) {
+            for (ConexionFisica conexion : prestadas) {
+                if (!conexion.fugaReportada && ahora - conexion.momentoPrestamo > umbralFugaMs) {
+                    conexion.fugaReportada = true;
+                    fugasDetectadas.incrementAndGet();
+                    System.err.println("[POOL] Posible fuga de conexión: prestada hace "
+                            + (ahora - conexion.momentoPrestamo) + " ms sin devolver. Obtenida en:");
+                    conexion.origenPrestamo.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Activa el registro de consultas lentas para las sentencias que se preparen a partir de ahora
+     */
+    void setMonitorConsultas(MonitorConsultas monitorConsultas) {
+        this.monitorConsultas = monitorConsultas;
+    }
+
+    /**
+     * Cierra todas las conexiones ociosas y detiene el mantenimiento.
+     * Las conexiones prestadas se cierran al ser devueltas.
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionFisica conexion;
+        while ((conexion = disponibles.pollFirst()) != null) {
+            destruir(conexion);
+        }
+    }
+
+    /**
+     * Devuelve una instantánea de las estadísticas del pool
+     */
+    public EstadisticasPool getEstadisticas() {
+        return new EstadisticasPool(
+            totalConexiones.get(),
+            prestadas.size(),
+            disponibles.size(),
+            permisos.getQueueLength(),
+            tamanioMaximo,
+            prestamos.get(),
+            conexionesCreadas.get(),
+            conexionesDestruidas.get(),
+            timeoutsAdquisicion.get(),
+            validacionesFallidas.get(),
+            fugasDetectadas.get(),
+            esperaTotalNanos.get(),
+            sentenciasReutilizadas.get(),
+            sentenciasPreparadas.get()
+        );
+    }
+
+    /**
+     * Conexión física administrada por el pool
+     */
+    private class ConexionFisica {
+        private final Connection real;
+        private volatile long ultimoUso = System.currentTimeMillis();
+        private volatile long momentoPrestamo;
+        private volatile Throwable origenPrestamo;
+        private volatile boolean fugaReportada;
+        private final CacheSentencias cacheSentencias;
+
+        ConexionFisica(Connection real) {
+            this.real = real;
+            this.cacheSentencias = tamanioCacheSentencias > 0
+                    ? new CacheSentencias(real, tamanioCacheSentencias, sentenciasReutilizadas, sentenciasPreparadas)
+                    : null;
+        }
+
+        void marcarPrestada() {
+            momentoPrestamo = System.currentTimeMillis();
+            fugaReportada = false;
+            origenPrestamo = umbralFugaMs > 0 ? new Throwable("Préstamo de conexión") : null;
+        }
+
+        boolean esValida() {
+            try {
+                return !real.isClosed() && real.isValid(timeoutValidacionSeg);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Deja la conexión lista para el próximo préstamo.
+         * Si quedó una transacción abierta se revierte.
+         *
+         * @return false si la conexión quedó inutilizable
+         */
+        boolean restablecer() {
+            try {
+                if (real.isClosed()) {
+                    return false;
+                }
+                if (cacheSentencias != null) {
+                    cacheSentencias.liberarTodas();
+                }
+                if (!real.getAutoCommit()) {
+                    real.rollback();
+                    real.setAutoCommit(true);
+                }
+                if (real.isReadOnly()) {
+                    real.setReadOnly(false);
+                }
+                real.clearWarnings();
+                ultimoUso = System.currentTimeMillis();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void cerrarFisica() {
+            if (cacheSentencias != null) {
+                cacheSentencias.cerrarTodas();
+            }
+            try {
+                real.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la conexión: " + e.getMessage());
+            }
+        }
+
+        Connection crearProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ManejadorConexion(this)
+            );
+        }
+    }
+
+    /**
+     * Intercepta las llamadas al proxy de la conexión.
+     * Cada préstamo tiene su propio manejador para que un proxy ya devuelto no pueda reutilizarse.
+     */
+    private class ManejadorConexion implements InvocationHandler {
+        private final ConexionFisica conexion;
+        private boolean devuelta = false;
+
+        ManejadorConexion(ConexionFisica conexion) {
+            this.conexion = conexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        devolver(conexion);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta || conexion.real.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionAgrupada[" + conexion.real + (devuelta ? ", devuelta" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (devuelta) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+
+            Object resultado;
+            if (conexion.cacheSentencias != null && CacheSentencias.esCacheable(metodo, args)) {
+                resultado = conexion.cacheSentencias.preparar((Connection) proxy, args);
+            } else {
+                try {
+                    resultado = metodo.invoke(conexion.real, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            MonitorConsultas monitor = monitorConsultas;
+            if (monitor != null && MonitorConsultas.esPreparacion(metodo, args)) {
+                return monitor.envolver((PreparedStatement) resultado, (String) args[0]);
+            }
+            return resultado;
+        }
+    }
+}
@@ -5,18 +5,33 @@ import exceptions.DatabaseException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Clase para gestionar la conexión a la base de datos
  * Lee la configuración desde el archivo database.properties
+ * Las conexiones se obtienen de un pool acotado (ver ConnectionPool)
+ *
+ * Si se configuran réplicas (db.replica.urls), las lecturas hechas dentro de
+ * leerDeReplica() se reparten entre ellas (ver EnrutadorReplicas); todo lo demás va al primario.
  */
 public class DatabaseConnection {
     
     private static Properties propiedades = new Properties();
     private static boolean cargado = false;
+    private static volatile ConnectionPool pool;
+    private static MonitorConsultas monitorConsultas;
+    private static volatile EnrutadorReplicas replicas;
+
+    // Marca del hilo que ejecuta una lectura que puede ir a una réplica
+    private static final ThreadLocal<Boolean> LECTURA_REPLICA = new ThreadLocal<>();
+    // Después de escribir, las lecturas de la misma sesión van al primario por este tiempo (SesionLectura)
+    private static volatile long ventanaLecturaPropiaNanos;
 
     // Bloque estático para cargar las propiedades al inicializar la clase
     static {
@@ -25,14 +40,17 @@ public class DatabaseConnection {
 
     /**
      * Carga las propiedades desde el archivo database.properties
+     * (o el recurso indicado con la propiedad de sistema db.config, por ejemplo en los benchmarks)
      */
     private static void cargarPropiedades() {
+        String recurso = System.getProperty("db.config", "database.properties");
+
         try (InputStream input = DatabaseConnection.class
                 .getClassLoader()
-                .getResourceAsStream("database.properties")) {
+                .getResourceAsStream(recurso)) {
             
             if (input == null) {
-                throw new DatabaseException("No se pudo encontrar el archivo database.properties");
+                throw new DatabaseException("No se pudo encontrar el archivo " + recurso);
             }
             
             propiedades.load(input);
@@ -42,33 +60,271 @@ public class DatabaseConnection {
             Class.forName(propiedades.getProperty("db.driver"));
             
         } catch (IOException e) {
-            throw new DatabaseException("Error al cargar database.properties", e);
+            throw new DatabaseException("Error al cargar " + recurso, e);
         } catch (ClassNotFoundException e) {
-            throw new DatabaseException("No se encontró el driver de MySQL", e);
+            throw new DatabaseException("No se encontró el driver JDBC: " + propiedades.getProperty("db.driver"), e);
         }
     }
 
     /**
-     * Obtiene una nueva conexión a la base de datos
+     * Obtiene una conexión del pool
+     * Al cerrarla (close) la conexión se devuelve al pool en lugar de cerrarse
+     * Dentro de PlantillaTransaccion devuelve la conexión de la transacción en curso
      * 
      * @return Connection objeto de conexión a la base de datos
-     * @throws DatabaseException si hay error al conectar
+     * @throws DatabaseException si hay error al conectar o se agota el tiempo de espera
      */
     public static Connection getConnection() {
+        // Dentro de PlantillaTransaccion se participa de la transacción en curso
+        Connection participante = PlantillaTransaccion.conexionParticipante();
+        if (participante != null) {
+            return participante;
+        }
+        if (LECTURA_REPLICA.get() != null) {
+            return getConnectionLectura();
+        }
+        return getPool().obtenerConexion();
+    }
+
+    /**
+     * Obtiene una conexión para una lectura: de una réplica sana en round-robin, o del
+     * primario si no hay réplicas configuradas, ninguna está disponible, el hilo está dentro
+     * de una transacción o su sesión (SesionLectura) escribió hace menos de
+     * db.replica.ventanaLecturaPropiaMs (así cada sesión lee lo que acaba de escribir aunque
+     * la réplica venga atrasada).
+     */
+    public static Connection getConnectionLectura() {
+        Connection participante = PlantillaTransaccion.conexionParticipante();
+        if (participante != null) {
+            return participante;
+        }
+        ConnectionPool primario = getPool();
+        EnrutadorReplicas enrutador = replicas;
+        if (enrutador == null) {
+            return primario.obtenerConexion();
+        }
+        if (!escrituraReciente()) {
+            Connection conexion = enrutador.obtenerConexion();
+            if (conexion != null) {
+                return conexion;
+            }
+        }
+        enrutador.registrarLecturaEnPrimario();
+        return primario.obtenerConexion();
+    }
+
+    /**
+     * Ejecuta una lectura cuyas conexiones (incluidas las que piden los DAO por su cuenta)
+     * se obtienen con getConnectionLectura(). La usan los métodos de solo lectura de los servicios.
+     */
+    public static <T> T leerDeReplica(Supplier<T> lectura) {
+        if (LECTURA_REPLICA.get() != null) {
+            return lectura.get();
+        }
+        LECTURA_REPLICA.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            LECTURA_REPLICA.remove();
+        }
+    }
+
+    /**
+     * Indica si las conexiones que pida ahora el hilo pueden venir de una réplica: está dentro de
+     * leerDeReplica(), hay réplicas configuradas, no participa de una transacción y su sesión no
+     * escribió recién. Lo leído así puede estar atrasado y no se debe guardar en cachés compartidas.
+     */
+    public static boolean puedeLeerDeReplica() {
+        return LECTURA_REPLICA.get() != null
+                && replicas != null
+                && PlantillaTransaccion.conexionParticipante() == null
+                && !escrituraReciente();
+    }
+
+    /**
+     * Registra que la sesión actual escribió en el primario. La llaman los DAO después de
+     * cada INSERT, UPDATE o lote; las lecturas no abren la ventana de lectura propia.
+     */
+    public static void registrarEscritura() {
+        long ventana = ventanaLecturaPropiaNanos;
+        if (replicas != null && ventana > 0) {
+            SesionLectura.registrarEscritura(ventana);
+        }
+    }
+
+    private static boolean escrituraReciente() {
+        long ventana = ventanaLecturaPropiaNanos;
+        return ventana > 0 && SesionLectura.escrituraReciente(ventana);
+    }
+
+    /**
+     * Devuelve el pool de conexiones, creándolo en el primer uso
+     */
+    private static ConnectionPool getPool() {
+        ConnectionPool actual = pool;
+        if (actual == null) {
+            synchronized (DatabaseConnection.class) {
+                if (pool == null) {
+                    if (!cargado) {
+                        cargarPropiedades();
+                    }
+                    pool = new ConnectionPool(
+                        propiedades.getProperty("db.url"),
+                        crearPropiedadesDriver(),
+                        ConfiguracionPool.desde(propiedades)
+                    );
+                    monitorConsultas = MonitorConsultas.desdeConfiguracion();
+                    pool.setMonitorConsultas(monitorConsultas);
+                    pool.precalentar();
+                    replicas = crearEnrutadorReplicas();
+                }
+                actual = pool;
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Crea el enrutador de lecturas si hay réplicas configuradas en db.replica.urls
+     * (URLs JDBC separadas por coma). Usuario y contraseña son los del primario salvo que se
+     * indiquen db.replica.username y db.replica.password.
+     */
+    private static EnrutadorReplicas crearEnrutadorReplicas() {
+        String urls = getPropiedad("db.replica.urls", null);
+        if (urls == null) {
+            return null;
+        }
+        List<String> listaUrls = Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        if (listaUrls.isEmpty()) {
+            return null;
+        }
+        ventanaLecturaPropiaNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(0, getPropiedadEntera("db.replica.ventanaLecturaPropiaMs", 5000)));
+        return new EnrutadorReplicas(
+            listaUrls,
+            crearPropiedadesDriver(
+                getPropiedad("db.replica.username", propiedades.getProperty("db.username")),
+                getPropiedad("db.replica.password", propiedades.getProperty("db.password"))),
+            ConfiguracionPool.desde(propiedades),
+            monitorConsultas,
+            getPropiedadEntera("db.replica.intervaloVerificacionMs", 5000),
+            getPropiedadEntera("db.replica.retrasoMaximoSeg", 0)
+        );
+    }
+
+    /**
+     * Arma las propiedades que se pasan al driver JDBC al abrir cada conexión física
+     */
+    private static Properties crearPropiedadesDriver() {
+        return crearPropiedadesDriver(propiedades.getProperty("db.username"), propiedades.getProperty("db.password"));
+    }
+
+    private static Properties crearPropiedadesDriver(String usuario, String password) {
+        Properties propiedadesDriver = new Properties();
+        if (usuario != null) {
+            propiedadesDriver.setProperty("user", usuario);
+        }
+        if (password != null) {
+            propiedadesDriver.setProperty("password", password);
+        }
+
+        // Permite que MySQL reescriba los lotes de INSERT como un único INSERT multi-fila
+        if (getPropiedadBooleana("db.batch.rewriteBatchedStatements", true)) {
+            propiedadesDriver.setProperty("rewriteBatchedStatements", "true");
+        }
+
+        // Sentencias preparadas en el servidor: junto con la caché del pool, cada SQL se parsea
+        // una sola vez por conexión y en las ejecuciones siguientes solo viajan los parámetros
+        if (getPropiedadBooleana("db.useServerPrepStmts", true)) {
+            propiedadesDriver.setProperty("useServerPrepStmts", "true");
+        }
+        return propiedadesDriver;
+    }
+
+    /**
+     * Cantidad de filas por lote en las inserciones masivas (db.batch.tamanioLote)
+     */
+    public static int getTamanioLote() {
+        int tamanio = getPropiedadEntera("db.batch.tamanioLote", 500);
+        return Math.max(1, tamanio);
+    }
+
+    /**
+     * Fetch size para las lecturas en modo streaming (db.stream.fetchSize).
+     * Por defecto Integer.MIN_VALUE, que en MySQL Connector/J entrega las filas de a una
+     * sin cargar el resultado completo en memoria. Con useCursorFetch=true en la URL
+     * se puede usar un valor positivo para traer bloques de ese tamaño.
+     */
+    public static int getFetchSizeStreaming() {
+        return getPropiedadEntera("db.stream.fetchSize", Integer.MIN_VALUE);
+    }
+
+    /**
+     * Devuelve las estadísticas actuales del pool de conexiones
+     */
+    public static EstadisticasPool getEstadisticasPool() {
+        return getPool().getEstadisticas();
+    }
+
+    /**
+     * Estado de las réplicas y reparto de las lecturas, o null si no hay réplicas configuradas
+     */
+    public static String getEstadoReplicas() {
+        getPool();
+        EnrutadorReplicas enrutador = replicas;
+        return enrutador != null ? enrutador.resumen() : null;
+    }
+
+    /**
+     * Cierra el pool y todas sus conexiones ociosas (también los pools de las réplicas)
+     */
+    public static synchronized void cerrarPool() {
+        if (pool != null) {
+            pool.cerrar();
+            pool = null;
+        }
+        if (replicas != null) {
+            replicas.cerrar();
+            replicas = null;
+        }
+        if (monitorConsultas != null) {
+            monitorConsultas.cerrar();
+            monitorConsultas = null;
+        }
+    }
+
+    /**
+     * Lee una propiedad de configuración
+     * 
+     * @param clave la clave en database.properties
+     * @param porDefecto el valor a usar si la clave no está definida
+     */
+    public static String getPropiedad(String clave, String porDefecto) {
         if (!cargado) {
             cargarPropiedades();
         }
+        String valor = propiedades.getProperty(clave);
+        return (valor == null || valor.isBlank()) ? porDefecto : valor.trim();
+    }
 
-        try {
-            String url = propiedades.getProperty("db.url");
-            String usuario = propiedades.getProperty("db.username");
-            String password = propiedades.getProperty("db.password");
-            
-            return DriverManager.getConnection(url, usuario, password);
-            
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al conectar a la base de datos: " + e.getMessage(), e);
+    /**
+     * Lee una propiedad de configuración numérica
+     */
+    public static int getPropiedadEntera(String clave, int porDefecto) {
+        if (!cargado) {
+            cargarPropiedades();
         }
+        return ConfiguracionPool.leerEntero(propiedades, clave, porDefecto);
+    }
+
+    /**
+     * Lee una propiedad de configuración booleana
+     */
+    public static boolean getPropiedadBooleana(String clave, boolean porDefecto) {
+        return Boolean.parseBoolean(getPropiedad(clave, String.valueOf(porDefecto)));
     }
 
     /**
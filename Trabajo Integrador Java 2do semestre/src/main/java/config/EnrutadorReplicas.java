@@ -0,0 +1,207 @@
+package config;
+
+import exceptions.DatabaseException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reparte las lecturas entre las réplicas configuradas en db.replica.urls.
+ *
+ * Cada réplica tiene su propio ConnectionPool. Las conexiones se piden en round-robin
+ * entre las réplicas sanas. Si el pool de la réplica no entrega una conexión a tiempo, esa
+ * lectura va al primario; una réplica que falla al conectar se marca como caída y la
+ * verificación periódica (db.replica.intervaloVerificacionMs) la vuelve a habilitar cuando
+ * responde. Con db.replica.retrasoMaximoSeg > 0 también se deshabilita la réplica cuyo
+ * retraso de replicación (SHOW REPLICA STATUS) supera ese valor.
+ *
+ * Si no hay ninguna réplica sana, obtenerConexion() devuelve null y DatabaseConnection
+ * usa el primario.
+ */
+class EnrutadorReplicas {
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger siguiente = new AtomicInteger();
+    private final int retrasoMaximoSeg;
+    private final ScheduledExecutorService verificador;
+
+    // Contadores para el resumen
+    private final AtomicLong lecturasReplica = new AtomicLong();
+    private final AtomicLong lecturasPrimario = new AtomicLong();
+
+    /**
+     * @param urls URLs JDBC de las réplicas
+     * @param propiedadesConexion propiedades pasadas al driver (user, password y opciones del driver)
+     * @param configuracion parámetros del pool de cada réplica
+     * @param monitorConsultas registro de consultas lentas (null si está desactivado)
+     */
+    EnrutadorReplicas(List<String> urls, Properties propiedadesConexion, ConfiguracionPool configuracion,
+                      MonitorConsultas monitorConsultas, long intervaloVerificacionMs, int retrasoMaximoSeg) {
+        this.retrasoMaximoSeg = retrasoMaximoSeg;
+        for (String url : urls) {
+            ConnectionPool pool = new ConnectionPool(url, propiedadesConexion, configuracion);
+            pool.setMonitorConsultas(monitorConsultas);
+            replicas.add(new Replica(url, pool));
+        }
+
+        this.verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "replicas-verificacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // La primera verificación es sincrónica para que las lecturas usen las réplicas desde el inicio
+        verificarTodas();
+        long periodo = Math.max(500, intervaloVerificacionMs);
+        verificador.scheduleWithFixedDelay(this::verificarTodas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtiene una conexión de la siguiente réplica sana
+     *
+     * @return la conexión, o null si ninguna réplica está disponible
+     */
+    Connection obtenerConexion() {
+        int cantidad = replicas.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Replica replica = replicas.get((inicio + i) % cantidad);
+            if (!replica.sana) {
+                continue;
+            }
+            try {
+                Connection conexion = replica.pool.obtenerConexion();
+                lecturasReplica.incrementAndGet();
+                return conexion;
+            } catch (DatabaseException e) {
+                if (!(e.getCause() instanceof SQLException)) {
+                    // Tiempo de espera agotado (la réplica está ocupada, no caída): esta lectura va al primario
+                    return null;
+                }
+                // No se pudo conectar o validar: hasta la próxima verificación no se le vuelven a pedir conexiones
+                marcarCaida(replica, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cuenta una lectura que se resolvió en el primario (sin réplicas sanas o por leer-lo-escrito)
+     */
+    void registrarLecturaEnPrimario() {
+        lecturasPrimario.incrementAndGet();
+    }
+
+    private void verificarTodas() {
+        for (Replica replica : replicas) {
+            try {
+                verificar(replica);
+            } catch (RuntimeException e) {
+                marcarCaida(replica, e.getMessage());
+            }
+        }
+    }
+
+    private void verificar(Replica replica) {
+        try (Connection conexion = replica.pool.obtenerConexion()) {
+            if (!conexion.isValid(2)) {
+                marcarCaida(replica, "la conexión no es válida");
+                return;
+            }
+            if (retrasoMaximoSeg > 0 && replica.controlarRetraso) {
+                Long retraso = leerRetraso(replica, conexion);
+                if (retraso == null) {
+                    marcarCaida(replica, "la replicación está detenida");
+                    return;
+                }
+                if (retraso > retrasoMaximoSeg) {
+                    marcarCaida(replica, "retraso de replicación de " + retraso + " s");
+                    return;
+                }
+            }
+            replica.sana = true;
+        } catch (SQLException e) {
+            marcarCaida(replica, e.getMessage());
+        }
+    }
+
+    /**
+     * Segundos de retraso de la réplica, o null si la replicación está detenida.
+     * Si el usuario no tiene permiso para consultarlo se deja de controlar el retraso.
+     */
+    private Long leerRetraso(Replica replica, Connection conexion) {
+        try (Statement sentencia = conexion.createStatement();
+             ResultSet rs = sentencia.executeQuery("SHOW REPLICA STATUS")) {
+            if (!rs.next()) {
+                // El servidor no está configurado como réplica: no hay retraso que controlar
+                replica.controlarRetraso = false;
+                return 0L;
+            }
+            long retraso = rs.getLong("Seconds_Behind_Source");
+            return rs.wasNull() ? null : retraso;
+        } catch (SQLException e) {
+            replica.controlarRetraso = false;
+            System.err.println("[REPLICAS] No se puede consultar el retraso de " + replica.url
+                    + ", se deja de controlar: " + e.getMessage());
+            return 0L;
+        }
+    }
+
+    private void marcarCaida(Replica replica, String motivo) {
+        if (replica.sana) {
+            System.err.println("[REPLICAS] Réplica fuera de servicio (" + replica.url + "): " + motivo);
+        }
+        replica.sana = false;
+    }
+
+    /**
+     * Estado de cada réplica y reparto de las lecturas
+     */
+    String resumen() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("lecturas en réplicas=").append(lecturasReplica.get())
+          .append(", lecturas en primario=").append(lecturasPrimario.get());
+        for (Replica replica : replicas) {
+            sb.append(System.lineSeparator())
+              .append("  ").append(replica.url)
+              .append(replica.sana ? " [sana] " : " [caída] ")
+              .append(replica.pool.getEstadisticas());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Detiene la verificación y cierra los pools de las réplicas
+     */
+    void cerrar() {
+        verificador.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.cerrar();
+        }
+    }
+
+    /**
+     * Una réplica y su pool
+     */
+    private static final class Replica {
+        private final String url;
+        private final ConnectionPool pool;
+        // Se la asume sana hasta la primera verificación (así se informa si arranca caída)
+        private volatile boolean sana = true;
+        private volatile boolean controlarRetraso = true;
+
+        Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+    }
+}
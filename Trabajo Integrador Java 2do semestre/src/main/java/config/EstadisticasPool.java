@@ -0,0 +1,127 @@
+package config;
+
+/**
+ * Instantánea de las estadísticas del pool de conexiones
+ */
+public class EstadisticasPool {
+    private final int conexionesTotales;
+    private final int conexionesEnUso;
+    private final int conexionesOciosas;
+    private final int hilosEsperando;
+    private final int tamanioMaximo;
+    private final long prestamos;
+    private final long conexionesCreadas;
+    private final long conexionesDestruidas;
+    private final long timeoutsAdquisicion;
+    private final long validacionesFallidas;
+    private final long fugasDetectadas;
+    private final long esperaTotalNanos;
+    private final long sentenciasReutilizadas;
+    private final long sentenciasPreparadas;
+
+    public EstadisticasPool(int conexionesTotales, int conexionesEnUso, int conexionesOciosas,
+                            int hilosEsperando, int tamanioMaximo, long prestamos,
+                            long conexionesCreadas, long conexionesDestruidas, long timeoutsAdquisicion,
+                            long validacionesFallidas, long fugasDetectadas, long esperaTotalNanos,
+                            long sentenciasReutilizadas, long sentenciasPreparadas) {
+        this.conexionesTotales = conexionesTotales;
+        this.conexionesEnUso = conexionesEnUso;
+        this.conexionesOciosas = conexionesOciosas;
+        this.hilosEsperando = hilosEsperando;
+        this.tamanioMaximo = tamanioMaximo;
+        this.prestamos = prestamos;
+        this.conexionesCreadas = conexionesCreadas;
+        this.conexionesDestruidas = conexionesDestruidas;
+        this.timeoutsAdquisicion = timeoutsAdquisicion;
+        this.validacionesFallidas = validacionesFallidas;
+        this.fugasDetectadas = fugasDetectadas;
+        this.esperaTotalNanos = esperaTotalNanos;
+        this.sentenciasReutilizadas = sentenciasReutilizadas;
+        this.sentenciasPreparadas = sentenciasPreparadas;
+    }
+
+    public int getConexionesTotales() {
+        return conexionesTotales;
+    }
+
+    public int getConexionesEnUso() {
+        return conexionesEnUso;
+    }
+
+    public int getConexionesOciosas() {
+        return conexionesOciosas;
+    }
+
+    public int getHilosEsperando() {
+        return hilosEsperando;
+    }
+
+    public int getTamanioMaximo() {
+        return tamanioMaximo;
+    }
+
+    public long getPrestamos() {
+        return prestamos;
+    }
+
+    public long getConexionesCreadas() {
+        return conexionesCreadas;
+    }
+
+    public long getConexionesDestruidas() {
+        return conexionesDestruidas;
+    }
+
+    public long getTimeoutsAdquisicion() {
+        return timeoutsAdquisicion;
+    }
+
+    public long getValidacionesFallidas() {
+        return validacionesFallidas;
+    }
+
+    public long getFugasDetectadas() {
+        return fugasDetectadas;
+    }
+
+    /**
+     * Cantidad de prepareStatement resueltos con una sentencia de la caché
+     */
+    public long getSentenciasReutilizadas() {
+        return sentenciasReutilizadas;
+    }
+
+    /**
+     * Cantidad de prepareStatement que tuvieron que preparar una sentencia nueva
+     */
+    public long getSentenciasPreparadas() {
+        return sentenciasPreparadas;
+    }
+
+    /**
+     * Tiempo promedio de espera para obtener una conexión, en milisegundos
+     */
+    public double getEsperaPromedioMs() {
+        return prestamos == 0 ? 0 : (esperaTotalNanos / 1_000_000.0) / prestamos;
+    }
+
+    @Override
+    public String toString() {
+        return "EstadisticasPool{" +
+                "totales=" + conexionesTotales +
+                ", enUso=" + conexionesEnUso +
+                ", ociosas=" + conexionesOciosas +
+                ", esperando=" + hilosEsperando +
+                ", maximo=" + tamanioMaximo +
+                ", prestamos=" + prestamos +
+                ", creadas=" + conexionesCreadas +
+                ", destruidas=" + conexionesDestruidas +
+                ", timeouts=" + timeoutsAdquisicion +
+                ", validacionesFallidas=" + validacionesFallidas +
+                ", fugas=" + fugasDetectadas +
+                ", sentenciasReutilizadas=" + sentenciasReutilizadas +
+                ", sentenciasPreparadas=" + sentenciasPreparadas +
+                ", esperaPromedioMs=" + String.format("%.3f", getEsperaPromedioMs()) +
+                '}';
+    }
+}
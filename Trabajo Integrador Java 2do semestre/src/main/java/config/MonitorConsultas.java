@@ -0,0 +1,494 @@
+package config;
+
+import util.BitacoraAsincrona;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Registro de consultas lentas.
+ *
+ * El pool envuelve cada PreparedStatement que entrega con este monitor. Se capturan los
+ * parámetros (set*), se mide la ejecución y, para las consultas, también el tiempo que se
+ * pasa recorriendo el ResultSet. Si la sentencia supera el umbral se registra con:
+ * el nombre de la constante SQL_* del DAO, los parámetros (los campos sensibles enmascarados),
+ * las filas devueltas o afectadas y el método del service que la originó.
+ *
+ * Las líneas se escriben en una BitacoraAsincrona, así el hilo de la solicitud nunca
+ * espera por el disco. Si no se supera el umbral el costo es solo el del proxy.
+ *
+ * Configuración en database.properties:
+ * db.consultasLentas.umbralMs (sin definir o negativo lo desactiva),
+ * db.consultasLentas.archivo (consultas-lentas.log), db.consultasLentas.capacidad (8192),
+ * db.consultasLentas.camposSensibles (columnas cuyos valores se enmascaran)
+ */
+class MonitorConsultas {
+
+    static final String CAMPOS_SENSIBLES_POR_DEFECTO =
+        "dni,nro_historia,grupo_sangre,antecedentes,medicacionActual,observaciones";
+
+    private static final int LARGO_MAXIMO_VALOR = 40;
+    private static final String OCULTO = "<oculto>";
+
+    private static final Pattern INSERT = Pattern.compile(
+        "^\\s*INSERT\\s+INTO\\s+\\S+\\s*\\(([^)]*)\\)\\s*VALUES\\s*\\(([^)]*)\\)",
+        Pattern.CASE_INSENSITIVE);
+    // columna = ?, columna > ?, columna LIKE ?, columna BETWEEN ? (AND ?)
+    private static final Pattern COMPARACION = Pattern.compile(
+        "([\\w.]+)\\s*(?:=|<>|!=|<=|>=|<|>|\\s+LIKE|\\s+BETWEEN|\\s+BETWEEN\\s+\\?\\s+AND)\\s*$",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern LIMIT = Pattern.compile("\\b(LIMIT|OFFSET)\\s*$", Pattern.CASE_INSENSITIVE);
+    // columna IN (?, ?, ...): el primer parámetro de la lista y los que siguen después de "?,"
+    private static final Pattern LISTA_IN = Pattern.compile("([\\w.]+)\\s+IN\\s*\\(\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SIGUIENTE_EN_LISTA = Pattern.compile("\\?\\s*,\\s*$");
+    // Lista expandida por dao.ListaIn, para encontrar la constante escrita como "IN (?)"
+    private static final Pattern LISTA_IN_EXPANDIDA = Pattern.compile("IN \\(\\?(?:, \\?)+\\)");
+
+    private static final StackWalker PILA = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final long umbralNanos;
+    private final Set<String> camposSensibles;
+    private final BitacoraAsincrona<ConsultaLenta> bitacora;
+
+    // Datos que dependen solo del texto SQL: se calculan la primera vez que se ve cada sentencia
+    private final Map<String, DescripcionSql> descripciones = new ConcurrentHashMap<>();
+
+    private MonitorConsultas(long umbralMs, Set<String> camposSensibles, BitacoraAsincrona<ConsultaLenta> bitacora) {
+        this.umbralNanos = umbralMs * 1_000_000L;
+        this.camposSensibles = camposSensibles;
+        this.bitacora = bitacora;
+    }
+
+    /**
+     * Crea el monitor según database.properties, o devuelve null si está desactivado
+     */
+    static MonitorConsultas desdeConfiguracion() {
+        int umbralMs = DatabaseConnection.getPropiedadEntera("db.consultasLentas.umbralMs", -1);
+        if (umbralMs < 0) {
+            return null;
+        }
+        Path archivo = Path.of(DatabaseConnection.getPropiedad("db.consultasLentas.archivo", "consultas-lentas.log"));
+        int capacidad = DatabaseConnection.getPropiedadEntera("db.consultasLentas.capacidad", 8192);
+        Set<String> sensibles = new HashSet<>();
+        for (String campo : DatabaseConnection.getPropiedad("db.consultasLentas.camposSensibles",
+                CAMPOS_SENSIBLES_POR_DEFECTO).split(",")) {
+            if (!campo.isBlank()) {
+                sensibles.add(campo.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        try {
+            return new MonitorConsultas(umbralMs, sensibles,
+                    new BitacoraAsincrona<>(archivo, capacidad, ConsultaLenta::aLinea));
+        } catch (IOException e) {
+            System.err.println("[CONSULTAS LENTAS] No se pudo abrir " + archivo + ", registro desactivado: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Indica si la llamada a la conexión prepara una sentencia que se debe monitorear
+     */
+    static boolean esPreparacion(Method metodo, Object[] args) {
+        return metodo.getName().equals("prepareStatement") && args != null && args[0] instanceof String;
+    }
+
+    /**
+     * Envuelve la sentencia preparada para medir sus ejecuciones
+     */
+    PreparedStatement envolver(PreparedStatement sentencia, String sql) {
+        DescripcionSql descripcion = descripciones.computeIfAbsent(sql, MonitorConsultas::describir);
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(),
+            new Class<?>[] { PreparedStatement.class },
+            new ManejadorSentencia(sentencia, descripcion)
+        );
+    }
+
+    long getDescartados() {
+        return bitacora.getDescartados();
+    }
+
+    void cerrar() {
+        bitacora.close();
+    }
+
+    /**
+     * Busca la constante SQL_* con este texto en las clases del paquete dao que están en la
+     * pila (el DAO que está preparando la sentencia) y ubica la columna de cada parámetro
+     */
+    private static DescripcionSql describir(String sql) {
+        String nombre = PILA.walk(frames -> frames
+                .map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(clase -> clase.getPackageName().equals("dao"))
+                .distinct()
+                .map(clase -> buscarConstante(clase, sql))
+                .filter(n -> n != null)
+                .findFirst()
+                .orElse(null));
+        if (nombre == null) {
+            String compacto = sql.replaceAll("\\s+", " ").trim();
+            nombre = compacto.length() > 60 ? compacto.substring(0, 60) + "..." : compacto;
+        }
+        return new DescripcionSql(nombre, columnasParametros(sql));
+    }
+
+    private static String buscarConstante(Class<?> clase, String sql) {
+        String constante = LISTA_IN_EXPANDIDA.matcher(sql).replaceAll("IN (?)");
+        for (Field campo : clase.getDeclaredFields()) {
+            int modificadores = campo.getModifiers();
+            if (!Modifier.isStatic(modificadores) || !Modifier.isFinal(modificadores)
+                    || campo.getType() != String.class || !campo.getName().startsWith("SQL_")) {
+                continue;
+            }
+            try {
+                campo.setAccessible(true);
+                if (constante.equals(campo.get(null))) {
+                    return clase.getSimpleName() + "." + campo.getName();
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Campo inaccesible: se sigue con el resto
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Nombre de columna de cada parámetro ? del SQL (índice 0 = parámetro 1), o null si no se
+     * puede deducir. Alcanza para las sentencias de los DAO: INSERT con lista de columnas y
+     * comparaciones "columna = ?" en SET / WHERE.
+     */
+    static String[] columnasParametros(String sql) {
+        int cantidad = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                cantidad++;
+            }
+        }
+        String[] columnas = new String[cantidad];
+
+        Matcher insert = INSERT.matcher(sql);
+        if (insert.find()) {
+            String[] nombres = insert.group(1).split(",");
+            String[] valores = insert.group(2).split(",");
+            int parametro = 0;
+            for (int i = 0; i < valores.length && parametro < cantidad; i++) {
+                if (valores[i].trim().equals("?")) {
+                    columnas[parametro++] = i < nombres.length ? sinAlias(nombres[i]) : null;
+                }
+            }
+            return columnas;
+        }
+
+        int parametro = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) != '?') {
+                continue;
+            }
+            String previo = sql.substring(Math.max(0, i - 80), i);
+            Matcher comparacion = COMPARACION.matcher(previo);
+            Matcher lista = LISTA_IN.matcher(previo);
+            Matcher limite = LIMIT.matcher(previo);
+            if (comparacion.find()) {
+                columnas[parametro] = sinAlias(comparacion.group(1));
+            } else if (lista.find()) {
+                columnas[parametro] = sinAlias(lista.group(1));
+            } else if (parametro > 0 && SIGUIENTE_EN_LISTA.matcher(previo).find()) {
+                columnas[parametro] = columnas[parametro - 1];
+            } else if (limite.find()) {
+                columnas[parametro] = limite.group(1).toLowerCase(Locale.ROOT);
+            }
+            parametro++;
+        }
+        return columnas;
+    }
+
+    private static String sinAlias(String columna) {
+        String limpia = columna.trim();
+        int punto = limpia.lastIndexOf('.');
+        return punto >= 0 ? limpia.substring(punto + 1) : limpia;
+    }
+
+    /**
+     * Representación de un parámetro para el log. Los valores de columnas sensibles se
+     * enmascaran, y también los textos cuya columna no se pudo deducir.
+     */
+    private String valorVisible(String columna, Object valor) {
+        if (valor == null) {
+            return "NULL";
+        }
+        boolean sensible = columna == null
+                ? valor instanceof CharSequence
+                : camposSensibles.contains(columna.toLowerCase(Locale.ROOT));
+        if (sensible) {
+            return OCULTO;
+        }
+        String texto = String.valueOf(valor);
+        if (texto.length() > LARGO_MAXIMO_VALOR) {
+            texto = texto.substring(0, LARGO_MAXIMO_VALOR) + "...";
+        }
+        return valor instanceof CharSequence ? "'" + texto + "'" : texto;
+    }
+
+    /**
+     * Primer método fuera de la capa de acceso a datos: normalmente el del service
+     */
+    private static String llamador() {
+        return PILA.walk(frames -> frames
+                .filter(frame -> {
+                    String paquete = frame.getDeclaringClass().getPackageName();
+                    return !paquete.equals("config") && !paquete.equals("dao") && !paquete.equals("metricas")
+                        && !paquete.startsWith("java.") && !paquete.startsWith("jdk.")
+                        && !paquete.startsWith("com.sun.");
+                })
+                .findFirst()
+                .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName()
+                        + ":" + frame.getLineNumber())
+                .orElse("desconocido"));
+    }
+
+    private static final class DescripcionSql {
+        private final String nombre;
+        private final String[] columnas;
+
+        DescripcionSql(String nombre, String[] columnas) {
+            this.nombre = nombre;
+            this.columnas = columnas;
+        }
+    }
+
+    /**
+     * Registro de una sentencia que superó el umbral; se formatea en el hilo de la bitácora
+     */
+    private static final class ConsultaLenta {
+        private final long momento;
+        private final long nanos;
+        private final String sql;
+        private final long filas;
+        private final int lote;
+        private final String parametros;
+        private final String llamador;
+
+        ConsultaLenta(long momento, long nanos, String sql, long filas, int lote, String parametros, String llamador) {
+            this.momento = momento;
+            this.nanos = nanos;
+            this.sql = sql;
+            this.filas = filas;
+            this.lote = lote;
+            this.parametros = parametros;
+            this.llamador = llamador;
+        }
+
+        String aLinea() {
+            StringBuilder linea = new StringBuilder(160);
+            linea.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(momento), ZoneId.systemDefault()))
+                 .append(String.format(Locale.ROOT, " duracion=%.1fms", nanos / 1_000_000.0))
+                 .append(" sql=").append(sql)
+                 .append(" filas=").append(filas >= 0 ? String.valueOf(filas) : "?");
+            if (lote > 0) {
+                linea.append(" lote=").append(lote);
+            }
+            return linea.append(" parametros=").append(parametros)
+                        .append(" llamador=").append(llamador)
+                        .toString();
+        }
+    }
+
+    /**
+     * Intercepta las llamadas a la sentencia entregada al DAO
+     */
+    private final class ManejadorSentencia implements InvocationHandler {
+        private final PreparedStatement sentencia;
+        private final DescripcionSql descripcion;
+        private final Map<Integer, Object> parametros = new TreeMap<>();
+        private int filasEnLote;
+
+        // Consulta en curso: se registra al cerrar su ResultSet (o la sentencia)
+        private long nanosConsulta = -1;
+        private long filasConsulta;
+
+        ManejadorSentencia(PreparedStatement sentencia, DescripcionSql descripcion) {
+            this.sentencia = sentencia;
+            this.descripcion = descripcion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            switch (nombre) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SentenciaMonitoreada[" + descripcion.nombre + "]";
+                case "close":
+                    terminarConsulta();
+                    break;
+                case "clearParameters":
+                    parametros.clear();
+                    break;
+                case "addBatch":
+                    if (args == null) {
+                        filasEnLote++;
+                    }
+                    break;
+                case "clearBatch":
+                    filasEnLote = 0;
+                    break;
+                default:
+                    if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                            && metodo.getParameterTypes()[0] == int.class) {
+                        parametros.put((Integer) args[0], nombre.equals("setNull") ? null : args[1]);
+                    }
+                    break;
+            }
+
+            if (!nombre.startsWith("execute")) {
+                return delegar(metodo, args);
+            }
+
+            terminarConsulta();
+            long inicio = System.nanoTime();
+            Object resultado = delegar(metodo, args);
+            long nanos = System.nanoTime() - inicio;
+
+            switch (nombre) {
+                case "executeQuery":
+                    nanosConsulta = nanos;
+                    filasConsulta = 0;
+                    return envolverResultado((ResultSet) resultado, proxy);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    registrarSiLenta(nanos, ((Number) resultado).longValue(), 0);
+                    break;
+                case "executeBatch":
+                    registrarSiLenta(nanos, sumar((int[]) resultado), filasEnLote);
+                    filasEnLote = 0;
+                    break;
+                case "executeLargeBatch":
+                    registrarSiLenta(nanos, sumar((long[]) resultado), filasEnLote);
+                    filasEnLote = 0;
+                    break;
+                default:
+                    registrarSiLenta(nanos, -1, 0);
+                    break;
+            }
+            return resultado;
+        }
+
+        private Object delegar(Method metodo, Object[] args) throws Throwable {
+            try {
+                return metodo.invoke(sentencia, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private ResultSet envolverResultado(ResultSet resultado, Object sentenciaProxy) {
+            return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "next": {
+                            long inicio = System.nanoTime();
+                            Object hay = delegarResultado(resultado, metodo, args);
+                            if (nanosConsulta >= 0) {
+                                nanosConsulta += System.nanoTime() - inicio;
+                                if ((Boolean) hay) {
+                                    filasConsulta++;
+                                }
+                            }
+                            return hay;
+                        }
+                        case "close":
+                            terminarConsulta();
+                            return delegarResultado(resultado, metodo, args);
+                        case "getStatement":
+                            return sentenciaProxy;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return delegarResultado(resultado, metodo, args);
+                    }
+                });
+        }
+
+        private Object delegarResultado(ResultSet resultado, Method metodo, Object[] args) throws Throwable {
+            try {
+                return metodo.invoke(resultado, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void terminarConsulta() {
+            if (nanosConsulta >= 0) {
+                long nanos = nanosConsulta;
+                nanosConsulta = -1;
+                registrarSiLenta(nanos, filasConsulta, 0);
+            }
+        }
+
+        private void registrarSiLenta(long nanos, long filas, int lote) {
+            if (nanos < umbralNanos) {
+                return;
+            }
+            bitacora.registrar(new ConsultaLenta(System.currentTimeMillis(), nanos, descripcion.nombre,
+                    filas, lote, describirParametros(), llamador()));
+        }
+
+        private String describirParametros() {
+            StringBuilder texto = new StringBuilder("[");
+            for (Map.Entry<Integer, Object> parametro : parametros.entrySet()) {
+                int indice = parametro.getKey();
+                String columna = indice >= 1 && indice <= descripcion.columnas.length
+                        ? descripcion.columnas[indice - 1] : null;
+                if (texto.length() > 1) {
+                    texto.append(", ");
+                }
+                texto.append(columna != null ? columna : String.valueOf(indice))
+                     .append('=').append(valorVisible(columna, parametro.getValue()));
+            }
+            return texto.append(']').toString();
+        }
+    }
+
+    private static long sumar(int[] cuentas) {
+        return sumar(Arrays.stream(cuentas).asLongStream().toArray());
+    }
+
+    private static long sumar(long[] cuentas) {
+        long total = 0;
+        for (long cuenta : cuentas) {
+            if (cuenta < 0) {
+                // Statement.SUCCESS_NO_INFO: el driver no informa las filas (lotes reescritos)
+                return -1;
+            }
+            total += cuenta;
+        }
+        return total;
+    }
+}
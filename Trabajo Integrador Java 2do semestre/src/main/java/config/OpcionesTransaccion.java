@@ -0,0 +1,80 @@
+package config;
+
+import java.sql.Connection;
+
+/**
+ * Opciones de una transacción ejecutada con PlantillaTransaccion.
+ * Es inmutable: cada método con* devuelve una copia modificada.
+ *
+ * OpcionesTransaccion.de("paciente.eliminar")
+ *     .conAislamiento(Connection.TRANSACTION_READ_COMMITTED)
+ *     .conReintentos(5)
+ */
+public final class OpcionesTransaccion {
+
+    private final String nombre;
+    private final Integer aislamiento;
+    private final boolean soloLectura;
+    private final int reintentos;
+
+    private OpcionesTransaccion(String nombre, Integer aislamiento, boolean soloLectura, int reintentos) {
+        this.nombre = nombre;
+        this.aislamiento = aislamiento;
+        this.soloLectura = soloLectura;
+        this.reintentos = reintentos;
+    }
+
+    /**
+     * Opciones por defecto: aislamiento del driver, lectura-escritura y
+     * db.transaccion.reintentosDeadlock reintentos (3)
+     *
+     * @param nombre nombre de la transacción en las métricas (transaccion.nombre)
+     */
+    public static OpcionesTransaccion de(String nombre) {
+        return new OpcionesTransaccion(nombre, null, false,
+                Math.max(0, DatabaseConnection.getPropiedadEntera("db.transaccion.reintentosDeadlock", 3)));
+    }
+
+    /**
+     * @param nivel una de las constantes Connection.TRANSACTION_*
+     */
+    public OpcionesTransaccion conAislamiento(int nivel) {
+        if (nivel != Connection.TRANSACTION_READ_UNCOMMITTED && nivel != Connection.TRANSACTION_READ_COMMITTED
+                && nivel != Connection.TRANSACTION_REPEATABLE_READ && nivel != Connection.TRANSACTION_SERIALIZABLE) {
+            throw new IllegalArgumentException("Nivel de aislamiento inválido: " + nivel);
+        }
+        return new OpcionesTransaccion(nombre, nivel, soloLectura, reintentos);
+    }
+
+    /**
+     * Marca la transacción como de solo lectura (el servidor puede evitar asignarle
+     * un ID de transacción y no registra deshacer)
+     */
+    public OpcionesTransaccion soloLectura() {
+        return new OpcionesTransaccion(nombre, aislamiento, true, reintentos);
+    }
+
+    /**
+     * Cantidad de veces que se repite la transacción completa si la base la aborta
+     * por deadlock o por espera de bloqueo agotada
+     */
+    public OpcionesTransaccion conReintentos(int reintentos) {
+        return new OpcionesTransaccion(nombre, aislamiento, soloLectura, Math.max(0, reintentos));
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Integer getAislamiento() {
+        return aislamiento;
+    }
+
+    public boolean isSoloLectura() {
+        return soloLectura;
+    }
+
+    public int getReintentos() {
+        return reintentos;
+    }
+}
@@ -0,0 +1,245 @@
+package config;
+
+import exceptions.DatabaseException;
+import metricas.RegistroMetricas;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ejecuta código dentro de una transacción: obtiene la conexión, desactiva autoCommit,
+ * hace commit o rollback y la devuelve al pool.
+ *
+ * La conexión queda ligada al hilo mientras dura la transacción: las llamadas a
+ * DatabaseConnection.getConnection() que se hagan dentro (por ejemplo, los métodos de los
+ * DAO que no reciben conexión) participan de la misma transacción en lugar de pedir otra
+ * conexión al pool. Una PlantillaTransaccion.ejecutar anidada también se une a la externa.
+ *
+ * Si la base aborta la transacción por deadlock (MySQL 1213, SQLState 40001) o por espera
+ * de bloqueo agotada (1205), se repite completa con espera exponencial. Cada transacción
+ * registra su duración en RegistroMetricas como "transaccion.nombre".
+ */
+public final class PlantillaTransaccion {
+
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final String SQLSTATE_SERIALIZACION = "40001";
+    private static final long ESPERA_BASE_MS = 10;
+
+    private static final RegistroMetricas METRICAS = RegistroMetricas.global();
+    private static final ThreadLocal<Ligadura> LIGADA = new ThreadLocal<>();
+
+    /**
+     * Código que se ejecuta dentro de la transacción
+     */
+    @FunctionalInterface
+    public interface Trabajo<T> {
+        T ejecutar(Connection conexion) throws SQLException;
+    }
+
+    private PlantillaTransaccion() {
+    }
+
+    /**
+     * Ejecuta el trabajo en una transacción con las opciones por defecto
+     */
+    public static <T> T ejecutar(String nombre, Trabajo<T> trabajo) {
+        return ejecutar(OpcionesTransaccion.de(nombre), trabajo);
+    }
+
+    /**
+     * Ejecuta el trabajo en una transacción. Si el hilo ya está dentro de una, se une a ella
+     * (las opciones de la externa son las que valen y el commit lo hace la externa).
+     *
+     * Las RuntimeException del trabajo (ValidacionException, etc.) se propagan sin envolver
+     * después del rollback; las SQLException se envuelven en DatabaseException.
+     */
+    public static <T> T ejecutar(OpcionesTransaccion opciones, Trabajo<T> trabajo) {
+        Ligadura enCurso = LIGADA.get();
+        if (enCurso != null) {
+            return participar(enCurso, opciones, trabajo);
+        }
+
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            for (int intento = 1; ; intento++) {
+                long inicioIntento = System.nanoTime();
+                try {
+                    T resultado = ejecutarUnaVez(opciones, trabajo);
+                    error = false;
+                    return resultado;
+                } catch (RuntimeException e) {
+                    if (intento > opciones.getReintentos() || !esReintentable(e)) {
+                        throw e;
+                    }
+                    METRICAS.registrar("transaccion." + opciones.getNombre() + ".reintento",
+                            System.nanoTime() - inicioIntento, true);
+                    esperar(intento);
+                }
+            }
+        } finally {
+            METRICAS.registrar("transaccion." + opciones.getNombre(), System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Indica si el hilo actual está dentro de una transacción
+     */
+    public static boolean enTransaccion() {
+        return LIGADA.get() != null;
+    }
+
+    /**
+     * Conexión de la transacción en curso para DatabaseConnection.getConnection(), o null
+     * si no hay ninguna. Es un proxy: close(), commit() y setAutoCommit() no tienen efecto
+     * (los maneja la transacción), y rollback() marca la transacción para deshacerse.
+     */
+    static Connection conexionParticipante() {
+        Ligadura ligadura = LIGADA.get();
+        if (ligadura == null) {
+            return null;
+        }
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, metodo, args) -> {
+                switch (metodo.getName()) {
+                    case "close":
+                    case "commit":
+                    case "setAutoCommit":
+                        return null;
+                    case "rollback":
+                        if (args == null) {
+                            ligadura.soloRollback = true;
+                            return null;
+                        }
+                        break;
+                    case "getAutoCommit":
+                        return false;
+                    case "isClosed":
+                        return LIGADA.get() != ligadura || ligadura.conexion.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        break;
+                }
+                try {
+                    return metodo.invoke(ligadura.conexion, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private static <T> T participar(Ligadura enCurso, OpcionesTransaccion opciones, Trabajo<T> trabajo) {
+        try {
+            return trabajo.ejecutar(enCurso.conexion);
+        } catch (SQLException e) {
+            enCurso.soloRollback = true;
+            throw new DatabaseException("Error en la transacción " + opciones.getNombre() + ": " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // La transacción externa no debe confirmar lo que hizo una parte que falló
+            enCurso.soloRollback = true;
+            throw e;
+        }
+    }
+
+    private static <T> T ejecutarUnaVez(OpcionesTransaccion opciones, Trabajo<T> trabajo) {
+        Connection conexion = DatabaseConnection.getConnection();
+        Ligadura ligadura = new Ligadura(conexion);
+        int aislamientoPrevio = -1;
+
+        try {
+            if (opciones.getAislamiento() != null) {
+                aislamientoPrevio = conexion.getTransactionIsolation();
+                conexion.setTransactionIsolation(opciones.getAislamiento());
+            }
+            if (opciones.isSoloLectura()) {
+                conexion.setReadOnly(true);
+            }
+            conexion.setAutoCommit(false);
+            LIGADA.set(ligadura);
+
+            T resultado = trabajo.ejecutar(conexion);
+
+            if (ligadura.soloRollback) {
+                throw new DatabaseException("La transacción " + opciones.getNombre()
+                        + " se deshizo porque una operación interna falló");
+            }
+            conexion.commit();
+            return resultado;
+
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conexion.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Error al hacer rollback: " + ex.getMessage());
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new DatabaseException("Error en la transacción " + opciones.getNombre() + ": " + e.getMessage(), e);
+
+        } finally {
+            LIGADA.remove();
+            // autoCommit y readOnly los restablece el pool al devolver la conexión
+            if (aislamientoPrevio >= 0) {
+                try {
+                    conexion.setTransactionIsolation(aislamientoPrevio);
+                } catch (SQLException e) {
+                    System.err.println("Error al restablecer el aislamiento: " + e.getMessage());
+                }
+            }
+            DatabaseConnection.cerrarConexion(conexion);
+        }
+    }
+
+    /**
+     * Busca en la cadena de causas un error de deadlock o de espera de bloqueo agotada
+     */
+    static boolean esReintentable(Throwable error) {
+        for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLException sql) {
+                if (sql instanceof SQLTransactionRollbackException
+                        || SQLSTATE_SERIALIZACION.equals(sql.getSQLState())
+                        || sql.getErrorCode() == ER_LOCK_DEADLOCK
+                        || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                    return true;
+                }
+            }
+            if (causa.getCause() == causa) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static void esperar(int intento) {
+        long base = ESPERA_BASE_MS << Math.min(intento - 1, 6);
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Reintento de transacción interrumpido", e);
+        }
+    }
+
+    /**
+     * Conexión de la transacción en curso en el hilo
+     */
+    private static final class Ligadura {
+        private final Connection conexion;
+        private boolean soloRollback;
+
+        Ligadura(Connection conexion) {
+            this.conexion = conexion;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package config;
+
+import exceptions.DatabaseException;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Revisión de los planes de ejecución de las consultas de los DAO.
+ *
+ * Toma las constantes SQL_* de cada clase, reemplaza los parámetros por valores de ejemplo
+ * según la columna con la que se comparan (MonitorConsultas.columnasParametros) y ejecuta
+ * EXPLAIN. Se informa como problema:
+ * - un recorrido completo de tabla (type ALL) o de índice (type index)
+ * - un ordenamiento en memoria (Using filesort)
+ *
+ * Las consultas sin parámetros en el WHERE (SQL_SELECT_ALL) leen todas las filas activas a
+ * propósito: el recorrido completo de la tabla principal se informa pero no cuenta como problema.
+ * Los INSERT no leen filas y no se revisan.
+ *
+ * Con pocas filas el optimizador prefiere recorrer la tabla aunque haya un índice, así que
+ * conviene ejecutarlo contra una base con un volumen parecido al de producción.
+ * Con H2 (benchmarks) se busca "tableScan" en el texto del plan.
+ */
+public final class RevisorPlanes {
+
+    private static final Pattern INSERT = Pattern.compile("^\\s*INSERT\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE_CON_PARAMETROS = Pattern.compile("\\bWHERE\\b.*\\?",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    // Valor de ejemplo por columna; las fechas de un BETWEEN usan el primero y el segundo
+    private static final Map<String, List<String>> VALORES_EJEMPLO = Map.of(
+        "dni", List.of("'30000000'"),
+        "nro_historia", List.of("'HC-00001'"),
+        "apellido", List.of("'Perez'"),
+        "nombre", List.of("'Juan'"),
+        "fecha_nac", List.of("'1980-01-01'", "'2000-12-31'"),
+        "grupo_sangre", List.of("'A+'"),
+        "eliminado", List.of("false"),
+        "limit", List.of("20"),
+        "offset", List.of("0")
+    );
+    private static final String NUMERO_POR_DEFECTO = "1";
+    private static final String TEXTO_POR_DEFECTO = "'x'";
+
+    private RevisorPlanes() {
+    }
+
+    /**
+     * Ejecuta EXPLAIN sobre cada constante SQL_* de las clases indicadas e imprime el resultado
+     *
+     * @return la cantidad de consultas con algún problema en el plan
+     */
+    public static int revisar(PrintStream salida, Class<?>... clasesDao) {
+        int conProblemas = 0;
+        Connection conexion = DatabaseConnection.getConnection();
+        try (Statement sentencia = conexion.createStatement()) {
+            for (Class<?> clase : clasesDao) {
+                salida.println(clase.getSimpleName() + ":");
+                for (Map.Entry<String, String> constante : constantesSql(clase).entrySet()) {
+                    String sql = constante.getValue();
+                    if (INSERT.matcher(sql).find()) {
+                        salida.println("  --  " + constante.getKey() + " (INSERT, no se revisa)");
+                        continue;
+                    }
+                    Plan plan = explicar(sentencia, sql);
+                    if (!plan.problemas.isEmpty()) {
+                        conProblemas++;
+                    }
+                    salida.println((plan.problemas.isEmpty() ? "  OK  " : "  !!  ") + constante.getKey()
+                            + "  " + String.join(", ", plan.accesos));
+                    for (String problema : plan.problemas) {
+                        salida.println("        " + problema);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error al revisar los planes de ejecución: " + e.getMessage(), e);
+        } finally {
+            DatabaseConnection.cerrarConexion(conexion);
+        }
+        return conProblemas;
+    }
+
+    /**
+     * Constantes SQL_* de la clase en el orden en que están declaradas
+     */
+    static Map<String, String> constantesSql(Class<?> clase) {
+        Map<String, String> constantes = new LinkedHashMap<>();
+        for (Field campo : clase.getDeclaredFields()) {
+            int modificadores = campo.getModifiers();
+            if (!Modifier.isStatic(modificadores) || !Modifier.isFinal(modificadores)
+                    || campo.getType() != String.class || !campo.getName().startsWith("SQL_")) {
+                continue;
+            }
+            try {
+                campo.setAccessible(true);
+                constantes.put(campo.getName(), (String) campo.get(null));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Campo inaccesible: se sigue con el resto
+            }
+        }
+        return constantes;
+    }
+
+    /**
+     * El SQL con cada ? reemplazado por un literal de ejemplo
+     */
+    static String conValoresEjemplo(String sql) {
+        String[] columnas = MonitorConsultas.columnasParametros(sql);
+        StringBuilder resultado = new StringBuilder(sql.length() + 16 * columnas.length);
+        int parametro = 0;
+        String columnaAnterior = null;
+        int repeticion = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c != '?') {
+                resultado.append(c);
+                continue;
+            }
+            String columna = columnas[parametro++];
+            String clave = columna != null ? columna.toLowerCase(Locale.ROOT) : null;
+            // Segundo parámetro seguido de la misma columna: el extremo superior de un BETWEEN
+            repeticion = clave != null && clave.equals(columnaAnterior) ? repeticion + 1 : 0;
+            columnaAnterior = clave;
+
+            List<String> valores = clave != null ? VALORES_EJEMPLO.get(clave) : null;
+            if (valores != null) {
+                resultado.append(valores.get(Math.min(repeticion, valores.size() - 1)));
+            } else if (clave != null && (clave.equals("id") || clave.startsWith("id_") || clave.equals("version"))) {
+                resultado.append(NUMERO_POR_DEFECTO);
+            } else {
+                resultado.append(TEXTO_POR_DEFECTO);
+            }
+        }
+        return resultado.toString();
+    }
+
+    private static Plan explicar(Statement sentencia, String sql) throws SQLException {
+        boolean lecturaCompleta = !WHERE_CON_PARAMETROS.matcher(sql).find();
+        Plan plan = new Plan();
+        try (ResultSet rs = sentencia.executeQuery("EXPLAIN " + conValoresEjemplo(sql))) {
+            if (tieneColumna(rs.getMetaData(), "type")) {
+                leerPlanMysql(rs, lecturaCompleta, plan);
+            } else {
+                leerPlanTexto(rs, lecturaCompleta, plan);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Una fila por tabla: table, type, key, rows, Extra
+     */
+    private static void leerPlanMysql(ResultSet rs, boolean lecturaCompleta, Plan plan) throws SQLException {
+        boolean primera = true;
+        while (rs.next()) {
+            String tabla = rs.getString("table");
+            String tipo = rs.getString("type");
+            String indice = rs.getString("key");
+            long filas = rs.getLong("rows");
+            String extra = rs.getString("Extra");
+
+            plan.accesos.add(tabla + ": " + tipo + (indice != null ? " (" + indice + ")" : "") + " ~" + filas + " filas");
+
+            boolean recorridoCompleto = "ALL".equals(tipo) || "index".equals(tipo);
+            if (recorridoCompleto && !(lecturaCompleta && primera)) {
+                plan.problemas.add(("ALL".equals(tipo) ? "recorrido completo de " : "recorrido completo del índice de ")
+                        + tabla + (extra != null ? " [" + extra + "]" : ""));
+            }
+            if (extra != null && extra.contains("Using filesort")) {
+                plan.problemas.add("ordenamiento en memoria de " + tabla + " (Using filesort)");
+            }
+            primera = false;
+        }
+    }
+
+    /**
+     * Plan en texto libre (H2): se marca el primer tableScan salvo en las lecturas completas
+     */
+    private static void leerPlanTexto(ResultSet rs, boolean lecturaCompleta, Plan plan) throws SQLException {
+        StringBuilder texto = new StringBuilder();
+        while (rs.next()) {
+            texto.append(rs.getString(1)).append(' ');
+        }
+        String compacto = texto.toString().replaceAll("\\s+", " ").trim();
+        plan.accesos.add(compacto);
+
+        int recorridos = 0;
+        for (int i = compacto.indexOf("tableScan"); i >= 0; i = compacto.indexOf("tableScan", i + 1)) {
+            recorridos++;
+        }
+        if (lecturaCompleta && recorridos > 0) {
+            recorridos--;
+        }
+        if (recorridos > 0) {
+            plan.problemas.add(recorridos + " recorrido(s) completo(s) de tabla (tableScan)");
+        }
+    }
+
+    private static boolean tieneColumna(ResultSetMetaData metadatos, String nombre) throws SQLException {
+        for (int i = 1; i <= metadatos.getColumnCount(); i++) {
+            if (nombre.equalsIgnoreCase(metadatos.getColumnLabel(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accesos a cada tabla y problemas encontrados en el plan de una consulta
+     */
+    private static final class Plan {
+        private final List<String> accesos = new ArrayList<>();
+        private final List<String> problemas = new ArrayList<>();
+    }
+}
@@ -0,0 +1,90 @@
+package config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Sesiones para la garantía "leer lo propio" cuando hay réplicas de lectura.
+ *
+ * Cada escritura de los DAO registra el momento en la sesión actual y, durante
+ * db.replica.ventanaLecturaPropiaMs, las lecturas de esa misma sesión van al primario.
+ * La sesión no es el hilo: se liga con ejecutar() mientras dura una tarea, así la marca
+ * vale para las solicitudes siguientes del mismo cliente (la API usa el encabezado X-Sesion)
+ * y no pasa a tareas ajenas que reutilicen el hilo (EjecutorAsincrono liga en cada tarea la
+ * sesión de quien la envió).
+ *
+ * El código que no ligó ninguna sesión (el menú, la línea de comandos, las solicitudes HTTP
+ * sin X-Sesion) comparte la sesión del proceso: después de cualquiera de esas escrituras,
+ * todas esas lecturas van al primario durante la ventana.
+ */
+public final class SesionLectura {
+
+    // Sesión del código que no ligó ninguna
+    private static final String DEL_PROCESO = "";
+    // Por encima de esta cantidad de sesiones se descartan las que ya salieron de la ventana
+    private static final int LIMPIAR_DESDE = 1024;
+
+    private static final ThreadLocal<String> ACTUAL = new ThreadLocal<>();
+    // Momento (System.nanoTime) de la última escritura de cada sesión
+    private static final Map<String, Long> ULTIMAS_ESCRITURAS = new ConcurrentHashMap<>();
+
+    private SesionLectura() {
+    }
+
+    /**
+     * Ejecuta la tarea con la sesión indicada ligada al hilo; al terminar se restaura la anterior
+     *
+     * @param sesion identificador de la sesión (null o vacío = sesión del proceso)
+     */
+    public static <T> T ejecutar(String sesion, Supplier<T> tarea) {
+        String anterior = ACTUAL.get();
+        if (sesion == null || sesion.isBlank()) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(sesion.trim());
+        }
+        try {
+            return tarea.get();
+        } finally {
+            if (anterior != null) {
+                ACTUAL.set(anterior);
+            } else {
+                ACTUAL.remove();
+            }
+        }
+    }
+
+    /**
+     * La sesión ligada al hilo, o null si corre con la sesión del proceso
+     */
+    public static String actual() {
+        return ACTUAL.get();
+    }
+
+    static void registrarEscritura(long ventanaNanos) {
+        long ahora = System.nanoTime();
+        ULTIMAS_ESCRITURAS.put(clave(), ahora);
+        if (ULTIMAS_ESCRITURAS.size() > LIMPIAR_DESDE) {
+            ULTIMAS_ESCRITURAS.values().removeIf(momento -> ahora - momento >= ventanaNanos);
+        }
+    }
+
+    static boolean escrituraReciente(long ventanaNanos) {
+        String clave = clave();
+        Long ultima = ULTIMAS_ESCRITURAS.get(clave);
+        if (ultima == null) {
+            return false;
+        }
+        if (System.nanoTime() - ultima < ventanaNanos) {
+            return true;
+        }
+        ULTIMAS_ESCRITURAS.remove(clave, ultima);
+        return false;
+    }
+
+    private static String clave() {
+        String sesion = ACTUAL.get();
+        return sesion != null ? sesion : DEL_PROCESO;
+    }
+}
@@ -0,0 +1,113 @@
+package dao;
+
+import config.DatabaseConnection;
+import entities.HistoriaClinica;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Carga diferida de las historias clínicas de los pacientes leídos con EstrategiaCarga.DIFERIDA
+ *
+ * PacienteDao crea una por lectura (un paciente, una página, una lista o un stream) y registra
+ * el ID de la historia de cada paciente. El primer getHistoriaClinica() de cualquiera de ellos
+ * lee con una sola consulta (HistoriaClinicaDao.leerPorIds) su historia y las demás pendientes
+ * del grupo, hasta LOTE_MAXIMO; los siguientes accesos ya las encuentran leídas.
+ *
+ * Las pendientes se limitan a las LOTE_MAXIMO más recientes para que recorrer un stream largo
+ * no acumule IDs: la historia de un paciente que quedó afuera se lee sola cuando se accede.
+ *
+ * Las historias se leen de donde se leyeron los pacientes: de una réplica solo si la lectura
+ * de los pacientes podía ir a una réplica. Un paciente leído del primario (por ejemplo, después
+ * de una escritura de la misma sesión) no ve su historia a través de una réplica atrasada.
+ */
+class CargaDiferidaHistorias {
+
+    static final int LOTE_MAXIMO = ListaIn.TAMANIO_MAXIMO;
+
+    private final HistoriaClinicaDao dao;
+    // La lectura de los pacientes podía ir a una réplica (DatabaseConnection.puedeLeerDeReplica)
+    private final boolean desdeReplica;
+    private final LinkedHashSet<Long> pendientes = new LinkedHashSet<>();
+    // Historias ya leídas que todavía no pidió su paciente (null: se dio de baja entre tanto)
+    private final Map<Long, HistoriaClinica> leidas = new HashMap<>();
+
+    /**
+     * Se crea dentro de la lectura de los pacientes, junto con la conexión que usa: ahí se toma de
+     * dónde se leen. Los streams mapean sus filas después de que el servicio salió de leerDeReplica,
+     * así que registrar() ya no lo sabría.
+     */
+    CargaDiferidaHistorias(HistoriaClinicaDao dao) {
+        this.dao = dao;
+        this.desdeReplica = DatabaseConnection.puedeLeerDeReplica();
+    }
+
+    /**
+     * Registra la historia de un paciente recién leído
+     *
+     * @return el cargador para Paciente.setCargadorHistoriaClinica
+     */
+    synchronized Supplier<HistoriaClinica> registrar(long idHistoria) {
+        pendientes.add(idHistoria);
+        if (pendientes.size() > LOTE_MAXIMO) {
+            Iterator<Long> masAntigua = pendientes.iterator();
+            masAntigua.next();
+            masAntigua.remove();
+        }
+        return new Referencia(this, idHistoria);
+    }
+
+    /**
+     * Devuelve la historia pedida; si todavía no se leyó, la lee junto con las pendientes
+     */
+    private synchronized HistoriaClinica obtener(long idHistoria) {
+        if (!leidas.containsKey(idHistoria)) {
+            List<Long> ids = new ArrayList<>(Math.min(pendientes.size() + 1, LOTE_MAXIMO));
+            ids.add(idHistoria);
+            pendientes.remove(idHistoria);
+            Iterator<Long> it = pendientes.iterator();
+            while (it.hasNext() && ids.size() < LOTE_MAXIMO) {
+                ids.add(it.next());
+                it.remove();
+            }
+
+            Map<Long, HistoriaClinica> encontradas = desdeReplica
+                    ? DatabaseConnection.leerDeReplica(() -> dao.leerPorIds(ids))
+                    : dao.leerPorIds(ids);
+            for (Long id : ids) {
+                leidas.put(id, encontradas.get(id));
+            }
+        }
+        return leidas.remove(idHistoria);
+    }
+
+    /**
+     * Cargador de la historia de un paciente. Recuerda el resultado: las copias del paciente que
+     * comparten el cargador (por ejemplo, las de PacienteCache) no vuelven a consultar la base.
+     */
+    private static final class Referencia implements Supplier<HistoriaClinica> {
+        private final long idHistoria;
+        // Se suelta después de la carga para no retener al resto del grupo
+        private CargaDiferidaHistorias grupo;
+        private HistoriaClinica historia;
+
+        Referencia(CargaDiferidaHistorias grupo, long idHistoria) {
+            this.grupo = grupo;
+            this.idHistoria = idHistoria;
+        }
+
+        @Override
+        public synchronized HistoriaClinica get() {
+            if (grupo != null) {
+                historia = grupo.obtener(idHistoria);
+                grupo = null;
+            }
+            return historia;
+        }
+    }
+}
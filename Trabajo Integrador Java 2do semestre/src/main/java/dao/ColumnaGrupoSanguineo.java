@@ -0,0 +1,47 @@
+package dao;
+
+import config.DatabaseConnection;
+import enums.GrupoSanguineo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Lectura y escritura de historiaClinica.grupo_sangre, compartida por los DAO
+ *
+ * Por defecto la columna guarda el texto del grupo ("A+", varchar). Con
+ * db.grupoSanguineo.compacto=true guarda su código (GrupoSanguineo.getCodigo(), TINYINT):
+ * 1 byte por fila en lugar de 2 o 3 más el largo, y el mapeo de cada fila lee un entero.
+ * Activarlo solo después de ejecutar migraciones/003_grupo_sangre_codigo.sql.
+ */
+final class ColumnaGrupoSanguineo {
+
+    private static final boolean COMPACTO = DatabaseConnection.getPropiedadBooleana("db.grupoSanguineo.compacto", false);
+
+    private ColumnaGrupoSanguineo() {
+    }
+
+    /**
+     * El grupo de la columna en la posición indicada, o null si es NULL (LEFT JOIN sin historia)
+     */
+    static GrupoSanguineo leer(ResultSet rs, int posicion) throws SQLException {
+        if (COMPACTO) {
+            int codigo = rs.getInt(posicion);
+            return rs.wasNull() ? null : GrupoSanguineo.fromCodigo(codigo);
+        }
+        String texto = rs.getString(posicion);
+        return texto != null ? GrupoSanguineo.fromString(texto) : null;
+    }
+
+    /**
+     * Carga el grupo como parámetro de la sentencia
+     */
+    static void asignar(PreparedStatement stmt, int indice, GrupoSanguineo grupo) throws SQLException {
+        if (COMPACTO) {
+            stmt.setInt(indice, grupo.getCodigo());
+        } else {
+            stmt.setString(indice, grupo.getValor());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package dao;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Interpretación de los errores de restricciones de la base.
+ *
+ * Los DAO dejan que los índices UNIQUE (paciente.dni, historiaClinica.nro_historia,
+ * historiaClinica.id_paciente) detecten los duplicados en el mismo INSERT/UPDATE, en lugar
+ * de consultar antes, y con estos métodos traducen el error a un mensaje de validación.
+ */
+class ErroresSql {
+
+    // MySQL: ER_DUP_ENTRY
+    private static final int CODIGO_CLAVE_DUPLICADA = 1062;
+    // Clase SQLSTATE 23 = violación de restricción de integridad
+    private static final String CLASE_INTEGRIDAD = "23";
+
+    // Duplicate entry '30111222' for key 'paciente.dni' (MySQL 8) o for key 'dni' (MySQL 5.7)
+    private static final Pattern MENSAJE_DUPLICADO =
+        Pattern.compile("Duplicate entry '(.*)' for key '(?:[^'.]*\\.)?([^'.]+)'");
+
+    private ErroresSql() {
+    }
+
+    /**
+     * Indica si el error (o alguno de sus encadenados) es una clave única duplicada
+     */
+    static boolean esClaveDuplicada(SQLException e) {
+        return buscarDuplicado(e) != null;
+    }
+
+    /**
+     * Nombre del índice único violado (por ejemplo "dni"), o null si no se puede determinar
+     */
+    static String indiceDuplicado(SQLException e) {
+        SQLException duplicado = buscarDuplicado(e);
+        if (duplicado == null || duplicado.getMessage() == null) {
+            return null;
+        }
+        Matcher coincidencia = MENSAJE_DUPLICADO.matcher(duplicado.getMessage());
+        return coincidencia.find() ? coincidencia.group(2) : null;
+    }
+
+    /**
+     * Valor duplicado según el mensaje del error (por ejemplo el DNI), o null si no se puede determinar
+     */
+    static String valorDuplicado(SQLException e) {
+        SQLException duplicado = buscarDuplicado(e);
+        if (duplicado == null || duplicado.getMessage() == null) {
+            return null;
+        }
+        Matcher coincidencia = MENSAJE_DUPLICADO.matcher(duplicado.getMessage());
+        return coincidencia.find() ? coincidencia.group(1) : null;
+    }
+
+    private static SQLException buscarDuplicado(SQLException e) {
+        for (SQLException actual = e; actual != null; actual = actual.getNextException()) {
+            if (actual.getErrorCode() == CODIGO_CLAVE_DUPLICADA) {
+                return actual;
+            }
+            String estado = actual.getSQLState();
+            if (actual instanceof SQLIntegrityConstraintViolationException && estado != null
+                    && estado.startsWith(CLASE_INTEGRIDAD) && actual.getMessage() != null
+                    && actual.getMessage().startsWith("Duplicate entry")) {
+                return actual;
+            }
+            if (actual.getCause() instanceof SQLException causa && causa != actual) {
+                SQLException encontrado = buscarDuplicado(causa);
+                if (encontrado != null) {
+                    return encontrado;
+                }
+            }
+        }
+        return null;
+    }
+}
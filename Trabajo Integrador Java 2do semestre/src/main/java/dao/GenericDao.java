@@ -1,8 +1,11 @@
 package dao;
 
 import java.sql.Connection;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfaz genérica para operaciones CRUD en la base de datos
@@ -28,6 +31,24 @@ public interface GenericDao<T> {
      */
     T crear(Connection conexion, T entidad);
 
+    /**
+     * Crea varias entidades en una única transacción usando inserciones por lotes
+     * 
+     * @param entidades las entidades a crear
+     * @return las mismas entidades con sus IDs generados
+     */
+    List<T> crearEnLote(List<T> entidades);
+
+    /**
+     * Crea varias entidades usando inserciones por lotes (JDBC batching) sobre una conexión existente.
+     * No hace commit: la transacción la controla quien provee la conexión.
+     * 
+     * @param conexion la conexión a usar
+     * @param entidades las entidades a crear
+     * @return las mismas entidades con sus IDs generados
+     */
+    List<T> crearEnLote(Connection conexion, List<T> entidades);
+
     /**
      * Lee una entidad por su ID
      * 
@@ -45,6 +66,24 @@ public interface GenericDao<T> {
      */
     Optional<T> leer(Connection conexion, Long id);
 
+    /**
+     * Lee varias entidades por ID con consultas "id IN (...)" en bloques, en lugar de una
+     * consulta por ID
+     * 
+     * @param ids los IDs buscados (se ignoran los repetidos y los null)
+     * @return las entidades encontradas por ID, en el orden de los IDs; los que no existen no aparecen
+     */
+    Map<Long, T> leerPorIds(Collection<Long> ids);
+
+    /**
+     * Lee varias entidades por ID usando una conexión existente
+     * 
+     * @param conexion la conexión a usar
+     * @param ids los IDs buscados (se ignoran los repetidos y los null)
+     * @return las entidades encontradas por ID, en el orden de los IDs; los que no existen no aparecen
+     */
+    Map<Long, T> leerPorIds(Connection conexion, Collection<Long> ids);
+
     /**
      * Lee todas las entidades no eliminadas
      * 
@@ -60,6 +99,42 @@ public interface GenericDao<T> {
      */
     List<T> leerTodos(Connection conexion);
 
+    /**
+     * Lee una página de entidades no eliminadas ordenadas por ID (paginación por clave)
+     * 
+     * @param despuesDeId cursor: se devuelven entidades con ID mayor a este (null para la primera página)
+     * @param tamanio cantidad máxima de elementos de la página
+     * @return la página leída
+     */
+    Pagina<T> leerPagina(Long despuesDeId, int tamanio);
+
+    /**
+     * Lee una página de entidades no eliminadas usando una conexión existente
+     * 
+     * @param conexion la conexión a usar
+     * @param despuesDeId cursor: se devuelven entidades con ID mayor a este (null para la primera página)
+     * @param tamanio cantidad máxima de elementos de la página
+     * @return la página leída
+     */
+    Pagina<T> leerPagina(Connection conexion, Long despuesDeId, int tamanio);
+
+    /**
+     * Recorre todas las entidades no eliminadas sin cargarlas en memoria.
+     * El Stream debe cerrarse para liberar la conexión (usar try-with-resources).
+     * 
+     * @return Stream perezoso de las entidades activas
+     */
+    Stream<T> leerTodosStream();
+
+    /**
+     * Recorre todas las entidades no eliminadas usando una conexión existente.
+     * Cerrar el Stream no cierra la conexión.
+     * 
+     * @param conexion la conexión a usar
+     * @return Stream perezoso de las entidades activas
+     */
+    Stream<T> leerTodosStream(Connection conexion);
+
     /**
      * Actualiza una entidad existente
      * 
@@ -2,13 +2,20 @@ package dao;
 
 import config.DatabaseConnection;
 import entities.HistoriaClinica;
+import entities.HistoriaClinicaResumen;
 import enums.GrupoSanguineo;
 import exceptions.DatabaseException;
+import exceptions.ValidacionException;
+import metricas.RegistroMetricas;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * DAO para la entidad HistoriaClinica
@@ -19,24 +26,62 @@ public class HistoriaClinicaDao implements GenericDao<HistoriaClinica> {
         "INSERT INTO historiaClinica (eliminado, nro_historia, grupo_sangre, antecedentes, " +
         "medicacionActual, observaciones, id_paciente) VALUES (?, ?, ?, ?, ?, ?, ?)";
     
+    // Columnas que leen las consultas, en orden; ColumnasHistoria resuelve su posición en el ResultSet
+    private static final String[] COLUMNAS = {"id", "eliminado", "version", "nro_historia", "grupo_sangre",
+        "antecedentes", "medicacionActual", "observaciones", "id_paciente"};
+
+    private static final String SELECT = 
+        "SELECT " + String.join(", ", COLUMNAS) + " FROM historiaClinica ";
+    
     private static final String SQL_SELECT_BY_ID = 
-        "SELECT * FROM historiaClinica WHERE id = ? AND eliminado = false";
+        SELECT + "WHERE id = ? AND eliminado = false";
     
     private static final String SQL_SELECT_ALL = 
-        "SELECT * FROM historiaClinica WHERE eliminado = false";
+        SELECT + "WHERE eliminado = false";
+    
+    private static final String SQL_SELECT_PAGINA = 
+        SELECT + "WHERE eliminado = false AND id > ? ORDER BY id LIMIT ?";
     
     private static final String SQL_UPDATE = 
         "UPDATE historiaClinica SET nro_historia = ?, grupo_sangre = ?, antecedentes = ?, " +
-        "medicacionActual = ?, observaciones = ? WHERE id = ?";
+        "medicacionActual = ?, observaciones = ?, version = version + 1 WHERE id = ? AND version = ?";
     
     private static final String SQL_DELETE = 
-        "UPDATE historiaClinica SET eliminado = true WHERE id = ?";
+        "UPDATE historiaClinica SET eliminado = true, version = version + 1 WHERE id = ?";
     
     private static final String SQL_SELECT_BY_NRO_HISTORIA = 
-        "SELECT * FROM historiaClinica WHERE nro_historia = ? AND eliminado = false";
+        SELECT + "WHERE nro_historia = ? AND eliminado = false";
 
     private static final String SQL_SELECT_BY_PACIENTE = 
-        "SELECT * FROM historiaClinica WHERE id_paciente = ? AND eliminado = false";
+        SELECT + "WHERE id_paciente = ? AND eliminado = false";
+
+    // Listado resumido (HistoriaClinicaResumen): extractos en lugar de los textos completos
+    private static final String SQL_SELECT_RESUMEN_PAGINA = 
+        "SELECT id, nro_historia, grupo_sangre, id_paciente, " +
+        "LEFT(antecedentes, " + HistoriaClinicaResumen.LARGO_EXTRACTO + ") AS extracto_antecedentes, " +
+        "LEFT(medicacionActual, " + HistoriaClinicaResumen.LARGO_EXTRACTO + ") AS extracto_medicacion " +
+        "FROM historiaClinica WHERE eliminado = false AND id > ? ORDER BY id LIMIT ?";
+
+    // Búsquedas múltiples: ListaIn expande "IN (?)" a la cantidad de claves de cada bloque
+    private static final String SQL_SELECT_BY_IDS = 
+        SELECT + "WHERE id IN (?) AND eliminado = false";
+
+    private static final String SQL_SELECT_BY_NROS_HISTORIA = 
+        SELECT + "WHERE nro_historia IN (?) AND eliminado = false";
+
+    private static final String SQL_SELECT_BY_DNIS_PACIENTE = 
+        "SELECT hc." + String.join(", hc.", COLUMNAS) + ", p.dni AS paciente_dni FROM historiaClinica hc " +
+        "JOIN paciente p ON p.id = hc.id_paciente " +
+        "WHERE p.dni IN (?) AND p.eliminado = false AND hc.eliminado = false";
+
+    // Cantidad de historias activas por grupo. El índice (eliminado, grupo_sangre) que evita leer las
+    // filas solo existe después de migraciones/003_grupo_sangre_codigo.sql; sin ella recorre la tabla
+    private static final String SQL_CONTAR_POR_GRUPO = 
+        "SELECT grupo_sangre, COUNT(*) AS cantidad FROM historiaClinica " +
+        "WHERE eliminado = false GROUP BY grupo_sangre";
+
+    // Cada operación registra cantidad de llamadas, errores y latencia
+    private static final RegistroMetricas METRICAS = RegistroMetricas.global();
 
     @Override
     public HistoriaClinica crear(HistoriaClinica entidad) {
@@ -49,42 +94,75 @@ public class HistoriaClinicaDao implements GenericDao<HistoriaClinica> {
 
     @Override
     public HistoriaClinica crear(Connection conexion, HistoriaClinica entidad) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setBoolean(1, entidad.isEliminado());
-            stmt.setString(2, entidad.getNroHistoria());
-            stmt.setString(3, entidad.getGrupoSanguineo().getValor());
-            stmt.setString(4, entidad.getAntecedentes());
-            stmt.setString(5, entidad.getMedicacionActual());
-            stmt.setString(6, entidad.getObservaciones());
-            
-            if (entidad.getIdPaciente() != null) {
-                stmt.setLong(7, entidad.getIdPaciente());
-            } else {
-                stmt.setNull(7, Types.BIGINT);
-            }
+        return METRICAS.medir("historiaClinica.crear", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             
-            int filasAfectadas = stmt.executeUpdate();
+                asignarParametrosInsert(stmt, entidad);
             
-            if (filasAfectadas == 0) {
-                throw new DatabaseException("Error al crear historia clínica, ninguna fila afectada");
-            }
+                int filasAfectadas = stmt.executeUpdate();
+                DatabaseConnection.registrarEscritura();
             
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    entidad.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new DatabaseException("Error al crear historia clínica, no se obtuvo el ID");
+                if (filasAfectadas == 0) {
+                    throw new DatabaseException("Error al crear historia clínica, ninguna fila afectada");
                 }
-            }
             
-            return entidad;
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        entidad.setId(generatedKeys.getLong(1));
+                        entidad.setVersion(0);
+                    } else {
+                        throw new DatabaseException("Error al crear historia clínica, no se obtuvo el ID");
+                    }
+                }
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al crear historia clínica", e);
+                return entidad;
+            
+            } catch (SQLException e) {
+                throw errorDeEscritura(e, entidad, "Error al crear historia clínica");
+            }
+        });
+    }
+
+    @Override
+    public List<HistoriaClinica> crearEnLote(List<HistoriaClinica> entidades) {
+        Connection conn = DatabaseConnection.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            List<HistoriaClinica> creadas = crearEnLote(conn, entidades);
+            conn.commit();
+            return creadas;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Error al hacer rollback: " + ex.getMessage());
+            }
+            // Un número de historia o un paciente duplicado se informa tal cual, como en crear()
+            if (e instanceof ValidacionException validacion) {
+                throw validacion;
+            }
+            throw new DatabaseException("Error al crear historias clínicas en lote: " + e.getMessage(), e);
+        } finally {
+            DatabaseConnection.cerrarConexion(conn);
         }
     }
 
+    @Override
+    public List<HistoriaClinica> crearEnLote(Connection conexion, List<HistoriaClinica> entidades) {
+        return METRICAS.medir("historiaClinica.crearEnLote", () -> {
+            try {
+                LoteJdbc.insertar(conexion, SQL_INSERT, entidades, DatabaseConnection.getTamanioLote(),
+                    this::asignarParametrosInsert, (hc, id) -> {
+                        hc.setId(id);
+                        hc.setVersion(0);
+                    });
+                return entidades;
+            } catch (SQLException e) {
+                throw errorDeLote(e, entidades, "Error al crear historias clínicas en lote");
+            }
+        });
+    }
+
     @Override
     public Optional<HistoriaClinica> leer(Long id) {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -96,23 +174,46 @@ public class HistoriaClinicaDao implements GenericDao<HistoriaClinica> {
 
     @Override
     public Optional<HistoriaClinica> leer(Connection conexion, Long id) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_SELECT_BY_ID)) {
+        return METRICAS.medir("historiaClinica.leer", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_SELECT_BY_ID)) {
             
-            stmt.setLong(1, id);
+                stmt.setLong(1, id);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapearResultSet(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(nuevoMapeador().mapear(rs));
+                    }
                 }
-            }
             
-            return Optional.empty();
+                return Optional.empty();
             
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer historia clínica", e);
+            }
+        });
+    }
+
+    @Override
+    public Map<Long, HistoriaClinica> leerPorIds(Collection<Long> ids) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return leerPorIds(conn, ids);
         } catch (SQLException e) {
-            throw new DatabaseException("Error al leer historia clínica", e);
+            throw new DatabaseException("Error al leer historias clínicas por ID", e);
         }
     }
 
+    @Override
+    public Map<Long, HistoriaClinica> leerPorIds(Connection conexion, Collection<Long> ids) {
+        return METRICAS.medir("historiaClinica.leerPorIds", () -> {
+            try {
+                return ListaIn.leer(conexion, SQL_SELECT_BY_IDS, ids,
+                    (stmt, indice, id) -> stmt.setLong(indice, id), ListaIn.claveLong("id"), nuevoMapeador());
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer historias clínicas por ID", e);
+            }
+        });
+    }
+
     @Override
     public List<HistoriaClinica> leerTodos() {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -124,22 +225,114 @@ public class HistoriaClinicaDao implements GenericDao<HistoriaClinica> {
 
     @Override
     public List<HistoriaClinica> leerTodos(Connection conexion) {
-        List<HistoriaClinica> historias = new ArrayList<>();
+        return METRICAS.medir("historiaClinica.leerTodos", () -> {
+            List<HistoriaClinica> historias = new ArrayList<>();
+            MapeadorFila<HistoriaClinica> mapeador = nuevoMapeador();
         
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_SELECT_ALL);
-             ResultSet rs = stmt.executeQuery()) {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_SELECT_ALL);
+                 ResultSet rs = stmt.executeQuery()) {
             
-            while (rs.next()) {
-                historias.add(mapearResultSet(rs));
-            }
+                while (rs.next()) {
+                    historias.add(mapeador.mapear(rs));
+                }
             
-            return historias;
+                return historias;
             
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer historias clínicas", e);
+            }
+        });
+    }
+
+    @Override
+    public Pagina<HistoriaClinica> leerPagina(Long despuesDeId, int tamanio) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return leerPagina(conn, despuesDeId, tamanio);
         } catch (SQLException e) {
-            throw new DatabaseException("Error al leer historias clínicas", e);
+            throw new DatabaseException("Error al leer página de historias clínicas", e);
         }
     }
 
+    @Override
+    public Pagina<HistoriaClinica> leerPagina(Connection conexion, Long despuesDeId, int tamanio) {
+        return METRICAS.medir("historiaClinica.leerPagina", () -> {
+            List<HistoriaClinica> historias = new ArrayList<>();
+            MapeadorFila<HistoriaClinica> mapeador = nuevoMapeador();
+        
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_SELECT_PAGINA)) {
+            
+                stmt.setLong(1, despuesDeId != null ? despuesDeId : 0L);
+                // Se pide un elemento extra para saber si existe una página siguiente
+                stmt.setInt(2, tamanio + 1);
+            
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        historias.add(mapeador.mapear(rs));
+                    }
+                }
+            
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer página de historias clínicas", e);
+            }
+        
+            boolean hayMas = historias.size() > tamanio;
+            if (hayMas) {
+                historias.remove(tamanio);
+            }
+            Long ultimoId = historias.isEmpty() ? despuesDeId : historias.get(historias.size() - 1).getId();
+            return new Pagina<>(historias, ultimoId, hayMas);
+        });
+    }
+
+    @Override
+    public Stream<HistoriaClinica> leerTodosStream() {
+        Connection conn = DatabaseConnection.getConnection();
+        return StreamJdbc.consultar(conn, true, SQL_SELECT_ALL, stmt -> { }, nuevoMapeador());
+    }
+
+    @Override
+    public Stream<HistoriaClinica> leerTodosStream(Connection conexion) {
+        return StreamJdbc.consultar(conexion, false, SQL_SELECT_ALL, stmt -> { }, nuevoMapeador());
+    }
+
+    /**
+     * Lee una página de historias clínicas activas con extractos de antecedentes y medicación
+     * en lugar de los textos completos
+     *
+     * @param despuesDeId cursor: se devuelven historias con ID mayor a este (null para la primera página)
+     * @param tamanio cantidad máxima de elementos de la página
+     */
+    public Pagina<HistoriaClinicaResumen> leerPaginaResumen(Long despuesDeId, int tamanio) {
+        return METRICAS.medir("historiaClinica.leerPaginaResumen", () -> {
+            List<HistoriaClinicaResumen> historias = new ArrayList<>();
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_RESUMEN_PAGINA)) {
+            
+                stmt.setLong(1, despuesDeId != null ? despuesDeId : 0L);
+                // Se pide un elemento extra para saber si existe una página siguiente
+                stmt.setInt(2, tamanio + 1);
+            
+                try (ResultSet rs = stmt.executeQuery()) {
+                    MapeadorFila<HistoriaClinicaResumen> mapeador = nuevoMapeadorResumen();
+                    while (rs.next()) {
+                        historias.add(mapeador.mapear(rs));
+                    }
+                }
+            
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer página de historias clínicas", e);
+            }
+        
+            boolean hayMas = historias.size() > tamanio;
+            if (hayMas) {
+                historias.remove(tamanio);
+            }
+            Long ultimoId = historias.isEmpty() ? despuesDeId : historias.get(historias.size() - 1).getId();
+            return new Pagina<>(historias, ultimoId, hayMas);
+        });
+    }
+
     @Override
     public boolean actualizar(HistoriaClinica entidad) {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -151,21 +344,29 @@ public class HistoriaClinicaDao implements GenericDao<HistoriaClinica> {
 
     @Override
     public boolean actualizar(Connection conexion, HistoriaClinica entidad) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_UPDATE)) {
+        return METRICAS.medir("historiaClinica.actualizar", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_UPDATE)) {
             
-            stmt.setString(1, entidad.getNroHistoria());
-            stmt.setString(2, entidad.getGrupoSanguineo().getValor());
-            stmt.setString(3, entidad.getAntecedentes());
-            stmt.setString(4, entidad.getMedicacionActual());
-            stmt.setString(5, entidad.getObservaciones());
-            stmt.setLong(6, entidad.getId());
+                stmt.setString(1, entidad.getNroHistoria());
+                ColumnaGrupoSanguineo.asignar(stmt, 2, entidad.getGrupoSanguineo());
+                stmt.setString(3, entidad.getAntecedentes());
+                stmt.setString(4, entidad.getMedicacionActual());
+                stmt.setString(5, entidad.getObservaciones());
+                stmt.setLong(6, entidad.getId());
+                stmt.setInt(7, entidad.getVersion());
             
-            int filasAfectadas = stmt.executeUpdate();
-            return filasAfectadas > 0;
+                // 0 filas: no existe o otra operación la modificó después de leerla (versión distinta)
+                int filasAfectadas = stmt.executeUpdate();
+                DatabaseConnection.registrarEscritura();
+                if (filasAfectadas > 0) {
+                    entidad.setVersion(entidad.getVersion() + 1);
+                }
+                return filasAfectadas > 0;
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al actualizar historia clínica", e);
-        }
+            } catch (SQLException e) {
+                throw errorDeEscritura(e, entidad, "Error al actualizar historia clínica");
+            }
+        });
     }
 
     @Override
@@ -179,80 +380,280 @@ public class HistoriaClinicaDao implements GenericDao<HistoriaClinica> {
 
     @Override
     public boolean eliminar(Connection conexion, Long id) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_DELETE)) {
+        return METRICAS.medir("historiaClinica.eliminar", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_DELETE)) {
             
-            stmt.setLong(1, id);
-            int filasAfectadas = stmt.executeUpdate();
-            return filasAfectadas > 0;
+                stmt.setLong(1, id);
+                int filasAfectadas = stmt.executeUpdate();
+                DatabaseConnection.registrarEscritura();
+                return filasAfectadas > 0;
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al eliminar historia clínica", e);
-        }
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al eliminar historia clínica", e);
+            }
+        });
     }
 
     /**
      * Busca una historia clínica por número de historia
      */
     public Optional<HistoriaClinica> buscarPorNroHistoria(String nroHistoria) {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_BY_NRO_HISTORIA)) {
+        return METRICAS.medir("historiaClinica.buscarPorNroHistoria", () -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_BY_NRO_HISTORIA)) {
             
-            stmt.setString(1, nroHistoria);
+                stmt.setString(1, nroHistoria);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapearResultSet(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(nuevoMapeador().mapear(rs));
+                    }
                 }
-            }
             
-            return Optional.empty();
+                return Optional.empty();
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al buscar historia clínica por número", e);
-        }
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al buscar historia clínica por número", e);
+            }
+        });
     }
 
     /**
      * Busca la historia clínica asociada a un paciente
      */
     public Optional<HistoriaClinica> buscarPorIdPaciente(Long idPaciente) {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_BY_PACIENTE)) {
+        return METRICAS.medir("historiaClinica.buscarPorIdPaciente", () -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_BY_PACIENTE)) {
             
-            stmt.setLong(1, idPaciente);
+                stmt.setLong(1, idPaciente);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapearResultSet(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(nuevoMapeador().mapear(rs));
+                    }
                 }
+            
+                return Optional.empty();
+            
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al buscar historia clínica por paciente", e);
+            }
+        });
+    }
+
+    /**
+     * Busca varias historias clínicas por número con consultas "nro_historia IN (...)" en bloques
+     *
+     * @return las historias encontradas por número, en el orden pedido; las que no existen no aparecen
+     */
+    public Map<String, HistoriaClinica> buscarPorNrosHistoria(Collection<String> nrosHistoria) {
+        return METRICAS.medir("historiaClinica.buscarPorNrosHistoria", () -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                return ListaIn.leer(conn, SQL_SELECT_BY_NROS_HISTORIA, nrosHistoria,
+                    (stmt, indice, nro) -> stmt.setString(indice, nro), ListaIn.claveTexto("nro_historia"),
+                    nuevoMapeador());
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al buscar historias clínicas por número", e);
             }
+        });
+    }
+
+    /**
+     * Busca las historias clínicas de varios pacientes a partir de sus DNI
+     *
+     * @return las historias encontradas por DNI del paciente, en el orden pedido; los pacientes
+     *         inexistentes o sin historia clínica no aparecen
+     */
+    public Map<String, HistoriaClinica> buscarPorDnisPaciente(Collection<String> dnis) {
+        return METRICAS.medir("historiaClinica.buscarPorDnisPaciente", () -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                return ListaIn.leer(conn, SQL_SELECT_BY_DNIS_PACIENTE, dnis,
+                    (stmt, indice, dni) -> stmt.setString(indice, dni), ListaIn.claveTexto("paciente_dni"),
+                    nuevoMapeador());
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al buscar historias clínicas por DNI del paciente", e);
+            }
+        });
+    }
+
+    /**
+     * Cuenta las historias clínicas activas de cada grupo sanguíneo
+     *
+     * @return la cantidad por grupo, en el orden de GrupoSanguineo; los grupos sin historias no aparecen
+     */
+    public Map<GrupoSanguineo, Long> contarPorGrupoSanguineo() {
+        return METRICAS.medir("historiaClinica.contarPorGrupoSanguineo", () -> {
+            Map<GrupoSanguineo, Long> cantidades = new EnumMap<>(GrupoSanguineo.class);
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SQL_CONTAR_POR_GRUPO);
+                 ResultSet rs = stmt.executeQuery()) {
             
-            return Optional.empty();
+                while (rs.next()) {
+                    // Con la columna de texto, "ab-" y "AB-" pueden salir en filas distintas del GROUP BY
+                    cantidades.merge(ColumnaGrupoSanguineo.leer(rs, 1), rs.getLong(2), Long::sum);
+                }
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al buscar historia clínica por paciente", e);
+                return cantidades;
+            
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al contar historias clínicas por grupo sanguíneo", e);
+            }
+        });
+    }
+
+    /**
+     * Traduce el error de un INSERT/UPDATE: los duplicados los detectan los índices UNIQUE
+     * de nro_historia e id_paciente en la misma sentencia, sin una consulta previa
+     */
+    private static RuntimeException errorDeEscritura(SQLException e, HistoriaClinica entidad, String mensaje) {
+        if (ErroresSql.esClaveDuplicada(e)) {
+            if ("id_paciente".equals(ErroresSql.indiceDuplicado(e))) {
+                return new ValidacionException(
+                    "El paciente ya tiene una historia clínica asociada (relación 1->1)", e);
+            }
+            return new ValidacionException("Ya existe una historia clínica con el número: " + entidad.getNroHistoria(), e);
         }
+        return new DatabaseException(mensaje, e);
     }
 
     /**
-     * Mapea un ResultSet a un objeto HistoriaClinica
+     * Traduce el error de crearEnLote como errorDeEscritura, indicando qué historia del lote lo causó.
+     * Si el driver no lo informa (INSERT multi-fila), el valor duplicado se toma del mensaje de la base.
      */
-    private HistoriaClinica mapearResultSet(ResultSet rs) throws SQLException {
+    private static RuntimeException errorDeLote(SQLException e, List<HistoriaClinica> entidades, String mensaje) {
+        int indice = LoteJdbc.indiceFallido(e);
+        HistoriaClinica fallida = indice >= 0 ? entidades.get(indice) : null;
+        String posicion = indice >= 0 ? " (elemento " + (indice + 1) + " del lote)" : "";
+        if (ErroresSql.esClaveDuplicada(e)) {
+            if ("id_paciente".equals(ErroresSql.indiceDuplicado(e))) {
+                Object idPaciente = fallida != null ? fallida.getIdPaciente() : ErroresSql.valorDuplicado(e);
+                return new ValidacionException("El paciente " + idPaciente
+                    + " ya tiene una historia clínica asociada (relación 1->1)" + posicion, e);
+            }
+            String nroHistoria = fallida != null ? fallida.getNroHistoria() : ErroresSql.valorDuplicado(e);
+            return new ValidacionException("Ya existe una historia clínica con el número: " + nroHistoria + posicion, e);
+        }
+        return new DatabaseException(mensaje + posicion, e);
+    }
+
+    /**
+     * Carga los parámetros de SQL_INSERT
+     */
+    private void asignarParametrosInsert(PreparedStatement stmt, HistoriaClinica entidad) throws SQLException {
+        stmt.setBoolean(1, entidad.isEliminado());
+        stmt.setString(2, entidad.getNroHistoria());
+        ColumnaGrupoSanguineo.asignar(stmt, 3, entidad.getGrupoSanguineo());
+        stmt.setString(4, entidad.getAntecedentes());
+        stmt.setString(5, entidad.getMedicacionActual());
+        stmt.setString(6, entidad.getObservaciones());
+        
+        if (entidad.getIdPaciente() != null) {
+            stmt.setLong(7, entidad.getIdPaciente());
+        } else {
+            stmt.setNull(7, Types.BIGINT);
+        }
+    }
+
+    /**
+     * Mapeador de SQL_SELECT_RESUMEN_PAGINA para una lectura: resuelve las posiciones de las
+     * columnas una vez por ResultSet
+     */
+    MapeadorFila<HistoriaClinicaResumen> nuevoMapeadorResumen() {
+        return new MapeadorPorIndice<>(ColumnasResumen::new, HistoriaClinicaDao::mapearResumen);
+    }
+
+    /**
+     * Mapea una fila de SQL_SELECT_RESUMEN_PAGINA a una HistoriaClinicaResumen
+     */
+    private static HistoriaClinicaResumen mapearResumen(ResultSet rs, ColumnasResumen columnas) throws SQLException {
+        long idPaciente = rs.getLong(columnas.idPaciente);
+        Long paciente = rs.wasNull() ? null : idPaciente;
+        return new HistoriaClinicaResumen(
+            rs.getLong(columnas.id),
+            rs.getString(columnas.nroHistoria),
+            ColumnaGrupoSanguineo.leer(rs, columnas.grupoSangre),
+            paciente,
+            rs.getString(columnas.extractoAntecedentes),
+            rs.getString(columnas.extractoMedicacion));
+    }
+
+    /**
+     * Mapeador para una lectura: resuelve las posiciones de las columnas una vez por ResultSet
+     * Visibilidad de paquete para poder medirlo desde los benchmarks (src/jmh)
+     */
+    MapeadorFila<HistoriaClinica> nuevoMapeador() {
+        return new MapeadorPorIndice<>(ColumnasHistoria::new, HistoriaClinicaDao::mapearFila);
+    }
+
+    /**
+     * Mapea la fila actual a un objeto HistoriaClinica leyendo las columnas por posición
+     */
+    private static HistoriaClinica mapearFila(ResultSet rs, ColumnasHistoria columnas) throws SQLException {
         HistoriaClinica hc = new HistoriaClinica();
-        hc.setId(rs.getLong("id"));
-        hc.setEliminado(rs.getBoolean("eliminado"));
-        hc.setNroHistoria(rs.getString("nro_historia"));
-        hc.setGrupoSanguineo(GrupoSanguineo.fromString(rs.getString("grupo_sangre")));
-        hc.setAntecedentes(rs.getString("antecedentes"));
-        hc.setMedicacionActual(rs.getString("medicacionActual"));
-        hc.setObservaciones(rs.getString("observaciones"));
+        hc.setId(rs.getLong(columnas.id));
+        hc.setEliminado(rs.getBoolean(columnas.eliminado));
+        hc.setVersion(rs.getInt(columnas.version));
+        hc.setNroHistoria(rs.getString(columnas.nroHistoria));
+        hc.setGrupoSanguineo(ColumnaGrupoSanguineo.leer(rs, columnas.grupoSangre));
+        hc.setAntecedentes(rs.getString(columnas.antecedentes));
+        hc.setMedicacionActual(rs.getString(columnas.medicacionActual));
+        hc.setObservaciones(rs.getString(columnas.observaciones));
         
-        long idPaciente = rs.getLong("id_paciente");
+        long idPaciente = rs.getLong(columnas.idPaciente);
         if (!rs.wasNull()) {
             hc.setIdPaciente(idPaciente);
         }
         
         return hc;
     }
-}
 
+    /**
+     * Posiciones de las columnas de COLUMNAS en el ResultSet de una consulta
+     */
+    private static final class ColumnasHistoria {
+        private final int id;
+        private final int eliminado;
+        private final int version;
+        private final int nroHistoria;
+        private final int grupoSangre;
+        private final int antecedentes;
+        private final int medicacionActual;
+        private final int observaciones;
+        private final int idPaciente;
+
+        ColumnasHistoria(IndiceColumnas indice) throws SQLException {
+            id = indice.de("id");
+            eliminado = indice.de("eliminado");
+            version = indice.de("version");
+            nroHistoria = indice.de("nro_historia");
+            grupoSangre = indice.de("grupo_sangre");
+            antecedentes = indice.de("antecedentes");
+            medicacionActual = indice.de("medicacionActual");
+            observaciones = indice.de("observaciones");
+            idPaciente = indice.de("id_paciente");
+        }
+    }
+
+    /**
+     * Posiciones de las columnas de SQL_SELECT_RESUMEN_PAGINA en el ResultSet
+     */
+    private static final class ColumnasResumen {
+        private final int id;
+        private final int nroHistoria;
+        private final int grupoSangre;
+        private final int idPaciente;
+        private final int extractoAntecedentes;
+        private final int extractoMedicacion;
+
+        ColumnasResumen(IndiceColumnas indice) throws SQLException {
+            id = indice.de("id");
+            nroHistoria = indice.de("nro_historia");
+            grupoSangre = indice.de("grupo_sangre");
+            idPaciente = indice.de("id_paciente");
+            extractoAntecedentes = indice.de("extracto_antecedentes");
+            extractoMedicacion = indice.de("extracto_medicacion");
+        }
+    }
+}
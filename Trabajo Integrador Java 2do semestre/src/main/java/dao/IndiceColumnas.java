@@ -0,0 +1,44 @@
+package dao;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Posición de cada columna de un ResultSet según su etiqueta (el alias del SELECT o el nombre)
+ * Se arma una vez por ResultSet a partir de sus metadatos; las etiquetas se comparan sin
+ * distinguir mayúsculas porque H2 las devuelve en mayúsculas y MySQL como están escritas.
+ */
+final class IndiceColumnas {
+
+    private final Map<String, Integer> posiciones;
+
+    private IndiceColumnas(Map<String, Integer> posiciones) {
+        this.posiciones = posiciones;
+    }
+
+    static IndiceColumnas de(ResultSetMetaData metadatos) throws SQLException {
+        int cantidad = metadatos.getColumnCount();
+        Map<String, Integer> posiciones = new HashMap<>(cantidad * 2);
+        for (int i = 1; i <= cantidad; i++) {
+            // Con etiquetas repetidas vale la primera, como en ResultSet.findColumn
+            posiciones.putIfAbsent(metadatos.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        return new IndiceColumnas(posiciones);
+    }
+
+    /**
+     * Posición (desde 1) de la columna con esa etiqueta
+     *
+     * @throws SQLException si la consulta no la trae
+     */
+    int de(String etiqueta) throws SQLException {
+        Integer posicion = posiciones.get(etiqueta.toLowerCase(Locale.ROOT));
+        if (posicion == null) {
+            throw new SQLException("La consulta no trae la columna " + etiqueta);
+        }
+        return posicion;
+    }
+}
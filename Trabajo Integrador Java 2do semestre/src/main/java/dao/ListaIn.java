@@ -0,0 +1,134 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilidad para las lecturas de muchas filas por clave con "columna IN (?, ?, ...)"
+ * Compartida por los DAO para no repetir el armado de las listas y el mapeo del resultado
+ *
+ * Las constantes SQL_* escriben la lista como "IN (?)" y aquí se expande a la cantidad de
+ * parámetros del bloque. Las claves se leen en bloques de hasta TAMANIO_MAXIMO, y cada bloque
+ * se completa repitiendo la última clave hasta el siguiente tamaño de TAMANIOS: así hay pocos
+ * textos SQL distintos y la caché de sentencias del pool los reutiliza en lugar de preparar
+ * uno nuevo para cada cantidad de claves.
+ */
+class ListaIn {
+
+    static final String MARCADOR = "IN (?)";
+
+    // Tamaños de bloque; cada bloque usa el menor que alcanza para sus claves
+    private static final int[] TAMANIOS = {1, 4, 16, 64, 256, 1024};
+    static final int TAMANIO_MAXIMO = TAMANIOS[TAMANIOS.length - 1];
+
+    /**
+     * Asigna una clave como parámetro de la sentencia
+     */
+    @FunctionalInterface
+    interface AsignadorClave<K> {
+        void asignar(PreparedStatement stmt, int indice, K clave) throws SQLException;
+    }
+
+    private ListaIn() {
+    }
+
+    /**
+     * Lector de una clave numérica: la posición de la columna se resuelve una vez por ResultSet
+     */
+    static MapeadorFila<Long> claveLong(String etiqueta) {
+        return new MapeadorPorIndice<>(indice -> indice.de(etiqueta), ResultSet::getLong);
+    }
+
+    /**
+     * Lector de una clave de texto: la posición de la columna se resuelve una vez por ResultSet
+     */
+    static MapeadorFila<String> claveTexto(String etiqueta) {
+        return new MapeadorPorIndice<>(indice -> indice.de(etiqueta), ResultSet::getString);
+    }
+
+    /**
+     * Lee las filas de todas las claves en la menor cantidad de consultas
+     *
+     * @param conexion la conexión a usar (no se cierra)
+     * @param sql la sentencia con un único "IN (?)"
+     * @param claves las claves buscadas (se ignoran las repetidas y los null)
+     * @param asignador carga cada clave como parámetro
+     * @param lectorClave lee de la fila la clave con la que se la buscó
+     * @param mapeador convierte la fila en la entidad
+     * @return las entidades encontradas por clave, en el orden de las claves pedidas;
+     *         las claves sin fila no aparecen
+     */
+    static <K, T> Map<K, T> leer(Connection conexion, String sql, Collection<K> claves,
+                                 AsignadorClave<K> asignador, MapeadorFila<K> lectorClave,
+                                 MapeadorFila<T> mapeador) throws SQLException {
+        List<K> distintas = new ArrayList<>(new LinkedHashSet<>(claves));
+        distintas.remove(null);
+        if (distintas.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        Map<K, T> encontradas = new HashMap<>(distintas.size() * 2);
+        for (int desde = 0; desde < distintas.size(); desde += TAMANIO_MAXIMO) {
+            List<K> bloque = distintas.subList(desde, Math.min(desde + TAMANIO_MAXIMO, distintas.size()));
+            int tamanio = tamanioBloque(bloque.size());
+
+            try (PreparedStatement stmt = conexion.prepareStatement(expandir(sql, tamanio))) {
+                for (int i = 0; i < tamanio; i++) {
+                    asignador.asignar(stmt, i + 1, bloque.get(Math.min(i, bloque.size() - 1)));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        encontradas.put(lectorClave.mapear(rs), mapeador.mapear(rs));
+                    }
+                }
+            }
+        }
+
+        // Las filas vuelven en cualquier orden: se devuelven en el de las claves pedidas
+        Map<K, T> resultado = new LinkedHashMap<>(encontradas.size() * 2);
+        for (K clave : distintas) {
+            T entidad = encontradas.get(clave);
+            if (entidad != null) {
+                resultado.put(clave, entidad);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Menor tamaño de TAMANIOS que alcanza para la cantidad de claves
+     */
+    static int tamanioBloque(int cantidad) {
+        for (int tamanio : TAMANIOS) {
+            if (tamanio >= cantidad) {
+                return tamanio;
+            }
+        }
+        return TAMANIO_MAXIMO;
+    }
+
+    /**
+     * Reemplaza "IN (?)" por "IN (?, ?, ...)" con la cantidad de parámetros indicada
+     */
+    static String expandir(String sql, int cantidad) {
+        if (!sql.contains(MARCADOR)) {
+            throw new IllegalArgumentException("La sentencia no tiene " + MARCADOR + ": " + sql);
+        }
+        StringBuilder lista = new StringBuilder(MARCADOR.length() + 3 * cantidad);
+        lista.append("IN (?");
+        for (int i = 1; i < cantidad; i++) {
+            lista.append(", ?");
+        }
+        lista.append(')');
+        return sql.replace(MARCADOR, lista);
+    }
+}
@@ -0,0 +1,124 @@
+package dao;
+
+import config.DatabaseConnection;
+import exceptions.DatabaseException;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Utilidad para inserciones masivas con addBatch/executeBatch
+ * Compartida por los DAO para no repetir el manejo de lotes y claves generadas
+ */
+class LoteJdbc {
+
+    /**
+     * Asigna los parámetros de una entidad en un PreparedStatement
+     */
+    @FunctionalInterface
+    interface AsignadorParametros<T> {
+        void asignar(PreparedStatement stmt, T entidad) throws SQLException;
+    }
+
+    private LoteJdbc() {
+    }
+
+    /**
+     * Inserta las entidades en lotes de tamanioLote filas y asigna los IDs generados
+     * en el mismo orden en que fueron agregadas al lote
+     *
+     * @param conexion la conexión a usar (no se hace commit aquí)
+     * @param sql la sentencia INSERT
+     * @param entidades las entidades a insertar
+     * @param tamanioLote cantidad de filas por executeBatch
+     * @param asignador carga los parámetros de cada entidad
+     * @param asignarId recibe cada entidad junto con su ID generado
+     * @throws ErrorDeLote si falla un executeBatch, con la posición de la entidad que lo causó
+     */
+    static <T> void insertar(Connection conexion, String sql, List<T> entidades, int tamanioLote,
+                             AsignadorParametros<T> asignador, BiConsumer<T, Long> asignarId) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int desde = 0; desde < entidades.size(); desde += tamanioLote) {
+                List<T> lote = entidades.subList(desde, Math.min(desde + tamanioLote, entidades.size()));
+
+                for (T entidad : lote) {
+                    asignador.asignar(stmt, entidad);
+                    stmt.addBatch();
+                }
+                try {
+                    stmt.executeBatch();
+                } catch (BatchUpdateException e) {
+                    int fallido = primerFallido(e.getUpdateCounts(), lote.size());
+                    throw new ErrorDeLote(e, fallido < 0 ? -1 : desde + fallido);
+                }
+                DatabaseConnection.registrarEscritura();
+
+                // Con rewriteBatchedStatements MySQL devuelve todas las claves del INSERT multi-fila
+                int indice = 0;
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    while (generatedKeys.next() && indice < lote.size()) {
+                        asignarId.accept(lote.get(indice++), generatedKeys.getLong(1));
+                    }
+                }
+                if (indice != lote.size()) {
+                    throw new DatabaseException("Error en la inserción por lotes: se esperaban "
+                            + lote.size() + " IDs generados y se obtuvieron " + indice);
+                }
+            }
+        }
+    }
+
+    /**
+     * Posición (desde 0) en la lista de entidades de la que causó el error, o -1 si no se sabe
+     */
+    static int indiceFallido(SQLException e) {
+        return e instanceof ErrorDeLote error ? error.indice : -1;
+    }
+
+    /**
+     * Posición dentro del lote de la primera sentencia que falló según los update counts, o -1
+     * si no se puede saber: con rewriteBatchedStatements el lote es un solo INSERT multi-fila
+     * y, si falla, todas las filas figuran como fallidas
+     */
+    private static int primerFallido(int[] cantidades, int tamanioLote) {
+        if (cantidades == null) {
+            return tamanioLote == 1 ? 0 : -1;
+        }
+        // El driver se detuvo en la primera fila con error: solo informa las anteriores
+        if (cantidades.length < tamanioLote) {
+            return cantidades.length;
+        }
+        int primero = -1;
+        int fallidas = 0;
+        for (int i = 0; i < cantidades.length; i++) {
+            if (cantidades[i] == Statement.EXECUTE_FAILED) {
+                fallidas++;
+                if (primero < 0) {
+                    primero = i;
+                }
+            }
+        }
+        return fallidas == cantidades.length && tamanioLote > 1 ? -1 : primero;
+    }
+
+    /**
+     * Error de executeBatch con la posición de la entidad que lo causó
+     * Conserva el código y el SQLSTATE del original para que ErroresSql lo interprete igual
+     */
+    static final class ErrorDeLote extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        private final int indice;
+
+        ErrorDeLote(BatchUpdateException causa, int indice) {
+            super(causa.getMessage(), causa.getSQLState(), causa.getErrorCode(), causa);
+            this.indice = indice;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Convierte la fila actual de un ResultSet en una entidad
+ * 
+ * @param <T> el tipo de entidad resultante
+ */
+@FunctionalInterface
+public interface MapeadorFila<T> {
+    T mapear(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,55 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * MapeadorFila que lee las columnas por posición en lugar de por etiqueta
+ *
+ * Las posiciones se resuelven una sola vez por ResultSet (con IndiceColumnas) y cada fila se
+ * lee con rs.getXxx(int), sin que el driver busque la etiqueta en cada columna de cada fila.
+ * Si el mapeador recibe otro ResultSet (ListaIn ejecuta una consulta por bloque) las vuelve a
+ * resolver.
+ *
+ * Guarda el último ResultSet y sus posiciones: se crea uno por lectura y no se comparte entre hilos.
+ *
+ * @param <C> las posiciones de las columnas que usa el mapeo
+ * @param <T> el tipo de entidad resultante
+ */
+final class MapeadorPorIndice<C, T> implements MapeadorFila<T> {
+
+    /**
+     * Busca en el índice las posiciones de las columnas del mapeo
+     */
+    @FunctionalInterface
+    interface ResolutorColumnas<C> {
+        C resolver(IndiceColumnas indice) throws SQLException;
+    }
+
+    /**
+     * Convierte la fila actual en una entidad leyendo las columnas por posición
+     */
+    @FunctionalInterface
+    interface MapeadorColumnas<C, T> {
+        T mapear(ResultSet rs, C columnas) throws SQLException;
+    }
+
+    private final ResolutorColumnas<C> resolutor;
+    private final MapeadorColumnas<C, T> mapeador;
+    private ResultSet resultSet;
+    private C columnas;
+
+    MapeadorPorIndice(ResolutorColumnas<C> resolutor, MapeadorColumnas<C, T> mapeador) {
+        this.resolutor = resolutor;
+        this.mapeador = mapeador;
+    }
+
+    @Override
+    public T mapear(ResultSet rs) throws SQLException {
+        if (rs != resultSet) {
+            columnas = resolutor.resolver(IndiceColumnas.de(rs.getMetaData()));
+            resultSet = rs;
+        }
+        return mapeador.mapear(rs, columnas);
+    }
+}
@@ -3,14 +3,20 @@ package dao;
 import config.DatabaseConnection;
 import entities.HistoriaClinica;
 import entities.Paciente;
-import enums.GrupoSanguineo;
+import entities.PacienteResumen;
+import enums.EstrategiaCarga;
 import exceptions.DatabaseException;
+import exceptions.ValidacionException;
+import metricas.RegistroMetricas;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * DAO para la entidad Paciente
@@ -20,32 +26,108 @@ public class PacienteDao implements GenericDao<Paciente> {
     private static final String SQL_INSERT = 
         "INSERT INTO paciente (eliminado, apellido, nombre, dni, fecha_nac) VALUES (?, ?, ?, ?, ?)";
     
-    private static final String SQL_SELECT_BY_ID = 
-        "SELECT p.*, hc.id as hc_id, hc.eliminado as hc_eliminado, hc.nro_historia, " +
+    // Columnas del paciente que leen las consultas; ColumnasPaciente resuelve su posición en el ResultSet
+    private static final String COLUMNAS_PACIENTE = 
+        "p.id, p.eliminado, p.version, p.apellido, p.nombre, p.dni, p.fecha_nac";
+
+    // Paciente con todas las columnas de su historia clínica (EstrategiaCarga.ANTICIPADA)
+    private static final String SELECT_CON_HISTORIA = 
+        "SELECT " + COLUMNAS_PACIENTE + ", hc.id as hc_id, hc.eliminado as hc_eliminado, hc.version as hc_version, hc.nro_historia, " +
         "hc.grupo_sangre, hc.antecedentes, hc.medicacionActual, hc.observaciones " +
         "FROM paciente p " +
-        "LEFT JOIN historiaClinica hc ON p.id = hc.id_paciente AND hc.eliminado = false " +
-        "WHERE p.id = ? AND p.eliminado = false";
-    
-    private static final String SQL_SELECT_ALL = 
-        "SELECT p.*, hc.id as hc_id, hc.eliminado as hc_eliminado, hc.nro_historia, " +
-        "hc.grupo_sangre, hc.antecedentes, hc.medicacionActual, hc.observaciones " +
+        "LEFT JOIN historiaClinica hc ON p.id = hc.id_paciente AND hc.eliminado = false ";
+
+    // Paciente con solo el ID de su historia (EstrategiaCarga.DIFERIDA): el JOIN se resuelve
+    // con el índice (id_paciente, eliminado) sin leer las filas de historiaClinica
+    private static final String SELECT_ID_HISTORIA = 
+        "SELECT " + COLUMNAS_PACIENTE + ", hc.id as hc_id " +
         "FROM paciente p " +
-        "LEFT JOIN historiaClinica hc ON p.id = hc.id_paciente AND hc.eliminado = false " +
-        "WHERE p.eliminado = false";
+        "LEFT JOIN historiaClinica hc ON p.id = hc.id_paciente AND hc.eliminado = false ";
+
+    private static final String WHERE_ID = "WHERE p.id = ? AND p.eliminado = false";
+    private static final String WHERE_ACTIVOS = "WHERE p.eliminado = false";
+    private static final String WHERE_PAGINA = "WHERE p.eliminado = false AND p.id > ? ORDER BY p.id LIMIT ?";
+    private static final String WHERE_FECHA_NAC = "WHERE p.eliminado = false AND p.fecha_nac BETWEEN ? AND ?";
+    private static final String WHERE_DNI = "WHERE p.dni = ? AND p.eliminado = false";
+    // Búsquedas múltiples: ListaIn expande "IN (?)" a la cantidad de claves de cada bloque
+    private static final String WHERE_IDS = "WHERE p.id IN (?) AND p.eliminado = false";
+    private static final String WHERE_DNIS = "WHERE p.dni IN (?) AND p.eliminado = false";
+
+    private static final String SQL_SELECT_BY_ID = SELECT_CON_HISTORIA + WHERE_ID;
+    private static final String SQL_SELECT_BY_ID_DIFERIDA = SELECT_ID_HISTORIA + WHERE_ID;
+    
+    private static final String SQL_SELECT_ALL = SELECT_CON_HISTORIA + WHERE_ACTIVOS;
+    private static final String SQL_SELECT_ALL_DIFERIDA = SELECT_ID_HISTORIA + WHERE_ACTIVOS;
+    
+    private static final String SQL_SELECT_PAGINA = SELECT_CON_HISTORIA + WHERE_PAGINA;
+    private static final String SQL_SELECT_PAGINA_DIFERIDA = SELECT_ID_HISTORIA + WHERE_PAGINA;
+    
+    private static final String SQL_SELECT_POR_FECHA_NAC = SELECT_CON_HISTORIA + WHERE_FECHA_NAC;
+    private static final String SQL_SELECT_POR_FECHA_NAC_DIFERIDA = SELECT_ID_HISTORIA + WHERE_FECHA_NAC;
+    
+    // Rango de fechas admitido por el tipo DATE de MySQL, usado cuando no se indica un límite
+    private static final LocalDate FECHA_MINIMA = LocalDate.of(1000, 1, 1);
+    private static final LocalDate FECHA_MAXIMA = LocalDate.of(9999, 12, 31);
     
     private static final String SQL_UPDATE = 
-        "UPDATE paciente SET apellido = ?, nombre = ?, dni = ?, fecha_nac = ? WHERE id = ?";
+        "UPDATE paciente SET apellido = ?, nombre = ?, dni = ?, fecha_nac = ?, version = version + 1 " +
+        "WHERE id = ? AND version = ?";
     
     private static final String SQL_DELETE = 
-        "UPDATE paciente SET eliminado = true WHERE id = ?";
+        "UPDATE paciente SET eliminado = true, version = version + 1 WHERE id = ?";
     
-    private static final String SQL_SELECT_BY_DNI = 
-        "SELECT p.*, hc.id as hc_id, hc.eliminado as hc_eliminado, hc.nro_historia, " +
-        "hc.grupo_sangre, hc.antecedentes, hc.medicacionActual, hc.observaciones " +
+    private static final String SQL_SELECT_BY_DNI = SELECT_CON_HISTORIA + WHERE_DNI;
+    private static final String SQL_SELECT_BY_DNI_DIFERIDA = SELECT_ID_HISTORIA + WHERE_DNI;
+
+    private static final String SQL_SELECT_BY_IDS = SELECT_CON_HISTORIA + WHERE_IDS;
+    private static final String SQL_SELECT_BY_IDS_DIFERIDA = SELECT_ID_HISTORIA + WHERE_IDS;
+
+    private static final String SQL_SELECT_BY_DNIS = SELECT_CON_HISTORIA + WHERE_DNIS;
+    private static final String SQL_SELECT_BY_DNIS_DIFERIDA = SELECT_ID_HISTORIA + WHERE_DNIS;
+
+    // Listados resumidos (PacienteResumen): sin las columnas de texto de la historia clínica
+    private static final String SELECT_RESUMEN = 
+        "SELECT p.id, p.apellido, p.nombre, p.dni, p.fecha_nac, hc.nro_historia " +
         "FROM paciente p " +
-        "LEFT JOIN historiaClinica hc ON p.id = hc.id_paciente AND hc.eliminado = false " +
-        "WHERE p.dni = ? AND p.eliminado = false";
+        "LEFT JOIN historiaClinica hc ON p.id = hc.id_paciente AND hc.eliminado = false ";
+
+    private static final String SQL_SELECT_RESUMEN_ALL = 
+        SELECT_RESUMEN + WHERE_ACTIVOS;
+
+    private static final String SQL_SELECT_RESUMEN_PAGINA = 
+        SELECT_RESUMEN + WHERE_PAGINA;
+
+    private static final String SQL_SELECT_RESUMEN_POR_FECHA_NAC = 
+        SELECT_RESUMEN + WHERE_FECHA_NAC;
+
+    // Solo lo que guarda el índice de nombres, sin la historia clínica
+    private static final String SQL_SELECT_NOMBRES = 
+        "SELECT p.id, p.apellido, p.nombre, p.dni FROM paciente p " + WHERE_ACTIVOS;
+
+    // Cada operación registra cantidad de llamadas, errores y latencia
+    private static final RegistroMetricas METRICAS = RegistroMetricas.global();
+
+    private final EstrategiaCarga estrategia;
+    // Lee las historias de los pacientes leídos con EstrategiaCarga.DIFERIDA
+    private final HistoriaClinicaDao historiaDao = new HistoriaClinicaDao();
+
+    /**
+     * DAO que lee cada paciente junto con su historia clínica (EstrategiaCarga.ANTICIPADA)
+     */
+    public PacienteDao() {
+        this(EstrategiaCarga.ANTICIPADA);
+    }
+
+    /**
+     * @param estrategia cómo se leen las historias clínicas de los pacientes
+     */
+    public PacienteDao(EstrategiaCarga estrategia) {
+        this.estrategia = estrategia != null ? estrategia : EstrategiaCarga.ANTICIPADA;
+    }
+
+    public EstrategiaCarga getEstrategia() {
+        return estrategia;
+    }
 
     @Override
     public Paciente crear(Paciente entidad) {
@@ -58,35 +140,75 @@ public class PacienteDao implements GenericDao<Paciente> {
 
     @Override
     public Paciente crear(Connection conexion, Paciente entidad) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+        return METRICAS.medir("paciente.crear", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setBoolean(1, entidad.isEliminado());
-            stmt.setString(2, entidad.getApellido());
-            stmt.setString(3, entidad.getNombre());
-            stmt.setString(4, entidad.getDni());
-            stmt.setDate(5, Date.valueOf(entidad.getFechaNacimiento()));
+                asignarParametrosInsert(stmt, entidad);
             
-            int filasAfectadas = stmt.executeUpdate();
+                int filasAfectadas = stmt.executeUpdate();
+                DatabaseConnection.registrarEscritura();
             
-            if (filasAfectadas == 0) {
-                throw new DatabaseException("Error al crear paciente, ninguna fila afectada");
-            }
+                if (filasAfectadas == 0) {
+                    throw new DatabaseException("Error al crear paciente, ninguna fila afectada");
+                }
             
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    entidad.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new DatabaseException("Error al crear paciente, no se obtuvo el ID");
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        entidad.setId(generatedKeys.getLong(1));
+                        entidad.setVersion(0);
+                    } else {
+                        throw new DatabaseException("Error al crear paciente, no se obtuvo el ID");
+                    }
                 }
-            }
             
-            return entidad;
+                return entidad;
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al crear paciente", e);
+            } catch (SQLException e) {
+                throw errorDeEscritura(e, entidad, "Error al crear paciente");
+            }
+        });
+    }
+
+    @Override
+    public List<Paciente> crearEnLote(List<Paciente> entidades) {
+        Connection conn = DatabaseConnection.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            List<Paciente> creados = crearEnLote(conn, entidades);
+            conn.commit();
+            return creados;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Error al hacer rollback: " + ex.getMessage());
+            }
+            // Un DNI duplicado se informa tal cual, como en crear()
+            if (e instanceof ValidacionException validacion) {
+                throw validacion;
+            }
+            throw new DatabaseException("Error al crear pacientes en lote: " + e.getMessage(), e);
+        } finally {
+            DatabaseConnection.cerrarConexion(conn);
         }
     }
 
+    @Override
+    public List<Paciente> crearEnLote(Connection conexion, List<Paciente> entidades) {
+        return METRICAS.medir("paciente.crearEnLote", () -> {
+            try {
+                LoteJdbc.insertar(conexion, SQL_INSERT, entidades, DatabaseConnection.getTamanioLote(),
+                    this::asignarParametrosInsert, (paciente, id) -> {
+                        paciente.setId(id);
+                        paciente.setVersion(0);
+                    });
+                return entidades;
+            } catch (SQLException e) {
+                throw errorDeLote(e, entidades, "Error al crear pacientes en lote");
+            }
+        });
+    }
+
     @Override
     public Optional<Paciente> leer(Long id) {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -98,23 +220,46 @@ public class PacienteDao implements GenericDao<Paciente> {
 
     @Override
     public Optional<Paciente> leer(Connection conexion, Long id) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_SELECT_BY_ID)) {
+        return METRICAS.medir("paciente.leer", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(sql(SQL_SELECT_BY_ID, SQL_SELECT_BY_ID_DIFERIDA))) {
             
-            stmt.setLong(1, id);
+                stmt.setLong(1, id);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapearResultSet(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(nuevoMapeador().mapear(rs));
+                    }
                 }
-            }
             
-            return Optional.empty();
+                return Optional.empty();
             
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer paciente", e);
+            }
+        });
+    }
+
+    @Override
+    public Map<Long, Paciente> leerPorIds(Collection<Long> ids) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return leerPorIds(conn, ids);
         } catch (SQLException e) {
-            throw new DatabaseException("Error al leer paciente", e);
+            throw new DatabaseException("Error al leer pacientes por ID", e);
         }
     }
 
+    @Override
+    public Map<Long, Paciente> leerPorIds(Connection conexion, Collection<Long> ids) {
+        return METRICAS.medir("paciente.leerPorIds", () -> {
+            try {
+                return ListaIn.leer(conexion, sql(SQL_SELECT_BY_IDS, SQL_SELECT_BY_IDS_DIFERIDA), ids,
+                    (stmt, indice, id) -> stmt.setLong(indice, id), ListaIn.claveLong("id"), nuevoMapeador());
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer pacientes por ID", e);
+            }
+        });
+    }
+
     @Override
     public List<Paciente> leerTodos() {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -126,22 +271,181 @@ public class PacienteDao implements GenericDao<Paciente> {
 
     @Override
     public List<Paciente> leerTodos(Connection conexion) {
-        List<Paciente> pacientes = new ArrayList<>();
+        return METRICAS.medir("paciente.leerTodos", () -> {
+            List<Paciente> pacientes = new ArrayList<>();
+            MapeadorFila<Paciente> mapeador = nuevoMapeador();
         
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_SELECT_ALL);
-             ResultSet rs = stmt.executeQuery()) {
+            try (PreparedStatement stmt = conexion.prepareStatement(sql(SQL_SELECT_ALL, SQL_SELECT_ALL_DIFERIDA));
+                 ResultSet rs = stmt.executeQuery()) {
             
-            while (rs.next()) {
-                pacientes.add(mapearResultSet(rs));
-            }
+                while (rs.next()) {
+                    pacientes.add(mapeador.mapear(rs));
+                }
             
-            return pacientes;
+                return pacientes;
             
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer pacientes", e);
+            }
+        });
+    }
+
+    @Override
+    public Pagina<Paciente> leerPagina(Long despuesDeId, int tamanio) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return leerPagina(conn, despuesDeId, tamanio);
         } catch (SQLException e) {
-            throw new DatabaseException("Error al leer pacientes", e);
+            throw new DatabaseException("Error al leer página de pacientes", e);
         }
     }
 
+    @Override
+    public Pagina<Paciente> leerPagina(Connection conexion, Long despuesDeId, int tamanio) {
+        return METRICAS.medir("paciente.leerPagina", () -> {
+            List<Paciente> pacientes = new ArrayList<>();
+            MapeadorFila<Paciente> mapeador = nuevoMapeador();
+        
+            try (PreparedStatement stmt = conexion.prepareStatement(sql(SQL_SELECT_PAGINA, SQL_SELECT_PAGINA_DIFERIDA))) {
+            
+                stmt.setLong(1, despuesDeId != null ? despuesDeId : 0L);
+                // Se pide un elemento extra para saber si existe una página siguiente
+                stmt.setInt(2, tamanio + 1);
+            
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pacientes.add(mapeador.mapear(rs));
+                    }
+                }
+            
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer página de pacientes", e);
+            }
+        
+            boolean hayMas = pacientes.size() > tamanio;
+            if (hayMas) {
+                pacientes.remove(tamanio);
+            }
+            Long ultimoId = pacientes.isEmpty() ? despuesDeId : pacientes.get(pacientes.size() - 1).getId();
+            return new Pagina<>(pacientes, ultimoId, hayMas);
+        });
+    }
+
+    @Override
+    public Stream<Paciente> leerTodosStream() {
+        Connection conn = DatabaseConnection.getConnection();
+        return StreamJdbc.consultar(conn, true, sql(SQL_SELECT_ALL, SQL_SELECT_ALL_DIFERIDA), stmt -> { },
+            nuevoMapeador());
+    }
+
+    @Override
+    public Stream<Paciente> leerTodosStream(Connection conexion) {
+        return StreamJdbc.consultar(conexion, false, sql(SQL_SELECT_ALL, SQL_SELECT_ALL_DIFERIDA), stmt -> { },
+            nuevoMapeador());
+    }
+
+    /**
+     * Recorre en modo streaming los pacientes activos nacidos en el rango indicado.
+     * El Stream debe cerrarse para liberar la conexión.
+     *
+     * @param desde fecha mínima inclusive (null = sin límite)
+     * @param hasta fecha máxima inclusive (null = sin límite)
+     */
+    public Stream<Paciente> leerPorFechaNacimientoStream(LocalDate desde, LocalDate hasta) {
+        Connection conn = DatabaseConnection.getConnection();
+        return StreamJdbc.consultar(conn, true, sql(SQL_SELECT_POR_FECHA_NAC, SQL_SELECT_POR_FECHA_NAC_DIFERIDA), stmt -> {
+            stmt.setDate(1, Date.valueOf(desde != null ? desde : FECHA_MINIMA));
+            stmt.setDate(2, Date.valueOf(hasta != null ? hasta : FECHA_MAXIMA));
+        }, nuevoMapeador());
+    }
+
+    /**
+     * Lee todos los pacientes activos sin los datos de la historia clínica (solo su número)
+     */
+    public List<PacienteResumen> leerTodosResumen() {
+        return METRICAS.medir("paciente.leerTodosResumen", () -> {
+            List<PacienteResumen> pacientes = new ArrayList<>();
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_RESUMEN_ALL);
+                 ResultSet rs = stmt.executeQuery()) {
+            
+                MapeadorFila<PacienteResumen> mapeador = nuevoMapeadorResumen();
+                while (rs.next()) {
+                    pacientes.add(mapeador.mapear(rs));
+                }
+            
+                return pacientes;
+            
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer pacientes", e);
+            }
+        });
+    }
+
+    /**
+     * Lee una página de pacientes activos sin los datos de la historia clínica (solo su número)
+     *
+     * @param despuesDeId cursor: se devuelven pacientes con ID mayor a este (null para la primera página)
+     * @param tamanio cantidad máxima de elementos de la página
+     */
+    public Pagina<PacienteResumen> leerPaginaResumen(Long despuesDeId, int tamanio) {
+        return METRICAS.medir("paciente.leerPaginaResumen", () -> {
+            List<PacienteResumen> pacientes = new ArrayList<>();
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_RESUMEN_PAGINA)) {
+            
+                stmt.setLong(1, despuesDeId != null ? despuesDeId : 0L);
+                // Se pide un elemento extra para saber si existe una página siguiente
+                stmt.setInt(2, tamanio + 1);
+            
+                try (ResultSet rs = stmt.executeQuery()) {
+                    MapeadorFila<PacienteResumen> mapeador = nuevoMapeadorResumen();
+                    while (rs.next()) {
+                        pacientes.add(mapeador.mapear(rs));
+                    }
+                }
+            
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al leer página de pacientes", e);
+            }
+        
+            boolean hayMas = pacientes.size() > tamanio;
+            if (hayMas) {
+                pacientes.remove(tamanio);
+            }
+            Long ultimoId = pacientes.isEmpty() ? despuesDeId : pacientes.get(pacientes.size() - 1).getId();
+            return new Pagina<>(pacientes, ultimoId, hayMas);
+        });
+    }
+
+    /**
+     * Recorre en modo streaming el resumen de los pacientes activos nacidos en el rango indicado.
+     * El Stream debe cerrarse para liberar la conexión.
+     *
+     * @param desde fecha mínima inclusive (null = sin límite)
+     * @param hasta fecha máxima inclusive (null = sin límite)
+     */
+    public Stream<PacienteResumen> leerResumenPorFechaNacimientoStream(LocalDate desde, LocalDate hasta) {
+        Connection conn = DatabaseConnection.getConnection();
+        return StreamJdbc.consultar(conn, true, SQL_SELECT_RESUMEN_POR_FECHA_NAC, stmt -> {
+            stmt.setDate(1, Date.valueOf(desde != null ? desde : FECHA_MINIMA));
+            stmt.setDate(2, Date.valueOf(hasta != null ? hasta : FECHA_MAXIMA));
+        }, nuevoMapeadorResumen());
+    }
+
+    /**
+     * Recorre en modo streaming el ID, apellido, nombre y DNI de los pacientes activos, en un
+     * PacienteResumen sin fecha de nacimiento ni número de historia. Lee del primario.
+     * El Stream debe cerrarse para liberar la conexión.
+     */
+    public Stream<PacienteResumen> leerNombresStream() {
+        Connection conn = DatabaseConnection.getConnection();
+        // Las columnas vienen en el orden del SELECT
+        return StreamJdbc.consultar(conn, true, SQL_SELECT_NOMBRES, stmt -> { },
+            rs -> new PacienteResumen(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), null, null));
+    }
+
     @Override
     public boolean actualizar(Paciente entidad) {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -153,20 +457,28 @@ public class PacienteDao implements GenericDao<Paciente> {
 
     @Override
     public boolean actualizar(Connection conexion, Paciente entidad) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_UPDATE)) {
+        return METRICAS.medir("paciente.actualizar", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_UPDATE)) {
             
-            stmt.setString(1, entidad.getApellido());
-            stmt.setString(2, entidad.getNombre());
-            stmt.setString(3, entidad.getDni());
-            stmt.setDate(4, Date.valueOf(entidad.getFechaNacimiento()));
-            stmt.setLong(5, entidad.getId());
+                stmt.setString(1, entidad.getApellido());
+                stmt.setString(2, entidad.getNombre());
+                stmt.setString(3, entidad.getDni());
+                stmt.setDate(4, Date.valueOf(entidad.getFechaNacimiento()));
+                stmt.setLong(5, entidad.getId());
+                stmt.setInt(6, entidad.getVersion());
             
-            int filasAfectadas = stmt.executeUpdate();
-            return filasAfectadas > 0;
+                // 0 filas: no existe o otra operación la modificó después de leerla (versión distinta)
+                int filasAfectadas = stmt.executeUpdate();
+                DatabaseConnection.registrarEscritura();
+                if (filasAfectadas > 0) {
+                    entidad.setVersion(entidad.getVersion() + 1);
+                }
+                return filasAfectadas > 0;
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al actualizar paciente", e);
-        }
+            } catch (SQLException e) {
+                throw errorDeEscritura(e, entidad, "Error al actualizar paciente");
+            }
+        });
     }
 
     @Override
@@ -180,71 +492,173 @@ public class PacienteDao implements GenericDao<Paciente> {
 
     @Override
     public boolean eliminar(Connection conexion, Long id) {
-        try (PreparedStatement stmt = conexion.prepareStatement(SQL_DELETE)) {
+        return METRICAS.medir("paciente.eliminar", () -> {
+            try (PreparedStatement stmt = conexion.prepareStatement(SQL_DELETE)) {
             
-            stmt.setLong(1, id);
-            int filasAfectadas = stmt.executeUpdate();
-            return filasAfectadas > 0;
+                stmt.setLong(1, id);
+                int filasAfectadas = stmt.executeUpdate();
+                DatabaseConnection.registrarEscritura();
+                return filasAfectadas > 0;
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al eliminar paciente", e);
-        }
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al eliminar paciente", e);
+            }
+        });
     }
 
     /**
      * Busca un paciente por su DNI
      */
     public Optional<Paciente> buscarPorDni(String dni) {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SQL_SELECT_BY_DNI)) {
+        return METRICAS.medir("paciente.buscarPorDni", () -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql(SQL_SELECT_BY_DNI, SQL_SELECT_BY_DNI_DIFERIDA))) {
             
-            stmt.setString(1, dni);
+                stmt.setString(1, dni);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapearResultSet(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(nuevoMapeador().mapear(rs));
+                    }
                 }
-            }
             
-            return Optional.empty();
+                return Optional.empty();
             
-        } catch (SQLException e) {
-            throw new DatabaseException("Error al buscar paciente por DNI", e);
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al buscar paciente por DNI", e);
+            }
+        });
+    }
+
+    /**
+     * Busca varios pacientes por DNI con consultas "dni IN (...)" en bloques
+     *
+     * @return los pacientes encontrados por DNI, en el orden de los DNI; los que no existen no aparecen
+     */
+    public Map<String, Paciente> buscarPorDnis(Collection<String> dnis) {
+        return METRICAS.medir("paciente.buscarPorDnis", () -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                return ListaIn.leer(conn, sql(SQL_SELECT_BY_DNIS, SQL_SELECT_BY_DNIS_DIFERIDA), dnis,
+                    (stmt, indice, dni) -> stmt.setString(indice, dni), ListaIn.claveTexto("dni"), nuevoMapeador());
+            } catch (SQLException e) {
+                throw new DatabaseException("Error al buscar pacientes por DNI", e);
+            }
+        });
+    }
+
+    /**
+     * Traduce el error de un INSERT/UPDATE: el DNI duplicado lo detecta el índice UNIQUE
+     * de paciente.dni en la misma sentencia, sin una consulta previa
+     */
+    private static RuntimeException errorDeEscritura(SQLException e, Paciente entidad, String mensaje) {
+        if (ErroresSql.esClaveDuplicada(e)) {
+            return new ValidacionException("Ya existe un paciente con DNI: " + entidad.getDni(), e);
         }
+        return new DatabaseException(mensaje, e);
     }
 
     /**
-     * Mapea un ResultSet a un objeto Paciente (con su HistoriaClinica si existe)
+     * Traduce el error de crearEnLote como errorDeEscritura, indicando qué paciente del lote lo causó.
+     * Si el driver no lo informa (INSERT multi-fila), el DNI se toma del mensaje de la base.
      */
-    private Paciente mapearResultSet(ResultSet rs) throws SQLException {
-        Paciente paciente = new Paciente();
-        paciente.setId(rs.getLong("id"));
-        paciente.setEliminado(rs.getBoolean("eliminado"));
-        paciente.setApellido(rs.getString("apellido"));
-        paciente.setNombre(rs.getString("nombre"));
-        paciente.setDni(rs.getString("dni"));
-        
-        Date fechaNac = rs.getDate("fecha_nac");
-        if (fechaNac != null) {
-            paciente.setFechaNacimiento(fechaNac.toLocalDate());
+    private static RuntimeException errorDeLote(SQLException e, List<Paciente> entidades, String mensaje) {
+        int indice = LoteJdbc.indiceFallido(e);
+        String posicion = indice >= 0 ? " (elemento " + (indice + 1) + " del lote)" : "";
+        if (ErroresSql.esClaveDuplicada(e)) {
+            String dni = indice >= 0 ? entidades.get(indice).getDni() : ErroresSql.valorDuplicado(e);
+            return new ValidacionException("Ya existe un paciente con DNI: " + dni + posicion, e);
+        }
+        return new DatabaseException(mensaje + posicion, e);
+    }
+
+    /**
+     * Carga los parámetros de SQL_INSERT
+     */
+    private void asignarParametrosInsert(PreparedStatement stmt, Paciente entidad) throws SQLException {
+        stmt.setBoolean(1, entidad.isEliminado());
+        stmt.setString(2, entidad.getApellido());
+        stmt.setString(3, entidad.getNombre());
+        stmt.setString(4, entidad.getDni());
+        stmt.setDate(5, Date.valueOf(entidad.getFechaNacimiento()));
+    }
+
+    /**
+     * Mapeador de las consultas SQL_SELECT_RESUMEN_* para una lectura: resuelve las posiciones
+     * de las columnas una vez por ResultSet
+     */
+    MapeadorFila<PacienteResumen> nuevoMapeadorResumen() {
+        return new MapeadorPorIndice<>(ColumnasResumen::new, PacienteDao::mapearResumen);
+    }
+
+    /**
+     * Mapea una fila de las consultas SQL_SELECT_RESUMEN_* a un PacienteResumen
+     */
+    private static PacienteResumen mapearResumen(ResultSet rs, ColumnasResumen columnas) throws SQLException {
+        Date fechaNac = rs.getDate(columnas.fechaNac);
+        return new PacienteResumen(
+            rs.getLong(columnas.id),
+            rs.getString(columnas.apellido),
+            rs.getString(columnas.nombre),
+            rs.getString(columnas.dni),
+            fechaNac != null ? fechaNac.toLocalDate() : null,
+            rs.getString(columnas.nroHistoria));
+    }
+
+    /**
+     * La consulta que corresponde a la estrategia de carga del DAO
+     */
+    private String sql(String anticipada, String diferida) {
+        return estrategia == EstrategiaCarga.DIFERIDA ? diferida : anticipada;
+    }
+
+    /**
+     * Mapeador para una lectura: resuelve las posiciones de las columnas una vez por ResultSet.
+     * Con EstrategiaCarga.DIFERIDA cada lectura tiene además su propia CargaDiferidaHistorias,
+     * así el primer acceso a una historia lee las del resto de la lectura.
+     * Visibilidad de paquete para poder medirlo desde los benchmarks (src/jmh)
+     */
+    MapeadorFila<Paciente> nuevoMapeador() {
+        if (estrategia != EstrategiaCarga.DIFERIDA) {
+            return new MapeadorPorIndice<>(indice -> new ColumnasPaciente(indice, true), PacienteDao::mapearFila);
         }
+        CargaDiferidaHistorias carga = new CargaDiferidaHistorias(historiaDao);
+        return new MapeadorPorIndice<>(indice -> new ColumnasPaciente(indice, false),
+            (rs, columnas) -> mapearDiferido(rs, columnas, carga));
+    }
+
+    /**
+     * Mapea una fila de las consultas SQL_*_DIFERIDA: la historia clínica queda sin leer y
+     * se lee con la carga de la lectura en el primer getHistoriaClinica()
+     */
+    private static Paciente mapearDiferido(ResultSet rs, ColumnasPaciente columnas,
+                                           CargaDiferidaHistorias carga) throws SQLException {
+        Paciente paciente = mapearPaciente(rs, columnas);
+        long hcId = rs.getLong(columnas.hcId);
+        if (!rs.wasNull() && hcId > 0) {
+            paciente.setCargadorHistoriaClinica(carga.registrar(hcId));
+        }
+        return paciente;
+    }
+
+    /**
+     * Mapea la fila actual a un objeto Paciente (con su HistoriaClinica si existe)
+     */
+    private static Paciente mapearFila(ResultSet rs, ColumnasPaciente columnas) throws SQLException {
+        Paciente paciente = mapearPaciente(rs, columnas);
         
         // Mapear HistoriaClinica si existe
-        long hcId = rs.getLong("hc_id");
+        long hcId = rs.getLong(columnas.hcId);
         if (!rs.wasNull() && hcId > 0) {
             HistoriaClinica hc = new HistoriaClinica();
             hc.setId(hcId);
-            hc.setEliminado(rs.getBoolean("hc_eliminado"));
-            hc.setNroHistoria(rs.getString("nro_historia"));
+            hc.setEliminado(rs.getBoolean(columnas.hcEliminado));
+            hc.setVersion(rs.getInt(columnas.hcVersion));
+            hc.setNroHistoria(rs.getString(columnas.nroHistoria));
             
-            String grupoSangre = rs.getString("grupo_sangre");
-            if (grupoSangre != null) {
-                hc.setGrupoSanguineo(GrupoSanguineo.fromString(grupoSangre));
-            }
-            
-            hc.setAntecedentes(rs.getString("antecedentes"));
-            hc.setMedicacionActual(rs.getString("medicacionActual"));
-            hc.setObservaciones(rs.getString("observaciones"));
+            hc.setGrupoSanguineo(ColumnaGrupoSanguineo.leer(rs, columnas.grupoSangre));
+            hc.setAntecedentes(rs.getString(columnas.antecedentes));
+            hc.setMedicacionActual(rs.getString(columnas.medicacionActual));
+            hc.setObservaciones(rs.getString(columnas.observaciones));
             hc.setIdPaciente(paciente.getId());
             
             paciente.setHistoriaClinica(hc);
@@ -252,5 +666,84 @@ public class PacienteDao implements GenericDao<Paciente> {
         
         return paciente;
     }
-}
 
+    /**
+     * Columnas propias del paciente, comunes a las dos estrategias de carga
+     */
+    private static Paciente mapearPaciente(ResultSet rs, ColumnasPaciente columnas) throws SQLException {
+        Paciente paciente = new Paciente();
+        paciente.setId(rs.getLong(columnas.id));
+        paciente.setEliminado(rs.getBoolean(columnas.eliminado));
+        paciente.setVersion(rs.getInt(columnas.version));
+        paciente.setApellido(rs.getString(columnas.apellido));
+        paciente.setNombre(rs.getString(columnas.nombre));
+        paciente.setDni(rs.getString(columnas.dni));
+        
+        Date fechaNac = rs.getDate(columnas.fechaNac);
+        if (fechaNac != null) {
+            paciente.setFechaNacimiento(fechaNac.toLocalDate());
+        }
+        return paciente;
+    }
+
+    /**
+     * Posiciones de las columnas en el ResultSet de una consulta. Las de la historia clínica
+     * solo se resuelven para las consultas que las traen (EstrategiaCarga.ANTICIPADA).
+     */
+    private static final class ColumnasPaciente {
+        private final int id;
+        private final int eliminado;
+        private final int version;
+        private final int apellido;
+        private final int nombre;
+        private final int dni;
+        private final int fechaNac;
+        private final int hcId;
+        private final int hcEliminado;
+        private final int hcVersion;
+        private final int nroHistoria;
+        private final int grupoSangre;
+        private final int antecedentes;
+        private final int medicacionActual;
+        private final int observaciones;
+
+        ColumnasPaciente(IndiceColumnas indice, boolean conHistoria) throws SQLException {
+            id = indice.de("id");
+            eliminado = indice.de("eliminado");
+            version = indice.de("version");
+            apellido = indice.de("apellido");
+            nombre = indice.de("nombre");
+            dni = indice.de("dni");
+            fechaNac = indice.de("fecha_nac");
+            hcId = indice.de("hc_id");
+            hcEliminado = conHistoria ? indice.de("hc_eliminado") : 0;
+            hcVersion = conHistoria ? indice.de("hc_version") : 0;
+            nroHistoria = conHistoria ? indice.de("nro_historia") : 0;
+            grupoSangre = conHistoria ? indice.de("grupo_sangre") : 0;
+            antecedentes = conHistoria ? indice.de("antecedentes") : 0;
+            medicacionActual = conHistoria ? indice.de("medicacionActual") : 0;
+            observaciones = conHistoria ? indice.de("observaciones") : 0;
+        }
+    }
+
+    /**
+     * Posiciones de las columnas de SELECT_RESUMEN en el ResultSet de una consulta
+     */
+    private static final class ColumnasResumen {
+        private final int id;
+        private final int apellido;
+        private final int nombre;
+        private final int dni;
+        private final int fechaNac;
+        private final int nroHistoria;
+
+        ColumnasResumen(IndiceColumnas indice) throws SQLException {
+            id = indice.de("id");
+            apellido = indice.de("apellido");
+            nombre = indice.de("nombre");
+            dni = indice.de("dni");
+            fechaNac = indice.de("fecha_nac");
+            nroHistoria = indice.de("nro_historia");
+        }
+    }
+}
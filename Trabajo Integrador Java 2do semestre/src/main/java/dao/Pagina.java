@@ -0,0 +1,54 @@
+package dao;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtenida con paginación por clave (keyset pagination)
+ * 
+ * @param <T> el tipo de elemento de la página
+ */
+public class Pagina<T> {
+    private final List<T> elementos;
+    private final Long ultimoId;
+    private final boolean hayMas;
+
+    public Pagina(List<T> elementos, Long ultimoId, boolean hayMas) {
+        this.elementos = elementos;
+        this.ultimoId = ultimoId;
+        this.hayMas = hayMas;
+    }
+
+    /**
+     * Elementos de la página, ordenados por ID
+     */
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * ID del último elemento de la página; se usa como cursor "despuesDeId" para pedir la siguiente
+     */
+    public Long getUltimoId() {
+        return ultimoId;
+    }
+
+    /**
+     * Indica si existen más elementos después de esta página
+     */
+    public boolean hayMas() {
+        return hayMas;
+    }
+
+    public boolean isEmpty() {
+        return elementos.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "Pagina{" +
+                "elementos=" + elementos.size() +
+                ", ultimoId=" + ultimoId +
+                ", hayMas=" + hayMas +
+                '}';
+    }
+}
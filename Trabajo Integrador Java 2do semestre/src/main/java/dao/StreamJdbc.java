@@ -0,0 +1,95 @@
+package dao;
+
+import config.DatabaseConnection;
+import exceptions.DatabaseException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Utilidad para recorrer un ResultSet como Stream sin materializarlo en memoria.
+ * La consulta se ejecuta en modo forward-only / read-only con el fetch size de streaming
+ * configurado, así el driver entrega las filas a medida que se consumen.
+ */
+class StreamJdbc {
+
+    /**
+     * Asigna los parámetros de la consulta
+     */
+    @FunctionalInterface
+    interface AsignadorParametros {
+        void asignar(PreparedStatement stmt) throws SQLException;
+    }
+
+    private StreamJdbc() {
+    }
+
+    /**
+     * Ejecuta la consulta y devuelve un Stream perezoso sobre sus filas.
+     * El Stream DEBE cerrarse (try-with-resources) para liberar el ResultSet y la sentencia.
+     *
+     * @param conexion la conexión a usar
+     * @param cerrarConexion si es true, al cerrar el Stream también se cierra la conexión
+     * @param sql la consulta
+     * @param parametros asigna los parámetros de la consulta
+     * @param mapeador convierte cada fila en una entidad
+     */
+    static <T> Stream<T> consultar(Connection conexion, boolean cerrarConexion, String sql,
+                                   AsignadorParametros parametros, MapeadorFila<T> mapeador) {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conexion.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(DatabaseConnection.getFetchSizeStreaming());
+            parametros.asignar(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            cerrar(rs, stmt, cerrarConexion ? conexion : null);
+            throw new DatabaseException("Error al abrir la consulta en modo streaming", e);
+        }
+
+        final PreparedStatement sentencia = stmt;
+        final ResultSet resultado = rs;
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> accion) {
+                try {
+                    if (!resultado.next()) {
+                        return false;
+                    }
+                    accion.accept(mapeador.mapear(resultado));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DatabaseException("Error al leer la consulta en modo streaming", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false)
+            .onClose(() -> cerrar(resultado, sentencia, cerrarConexion ? conexion : null));
+    }
+
+    private static void cerrar(ResultSet rs, PreparedStatement stmt, Connection conexion) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar la consulta: " + e.getMessage());
+        } finally {
+            DatabaseConnection.cerrarConexion(conexion);
+        }
+    }
+}
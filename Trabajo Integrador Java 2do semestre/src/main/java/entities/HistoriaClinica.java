@@ -8,6 +8,8 @@ import enums.GrupoSanguineo;
 public class HistoriaClinica {
     private Long id;
     private boolean eliminado;
+    // Versión para el control de concurrencia optimista (null = desconocida)
+    private Integer version;
     private String nroHistoria;
     private GrupoSanguineo grupoSanguineo;
     private String antecedentes;
@@ -50,6 +52,14 @@ public class HistoriaClinica {
         this.eliminado = eliminado;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public String getNroHistoria() {
         return nroHistoria;
     }
@@ -0,0 +1,72 @@
+package entities;
+
+import enums.GrupoSanguineo;
+
+/**
+ * Vista resumida de una historia clínica para listados.
+ *
+ * De antecedentes y medicación solo se leen los primeros caracteres (LARGO_EXTRACTO),
+ * suficientes para una columna de tabla; observaciones no se lee. Es de solo lectura:
+ * para ver o modificar el texto completo se usa la entidad HistoriaClinica.
+ */
+public class HistoriaClinicaResumen {
+
+    public static final int LARGO_EXTRACTO = 60;
+
+    private final Long id;
+    private final String nroHistoria;
+    private final GrupoSanguineo grupoSanguineo;
+    private final Long idPaciente;
+    private final String extractoAntecedentes;
+    private final String extractoMedicacion;
+
+    public HistoriaClinicaResumen(Long id, String nroHistoria, GrupoSanguineo grupoSanguineo, Long idPaciente,
+                                  String extractoAntecedentes, String extractoMedicacion) {
+        this.id = id;
+        this.nroHistoria = nroHistoria;
+        this.grupoSanguineo = grupoSanguineo;
+        this.idPaciente = idPaciente;
+        this.extractoAntecedentes = extractoAntecedentes;
+        this.extractoMedicacion = extractoMedicacion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNroHistoria() {
+        return nroHistoria;
+    }
+
+    public GrupoSanguineo getGrupoSanguineo() {
+        return grupoSanguineo;
+    }
+
+    public Long getIdPaciente() {
+        return idPaciente;
+    }
+
+    /**
+     * Primeros LARGO_EXTRACTO caracteres de los antecedentes
+     */
+    public String getExtractoAntecedentes() {
+        return extractoAntecedentes;
+    }
+
+    /**
+     * Primeros LARGO_EXTRACTO caracteres de la medicación actual (null si no tiene)
+     */
+    public String getExtractoMedicacion() {
+        return extractoMedicacion;
+    }
+
+    @Override
+    public String toString() {
+        return "HistoriaClinicaResumen{" +
+                "id=" + id +
+                ", nroHistoria='" + nroHistoria + '\'' +
+                ", grupoSanguineo=" + grupoSanguineo +
+                ", idPaciente=" + idPaciente +
+                '}';
+    }
+}
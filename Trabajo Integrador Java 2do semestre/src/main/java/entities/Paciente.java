@@ -1,6 +1,7 @@
 package entities;
 
 import java.time.LocalDate;
+import java.util.function.Supplier;
 
 /**
  * Entidad que representa un Paciente (Clase A en la relación 1->1)
@@ -9,11 +10,15 @@ import java.time.LocalDate;
 public class Paciente {
     private Long id;
     private boolean eliminado;
+    // Versión para el control de concurrencia optimista (null = desconocida)
+    private Integer version;
     private String apellido;
     private String nombre;
     private String dni;
     private LocalDate fechaNacimiento;
     private HistoriaClinica historiaClinica;
+    // Lee la historia en el primer getHistoriaClinica() (EstrategiaCarga.DIFERIDA); null si ya está cargada
+    private Supplier<HistoriaClinica> cargadorHistoriaClinica;
 
     // Constructor vacío
     public Paciente() {
@@ -48,6 +53,14 @@ public class Paciente {
         this.eliminado = eliminado;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public String getApellido() {
         return apellido;
     }
@@ -80,12 +93,41 @@ public class Paciente {
         this.fechaNacimiento = fechaNacimiento;
     }
 
+    /**
+     * Historia clínica del paciente. Si se leyó con carga diferida, la primera llamada la lee
+     * de la base (o null si se dio de baja después de leer el paciente).
+     */
     public HistoriaClinica getHistoriaClinica() {
+        Supplier<HistoriaClinica> cargador = cargadorHistoriaClinica;
+        if (cargador != null) {
+            historiaClinica = cargador.get();
+            cargadorHistoriaClinica = null;
+        }
         return historiaClinica;
     }
 
     public void setHistoriaClinica(HistoriaClinica historiaClinica) {
         this.historiaClinica = historiaClinica;
+        this.cargadorHistoriaClinica = null;
+    }
+
+    /**
+     * Indica de dónde se leerá la historia clínica en el primer getHistoriaClinica()
+     */
+    public void setCargadorHistoriaClinica(Supplier<HistoriaClinica> cargadorHistoriaClinica) {
+        this.cargadorHistoriaClinica = cargadorHistoriaClinica;
+        this.historiaClinica = null;
+    }
+
+    /**
+     * Cargador pendiente de la historia clínica, o null si ya está cargada
+     */
+    public Supplier<HistoriaClinica> getCargadorHistoriaClinica() {
+        return cargadorHistoriaClinica;
+    }
+
+    public boolean isHistoriaClinicaCargada() {
+        return cargadorHistoriaClinica == null;
     }
 
     @Override
@@ -97,7 +139,8 @@ public class Paciente {
                 ", nombre='" + nombre + '\'' +
                 ", dni='" + dni + '\'' +
                 ", fechaNacimiento=" + fechaNacimiento +
-                ", historiaClinica=" + (historiaClinica != null ? historiaClinica.getNroHistoria() : "Sin HC") +
+                ", historiaClinica=" + (cargadorHistoriaClinica != null ? "sin cargar"
+                        : historiaClinica != null ? historiaClinica.getNroHistoria() : "Sin HC") +
                 '}';
     }
 }
@@ -0,0 +1,70 @@
+package entities;
+
+import java.time.LocalDate;
+
+/**
+ * Vista resumida de un paciente para listados y exportaciones.
+ *
+ * Se lee con una consulta que solo trae las columnas del paciente y el número de su
+ * historia clínica, sin los campos de texto largos (antecedentes, medicación, observaciones).
+ * Es de solo lectura: para modificar un paciente se usa la entidad Paciente.
+ */
+public class PacienteResumen {
+    private final Long id;
+    private final String apellido;
+    private final String nombre;
+    private final String dni;
+    private final LocalDate fechaNacimiento;
+    // null si el paciente no tiene historia clínica activa
+    private final String nroHistoria;
+
+    public PacienteResumen(Long id, String apellido, String nombre, String dni,
+                           LocalDate fechaNacimiento, String nroHistoria) {
+        this.id = id;
+        this.apellido = apellido;
+        this.nombre = nombre;
+        this.dni = dni;
+        this.fechaNacimiento = fechaNacimiento;
+        this.nroHistoria = nroHistoria;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getApellido() {
+        return apellido;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getDni() {
+        return dni;
+    }
+
+    public LocalDate getFechaNacimiento() {
+        return fechaNacimiento;
+    }
+
+    public String getNroHistoria() {
+        return nroHistoria;
+    }
+
+    public boolean tieneHistoriaClinica() {
+        return nroHistoria != null;
+    }
+
+    @Override
+    public String toString() {
+        return "PacienteResumen{" +
+                "id=" + id +
+                ", apellido='" + apellido + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", dni='" + dni + '\'' +
+                ", fechaNacimiento=" + fechaNacimiento +
+                ", historiaClinica=" + (nroHistoria != null ? nroHistoria : "Sin HC") +
+                '}';
+    }
+}
@@ -0,0 +1,17 @@
+package enums;
+
+/**
+ * Cuándo se lee la historia clínica de los pacientes que devuelve PacienteDao
+ */
+public enum EstrategiaCarga {
+    /**
+     * En la misma consulta que el paciente (LEFT JOIN con todas las columnas de la historia)
+     */
+    ANTICIPADA,
+
+    /**
+     * La consulta del paciente trae solo el ID de la historia; la historia se lee en el primer
+     * Paciente.getHistoriaClinica(), junto con las de los demás pacientes de la misma lectura
+     */
+    DIFERIDA
+}
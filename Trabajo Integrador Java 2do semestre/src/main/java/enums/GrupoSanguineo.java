@@ -2,27 +2,47 @@ package enums;
 
 /**
  * Enumeración que representa los grupos sanguíneos posibles
+ * Cada grupo tiene su texto ("A+") y un código numérico (1 a 8) para el almacenamiento compacto
  */
 public enum GrupoSanguineo {
-    A_POSITIVO("A+"),
-    A_NEGATIVO("A-"),
-    B_POSITIVO("B+"),
-    B_NEGATIVO("B-"),
-    AB_POSITIVO("AB+"),
-    AB_NEGATIVO("AB-"),
-    O_POSITIVO("O+"),
-    O_NEGATIVO("O-");
+    A_POSITIVO("A+", 1),
+    A_NEGATIVO("A-", 2),
+    B_POSITIVO("B+", 3),
+    B_NEGATIVO("B-", 4),
+    AB_POSITIVO("AB+", 5),
+    AB_NEGATIVO("AB-", 6),
+    O_POSITIVO("O+", 7),
+    O_NEGATIVO("O-", 8);
+
+    // Grupos por código; values() se copia una sola vez
+    private static final GrupoSanguineo[] POR_CODIGO = new GrupoSanguineo[values().length + 1];
+
+    static {
+        for (GrupoSanguineo gs : values()) {
+            POR_CODIGO[gs.codigo] = gs;
+        }
+    }
 
     private final String valor;
+    private final int codigo;
 
-    GrupoSanguineo(String valor) {
+    GrupoSanguineo(String valor, int codigo) {
         this.valor = valor;
+        this.codigo = codigo;
     }
 
     public String getValor() {
         return valor;
     }
 
+    /**
+     * Código numérico del grupo (historiaClinica.grupo_sangre con almacenamiento compacto)
+     * No debe cambiar: es el valor guardado en la base
+     */
+    public int getCodigo() {
+        return codigo;
+    }
+
     /**
      * Convierte una cadena a un GrupoSanguineo
      * @param texto el valor del grupo sanguíneo
@@ -30,12 +50,57 @@ public enum GrupoSanguineo {
      * @throws IllegalArgumentException si el valor no es válido
      */
     public static GrupoSanguineo fromString(String texto) {
-        for (GrupoSanguineo gs : GrupoSanguineo.values()) {
-            if (gs.valor.equalsIgnoreCase(texto)) {
-                return gs;
-            }
+        int codigo = texto != null ? codigoDe(texto) : 0;
+        if (codigo == 0) {
+            throw new IllegalArgumentException("Grupo sanguíneo inválido: " + texto);
+        }
+        return POR_CODIGO[codigo];
+    }
+
+    /**
+     * Convierte un código numérico a un GrupoSanguineo
+     * @param codigo el código del grupo sanguíneo (getCodigo)
+     * @return el enum correspondiente
+     * @throws IllegalArgumentException si el código no es válido
+     */
+    public static GrupoSanguineo fromCodigo(int codigo) {
+        if (codigo < 1 || codigo >= POR_CODIGO.length) {
+            throw new IllegalArgumentException("Código de grupo sanguíneo inválido: " + codigo);
+        }
+        return POR_CODIGO[codigo];
+    }
+
+    /**
+     * Código del texto ("A+", "ab-", ...) sin recorrer los valores, o 0 si no es un grupo válido
+     * Se ejecuta por cada historia clínica leída de la base, así que no crea objetos
+     */
+    private static int codigoDe(String texto) {
+        int largo = texto.length();
+        if (largo < 2 || largo > 3) {
+            return 0;
+        }
+        int desplazamiento = switch (texto.charAt(largo - 1)) {
+            case '+' -> 0;
+            case '-' -> 1;
+            default -> -1;
+        };
+        if (desplazamiento < 0) {
+            return 0;
+        }
+
+        char primera = Character.toUpperCase(texto.charAt(0));
+        int base;
+        if (largo == 3) {
+            base = primera == 'A' && Character.toUpperCase(texto.charAt(1)) == 'B' ? AB_POSITIVO.codigo : 0;
+        } else {
+            base = switch (primera) {
+                case 'A' -> A_POSITIVO.codigo;
+                case 'B' -> B_POSITIVO.codigo;
+                case 'O' -> O_POSITIVO.codigo;
+                default -> 0;
+            };
         }
-        throw new IllegalArgumentException("Grupo sanguíneo inválido: " + texto);
+        return base == 0 ? 0 : base + desplazamiento;
     }
 
     @Override
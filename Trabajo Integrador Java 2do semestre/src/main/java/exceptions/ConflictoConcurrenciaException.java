@@ -0,0 +1,18 @@
+package exceptions;
+
+/**
+ * Excepción para actualizaciones rechazadas por el control de concurrencia optimista:
+ * el registro fue modificado por otra operación después de haberlo leído
+ */
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConflictoConcurrenciaException(String mensaje) {
+        super(mensaje);
+    }
+
+    public ConflictoConcurrenciaException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
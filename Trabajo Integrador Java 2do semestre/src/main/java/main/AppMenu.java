@@ -1,11 +1,18 @@
 package main;
 
+import config.DatabaseConnection;
+import dao.Pagina;
 import entities.HistoriaClinica;
+import entities.HistoriaClinicaResumen;
 import entities.Paciente;
+import entities.PacienteResumen;
 import enums.GrupoSanguineo;
+import exceptions.ConflictoConcurrenciaException;
 import exceptions.DatabaseException;
 import exceptions.ValidacionException;
+import metricas.RegistroMetricas;
 import service.HistoriaClinicaService;
+import service.IndiceNombresPacientes;
 import service.PacienteService;
 
 import java.nio.charset.StandardCharsets;
@@ -13,6 +20,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
 
@@ -21,6 +29,8 @@ import java.util.Scanner;
  */
 public class AppMenu {
 
+    private static final int TAMANIO_PAGINA = 20;
+
     private final Scanner scanner;
     private final PacienteService pacienteService;
     private final HistoriaClinicaService historiaClinicaService;
@@ -46,6 +56,8 @@ public class AppMenu {
                 salir = procesarOpcionPrincipal(opcion);
             } catch (ValidacionException e) {
                 System.err.println("\nError de validación: " + e.getMessage());
+            } catch (ConflictoConcurrenciaException e) {
+                System.err.println("\nConflicto de edición: " + e.getMessage());
             } catch (DatabaseException e) {
                 System.err.println("\nError de base de datos: " + e.getMessage());
             } catch (Exception e) {
@@ -70,6 +82,7 @@ public class AppMenu {
         System.out.println("│  [1] Gestión de Pacientes                             │");
         System.out.println("│  [2] Gestión de Historias Clínicas                    │");
         System.out.println("│  [3] Operaciones Combinadas                           │");
+        System.out.println("│  [4] Métricas de Rendimiento                          │");
         System.out.println("│  [0] Salir                                            │");
         System.out.println("│                                                       │");
         System.out.println("└─────────────────────────────────────────────────────────────────┘");
@@ -81,6 +94,7 @@ public class AppMenu {
             case "1" -> menuPacientes();
             case "2" -> menuHistoriasClinicas();
             case "3" -> menuOperacionesCombinadas();
+            case "4" -> mostrarMetricas();
             case "0" -> {
                 System.out.println("\n¡Hasta luego!");
                 return true;
@@ -90,6 +104,19 @@ public class AppMenu {
         return false;
     }
 
+    // ==================== MÉTRICAS ====================
+
+    private void mostrarMetricas() {
+        System.out.println("\n═══ MÉTRICAS DE RENDIMIENTO ═══\n");
+        System.out.print(RegistroMetricas.global().resumen());
+        System.out.println("\nPool de conexiones: " + DatabaseConnection.getEstadisticasPool());
+        String replicas = DatabaseConnection.getEstadoReplicas();
+        if (replicas != null) {
+            System.out.println("Réplicas de lectura: " + replicas);
+        }
+        System.out.println("Caché de pacientes: " + pacienteService.getCache());
+    }
+
     // ==================== MENÚ PACIENTES ====================
 
     private void menuPacientes() {
@@ -104,6 +131,7 @@ public class AppMenu {
             System.out.println("│  [4] Buscar Paciente por DNI                           │");
             System.out.println("│  [5] Actualizar Paciente                               │");
             System.out.println("│  [6] Eliminar Paciente                                 │");
+            System.out.println("│  [7] Buscar Paciente por Nombre                        │");
             System.out.println("│  [0] Volver al Menú Principal                          │");
             System.out.println("│                                                        │");
             System.out.println("└──────────────────────────────────────────────────────────────────┘");
@@ -119,6 +147,7 @@ public class AppMenu {
                     case "4" -> buscarPacientePorDni();
                     case "5" -> actualizarPaciente();
                     case "6" -> eliminarPaciente();
+                    case "7" -> buscarPacientesPorNombre();
                     case "0" -> volver = true;
                     default -> System.out.println("\nOpción inválida.");
                 }
@@ -162,31 +191,41 @@ public class AppMenu {
     private void listarPacientes() {
         System.out.println("\n═══ LISTADO DE PACIENTES ═══\n");
 
-        List<Paciente> pacientes = pacienteService.obtenerTodos();
+        Pagina<PacienteResumen> pagina = pacienteService.obtenerPaginaResumen(null, TAMANIO_PAGINA);
 
-        if (pacientes.isEmpty()) {
+        if (pagina.isEmpty()) {
             System.out.println("No hay pacientes registrados.");
             return;
         }
 
-        System.out.println("┌──────────────────────────────────────────────────────────────────────────────────────────────────────────────┐");
-        System.out.printf("│ %-5s │ %-20s │ %-20s │ %-10s │ %-10s │ %-12s │%n",
-                "ID", "APELLIDO", "NOMBRE", "DNI", "FECHA NAC.", "HISTORIA CLÍ");
-        System.out.println("├──────────────────────────────────────────────────────────────────────────────────────────────────────────────┤");
+        int total = 0;
+        while (true) {
+            System.out.println("┌──────────────────────────────────────────────────────────────────────────────────────────────────────────────┐");
+            System.out.printf("│ %-5s │ %-20s │ %-20s │ %-10s │ %-10s │ %-12s │%n",
+                    "ID", "APELLIDO", "NOMBRE", "DNI", "FECHA NAC.", "HISTORIA CLÍ");
+            System.out.println("├──────────────────────────────────────────────────────────────────────────────────────────────────────────────┤");
+
+            for (PacienteResumen p : pagina.getElementos()) {
+                String tieneHC = p.tieneHistoriaClinica() ? "SÍ" : "NO";
+                System.out.printf("│ %-5d │ %-20s │ %-20s │ %-10s │ %-10s │ %-12s │%n",
+                        p.getId(),
+                        truncar(p.getApellido(), 20),
+                        truncar(p.getNombre(), 20),
+                        p.getDni(),
+                        p.getFechaNacimiento().format(formatoFecha),
+                        tieneHC);
+            }
 
-        for (Paciente p : pacientes) {
-            String tieneHC = (p.getHistoriaClinica() != null) ? "SÍ" : "NO";
-            System.out.printf("│ %-5d │ %-20s │ %-20s │ %-10s │ %-10s │ %-12s │%n",
-                    p.getId(),
-                    truncar(p.getApellido(), 20),
-                    truncar(p.getNombre(), 20),
-                    p.getDni(),
-                    p.getFechaNacimiento().format(formatoFecha),
-                    tieneHC);
+            System.out.println("└──────────────────────────────────────────────────────────────────────────────────────────────────────────────┘");
+            total += pagina.getElementos().size();
+
+            if (!pagina.hayMas() || !continuarPaginado()) {
+                break;
+            }
+            pagina = pacienteService.obtenerPaginaResumen(pagina.getUltimoId(), TAMANIO_PAGINA);
         }
 
-        System.out.println("└──────────────────────────────────────────────────────────────────────────────────────────────────────────────┘");
-        System.out.println("\nTotal de pacientes: " + pacientes.size());
+        System.out.println("\nPacientes mostrados: " + total);
     }
 
     private void buscarPacientePorId() {
@@ -219,6 +258,43 @@ public class AppMenu {
         }
     }
 
+    private void buscarPacientesPorNombre() {
+        System.out.println("\n═══ BUSCAR PACIENTE POR NOMBRE ═══\n");
+
+        System.out.print("Ingrese apellido y/o nombre (o el comienzo): ");
+        String consulta = scanner.nextLine().trim();
+
+        int desde = 0;
+        while (true) {
+            long inicio = System.nanoTime();
+            // Se pide uno más para saber si hay otra página
+            List<IndiceNombresPacientes.Coincidencia> resultados =
+                    pacienteService.buscarPorNombre(consulta, desde, TAMANIO_PAGINA + 1);
+            double duracionMs = (System.nanoTime() - inicio) / 1_000_000.0;
+
+            if (resultados.isEmpty()) {
+                if (desde == 0) {
+                    System.out.println("\nNo se encontraron pacientes para: " + consulta);
+                }
+                return;
+            }
+
+            boolean hayMas = resultados.size() > TAMANIO_PAGINA;
+            List<IndiceNombresPacientes.Coincidencia> pagina = hayMas ? resultados.subList(0, TAMANIO_PAGINA) : resultados;
+            System.out.printf("%nResultados %d a %d (%.2f ms):%n%n", desde + 1, desde + pagina.size(), duracionMs);
+            for (IndiceNombresPacientes.Coincidencia c : pagina) {
+                System.out.printf("  [%d] %s, %s - DNI %s%s%n",
+                    c.getId(), c.getApellido(), c.getNombre(), c.getDni(),
+                    c.getDistancia() > 0 ? "  (aproximado)" : "");
+            }
+
+            if (!hayMas || !continuarPaginado()) {
+                return;
+            }
+            desde += TAMANIO_PAGINA;
+        }
+    }
+
     private void actualizarPaciente() {
         System.out.println("\n═══ ACTUALIZAR PACIENTE ═══\n");
 
@@ -306,6 +382,8 @@ public class AppMenu {
             System.out.println("│  [4] Buscar Historia Clínica por Número                 │");
             System.out.println("│  [5] Actualizar Historia Clínica                        │");
             System.out.println("│  [6] Eliminar Historia Clínica                          │");
+            System.out.println("│  [7] Buscar por Contenido Clínico                       │");
+            System.out.println("│  [8] Contar por Grupo Sanguíneo                         │");
             System.out.println("│  [0] Volver al Menú Principal                           │");
             System.out.println("│                                                         │");
             System.out.println("└───────────────────────────────────────────────────────────────────┘");
@@ -321,6 +399,8 @@ public class AppMenu {
                     case "4" -> buscarHistoriaClinicaPorNumero();
                     case "5" -> actualizarHistoriaClinica();
                     case "6" -> eliminarHistoriaClinica();
+                    case "7" -> buscarHistoriasPorContenido();
+                    case "8" -> contarPorGrupoSanguineo();
                     case "0" -> volver = true;
                     default -> System.out.println("\nOpción inválida.");
                 }
@@ -339,7 +419,7 @@ public class AppMenu {
 
         // Mostrar pacientes disponibles
         System.out.println("--- PACIENTES DISPONIBLES ---\n");
-        List<Paciente> pacientes = pacienteService.obtenerTodos();
+        List<PacienteResumen> pacientes = pacienteService.obtenerTodosResumen();
         
         if (pacientes.isEmpty()) {
             System.out.println("No hay pacientes registrados. Debe crear un paciente primero.");
@@ -352,7 +432,7 @@ public class AppMenu {
                 "ID", "APELLIDO", "NOMBRE", "DNI");
         System.out.println("├────────────────────────────────────────────────────────────────┤");
         
-        for (Paciente p : pacientes) {
+        for (PacienteResumen p : pacientes) {
             System.out.printf("│ %-5d │ %-20s │ %-20s │ %-12s │%n",
                     p.getId(),
                     truncar(p.getApellido(), 20),
@@ -482,29 +562,39 @@ public class AppMenu {
     private void listarHistoriasClinicas() {
         System.out.println("\n═══ LISTADO DE HISTORIAS CLÍNICAS ═══\n");
 
-        List<HistoriaClinica> historias = historiaClinicaService.obtenerTodos();
+        Pagina<HistoriaClinicaResumen> pagina = historiaClinicaService.obtenerPaginaResumen(null, TAMANIO_PAGINA);
 
-        if (historias.isEmpty()) {
+        if (pagina.isEmpty()) {
             System.out.println("No hay historias clínicas registradas.");
             return;
         }
 
-        System.out.println("┌────────────────────────────────────────────────────────────────────────────────────────────────────────────┐");
-        System.out.printf("│ %-5s │ %-18s │ %-10s │ %-25s │ %-20s │%n",
-            "ID", "NRO. HISTORIA", "GRUPO SANG.", "ANTECEDENTES", "MEDICAMENTOS");
-        System.out.println("├────────────────────────────────────────────────────────────────────────────────────────────────────────────┤");
+        int total = 0;
+        while (true) {
+            System.out.println("┌────────────────────────────────────────────────────────────────────────────────────────────────────────────┐");
+            System.out.printf("│ %-5s │ %-18s │ %-10s │ %-25s │ %-20s │%n",
+                "ID", "NRO. HISTORIA", "GRUPO SANG.", "ANTECEDENTES", "MEDICAMENTOS");
+            System.out.println("├────────────────────────────────────────────────────────────────────────────────────────────────────────────┤");
+
+            for (HistoriaClinicaResumen hc : pagina.getElementos()) {
+                System.out.printf("│ %-5d │ %-18s │ %-11s │ %-25s │ %-20s │%n",
+                hc.getId(),
+                hc.getNroHistoria(),
+                hc.getGrupoSanguineo().getValor(),
+                truncar(hc.getExtractoAntecedentes(), 25),
+                truncar(hc.getExtractoMedicacion() != null ? hc.getExtractoMedicacion() : "N/A", 20));
+            }
+
+            System.out.println("└────────────────────────────────────────────────────────────────────────────────────────────────────────────┘");
+            total += pagina.getElementos().size();
 
-        for (HistoriaClinica hc : historias) {
-            System.out.printf("│ %-5d │ %-18s │ %-11s │ %-25s │ %-20s │%n",
-            hc.getId(),
-            hc.getNroHistoria(),
-            hc.getGrupoSanguineo().getValor(),
-            truncar(hc.getAntecedentes(), 25),
-            truncar(hc.getMedicacionActual() != null ? hc.getMedicacionActual() : "N/A", 20));
+            if (!pagina.hayMas() || !continuarPaginado()) {
+                break;
+            }
+            pagina = historiaClinicaService.obtenerPaginaResumen(pagina.getUltimoId(), TAMANIO_PAGINA);
         }
 
-        System.out.println("└────────────────────────────────────────────────────────────────────────────────────────────────────────────┘");
-        System.out.println("\nTotal de historias clínicas: " + historias.size());
+        System.out.println("\nHistorias clínicas mostradas: " + total);
     }
 
     private void buscarHistoriaClinicaPorId() {
@@ -537,6 +627,44 @@ public class AppMenu {
         }
     }
 
+    private void buscarHistoriasPorContenido() {
+        System.out.println("\n═══ BUSCAR POR CONTENIDO CLÍNICO ═══\n");
+        System.out.println("Palabras (todas deben aparecer), prefijos con * (amoxi*) y frases entre comillas.");
+        System.out.print("Ingrese la búsqueda: ");
+        String consulta = scanner.nextLine().trim();
+
+        long inicio = System.nanoTime();
+        List<HistoriaClinica> resultados = historiaClinicaService.buscarPorContenido(consulta, TAMANIO_PAGINA);
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        if (resultados.isEmpty()) {
+            System.out.println("\nNo se encontraron historias clínicas para: " + consulta);
+            return;
+        }
+
+        System.out.println("\n" + resultados.size() + " resultado(s) en " + duracionMs + " ms, de más a menos relevante:\n");
+        for (HistoriaClinica hc : resultados) {
+            System.out.printf("  [%d] %s (paciente %s) - %s%n",
+                hc.getId(),
+                hc.getNroHistoria(),
+                hc.getIdPaciente() != null ? hc.getIdPaciente() : "sin asociar",
+                truncar(hc.getAntecedentes(), 60).replace('\n', ' '));
+        }
+    }
+
+    private void contarPorGrupoSanguineo() {
+        System.out.println("\n═══ HISTORIAS CLÍNICAS POR GRUPO SANGUÍNEO ═══\n");
+
+        Map<GrupoSanguineo, Long> cantidades = historiaClinicaService.contarPorGrupoSanguineo();
+        long total = 0;
+        for (GrupoSanguineo gs : GrupoSanguineo.values()) {
+            long cantidad = cantidades.getOrDefault(gs, 0L);
+            total += cantidad;
+            System.out.printf("  %-6s %8d%n", gs.getValor(), cantidad);
+        }
+        System.out.printf("  %-6s %8d%n", "Total", total);
+    }
+
     private void actualizarHistoriaClinica() {
         System.out.println("\n═══ ACTUALIZAR HISTORIA CLÍNICA ═══\n");
 
@@ -807,6 +935,14 @@ public class AppMenu {
         return texto.substring(0, longitud - 3) + "...";
     }
 
+    /**
+     * Pregunta si se desea ver la siguiente página de un listado
+     */
+    private boolean continuarPaginado() {
+        System.out.print("\nPresione Enter para ver más o 0 para terminar: ");
+        return !scanner.nextLine().trim().equals("0");
+    }
+
     private void pausar() {
         System.out.print("\nPresione Enter para continuar...");
         scanner.nextLine();
@@ -1,8 +1,21 @@
 package main;
 
+import api.ServidorHttp;
 import config.DatabaseConnection;
+import config.RevisorPlanes;
+import dao.HistoriaClinicaDao;
+import dao.PacienteDao;
+import metricas.RegistroMetricas;
+import service.ExportacionService;
+import service.ImportacionService;
+import service.ResultadoExportacion;
+import service.ResultadoImportacion;
+
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Clase principal que inicia la aplicación
@@ -17,6 +30,11 @@ public class Main {
         } catch (UnsupportedEncodingException e) {
             System.err.println("Error al configurar UTF-8");
         }
+
+        // Con argumentos se ejecuta el comando indicado en lugar del menú interactivo
+        if (args.length > 0) {
+            System.exit(ejecutarComando(args));
+        }
         
         System.out.println("════════════════════════════════════════════════════════════════");
         System.out.println("     Sistema de Gestión de Pacientes e Historias Clínicas");
@@ -27,12 +45,16 @@ public class Main {
         System.out.print("Verificando conexión a la base de datos... ");
         
         try {
+            configurarMetricas();
             if (DatabaseConnection.probarConexion()) {
                 System.out.println("Conexión exitosa\n");
                 
                 // Iniciar el menú de la aplicación
                 AppMenu menu = new AppMenu();
                 menu.mostrar();
+
+                // Liberar las conexiones del pool al salir
+                DatabaseConnection.cerrarPool();
                 
             } else {
                 System.err.println("Error al conectar");
@@ -49,5 +71,178 @@ public class Main {
             System.exit(1);
         }
     }
-}
 
+    /**
+     * Aplica la configuración de métricas de database.properties:
+     * metricas.habilitadas (true), metricas.archivo y metricas.periodoSegundos (60)
+     */
+    private static void configurarMetricas() {
+        RegistroMetricas metricas = RegistroMetricas.global();
+        metricas.setHabilitado(DatabaseConnection.getPropiedadBooleana("metricas.habilitadas", true));
+        String archivo = DatabaseConnection.getPropiedad("metricas.archivo", null);
+        if (archivo != null) {
+            metricas.iniciarVolcadoPeriodico(Path.of(archivo),
+                    DatabaseConnection.getPropiedadEntera("metricas.periodoSegundos", 60));
+        }
+    }
+
+    /**
+     * Ejecuta un comando de línea de comandos
+     *
+     * @return el código de salida del proceso
+     */
+    private static int ejecutarComando(String[] args) {
+        try {
+            configurarMetricas();
+            switch (args[0]) {
+                case "--importar":
+                    return importar(args);
+                case "--exportar":
+                    return exportar(args);
+                case "--servidor":
+                    return servidor(args);
+                case "--explicar":
+                    return explicar();
+                case "--ayuda":
+                    imprimirUso();
+                    return 0;
+                default:
+                    System.err.println("Opción desconocida: " + args[0]);
+                    imprimirUso();
+                    return 2;
+            }
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            DatabaseConnection.cerrarPool();
+        }
+    }
+
+    /**
+     * --importar archivo [--rechazos archivo]
+     */
+    private static int importar(String[] args) throws Exception {
+        String archivo = valorOpcion(args, "--importar");
+        if (archivo == null) {
+            imprimirUso();
+            return 2;
+        }
+        String rechazos = valorOpcion(args, "--rechazos");
+        Path origen = Path.of(archivo);
+        Path destinoRechazos = Path.of(rechazos != null ? rechazos : archivo + ".rechazos.csv");
+
+        System.out.println("Importando " + origen + "...");
+        ResultadoImportacion resultado = new ImportacionService().importar(origen, destinoRechazos);
+        System.out.println("Filas leídas:     " + resultado.getFilasLeidas());
+        System.out.println("Filas insertadas: " + resultado.getFilasInsertadas());
+        System.out.println("Filas rechazadas: " + resultado.getFilasRechazadas()
+                + (resultado.getFilasRechazadas() > 0 ? " (detalle en " + destinoRechazos + ")" : ""));
+        System.out.printf("Duración: %d ms (%.0f filas/s)%n", resultado.getDuracionMs(), resultado.getFilasPorSegundo());
+        return resultado.getFilasRechazadas() > 0 ? 3 : 0;
+    }
+
+    /**
+     * --exportar archivo [--desde AAAA-MM-DD] [--hasta AAAA-MM-DD] [--gzip] [--resumen]
+     */
+    private static int exportar(String[] args) throws Exception {
+        String archivo = valorOpcion(args, "--exportar");
+        if (archivo == null) {
+            imprimirUso();
+            return 2;
+        }
+        String desde = valorOpcion(args, "--desde");
+        String hasta = valorOpcion(args, "--hasta");
+        boolean gzip = tieneOpcion(args, "--gzip") || archivo.toLowerCase().endsWith(".gz");
+        boolean resumen = tieneOpcion(args, "--resumen");
+        if (gzip && !archivo.toLowerCase().endsWith(".gz")) {
+            archivo = archivo + ".gz";
+        }
+        Path destino = Path.of(archivo);
+
+        System.out.println("Exportando a " + destino + "...");
+        ResultadoExportacion resultado = new ExportacionService().exportar(
+            destino,
+            ImportacionService.Formato.desdeArchivo(destino),
+            gzip,
+            resumen,
+            desde != null ? LocalDate.parse(desde) : null,
+            hasta != null ? LocalDate.parse(hasta) : null,
+            filas -> System.out.println("  " + filas + " filas exportadas...")
+        );
+        System.out.println("Filas exportadas: " + resultado.getFilasExportadas());
+        System.out.println("Tamaño: " + resultado.getBytesEscritos() + " bytes");
+        System.out.printf("Duración: %d ms (%.0f filas/s)%n", resultado.getDuracionMs(), resultado.getFilasPorSegundo());
+        return 0;
+    }
+
+    /**
+     * --servidor [--puerto N]: atiende la API HTTP hasta que se detiene el proceso (Ctrl+C)
+     */
+    private static int servidor(String[] args) throws Exception {
+        String puerto = valorOpcion(args, "--puerto");
+        ServidorHttp servidor = ServidorHttp.crear(puerto != null ? Integer.valueOf(puerto) : null);
+        CountDownLatch detenido = new CountDownLatch(1);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Deteniendo el servidor...");
+            servidor.detener(5);
+            DatabaseConnection.cerrarPool();
+            detenido.countDown();
+        }));
+
+        servidor.iniciar();
+        System.out.println("API HTTP escuchando en el puerto " + servidor.getPuerto() + " (Ctrl+C para detener)");
+        detenido.await();
+        return 0;
+    }
+
+    /**
+     * --explicar: EXPLAIN de cada consulta de los DAO; termina con código 4 si algún plan
+     * recorre una tabla completa, para poder usarlo antes de un despliegue
+     */
+    private static int explicar() {
+        System.out.println("Planes de ejecución de las consultas de los DAO:");
+        int conProblemas = RevisorPlanes.revisar(System.out, PacienteDao.class, HistoriaClinicaDao.class);
+        if (conProblemas > 0) {
+            System.out.println(conProblemas + " consulta(s) con recorridos completos u ordenamientos en memoria");
+            return 4;
+        }
+        System.out.println("Todas las consultas usan índices");
+        return 0;
+    }
+
+    /**
+     * Devuelve el valor que sigue a una opción, o null si la opción no está
+     */
+    private static String valorOpcion(String[] args, String opcion) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(opcion)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static boolean tieneOpcion(String[] args, String opcion) {
+        for (String arg : args) {
+            if (arg.equals(opcion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void imprimirUso() {
+        System.out.println("Uso:");
+        System.out.println("  (sin argumentos)                               menú interactivo");
+        System.out.println("  --importar <archivo.csv|.jsonl> [--rechazos <archivo>]");
+        System.out.println("                                                 importación masiva de pacientes");
+        System.out.println("  --exportar <archivo.csv|.jsonl> [--desde AAAA-MM-DD] [--hasta AAAA-MM-DD] [--gzip] [--resumen]");
+        System.out.println("                                                 exportación de pacientes activos");
+        System.out.println("                                                 (--resumen: sin los textos de la historia clínica)");
+        System.out.println("  --servidor [--puerto N]                        API HTTP/JSON de pacientes e historias");
+        System.out.println("  --explicar                                     revisa con EXPLAIN los planes de las consultas");
+        System.out.println("  --ayuda                                        muestra esta ayuda");
+    }
+}
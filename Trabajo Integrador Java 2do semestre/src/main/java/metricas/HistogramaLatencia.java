@@ -0,0 +1,108 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas log-lineales (al estilo HdrHistogram).
+ *
+ * Los valores se registran en microsegundos. Por debajo de 64 µs cada cubeta tiene ancho 1;
+ * por encima, cada potencia de 2 se divide en 32 cubetas, lo que da un error relativo
+ * de a lo sumo 1/32 (~3%) en los percentiles con memoria fija (1056 contadores).
+ * Registrar es lock-free, así se puede usar desde muchos hilos a la vez.
+ */
+public class HistogramaLatencia {
+
+    private static final int BITS_SUBCUBETA = 6;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;          // 64
+    private static final int MEDIA_SUBCUBETA = SUBCUBETAS >> 1;          // 32
+    // Hasta 2^37 µs (~38 horas); los valores mayores se acumulan en la última cubeta
+    private static final int EXPONENTE_MAXIMO = 37 - BITS_SUBCUBETA;
+    private static final int CUBETAS = (EXPONENTE_MAXIMO + 1) * MEDIA_SUBCUBETA + MEDIA_SUBCUBETA;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder sumaMicros = new LongAdder();
+    private final AtomicLong maximoMicros = new AtomicLong();
+
+    /**
+     * Registra una duración medida con System.nanoTime()
+     */
+    public void registrarNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        cuentas.incrementAndGet(indice(micros));
+        cantidad.increment();
+        sumaMicros.add(micros);
+        if (micros > maximoMicros.get()) {
+            maximoMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    static int indice(long micros) {
+        if (micros < SUBCUBETAS) {
+            return (int) micros;
+        }
+        int exponente = (63 - Long.numberOfLeadingZeros(micros)) - (BITS_SUBCUBETA - 1);
+        if (exponente > EXPONENTE_MAXIMO) {
+            return CUBETAS - 1;
+        }
+        return exponente * MEDIA_SUBCUBETA + (int) (micros >>> exponente);
+    }
+
+    /**
+     * Valor más alto (en µs) que cae en la cubeta indicada
+     */
+    static long limiteSuperior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int exponente = indice / MEDIA_SUBCUBETA - 1;
+        long sub = indice - (long) exponente * MEDIA_SUBCUBETA;
+        return ((sub + 1) << exponente) - 1;
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public double getSumaMs() {
+        return sumaMicros.sum() / 1000.0;
+    }
+
+    public double getMaximoMs() {
+        return maximoMicros.get() / 1000.0;
+    }
+
+    public double getPromedioMs() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : sumaMicros.sum() / 1000.0 / n;
+    }
+
+    /**
+     * Percentil aproximado en milisegundos
+     *
+     * @param percentil entre 0 y 100 (por ejemplo 99.9)
+     */
+    public double getPercentilMs(double percentil) {
+        // Se copian las cuentas para trabajar sobre una instantánea coherente
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cuentas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentil)) / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximoMicros.get()) / 1000.0;
+            }
+        }
+        return getMaximoMs();
+    }
+}
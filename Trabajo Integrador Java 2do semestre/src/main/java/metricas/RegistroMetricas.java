@@ -0,0 +1,179 @@
+package metricas;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Registro de métricas por operación: llamadas, errores e histograma de latencia.
+ *
+ * Los DAO miden cada operación con medir("paciente.leer", () -> ...), el pool registra
+ * el tiempo de obtención de conexiones y la API HTTP el de cada ruta. Las métricas se
+ * pueden ver como resumen (resumen()), exportar en formato de texto de Prometheus
+ * (aPrometheus()) o volcar periódicamente a un archivo (iniciarVolcadoPeriodico).
+ */
+public class RegistroMetricas {
+
+    private static final RegistroMetricas GLOBAL = new RegistroMetricas();
+    private static final double[] CUANTILES = { 0.5, 0.9, 0.95, 0.99, 0.999 };
+
+    private final Map<String, Operacion> operaciones = new ConcurrentHashMap<>();
+    private volatile boolean habilitado = true;
+    private ScheduledExecutorService volcado;
+
+    /**
+     * Registro compartido por toda la aplicación
+     */
+    public static RegistroMetricas global() {
+        return GLOBAL;
+    }
+
+    public void setHabilitado(boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Ejecuta la operación midiendo su duración; si lanza una excepción se cuenta como error
+     */
+    public <T> T medir(String operacion, Supplier<T> accion) {
+        if (!habilitado) {
+            return accion.get();
+        }
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            T resultado = accion.get();
+            error = false;
+            return resultado;
+        } finally {
+            registrar(operacion, System.nanoTime() - inicio, error);
+        }
+    }
+
+    /**
+     * Registra una duración ya medida
+     */
+    public void registrar(String operacion, long nanos, boolean error) {
+        if (!habilitado) {
+            return;
+        }
+        Operacion metrica = operaciones.computeIfAbsent(operacion, o -> new Operacion());
+        metrica.histograma.registrarNanos(nanos);
+        if (error) {
+            metrica.errores.increment();
+        }
+    }
+
+    public HistogramaLatencia getHistograma(String operacion) {
+        Operacion metrica = operaciones.get(operacion);
+        return metrica == null ? null : metrica.histograma;
+    }
+
+    public void reiniciar() {
+        operaciones.clear();
+    }
+
+    /**
+     * Tabla legible con las métricas de cada operación
+     */
+    public String resumen() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format(Locale.ROOT, "%-44s %9s %7s %9s %9s %9s %9s %9s%n",
+                "Operación", "Llamadas", "Errores", "Prom ms", "p50 ms", "p95 ms", "p99 ms", "Máx ms"));
+        for (Map.Entry<String, Operacion> entrada : new TreeMap<>(operaciones).entrySet()) {
+            HistogramaLatencia h = entrada.getValue().histograma;
+            texto.append(String.format(Locale.ROOT, "%-44s %9d %7d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    entrada.getKey(), h.getCantidad(), entrada.getValue().errores.sum(), h.getPromedioMs(),
+                    h.getPercentilMs(50), h.getPercentilMs(95), h.getPercentilMs(99), h.getMaximoMs()));
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Métricas en el formato de texto de Prometheus (versión 0.0.4).
+     * La latencia se expone como summary con cuantiles precalculados.
+     */
+    public String aPrometheus() {
+        StringBuilder texto = new StringBuilder(4096);
+        Map<String, Operacion> ordenadas = new TreeMap<>(operaciones);
+
+        texto.append("# HELP tpi_operacion_duracion_segundos Duración de las operaciones (DAO, pool, HTTP)\n");
+        texto.append("# TYPE tpi_operacion_duracion_segundos summary\n");
+        for (Map.Entry<String, Operacion> entrada : ordenadas.entrySet()) {
+            String etiqueta = etiqueta(entrada.getKey());
+            HistogramaLatencia h = entrada.getValue().histograma;
+            for (double cuantil : CUANTILES) {
+                texto.append("tpi_operacion_duracion_segundos{operacion=\"").append(etiqueta)
+                     .append("\",quantile=\"").append(cuantil).append("\"} ")
+                     .append(segundos(h.getPercentilMs(cuantil * 100))).append('\n');
+            }
+            texto.append("tpi_operacion_duracion_segundos_sum{operacion=\"").append(etiqueta).append("\"} ")
+                 .append(segundos(h.getSumaMs())).append('\n');
+            texto.append("tpi_operacion_duracion_segundos_count{operacion=\"").append(etiqueta).append("\"} ")
+                 .append(h.getCantidad()).append('\n');
+        }
+
+        texto.append("# HELP tpi_operacion_errores_total Operaciones que terminaron con excepción\n");
+        texto.append("# TYPE tpi_operacion_errores_total counter\n");
+        for (Map.Entry<String, Operacion> entrada : ordenadas.entrySet()) {
+            texto.append("tpi_operacion_errores_total{operacion=\"").append(etiqueta(entrada.getKey())).append("\"} ")
+                 .append(entrada.getValue().errores.sum()).append('\n');
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Escribe las métricas en formato Prometheus en el archivo (reemplazo atómico,
+     * compatible con el textfile collector de node_exporter)
+     */
+    public void volcar(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Files.writeString(temporal, aPrometheus(), StandardCharsets.UTF_8);
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Vuelca las métricas al archivo cada periodoSegundos en un hilo daemon
+     */
+    public synchronized void iniciarVolcadoPeriodico(Path archivo, long periodoSegundos) {
+        if (volcado != null) {
+            return;
+        }
+        volcado = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "metricas-volcado");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        volcado.scheduleWithFixedDelay(() -> {
+            try {
+                volcar(archivo);
+            } catch (IOException e) {
+                System.err.println("[METRICAS] No se pudo escribir " + archivo + ": " + e.getMessage());
+            }
+        }, periodoSegundos, periodoSegundos, TimeUnit.SECONDS);
+    }
+
+    private static String etiqueta(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String segundos(double ms) {
+        return String.format(Locale.ROOT, "%.6f", ms / 1000.0);
+    }
+
+    private static class Operacion {
+        private final HistogramaLatencia histograma = new HistogramaLatencia();
+        private final LongAdder errores = new LongAdder();
+    }
+}
@@ -0,0 +1,68 @@
+package service;
+
+import dao.Pagina;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante asincrónica de GenericService: cada operación se ejecuta en otro hilo y
+ * devuelve un CompletableFuture. Los errores (ValidacionException, DatabaseException)
+ * completan el futuro de forma excepcional en lugar de lanzarse.
+ *
+ * Permite, por ejemplo, buscar un paciente y su historia clínica en paralelo o lanzar
+ * cientos de búsquedas a la vez sin manejar hilos a mano.
+ *
+ * @param <T> el tipo de entidad que maneja este servicio
+ */
+public interface AsyncGenericService<T> {
+
+    /**
+     * Inserta una nueva entidad
+     *
+     * @param entidad la entidad a insertar
+     * @return futuro con la entidad insertada con su ID generado
+     */
+    CompletableFuture<T> insertarAsync(T entidad);
+
+    /**
+     * Actualiza una entidad existente
+     *
+     * @param entidad la entidad con los datos actualizados
+     * @return futuro con la entidad actualizada
+     */
+    CompletableFuture<T> actualizarAsync(T entidad);
+
+    /**
+     * Elimina (lógicamente) una entidad por su ID
+     *
+     * @param id el ID de la entidad a eliminar
+     * @return futuro que se completa al terminar la baja
+     */
+    CompletableFuture<Void> eliminarAsync(Long id);
+
+    /**
+     * Obtiene una entidad por su ID
+     *
+     * @param id el ID de la entidad
+     * @return futuro con Optional de la entidad, vacío si no existe
+     */
+    CompletableFuture<Optional<T>> obtenerPorIdAsync(Long id);
+
+    /**
+     * Obtiene todas las entidades no eliminadas
+     *
+     * @return futuro con la lista de todas las entidades activas
+     */
+    CompletableFuture<List<T>> obtenerTodosAsync();
+
+    /**
+     * Obtiene una página de entidades no eliminadas ordenadas por ID
+     *
+     * @param despuesDeId cursor de la página anterior (null para la primera página)
+     * @param tamanio cantidad máxima de elementos
+     * @return futuro con la página solicitada
+     */
+    CompletableFuture<Pagina<T>> obtenerPaginaAsync(Long despuesDeId, int tamanio);
+}
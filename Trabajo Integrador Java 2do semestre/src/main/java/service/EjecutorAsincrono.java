@@ -0,0 +1,133 @@
+package service;
+
+import config.DatabaseConnection;
+import config.SesionLectura;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor de los servicios asincrónicos con límite de operaciones en vuelo.
+ *
+ * Antes de lanzar cada operación se toma un permiso de un semáforo; si no hay permisos
+ * el llamador espera hasta esperaMaximaMs (contrapresión) y, si se vence, el futuro se
+ * completa con RejectedExecutionException. Así cientos de búsquedas simultáneas no
+ * terminan todas esperando una conexión del pool hasta agotar su timeout.
+ *
+ * Configuración opcional en database.properties:
+ * async.maxEnVuelo (128), async.esperaMaximaMs (5000),
+ * async.hilos (0 = un hilo virtual por operación; mayor a 0 = pool fijo de ese tamaño)
+ */
+public class EjecutorAsincrono {
+
+    private static volatile EjecutorAsincrono global;
+
+    private final ExecutorService ejecutor;
+    private final Semaphore permisos;
+    private final int maxEnVuelo;
+    private final long esperaMaximaMs;
+    private final AtomicLong rechazadas = new AtomicLong();
+
+    /**
+     * @param ejecutor donde se ejecutan las operaciones
+     * @param maxEnVuelo cantidad máxima de operaciones en curso al mismo tiempo
+     * @param esperaMaximaMs cuánto espera el llamador por un lugar antes de rechazar la operación
+     */
+    public EjecutorAsincrono(ExecutorService ejecutor, int maxEnVuelo, long esperaMaximaMs) {
+        this.ejecutor = ejecutor;
+        this.maxEnVuelo = Math.max(1, maxEnVuelo);
+        this.permisos = new Semaphore(this.maxEnVuelo);
+        this.esperaMaximaMs = Math.max(0, esperaMaximaMs);
+    }
+
+    /**
+     * Ejecutor compartido por los servicios asincrónicos, configurado desde database.properties
+     */
+    public static EjecutorAsincrono global() {
+        EjecutorAsincrono actual = global;
+        if (actual == null) {
+            synchronized (EjecutorAsincrono.class) {
+                if (global == null) {
+                    int hilos = DatabaseConnection.getPropiedadEntera("async.hilos", 0);
+                    // Hilos daemon para que el pool fijo no impida terminar la aplicación
+                    ExecutorService ejecutor = hilos > 0
+                            ? Executors.newFixedThreadPool(hilos, Thread.ofPlatform().name("async-", 1).daemon().factory())
+                            : Executors.newVirtualThreadPerTaskExecutor();
+                    global = new EjecutorAsincrono(ejecutor,
+                            DatabaseConnection.getPropiedadEntera("async.maxEnVuelo", 128),
+                            DatabaseConnection.getPropiedadEntera("async.esperaMaximaMs", 5000));
+                }
+                actual = global;
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Ejecuta la operación en otro hilo respetando el límite de operaciones en vuelo
+     */
+    public <T> CompletableFuture<T> ejecutar(Supplier<T> operacion) {
+        try {
+            if (!permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                rechazadas.incrementAndGet();
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Se alcanzó el máximo de " + maxEnVuelo + " operaciones asincrónicas en curso"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        try {
+            // La tarea corre con la sesión de quien la envía, no con la que haya dejado el hilo
+            String sesion = SesionLectura.actual();
+            return CompletableFuture.supplyAsync(() -> SesionLectura.ejecutar(sesion, operacion), ejecutor)
+                    .whenComplete((resultado, error) -> permisos.release());
+        } catch (RejectedExecutionException e) {
+            // El ejecutor ya fue cerrado
+            permisos.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ejecuta una operación sin resultado
+     */
+    public CompletableFuture<Void> ejecutarSinResultado(Runnable operacion) {
+        return ejecutar(() -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    public int getEnVuelo() {
+        return maxEnVuelo - permisos.availablePermits();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.get();
+    }
+
+    /**
+     * Deja de aceptar operaciones; las que están en curso terminan normalmente
+     */
+    public void cerrar() {
+        ejecutor.shutdown();
+    }
+
+    /**
+     * Cierra el ejecutor compartido, si se llegó a crear
+     */
+    public static synchronized void cerrarGlobal() {
+        if (global != null) {
+            global.cerrar();
+            global = null;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package service;
+
+import config.DatabaseConnection;
+import dao.PacienteDao;
+import entities.HistoriaClinica;
+import entities.Paciente;
+import entities.PacienteResumen;
+import exceptions.ValidacionException;
+import service.ImportacionService.Formato;
+import util.Csv;
+import util.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación del padrón de pacientes activos (con su historia clínica) a CSV o JSON-lines.
+ *
+ * Recorre la consulta en modo streaming (ResultSet forward-only) y escribe cada fila
+ * directamente en el archivo, por lo que la memoria usada no depende de la cantidad de filas.
+ * Se escribe primero en un archivo temporal que reemplaza al destino solo si la exportación
+ * termina bien. Las columnas son las de ImportacionService más el id, así el archivo
+ * exportado se puede volver a importar. Con resumen = true solo se exportan los datos del
+ * paciente y el número de historia (COLUMNAS_RESUMEN), sin leer los textos de la historia.
+ *
+ * Configuración opcional en database.properties:
+ * exportacion.intervaloProgreso (cada cuántas filas se informa el avance, 100000 por defecto)
+ */
+public class ExportacionService {
+
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+
+    private final PacienteDao pacienteDao;
+    private final long intervaloProgreso;
+
+    public ExportacionService() {
+        this.pacienteDao = new PacienteDao();
+        this.intervaloProgreso = Math.max(1, DatabaseConnection.getPropiedadEntera("exportacion.intervaloProgreso", 100000));
+    }
+
+    /**
+     * Columnas de la exportación resumida (sin los textos de la historia clínica)
+     */
+    public static final List<String> COLUMNAS_RESUMEN = List.of(
+        "id", "apellido", "nombre", "dni", "fecha_nac", "nro_historia"
+    );
+
+    /**
+     * Exporta los pacientes activos con su historia clínica completa
+     *
+     * @see #exportar(Path, Formato, boolean, boolean, LocalDate, LocalDate, LongConsumer)
+     */
+    public ResultadoExportacion exportar(Path destino, Formato formato, boolean gzip,
+                                         LocalDate desde, LocalDate hasta, LongConsumer progreso) throws IOException {
+        return exportar(destino, formato, gzip, false, desde, hasta, progreso);
+    }
+
+    /**
+     * Exporta los pacientes activos
+     *
+     * @param destino archivo de salida
+     * @param formato CSV o JSON (una línea por paciente)
+     * @param gzip si es true, el archivo se comprime con gzip
+     * @param resumen si es true, solo se exportan COLUMNAS_RESUMEN: la consulta no lee antecedentes,
+     *                medicación ni observaciones (el archivo no se puede volver a importar)
+     * @param desde fecha de nacimiento mínima inclusive (null = sin límite)
+     * @param hasta fecha de nacimiento máxima inclusive (null = sin límite)
+     * @param progreso recibe la cantidad de filas escritas cada exportacion.intervaloProgreso filas (puede ser null)
+     * @return el resumen de la exportación
+     */
+    public ResultadoExportacion exportar(Path destino, Formato formato, boolean gzip, boolean resumen,
+                                         LocalDate desde, LocalDate hasta, LongConsumer progreso) throws IOException {
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new ValidacionException("La fecha 'desde' no puede ser posterior a la fecha 'hasta'");
+        }
+
+        long inicio = System.nanoTime();
+        long filas;
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer salida = crearEscritor(canal, gzip)) {
+
+            // La exportación es una lectura de reporte: va a una réplica si hay alguna configurada
+            if (resumen) {
+                try (Stream<PacienteResumen> pacientes = DatabaseConnection.leerDeReplica(
+                        () -> pacienteDao.leerResumenPorFechaNacimientoStream(desde, hasta))) {
+                    filas = escribir(salida, pacientes, formato, COLUMNAS_RESUMEN,
+                        formato == Formato.CSV ? ExportacionService::escribirCsv : ExportacionService::escribirJson,
+                        progreso);
+                }
+            } else {
+                List<String> columnas = new ArrayList<>();
+                columnas.add("id");
+                columnas.addAll(ImportacionService.COLUMNAS);
+                try (Stream<Paciente> pacientes = DatabaseConnection.leerDeReplica(
+                        () -> pacienteDao.leerPorFechaNacimientoStream(desde, hasta))) {
+                    filas = escribir(salida, pacientes, formato, columnas,
+                        formato == Formato.CSV ? ExportacionService::escribirCsv : ExportacionService::escribirJson,
+                        progreso);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        return new ResultadoExportacion(filas, Files.size(destino), duracionMs);
+    }
+
+    /**
+     * Escribe el encabezado (en CSV) y una línea por elemento del Stream
+     *
+     * @return la cantidad de filas escritas
+     */
+    private <T> long escribir(Writer salida, Stream<T> elementos, Formato formato, List<String> columnas,
+                              BiConsumer<StringBuilder, T> escritor, LongConsumer progreso) throws IOException {
+        if (formato == Formato.CSV) {
+            salida.write(String.join(",", columnas));
+            salida.write('\n');
+        }
+
+        StringBuilder linea = new StringBuilder(512);
+        long filas = 0;
+        Iterator<T> it = elementos.iterator();
+        while (it.hasNext()) {
+            linea.setLength(0);
+            escritor.accept(linea, it.next());
+            linea.append('\n');
+            salida.append(linea);
+
+            filas++;
+            if (progreso != null && filas % intervaloProgreso == 0) {
+                progreso.accept(filas);
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Escritor con buffer sobre el canal del archivo, opcionalmente comprimido
+     */
+    private static Writer crearEscritor(FileChannel canal, boolean gzip) throws IOException {
+        OutputStream flujo = Channels.newOutputStream(canal);
+        if (gzip) {
+            flujo = new GZIPOutputStream(flujo, TAMANIO_BUFFER);
+        }
+        return new BufferedWriter(new OutputStreamWriter(flujo, StandardCharsets.UTF_8), TAMANIO_BUFFER);
+    }
+
+    private static void escribirCsv(StringBuilder linea, Paciente p) {
+        HistoriaClinica hc = p.getHistoriaClinica();
+        linea.append(p.getId()).append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, p.getApellido());
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, p.getNombre());
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, p.getDni());
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, texto(p.getFechaNacimiento()));
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, hc != null ? hc.getNroHistoria() : null);
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, hc != null && hc.getGrupoSanguineo() != null ? hc.getGrupoSanguineo().getValor() : null);
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, hc != null ? hc.getAntecedentes() : null);
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, hc != null ? hc.getMedicacionActual() : null);
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, hc != null ? hc.getObservaciones() : null);
+    }
+
+    private static void escribirJson(StringBuilder linea, Paciente p) {
+        HistoriaClinica hc = p.getHistoriaClinica();
+        linea.append('{');
+        Json.escribirCampo(linea, "id", p.getId());
+        linea.append(',');
+        Json.escribirCampo(linea, "apellido", p.getApellido());
+        linea.append(',');
+        Json.escribirCampo(linea, "nombre", p.getNombre());
+        linea.append(',');
+        Json.escribirCampo(linea, "dni", p.getDni());
+        linea.append(',');
+        Json.escribirCampo(linea, "fecha_nac", texto(p.getFechaNacimiento()));
+        if (hc != null) {
+            linea.append(',');
+            Json.escribirCampo(linea, "nro_historia", hc.getNroHistoria());
+            linea.append(',');
+            Json.escribirCampo(linea, "grupo_sangre",
+                    hc.getGrupoSanguineo() != null ? hc.getGrupoSanguineo().getValor() : null);
+            linea.append(',');
+            Json.escribirCampo(linea, "antecedentes", hc.getAntecedentes());
+            linea.append(',');
+            Json.escribirCampo(linea, "medicacionActual", hc.getMedicacionActual());
+            linea.append(',');
+            Json.escribirCampo(linea, "observaciones", hc.getObservaciones());
+        }
+        linea.append('}');
+    }
+
+    private static void escribirCsv(StringBuilder linea, PacienteResumen p) {
+        linea.append(p.getId()).append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, p.getApellido());
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, p.getNombre());
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, p.getDni());
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, texto(p.getFechaNacimiento()));
+        linea.append(Csv.SEPARADOR);
+        Csv.escribirCampo(linea, p.getNroHistoria());
+    }
+
+    private static void escribirJson(StringBuilder linea, PacienteResumen p) {
+        linea.append('{');
+        Json.escribirCampo(linea, "id", p.getId());
+        linea.append(',');
+        Json.escribirCampo(linea, "apellido", p.getApellido());
+        linea.append(',');
+        Json.escribirCampo(linea, "nombre", p.getNombre());
+        linea.append(',');
+        Json.escribirCampo(linea, "dni", p.getDni());
+        linea.append(',');
+        Json.escribirCampo(linea, "fecha_nac", texto(p.getFechaNacimiento()));
+        if (p.getNroHistoria() != null) {
+            linea.append(',');
+            Json.escribirCampo(linea, "nro_historia", p.getNroHistoria());
+        }
+        linea.append('}');
+    }
+
+    private static String texto(LocalDate fecha) {
+        return fecha == null ? null : fecha.toString();
+    }
+}
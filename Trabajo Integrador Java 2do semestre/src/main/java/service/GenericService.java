@@ -1,7 +1,12 @@
 package service;
 
+import dao.Pagina;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfaz genérica para servicios con operaciones CRUD
@@ -41,11 +46,36 @@ public interface GenericService<T> {
      */
     Optional<T> obtenerPorId(Long id);
 
+    /**
+     * Obtiene varias entidades por ID con unas pocas consultas en lugar de una por ID
+     * 
+     * @param ids los IDs buscados (se ignoran los repetidos)
+     * @return las entidades encontradas por ID, en el orden de los IDs; los que no existen no aparecen
+     */
+    Map<Long, T> obtenerPorIds(Collection<Long> ids);
+
     /**
      * Obtiene todas las entidades no eliminadas
      * 
      * @return lista de todas las entidades activas
      */
     List<T> obtenerTodos();
+
+    /**
+     * Obtiene una página de entidades no eliminadas ordenadas por ID
+     * 
+     * @param despuesDeId cursor de la página anterior (null para la primera página)
+     * @param tamanio cantidad máxima de elementos
+     * @return la página solicitada
+     */
+    Pagina<T> obtenerPagina(Long despuesDeId, int tamanio);
+
+    /**
+     * Recorre todas las entidades no eliminadas en memoria constante.
+     * El Stream debe cerrarse al terminar (try-with-resources).
+     * 
+     * @return Stream perezoso de las entidades activas
+     */
+    Stream<T> obtenerTodosStream();
 }
 
@@ -1,12 +1,25 @@
 package service;
 
+import config.DatabaseConnection;
+import config.PlantillaTransaccion;
 import dao.HistoriaClinicaDao;
+import dao.Pagina;
 import entities.HistoriaClinica;
+import entities.HistoriaClinicaResumen;
+import enums.GrupoSanguineo;
+import exceptions.ConflictoConcurrenciaException;
 import exceptions.ValidacionException;
 import util.Validador;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Servicio para gestionar operaciones de HistoriaClinica
@@ -14,9 +27,13 @@ import java.util.Optional;
 public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
 
     private final HistoriaClinicaDao dao;
+    private final PacienteCache cachePacientes;
+    private final IndiceTextoClinico indice;
 
     public HistoriaClinicaService() {
         this.dao = new HistoriaClinicaDao();
+        this.cachePacientes = PacienteCache.getInstancia();
+        this.indice = IndiceTextoClinico.getInstancia();
     }
 
     @Override
@@ -24,9 +41,11 @@ public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
         try {
             validar(entidad);
             
-            validarNroHistoriaUnico(entidad.getNroHistoria(), null);
-            
+            // Un número de historia repetido lo rechaza el índice UNIQUE en el mismo INSERT
             HistoriaClinica resultado = dao.crear(entidad);
+            // El paciente cacheado incluye su HC: se invalida para que la vuelva a leer
+            cachePacientes.invalidar(resultado.getIdPaciente());
+            indice.indexar(resultado);
             return resultado;
             
         } catch (Exception e) {
@@ -38,6 +57,33 @@ public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
         }
     }
 
+    /**
+     * Inserta varias historias clínicas en una única transacción usando inserciones por lotes.
+     * Si alguna no es válida o su número ya existe, no se inserta ninguna.
+     */
+    public List<HistoriaClinica> insertarEnLote(List<HistoriaClinica> historias) {
+        Validador.validarNoNulo(historias, "Historias clínicas");
+
+        Set<String> numeros = new HashSet<>();
+        for (HistoriaClinica hc : historias) {
+            validar(hc);
+            if (!numeros.add(hc.getNroHistoria())) {
+                throw new ValidacionException("Número de historia repetido en el lote: " + hc.getNroHistoria());
+            }
+        }
+
+        if (historias.isEmpty()) {
+            return historias;
+        }
+        // La unicidad contra la base la garantiza el índice UNIQUE de historiaClinica.nro_historia
+        List<HistoriaClinica> creadas = dao.crearEnLote(historias);
+        for (HistoriaClinica hc : creadas) {
+            cachePacientes.invalidar(hc.getIdPaciente());
+            indice.indexar(hc);
+        }
+        return creadas;
+    }
+
     @Override
     public HistoriaClinica actualizar(HistoriaClinica entidad) {
         validar(entidad);
@@ -49,41 +95,103 @@ public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
             throw new ValidacionException("No existe una historia clínica con ID: " + entidad.getId());
         }
         
-        // Validar que el número de historia sea único (excepto para el mismo registro)
-        validarNroHistoriaUnico(entidad.getNroHistoria(), entidad.getId());
+        // Sin versión (por ejemplo, un cliente que no la envía) se toma la leída recién
+        if (entidad.getVersion() == null) {
+            entidad.setVersion(existente.get().getVersion());
+        }
+        
+        // Un número de historia que ya usa otra HC lo rechaza el índice UNIQUE en el UPDATE
         
         boolean actualizado = dao.actualizar(entidad);
+        cachePacientes.invalidar(existente.get().getIdPaciente());
         if (!actualizado) {
-            throw new ValidacionException("No se pudo actualizar la historia clínica");
+            throw conflicto(entidad.getId());
         }
+        indice.indexar(entidad);
         
         return entidad;
     }
 
+    /**
+     * Lee la historia clínica, le aplica los cambios y la actualiza. Si otra operación la modificó
+     * en el medio, vuelve a leerla y reaplica los cambios (hasta ReintentoOptimista.INTENTOS_POR_DEFECTO veces).
+     *
+     * @param cambios modificaciones a aplicar sobre la versión más reciente de la historia clínica
+     */
+    public HistoriaClinica actualizarConReintento(Long id, Consumer<HistoriaClinica> cambios) {
+        Validador.validarNoNulo(id, "ID");
+        return ReintentoOptimista.ejecutar(() -> {
+            HistoriaClinica hc = dao.leer(id)
+                    .orElseThrow(() -> new ValidacionException("No existe una historia clínica con ID: " + id));
+            cambios.accept(hc);
+            return actualizar(hc);
+        });
+    }
+
     @Override
     public void eliminar(Long id) {
         Validador.validarNoNulo(id, "ID");
         
-        Optional<HistoriaClinica> existente = dao.leer(id);
-        if (existente.isEmpty()) {
-            throw new ValidacionException("No existe una historia clínica con ID: " + id);
-        }
-        
-        boolean eliminado = dao.eliminar(id);
-        if (!eliminado) {
-            throw new ValidacionException("No se pudo eliminar la historia clínica");
-        }
+        // La lectura y la baja en la misma transacción (los métodos del DAO participan de ella)
+        Long idPaciente = PlantillaTransaccion.ejecutar("historiaClinica.eliminar", conexion -> {
+            Optional<HistoriaClinica> existente = dao.leer(id);
+            if (existente.isEmpty()) {
+                throw new ValidacionException("No existe una historia clínica con ID: " + id);
+            }
+            if (!dao.eliminar(id)) {
+                throw new ValidacionException("No se pudo eliminar la historia clínica");
+            }
+            return existente.get().getIdPaciente();
+        });
+        cachePacientes.invalidar(idPaciente);
+        indice.quitar(id);
     }
 
     @Override
     public Optional<HistoriaClinica> obtenerPorId(Long id) {
         Validador.validarNoNulo(id, "ID");
-        return dao.leer(id);
+        return DatabaseConnection.leerDeReplica(() -> dao.leer(id));
+    }
+
+    @Override
+    public Map<Long, HistoriaClinica> obtenerPorIds(Collection<Long> ids) {
+        Validador.validarNoNulo(ids, "IDs");
+        for (Long id : ids) {
+            Validador.validarNoNulo(id, "ID");
+        }
+        return DatabaseConnection.leerDeReplica(() -> dao.leerPorIds(ids));
     }
 
     @Override
     public List<HistoriaClinica> obtenerTodos() {
-        return dao.leerTodos();
+        return DatabaseConnection.leerDeReplica(dao::leerTodos);
+    }
+
+    @Override
+    public Pagina<HistoriaClinica> obtenerPagina(Long despuesDeId, int tamanio) {
+        Validador.validarPositivo(tamanio, "Tamaño de página");
+        return DatabaseConnection.leerDeReplica(() -> dao.leerPagina(despuesDeId, tamanio));
+    }
+
+    /**
+     * Página de historias clínicas activas para listados: con extractos de antecedentes y
+     * medicación en lugar de los textos completos
+     */
+    public Pagina<HistoriaClinicaResumen> obtenerPaginaResumen(Long despuesDeId, int tamanio) {
+        Validador.validarPositivo(tamanio, "Tamaño de página");
+        return DatabaseConnection.leerDeReplica(() -> dao.leerPaginaResumen(despuesDeId, tamanio));
+    }
+
+    @Override
+    public Stream<HistoriaClinica> obtenerTodosStream() {
+        return DatabaseConnection.leerDeReplica(dao::leerTodosStream);
+    }
+
+    /**
+     * Cantidad de historias clínicas activas de cada grupo sanguíneo
+     */
+    public Map<GrupoSanguineo, Long> contarPorGrupoSanguineo() {
+        return DatabaseConnection.leerDeReplica(dao::contarPorGrupoSanguineo);
     }
 
     /**
@@ -91,7 +199,7 @@ public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
      */
     public Optional<HistoriaClinica> buscarPorNumero(String nroHistoria) {
         Validador.validarNoVacio(nroHistoria, "Número de historia");
-        return dao.buscarPorNroHistoria(nroHistoria);
+        return DatabaseConnection.leerDeReplica(() -> dao.buscarPorNroHistoria(nroHistoria));
     }
 
     /**
@@ -99,7 +207,66 @@ public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
      */
     public Optional<HistoriaClinica> buscarPorIdPaciente(Long idPaciente) {
         Validador.validarNoNulo(idPaciente, "ID del paciente");
-        return dao.buscarPorIdPaciente(idPaciente);
+        return DatabaseConnection.leerDeReplica(() -> dao.buscarPorIdPaciente(idPaciente));
+    }
+
+    /**
+     * Busca varias historias clínicas por número con consultas "nro_historia IN (...)" en bloques
+     *
+     * @return las historias encontradas por número, en el orden pedido; las que no existen no aparecen
+     */
+    public Map<String, HistoriaClinica> buscarPorNumeros(Collection<String> nrosHistoria) {
+        Validador.validarNoNulo(nrosHistoria, "Números de historia");
+        for (String nroHistoria : nrosHistoria) {
+            Validador.validarNoVacio(nroHistoria, "Número de historia");
+        }
+        return DatabaseConnection.leerDeReplica(() -> dao.buscarPorNrosHistoria(nrosHistoria));
+    }
+
+    /**
+     * Busca las historias clínicas de varios pacientes a partir de sus DNI, en bloques
+     * "dni IN (...)" (por ejemplo, para conciliar resultados de laboratorio)
+     *
+     * @return las historias encontradas por DNI del paciente, en el orden pedido; los pacientes
+     *         inexistentes o sin historia clínica no aparecen
+     */
+    public Map<String, HistoriaClinica> buscarPorDnis(Collection<String> dnis) {
+        Validador.validarNoNulo(dnis, "DNIs");
+        for (String dni : dnis) {
+            Validador.validarDni(dni);
+        }
+        return DatabaseConnection.leerDeReplica(() -> dao.buscarPorDnisPaciente(dnis));
+    }
+
+    /**
+     * Busca historias clínicas por el contenido de antecedentes, medicación y observaciones
+     * (ver IndiceTextoClinico para la sintaxis de la consulta), de la más a la menos relevante.
+     * La primera búsqueda arma el índice recorriendo todas las historias activas.
+     *
+     * @param limite cantidad máxima de resultados
+     */
+    public List<HistoriaClinica> buscarPorContenido(String consulta, int limite) {
+        Validador.validarNoVacio(consulta, "Consulta");
+        Validador.validarPositivo(limite, "Límite");
+
+        // Del primario: con la réplica atrasada el índice quedaría armado sin las últimas escrituras
+        indice.asegurarConstruido(dao::leerTodosStream);
+        List<IndiceTextoClinico.Coincidencia> coincidencias = indice.buscar(consulta, limite);
+
+        List<Long> ids = new ArrayList<>(coincidencias.size());
+        for (IndiceTextoClinico.Coincidencia coincidencia : coincidencias) {
+            ids.add(coincidencia.getIdHistoria());
+        }
+        // Se leen todas juntas; el mapa conserva el orden de relevancia. Una réplica atrasada
+        // puede no tener todavía una historia recién creada: esa no aparece
+        return new ArrayList<>(DatabaseConnection.leerDeReplica(() -> dao.leerPorIds(ids)).values());
+    }
+
+    /**
+     * Estado del índice de búsqueda por contenido
+     */
+    public IndiceTextoClinico getIndice() {
+        return indice;
     }
 
     /**
@@ -119,57 +286,71 @@ public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
         validar(entidad);
         Validador.validarNoNulo(entidad.getIdPaciente(), "ID del paciente");
         
-        // Buscar si ya existe una HC para este paciente
-        Optional<HistoriaClinica> existente = dao.buscarPorIdPaciente(entidad.getIdPaciente());
+        // Datos nuevos tal como llegaron: si hay que reintentar se concatenan de nuevo sobre la HC releída
+        String antecedentesNuevos = entidad.getAntecedentes();
+        String medicacionNueva = entidad.getMedicacionActual();
+        String observacionesNuevas = entidad.getObservaciones();
         
-        if (existente.isPresent()) {
-            // Actualizar la HC existente CONCATENANDO la información
-            HistoriaClinica hcExistente = existente.get();
-            
-            // Mantener el ID y el número de historia original
-            entidad.setId(hcExistente.getId());
-            entidad.setNroHistoria(hcExistente.getNroHistoria());
-            
-            // CONCATENAR campos históricos con separador de fecha/hora
-            String separador = "\n\n--- ENTRADA: " + java.time.LocalDateTime.now().format(
-                java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")) + " ---\n";
-            
-            // Concatenar antecedentes
-            String antecedentesAcumulados = hcExistente.getAntecedentes() + separador + entidad.getAntecedentes();
-            entidad.setAntecedentes(antecedentesAcumulados);
-            
-            // Concatenar medicación (si hay nueva medicación)
-            if (entidad.getMedicacionActual() != null && !entidad.getMedicacionActual().trim().isEmpty()) {
-                String medicacionBase = (hcExistente.getMedicacionActual() != null) 
-                    ? hcExistente.getMedicacionActual() 
-                    : "";
-                String medicacionAcumulada = medicacionBase + separador + entidad.getMedicacionActual();
-                entidad.setMedicacionActual(medicacionAcumulada);
-            } else {
-                // Si no hay nueva medicación, mantener la anterior
-                entidad.setMedicacionActual(hcExistente.getMedicacionActual());
-            }
-            
-            // Concatenar observaciones
-            String observacionesAcumuladas = hcExistente.getObservaciones() + separador + entidad.getObservaciones();
-            entidad.setObservaciones(observacionesAcumuladas);
-            
-            // El grupo sanguíneo se REEMPLAZA (siempre usar el más reciente)
-            
-            // Actualizar en la base de datos
-            boolean actualizado = dao.actualizar(entidad);
-            if (!actualizado) {
-                throw new ValidacionException("No se pudo actualizar la historia clínica");
-            }
-            
-            return entidad;
+        // Leer-concatenar-escribir: si otra operación modifica la HC en el medio, se reintenta
+        return ReintentoOptimista.ejecutar(() -> {
+            // Cada intento es una transacción: la lectura y la escritura usan la misma conexión
+            HistoriaClinica resultado = PlantillaTransaccion.ejecutar("historiaClinica.crearOActualizar", conexion -> {
+                // Buscar si ya existe una HC para este paciente
+                Optional<HistoriaClinica> existente = dao.buscarPorIdPaciente(entidad.getIdPaciente());
             
-        } else {
-            // Crear nueva HC
-            validarNroHistoriaUnico(entidad.getNroHistoria(), null);
-            HistoriaClinica resultado = dao.crear(entidad);
+                if (existente.isPresent()) {
+                    // Actualizar la HC existente CONCATENANDO la información
+                    HistoriaClinica hcExistente = existente.get();
+                
+                    // Mantener el ID, el número de historia original y la versión leída
+                    entidad.setId(hcExistente.getId());
+                    entidad.setNroHistoria(hcExistente.getNroHistoria());
+                    entidad.setVersion(hcExistente.getVersion());
+                
+                    // CONCATENAR campos históricos con separador de fecha/hora
+                    String separador = "\n\n--- ENTRADA: " + java.time.LocalDateTime.now().format(
+                        java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")) + " ---\n";
+                
+                    // Concatenar antecedentes
+                    String antecedentesAcumulados = hcExistente.getAntecedentes() + separador + antecedentesNuevos;
+                    entidad.setAntecedentes(antecedentesAcumulados);
+                
+                    // Concatenar medicación (si hay nueva medicación)
+                    if (medicacionNueva != null && !medicacionNueva.trim().isEmpty()) {
+                        String medicacionBase = (hcExistente.getMedicacionActual() != null) 
+                            ? hcExistente.getMedicacionActual() 
+                            : "";
+                        String medicacionAcumulada = medicacionBase + separador + medicacionNueva;
+                        entidad.setMedicacionActual(medicacionAcumulada);
+                    } else {
+                        // Si no hay nueva medicación, mantener la anterior
+                        entidad.setMedicacionActual(hcExistente.getMedicacionActual());
+                    }
+                
+                    // Concatenar observaciones
+                    String observacionesAcumuladas = hcExistente.getObservaciones() + separador + observacionesNuevas;
+                    entidad.setObservaciones(observacionesAcumuladas);
+                
+                    // El grupo sanguíneo se REEMPLAZA (siempre usar el más reciente)
+                
+                    // Actualizar en la base de datos
+                    boolean actualizado = dao.actualizar(entidad);
+                    if (!actualizado) {
+                        throw conflicto(entidad.getId());
+                    }
+                
+                    return entidad;
+                
+                } else {
+                    // Crear nueva HC (el índice UNIQUE rechaza un número de historia repetido)
+                    return dao.crear(entidad);
+                }
+            });
+            // Solo después del commit
+            cachePacientes.invalidar(resultado.getIdPaciente());
+            indice.indexar(resultado);
             return resultado;
-        }
+        });
     }
 
     /**
@@ -191,18 +372,8 @@ public class HistoriaClinicaService implements GenericService<HistoriaClinica> {
         Validador.validarLongitudMaxima(hc.getMedicacionActual(), 255, "Medicación actual");
     }
 
-    /**
-     * Valida que el número de historia sea único
-     */
-    private void validarNroHistoriaUnico(String nroHistoria, Long idExcluir) {
-        Optional<HistoriaClinica> existente = dao.buscarPorNroHistoria(nroHistoria);
-        
-        if (existente.isPresent()) {
-            // Si estamos actualizando, verificar que no sea el mismo registro
-            if (idExcluir == null || !existente.get().getId().equals(idExcluir)) {
-                throw new ValidacionException("Ya existe una historia clínica con el número: " + nroHistoria);
-            }
-        }
+    private static ConflictoConcurrenciaException conflicto(Long id) {
+        return new ConflictoConcurrenciaException("La historia clínica con ID " + id
+                + " fue modificada o eliminada por otra operación. Vuelva a leerla e intente de nuevo");
     }
 }
-
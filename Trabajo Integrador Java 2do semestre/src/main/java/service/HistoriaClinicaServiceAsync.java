@@ -0,0 +1,75 @@
+package service;
+
+import dao.Pagina;
+import entities.HistoriaClinica;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asincrónica de HistoriaClinicaService.
+ * Delega cada operación en el servicio bloqueante y la ejecuta en el EjecutorAsincrono.
+ */
+public class HistoriaClinicaServiceAsync implements AsyncGenericService<HistoriaClinica> {
+
+    private final HistoriaClinicaService servicio;
+    private final EjecutorAsincrono ejecutor;
+
+    public HistoriaClinicaServiceAsync() {
+        this(new HistoriaClinicaService(), EjecutorAsincrono.global());
+    }
+
+    public HistoriaClinicaServiceAsync(HistoriaClinicaService servicio, EjecutorAsincrono ejecutor) {
+        this.servicio = servicio;
+        this.ejecutor = ejecutor;
+    }
+
+    @Override
+    public CompletableFuture<HistoriaClinica> insertarAsync(HistoriaClinica entidad) {
+        return ejecutor.ejecutar(() -> servicio.insertar(entidad));
+    }
+
+    @Override
+    public CompletableFuture<HistoriaClinica> actualizarAsync(HistoriaClinica entidad) {
+        return ejecutor.ejecutar(() -> servicio.actualizar(entidad));
+    }
+
+    @Override
+    public CompletableFuture<Void> eliminarAsync(Long id) {
+        return ejecutor.ejecutarSinResultado(() -> servicio.eliminar(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<HistoriaClinica>> obtenerPorIdAsync(Long id) {
+        return ejecutor.ejecutar(() -> servicio.obtenerPorId(id));
+    }
+
+    @Override
+    public CompletableFuture<List<HistoriaClinica>> obtenerTodosAsync() {
+        return ejecutor.ejecutar(servicio::obtenerTodos);
+    }
+
+    @Override
+    public CompletableFuture<Pagina<HistoriaClinica>> obtenerPaginaAsync(Long despuesDeId, int tamanio) {
+        return ejecutor.ejecutar(() -> servicio.obtenerPagina(despuesDeId, tamanio));
+    }
+
+    /**
+     * Busca una historia clínica por su número
+     */
+    public CompletableFuture<Optional<HistoriaClinica>> buscarPorNumeroAsync(String nroHistoria) {
+        return ejecutor.ejecutar(() -> servicio.buscarPorNumero(nroHistoria));
+    }
+
+    /**
+     * Busca la historia clínica de un paciente
+     */
+    public CompletableFuture<Optional<HistoriaClinica>> buscarPorIdPacienteAsync(Long idPaciente) {
+        return ejecutor.ejecutar(() -> servicio.buscarPorIdPaciente(idPaciente));
+    }
+
+    public HistoriaClinicaService getServicio() {
+        return servicio;
+    }
+}
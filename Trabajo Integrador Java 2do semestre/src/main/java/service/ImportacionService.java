@@ -0,0 +1,439 @@
+package service;
+
+import config.DatabaseConnection;
+import dao.HistoriaClinicaDao;
+import dao.PacienteDao;
+import entities.HistoriaClinica;
+import entities.Paciente;
+import enums.GrupoSanguineo;
+import exceptions.DatabaseException;
+import exceptions.ValidacionException;
+import util.Csv;
+import util.Json;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importación masiva de pacientes (con su historia clínica opcional) desde CSV o JSON-lines.
+ *
+ * El archivo se lee línea por línea y se procesa en bloques: cada bloque se valida en un
+ * hilo del pool de validación con las mismas reglas que PacienteService, y el hilo que lee
+ * inserta los bloques ya validados, en orden, con crearEnLote dentro de una transacción.
+ * Como máximo hay 2 bloques por hilo en vuelo, así la memoria no depende del tamaño del archivo.
+ *
+ * Si un bloque falla en la base (por ejemplo un DNI duplicado), se revierte y se reintenta
+ * fila por fila para aislar las filas con error. Cada fila rechazada se escribe en el archivo
+ * de rechazos con su número de línea y el motivo.
+ *
+ * Columnas (encabezado del CSV o campos de cada objeto JSON): ver COLUMNAS.
+ * La historia clínica se crea solo si la fila trae nro_historia.
+ *
+ * Configuración opcional en database.properties:
+ * importacion.hilos (por defecto, la cantidad de procesadores), importacion.tamanioBloque (1000)
+ */
+public class ImportacionService {
+
+    public static final List<String> COLUMNAS = List.of(
+        "apellido", "nombre", "dni", "fecha_nac",
+        "nro_historia", "grupo_sangre", "antecedentes", "medicacionActual", "observaciones"
+    );
+
+    /**
+     * Formato del archivo a importar
+     */
+    public enum Formato {
+        CSV,
+        JSON;
+
+        /**
+         * Deduce el formato por la extensión (.csv, .json, .jsonl, .ndjson), ignorando un .gz final
+         */
+        public static Formato desdeArchivo(Path archivo) {
+            String nombre = archivo.getFileName().toString().toLowerCase();
+            if (nombre.endsWith(".gz")) {
+                nombre = nombre.substring(0, nombre.length() - 3);
+            }
+            if (nombre.endsWith(".csv")) {
+                return CSV;
+            }
+            if (nombre.endsWith(".json") || nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson")) {
+                return JSON;
+            }
+            throw new ValidacionException("No se reconoce el formato del archivo: " + nombre
+                    + " (se espera .csv, .json, .jsonl o .ndjson)");
+        }
+    }
+
+    private final PacienteService pacienteService;
+    private final PacienteDao pacienteDao;
+    private final HistoriaClinicaDao historiaClinicaDao;
+    private final int hilos;
+    private final int tamanioBloque;
+
+    public ImportacionService() {
+        this(
+            DatabaseConnection.getPropiedadEntera("importacion.hilos", Runtime.getRuntime().availableProcessors()),
+            DatabaseConnection.getPropiedadEntera("importacion.tamanioBloque", 1000)
+        );
+    }
+
+    public ImportacionService(int hilos, int tamanioBloque) {
+        this.pacienteService = new PacienteService();
+        this.pacienteDao = new PacienteDao();
+        this.historiaClinicaDao = new HistoriaClinicaDao();
+        this.hilos = Math.max(1, hilos);
+        this.tamanioBloque = Math.max(1, tamanioBloque);
+    }
+
+    /**
+     * Importa un archivo deduciendo el formato por su extensión
+     */
+    public ResultadoImportacion importar(Path archivo, Path archivoRechazos) throws IOException {
+        return importar(archivo, Formato.desdeArchivo(archivo), archivoRechazos);
+    }
+
+    /**
+     * Importa un archivo de pacientes
+     *
+     * @param archivo el archivo CSV (con encabezado) o JSON-lines, opcionalmente comprimido (.gz)
+     * @param formato el formato del archivo
+     * @param archivoRechazos archivo CSV donde se escriben las filas rechazadas (linea,error,contenido)
+     * @return el resumen de la importación
+     */
+    public ResultadoImportacion importar(Path archivo, Formato formato, Path archivoRechazos) throws IOException {
+        long inicio = System.nanoTime();
+        Contadores contadores = new Contadores();
+
+        ExecutorService validadores = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "importacion-validador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        ArrayDeque<Future<List<Fila>>> pendientes = new ArrayDeque<>();
+
+        try (BufferedReader lector = abrirLector(archivo);
+             BufferedWriter rechazos = Files.newBufferedWriter(archivoRechazos, StandardCharsets.UTF_8)) {
+
+            rechazos.write(Csv.unirLinea("linea", "error", "contenido"));
+            rechazos.newLine();
+
+            long nroLinea = 0;
+            Function<String, Map<String, String>> lectorFila;
+            if (formato == Formato.CSV) {
+                String encabezado = lector.readLine();
+                nroLinea++;
+                if (encabezado == null) {
+                    return new ResultadoImportacion(0, 0, 0, 0);
+                }
+                lectorFila = crearLectorCsv(encabezado);
+            } else {
+                lectorFila = ImportacionService::leerFilaJson;
+            }
+
+            List<Fila> bloque = new ArrayList<>(tamanioBloque);
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                nroLinea++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                bloque.add(new Fila(nroLinea, linea));
+                if (bloque.size() == tamanioBloque) {
+                    pendientes.add(enviarAValidar(validadores, bloque, lectorFila));
+                    bloque = new ArrayList<>(tamanioBloque);
+                    while (pendientes.size() >= hilos * 2) {
+                        procesarBloque(esperar(pendientes.poll()), rechazos, contadores);
+                    }
+                }
+            }
+            if (!bloque.isEmpty()) {
+                pendientes.add(enviarAValidar(validadores, bloque, lectorFila));
+            }
+            while (!pendientes.isEmpty()) {
+                procesarBloque(esperar(pendientes.poll()), rechazos, contadores);
+            }
+        } finally {
+            validadores.shutdownNow();
+        }
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        return new ResultadoImportacion(contadores.leidas, contadores.insertadas, contadores.rechazadas, duracionMs);
+    }
+
+    /**
+     * Abre el archivo para lectura, descomprimiéndolo si termina en .gz
+     */
+    private static BufferedReader abrirLector(Path archivo) throws IOException {
+        if (!archivo.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            return Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+        }
+        InputStream entrada = new GZIPInputStream(Files.newInputStream(archivo), 64 * 1024);
+        return new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+    }
+
+    private Future<List<Fila>> enviarAValidar(ExecutorService validadores, List<Fila> bloque,
+                                              Function<String, Map<String, String>> lectorFila) {
+        return validadores.submit(() -> {
+            for (Fila fila : bloque) {
+                validarFila(fila, lectorFila);
+            }
+            return bloque;
+        });
+    }
+
+    private static List<Fila> esperar(Future<List<Fila>> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new DatabaseException("Error al validar un bloque de la importación: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Convierte la línea en un paciente (y su HC) y aplica las validaciones del servicio.
+     * Se ejecuta en los hilos de validación; los errores quedan registrados en la fila.
+     */
+    private void validarFila(Fila fila, Function<String, Map<String, String>> lectorFila) {
+        try {
+            Map<String, String> valores = lectorFila.apply(fila.contenido);
+            Paciente paciente = new Paciente();
+            paciente.setApellido(valores.get("apellido"));
+            paciente.setNombre(valores.get("nombre"));
+            paciente.setDni(valores.get("dni"));
+            paciente.setFechaNacimiento(leerFecha(valores.get("fecha_nac")));
+            pacienteService.validar(paciente);
+
+            String nroHistoria = valores.get("nro_historia");
+            if (nroHistoria != null) {
+                HistoriaClinica hc = new HistoriaClinica();
+                hc.setNroHistoria(nroHistoria);
+                String grupo = valores.get("grupo_sangre");
+                hc.setGrupoSanguineo(grupo == null ? null : GrupoSanguineo.fromString(grupo));
+                hc.setAntecedentes(valores.get("antecedentes"));
+                hc.setMedicacionActual(valores.get("medicacionActual"));
+                hc.setObservaciones(valores.get("observaciones"));
+                pacienteService.validarHistoriaClinica(hc);
+                paciente.setHistoriaClinica(hc);
+            }
+            fila.paciente = paciente;
+        } catch (RuntimeException e) {
+            fila.error = e.getMessage();
+        }
+    }
+
+    private static LocalDate leerFecha(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new ValidacionException("Fecha de nacimiento inválida (se espera AAAA-MM-DD): " + valor);
+        }
+    }
+
+    /**
+     * Escribe los rechazos de validación e inserta las filas válidas del bloque
+     */
+    private void procesarBloque(List<Fila> bloque, BufferedWriter rechazos, Contadores contadores) throws IOException {
+        List<Fila> validas = new ArrayList<>(bloque.size());
+        for (Fila fila : bloque) {
+            contadores.leidas++;
+            if (fila.error != null) {
+                rechazar(fila, fila.error, rechazos, contadores);
+            } else {
+                validas.add(fila);
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+
+        Connection conexion = DatabaseConnection.getConnection();
+        try {
+            conexion.setAutoCommit(false);
+            try {
+                insertar(conexion, validas);
+                conexion.commit();
+                contadores.insertadas += validas.size();
+                indexar(validas);
+            } catch (DatabaseException | ValidacionException | SQLException e) {
+                conexion.rollback();
+                insertarFilaPorFila(conexion, validas, rechazos, contadores);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error al importar el bloque: " + e.getMessage(), e);
+        } finally {
+            DatabaseConnection.cerrarConexion(conexion);
+        }
+    }
+
+    /**
+     * Inserta los pacientes del bloque y luego sus historias clínicas, sin hacer commit
+     */
+    private void insertar(Connection conexion, List<Fila> filas) {
+        List<Paciente> pacientes = new ArrayList<>(filas.size());
+        for (Fila fila : filas) {
+            pacientes.add(fila.paciente);
+        }
+        pacienteDao.crearEnLote(conexion, pacientes);
+
+        List<HistoriaClinica> historias = new ArrayList<>();
+        for (Paciente paciente : pacientes) {
+            HistoriaClinica hc = paciente.getHistoriaClinica();
+            if (hc != null) {
+                hc.setIdPaciente(paciente.getId());
+                historias.add(hc);
+            }
+        }
+        if (!historias.isEmpty()) {
+            historiaClinicaDao.crearEnLote(conexion, historias);
+        }
+    }
+
+    /**
+     * Agrega a los índices de búsqueda los pacientes y las historias clínicas ya confirmados
+     */
+    private void indexar(List<Fila> filas) {
+        IndiceTextoClinico indiceTexto = IndiceTextoClinico.getInstancia();
+        IndiceNombresPacientes indiceNombres = IndiceNombresPacientes.getInstancia();
+        for (Fila fila : filas) {
+            indiceNombres.indexar(fila.paciente);
+            indiceTexto.indexar(fila.paciente.getHistoriaClinica());
+        }
+    }
+
+    /**
+     * Reintenta un bloque fallido fila por fila, cada una en su propia transacción
+     */
+    private void insertarFilaPorFila(Connection conexion, List<Fila> filas, BufferedWriter rechazos,
+                                     Contadores contadores) throws SQLException, IOException {
+        for (Fila fila : filas) {
+            // Los IDs asignados durante el intento por lotes quedaron revertidos
+            fila.paciente.setId(null);
+            if (fila.paciente.getHistoriaClinica() != null) {
+                fila.paciente.getHistoriaClinica().setId(null);
+            }
+            try {
+                insertar(conexion, List.of(fila));
+                conexion.commit();
+                contadores.insertadas++;
+                indexar(List.of(fila));
+            } catch (DatabaseException | ValidacionException e) {
+                conexion.rollback();
+                rechazar(fila, mensajeError(e), rechazos, contadores);
+            }
+        }
+    }
+
+    private static void rechazar(Fila fila, String error, BufferedWriter rechazos, Contadores contadores)
+            throws IOException {
+        contadores.rechazadas++;
+        rechazos.write(Csv.unirLinea(String.valueOf(fila.nroLinea), error, fila.contenido));
+        rechazos.newLine();
+    }
+
+    /**
+     * Mensaje del error incluyendo la causa SQL (por ejemplo, la clave duplicada)
+     */
+    private static String mensajeError(Throwable e) {
+        Throwable causa = e;
+        while (causa.getCause() != null && causa.getCause() != causa) {
+            causa = causa.getCause();
+        }
+        return causa == e ? e.getMessage() : e.getMessage() + ": " + causa.getMessage();
+    }
+
+    /**
+     * Lector de filas CSV: ubica cada columna según el encabezado
+     */
+    private static Function<String, Map<String, String>> crearLectorCsv(String encabezado) {
+        List<String> nombres = Csv.parsearLinea(encabezado.replace("\uFEFF", ""));
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < nombres.size(); i++) {
+            indices.put(nombres.get(i).trim(), i);
+        }
+        for (String obligatoria : List.of("apellido", "nombre", "dni", "fecha_nac")) {
+            if (!indices.containsKey(obligatoria)) {
+                throw new ValidacionException("Falta la columna obligatoria en el encabezado: " + obligatoria);
+            }
+        }
+
+        return linea -> {
+            List<String> campos = Csv.parsearLinea(linea);
+            Map<String, String> valores = new HashMap<>();
+            for (String columna : COLUMNAS) {
+                Integer indice = indices.get(columna);
+                if (indice != null && indice < campos.size()) {
+                    valores.put(columna, normalizar(campos.get(indice)));
+                }
+            }
+            return valores;
+        };
+    }
+
+    private static Map<String, String> leerFilaJson(String linea) {
+        Map<String, Object> objeto = Json.parsearObjeto(linea);
+        Map<String, String> valores = new HashMap<>();
+        for (String columna : COLUMNAS) {
+            valores.put(columna, normalizar(Json.texto(objeto, columna)));
+        }
+        return valores;
+    }
+
+    private static String normalizar(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        String recortado = valor.trim();
+        return recortado.isEmpty() ? null : recortado;
+    }
+
+    /**
+     * Línea del archivo junto con el resultado de su validación
+     */
+    private static class Fila {
+        private final long nroLinea;
+        private final String contenido;
+        // Los escribe el hilo de validación; Future.get() los publica al hilo que inserta
+        private Paciente paciente;
+        private String error;
+
+        Fila(long nroLinea, String contenido) {
+            this.nroLinea = nroLinea;
+            this.contenido = contenido;
+        }
+    }
+
+    private static class Contadores {
+        private long leidas;
+        private long insertadas;
+        private long rechazadas;
+    }
+}
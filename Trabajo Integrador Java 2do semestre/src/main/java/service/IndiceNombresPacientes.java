@@ -0,0 +1,559 @@
+package service;
+
+import entities.Paciente;
+import entities.PacienteResumen;
+import metricas.RegistroMetricas;
+import util.Texto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de apellidos y nombres de los pacientes activos, para la búsqueda
+ * por nombre y el autocompletado.
+ *
+ * Cada palabra del apellido y del nombre, en minúsculas y sin acentos (Texto.plegar), es una
+ * clave de un mapa ordenado que apunta a los pacientes que la tienen, ordenados por apellido y
+ * nombre. Una consulta como "gonz mar" devuelve los pacientes que tienen una palabra que empieza
+ * con "gonz" y otra que empieza con "mar". Las palabras de la consulta de 4 o más letras toleran
+ * un error de tipeo (distancia de edición 1: una letra de más, de menos o cambiada): "gonzales"
+ * encuentra a "González". Las palabras que están a distancia 1 se encuentran recorriendo un trie
+ * del vocabulario.
+ *
+ * Los resultados salen ya ordenados (primero los que coinciden sin errores, luego por la palabra
+ * que coincidió con la primera de la consulta y luego por apellido y nombre, empezando por los
+ * que siguen el orden de la consulta), así una página se arma recorriendo solo los pacientes
+ * necesarios. El índice guarda apellido, nombre y DNI para que el autocompletado no consulte la
+ * base. Se arma la primera vez que se busca, leyendo del primario, y lo mantienen los servicios
+ * con cada alta, modificación o baja. Los cambios que llegan mientras se arma tienen prioridad
+ * sobre las filas del recorrido, que pueden haberse leído antes.
+ */
+public class IndiceNombresPacientes {
+
+    private static final IndiceNombresPacientes INSTANCIA = new IndiceNombresPacientes();
+    // La duración de cada construcción queda en las métricas como indiceNombres.construir
+    private static final RegistroMetricas METRICAS = RegistroMetricas.global();
+
+    // Palabras de la consulta más cortas que esto se buscan sin tolerancia a errores
+    private static final int LONGITUD_MINIMA_TOLERANCIA = 4;
+    private static final int DISTANCIA_MAXIMA = 1;
+
+    private static final Pattern PALABRA = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final Comparator<Entrada> ORDEN_ALFABETICO = Comparator
+            .comparing((Entrada e) -> e.clave)
+            .thenComparing(e -> e.id);
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    // palabra -> pacientes que la tienen, por apellido y nombre
+    private final TreeMap<String, TreeSet<Entrada>> porPalabra = new TreeMap<>();
+    // Trie con las mismas palabras, para encontrar las que están a distancia 1 de la consulta
+    private final Nodo vocabulario = new Nodo();
+    private final Map<Long, Entrada> pacientes = new HashMap<>();
+
+    private final Object construccion = new Object();
+    private volatile boolean construido;
+    // Mientras se arma: pacientes agregados o quitados por los servicios, que el recorrido no pisa
+    private Set<Long> cambiadosDuranteConstruccion;
+
+    IndiceNombresPacientes() {
+    }
+
+    /**
+     * Devuelve el índice compartido por los servicios
+     */
+    public static IndiceNombresPacientes getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Paciente encontrado por nombre. Solo trae los datos necesarios para mostrarlo en una lista.
+     */
+    public static final class Coincidencia {
+        private final Long id;
+        private final String apellido;
+        private final String nombre;
+        private final String dni;
+        private final int distancia;
+
+        Coincidencia(Entrada entrada, int distancia) {
+            this.id = entrada.id;
+            this.apellido = entrada.apellido;
+            this.nombre = entrada.nombre;
+            this.dni = entrada.dni;
+            this.distancia = distancia;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getApellido() {
+            return apellido;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public String getDni() {
+            return dni;
+        }
+
+        /**
+         * Errores de tipeo tolerados para que el paciente coincida (0 si coincide exactamente)
+         */
+        public int getDistancia() {
+            return distancia;
+        }
+    }
+
+    /**
+     * Arma el índice si todavía no se armó
+     *
+     * @param pacientes proveedor del recorrido de los pacientes activos, leído del primario para no
+     *                  perder las escrituras que la réplica todavía no tiene (se cierra al terminar)
+     */
+    void asegurarConstruido(Supplier<Stream<PacienteResumen>> pacientes) {
+        if (construido) {
+            return;
+        }
+        synchronized (construccion) {
+            if (construido) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            candado.writeLock().lock();
+            try {
+                cambiadosDuranteConstruccion = new HashSet<>();
+            } finally {
+                candado.writeLock().unlock();
+            }
+            try (Stream<PacienteResumen> recorrido = pacientes.get()) {
+                recorrido.forEach(paciente -> indexarRecorrido(new Entrada(paciente.getId(),
+                        paciente.getApellido(), paciente.getNombre(), paciente.getDni())));
+                construido = true;
+            } finally {
+                candado.writeLock().lock();
+                try {
+                    cambiadosDuranteConstruccion = null;
+                } finally {
+                    candado.writeLock().unlock();
+                }
+            }
+            METRICAS.registrar("indiceNombres.construir", System.nanoTime() - inicio, false);
+        }
+    }
+
+    public boolean estaConstruido() {
+        return construido;
+    }
+
+    /**
+     * Agrega o reemplaza un paciente en el índice. Los pacientes dados de baja se quitan.
+     */
+    public void indexar(Paciente paciente) {
+        if (paciente == null || paciente.getId() == null) {
+            return;
+        }
+        if (paciente.isEliminado()) {
+            quitar(paciente.getId());
+            return;
+        }
+        Entrada entrada = new Entrada(paciente.getId(), paciente.getApellido(), paciente.getNombre(), paciente.getDni());
+
+        candado.writeLock().lock();
+        try {
+            registrarCambio(entrada.id);
+            agregarSinCandado(entrada);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega una fila del recorrido de construcción, salvo que el paciente haya cambiado
+     * mientras tanto (el cambio de los servicios es más nuevo que la fila)
+     */
+    private void indexarRecorrido(Entrada entrada) {
+        candado.writeLock().lock();
+        try {
+            if (!cambiadosDuranteConstruccion.contains(entrada.id)) {
+                agregarSinCandado(entrada);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void registrarCambio(Long idPaciente) {
+        if (cambiadosDuranteConstruccion != null) {
+            cambiadosDuranteConstruccion.add(idPaciente);
+        }
+    }
+
+    private void agregarSinCandado(Entrada entrada) {
+        quitarSinCandado(entrada.id);
+        for (String palabra : entrada.palabras) {
+            porPalabra.computeIfAbsent(palabra, p -> {
+                vocabulario.agregar(p, 0);
+                return new TreeSet<>(ORDEN_ALFABETICO);
+            }).add(entrada);
+        }
+        pacientes.put(entrada.id, entrada);
+    }
+
+    /**
+     * Quita un paciente del índice
+     */
+    public void quitar(Long idPaciente) {
+        if (idPaciente == null) {
+            return;
+        }
+        candado.writeLock().lock();
+        try {
+            registrarCambio(idPaciente);
+            quitarSinCandado(idPaciente);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void quitarSinCandado(Long idPaciente) {
+        Entrada anterior = pacientes.remove(idPaciente);
+        if (anterior == null) {
+            return;
+        }
+        for (String palabra : anterior.palabras) {
+            TreeSet<Entrada> conPalabra = porPalabra.get(palabra);
+            if (conPalabra != null && conPalabra.remove(anterior) && conPalabra.isEmpty()) {
+                porPalabra.remove(palabra);
+                vocabulario.quitar(palabra, 0);
+            }
+        }
+    }
+
+    /**
+     * Busca pacientes cuyo apellido o nombre contenga palabras que empiecen con cada palabra
+     * de la consulta (con tolerancia a un error de tipeo en las de 4 o más letras)
+     *
+     * @param desde cantidad de resultados a saltear (paginado)
+     * @param cantidad cantidad máxima de resultados a devolver
+     */
+    public List<Coincidencia> buscar(String consulta, int desde, int cantidad) {
+        List<String> palabras = palabras(consulta);
+        if (palabras.isEmpty() || cantidad <= 0 || desde < 0) {
+            return Collections.emptyList();
+        }
+
+        // La primera palabra de la consulta guía el recorrido; las demás se verifican en cada paciente
+        String guia = palabras.get(0);
+        List<String> resto = palabras.subList(1, palabras.size());
+
+        candado.readLock().lock();
+        try {
+            List<Coincidencia> resultado = new ArrayList<>(cantidad);
+            Set<Long> vistos = new HashSet<>();
+            int[] aSaltear = { desde };
+
+            // 1. Palabras que empiezan exactamente con la guía, en orden alfabético
+            for (Map.Entry<String, TreeSet<Entrada>> conPalabra
+                    : porPalabra.subMap(guia, guia + Character.MAX_VALUE).entrySet()) {
+                if (recorrer(conPalabra.getValue(), sonda(conPalabra.getKey(), resto), 0, resto,
+                        vistos, aSaltear, cantidad, resultado)) {
+                    return resultado;
+                }
+            }
+
+            // 2. Palabras a distancia 1 de la guía
+            if (tolerancia(guia) > 0) {
+                TreeMap<String, Integer> aproximadas = new TreeMap<>();
+                vocabulario.buscar(guia, filaInicial(guia), tolerancia(guia), aproximadas);
+                for (Map.Entry<String, Integer> aproximada : aproximadas.entrySet()) {
+                    if (aproximada.getValue() > 0 && recorrer(porPalabra.get(aproximada.getKey()),
+                            sonda(aproximada.getKey(), resto), aproximada.getValue(), resto,
+                            vistos, aSaltear, cantidad, resultado)) {
+                        return resultado;
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Punto de partida del recorrido de los pacientes de una palabra. Con "perez juan" se empieza
+     * por los "Perez Juan..." (que son los que más probablemente se buscan, y así no se recorren
+     * antes todos los "Perez Ana...", "Perez Carlos...") y después se sigue desde el principio.
+     *
+     * @return null si la consulta tiene una sola palabra
+     */
+    private static Entrada sonda(String palabra, List<String> resto) {
+        return resto.isEmpty() ? null : new Entrada(palabra + " " + String.join(" ", resto));
+    }
+
+    /**
+     * Agrega al resultado los pacientes que cumplen también el resto de la consulta
+     *
+     * @param inicio paciente desde el que se empieza a recorrer (null = desde el principio)
+     * @return true si el resultado ya está completo
+     */
+    private boolean recorrer(TreeSet<Entrada> conPalabra, Entrada inicio, int distanciaGuia, List<String> resto,
+                             Set<Long> vistos, int[] aSaltear, int cantidad, List<Coincidencia> resultado) {
+        if (inicio == null) {
+            return recorrer(conPalabra, distanciaGuia, resto, vistos, aSaltear, cantidad, resultado);
+        }
+        return recorrer(conPalabra.tailSet(inicio, true), distanciaGuia, resto, vistos, aSaltear, cantidad, resultado)
+                || recorrer(conPalabra.headSet(inicio, false), distanciaGuia, resto, vistos, aSaltear, cantidad, resultado);
+    }
+
+    private boolean recorrer(Set<Entrada> candidatos, int distanciaGuia, List<String> resto, Set<Long> vistos,
+                             int[] aSaltear, int cantidad, List<Coincidencia> resultado) {
+        for (Entrada entrada : candidatos) {
+            if (!vistos.add(entrada.id)) {
+                continue;
+            }
+            int distancia = distanciaResto(entrada, resto);
+            if (distancia < 0) {
+                continue;
+            }
+            if (aSaltear[0] > 0) {
+                aSaltear[0]--;
+                continue;
+            }
+            resultado.add(new Coincidencia(entrada, distanciaGuia + distancia));
+            if (resultado.size() == cantidad) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Suma de las distancias de cada palabra del resto de la consulta a la palabra del paciente
+     * que mejor le coincide como prefijo, o -1 si alguna no coincide con ninguna
+     */
+    private static int distanciaResto(Entrada entrada, List<String> resto) {
+        int total = 0;
+        for (String palabra : resto) {
+            int tolerancia = tolerancia(palabra);
+            int mejor = Integer.MAX_VALUE;
+            for (String propia : entrada.palabras) {
+                mejor = Math.min(mejor, distanciaPrefijo(palabra, propia, tolerancia));
+                if (mejor == 0) {
+                    break;
+                }
+            }
+            if (mejor > tolerancia) {
+                return -1;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    /**
+     * Menor distancia de Levenshtein entre la consulta y algún prefijo de la palabra
+     * (Integer.MAX_VALUE si supera la tolerancia)
+     */
+    static int distanciaPrefijo(String consulta, String palabra, int tolerancia) {
+        if (palabra.startsWith(consulta)) {
+            return 0;
+        }
+        if (tolerancia == 0) {
+            return Integer.MAX_VALUE;
+        }
+        int[] fila = filaInicial(consulta);
+        int mejor = fila[consulta.length()];
+        for (int j = 0; j < palabra.length() && mejor > 0; j++) {
+            int[] siguiente = siguienteFila(fila, consulta, palabra.charAt(j));
+            if (minimo(siguiente) > tolerancia) {
+                break;
+            }
+            fila = siguiente;
+            mejor = Math.min(mejor, fila[consulta.length()]);
+        }
+        return mejor <= tolerancia ? mejor : Integer.MAX_VALUE;
+    }
+
+    private static int tolerancia(String palabra) {
+        return palabra.length() >= LONGITUD_MINIMA_TOLERANCIA ? DISTANCIA_MAXIMA : 0;
+    }
+
+    private static int[] filaInicial(String consulta) {
+        int[] fila = new int[consulta.length() + 1];
+        for (int i = 0; i < fila.length; i++) {
+            fila[i] = i;
+        }
+        return fila;
+    }
+
+    /**
+     * Fila siguiente de la matriz de Levenshtein al agregar una letra a la palabra
+     */
+    private static int[] siguienteFila(int[] anterior, String consulta, char letra) {
+        int[] fila = new int[anterior.length];
+        fila[0] = anterior[0] + 1;
+        for (int i = 1; i < fila.length; i++) {
+            int sustitucion = anterior[i - 1] + (consulta.charAt(i - 1) == letra ? 0 : 1);
+            fila[i] = Math.min(sustitucion, Math.min(fila[i - 1] + 1, anterior[i] + 1));
+        }
+        return fila;
+    }
+
+    private static int minimo(int[] fila) {
+        int minimo = Integer.MAX_VALUE;
+        for (int valor : fila) {
+            minimo = Math.min(minimo, valor);
+        }
+        return minimo;
+    }
+
+    public int cantidadPacientes() {
+        candado.readLock().lock();
+        try {
+            return pacientes.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndiceNombresPacientes{pacientes=" + cantidadPacientes() + ", construido=" + construido + '}';
+    }
+
+    private static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null) {
+            return palabras;
+        }
+        Matcher coincidencia = PALABRA.matcher(Texto.plegar(texto));
+        while (coincidencia.find()) {
+            palabras.add(coincidencia.group());
+        }
+        return palabras;
+    }
+
+    /**
+     * Nodo del trie del vocabulario: una letra de una o más palabras
+     */
+    private static final class Nodo {
+        private final Map<Character, Nodo> hijos = new HashMap<>(4);
+        // La palabra que termina en este nodo, o null
+        private String palabra;
+
+        void agregar(String nueva, int indice) {
+            if (indice == nueva.length()) {
+                palabra = nueva;
+                return;
+            }
+            hijos.computeIfAbsent(nueva.charAt(indice), c -> new Nodo()).agregar(nueva, indice + 1);
+        }
+
+        /**
+         * Quita la palabra y poda las ramas que quedan vacías
+         *
+         * @return true si este nodo quedó vacío
+         */
+        boolean quitar(String vieja, int indice) {
+            if (indice == vieja.length()) {
+                palabra = null;
+            } else {
+                Nodo hijo = hijos.get(vieja.charAt(indice));
+                if (hijo != null && hijo.quitar(vieja, indice + 1)) {
+                    hijos.remove(vieja.charAt(indice));
+                }
+            }
+            return palabra == null && hijos.isEmpty();
+        }
+
+        /**
+         * Recorre los hijos calculando la distancia de Levenshtein entre la consulta y cada camino,
+         * una fila de la matriz por letra. Cuando un camino está a distancia tolerada de la consulta,
+         * todas las palabras que empiezan con él coinciden. Se poda en cuanto ninguna celda de la
+         * fila queda dentro de la tolerancia.
+         *
+         * @param fila la fila de la matriz correspondiente al camino hasta este nodo
+         * @param resultado palabra -> menor distancia encontrada
+         */
+        void buscar(String consulta, int[] fila, int tolerancia, Map<String, Integer> resultado) {
+            for (Map.Entry<Character, Nodo> hijo : hijos.entrySet()) {
+                int[] siguiente = siguienteFila(fila, consulta, hijo.getKey());
+                int distancia = siguiente[consulta.length()];
+                int minimo = minimo(siguiente);
+                if (distancia <= tolerancia) {
+                    hijo.getValue().recolectar(distancia, resultado);
+                    if (minimo >= distancia) {
+                        // Más abajo no se puede mejorar la distancia: el subárbol ya se recolectó
+                        continue;
+                    }
+                }
+                if (minimo <= tolerancia) {
+                    hijo.getValue().buscar(consulta, siguiente, tolerancia, resultado);
+                }
+            }
+        }
+
+        /**
+         * Agrega las palabras de este nodo y de todos sus descendientes con la distancia dada
+         */
+        private void recolectar(int distancia, Map<String, Integer> resultado) {
+            if (palabra != null) {
+                resultado.merge(palabra, distancia, Math::min);
+            }
+            for (Nodo hijo : hijos.values()) {
+                hijo.recolectar(distancia, resultado);
+            }
+        }
+    }
+
+    /**
+     * Datos del paciente guardados en el índice
+     */
+    private static final class Entrada {
+        private final Long id;
+        private final String apellido;
+        private final String nombre;
+        private final String dni;
+        // Apellido y nombre normalizados, para ordenar
+        private final String clave;
+        private final String[] palabras;
+
+        Entrada(Long id, String apellido, String nombre, String dni) {
+            this.id = id;
+            this.apellido = apellido;
+            this.nombre = nombre;
+            this.dni = dni;
+            this.clave = Texto.plegar(apellido + " " + nombre);
+            this.palabras = new HashSet<>(palabras(apellido + " " + nombre)).toArray(new String[0]);
+        }
+
+        /**
+         * Entrada de búsqueda: solo sirve para ubicar una posición en los conjuntos ordenados
+         */
+        Entrada(String clave) {
+            this.id = Long.MIN_VALUE;
+            this.apellido = null;
+            this.nombre = null;
+            this.dni = null;
+            this.clave = clave;
+            this.palabras = new String[0];
+        }
+    }
+}
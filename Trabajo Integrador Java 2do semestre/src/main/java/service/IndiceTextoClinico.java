@@ -0,0 +1,583 @@
+package service;
+
+import entities.HistoriaClinica;
+import metricas.RegistroMetricas;
+import util.Texto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido en memoria sobre los campos de texto de las historias clínicas
+ * (antecedentes, medicacionActual y observaciones).
+ *
+ * Los textos se dividen en palabras, se pasan a minúsculas sin acentos (Texto.plegar) y se
+ * descartan los artículos y preposiciones más comunes. Para cada palabra se guardan las
+ * historias que la contienen y sus posiciones, lo que permite buscar:
+ *
+ * penicilina alergia      historias que contienen ambas palabras (en cualquier orden)
+ * amoxi*                  palabras que empiezan con "amoxi"
+ * "alergia penicilina"    la frase exacta (sin contar artículos ni preposiciones)
+ *
+ * Los resultados se ordenan por relevancia (BM25): pesan más las palabras poco frecuentes
+ * en el registro y las que se repiten en historias cortas.
+ *
+ * El índice se arma la primera vez que se busca, recorriendo en streaming las historias activas
+ * del primario, y después lo mantienen los servicios con cada alta, modificación o baja. Los
+ * cambios que llegan mientras se arma tienen prioridad sobre las filas del recorrido, que pueden
+ * haberse leído antes. Lo comparten todas las instancias de los servicios del proceso.
+ */
+public class IndiceTextoClinico {
+
+    private static final IndiceTextoClinico INSTANCIA = new IndiceTextoClinico();
+    // La duración de cada construcción queda en las métricas como indiceTexto.construir
+    private static final RegistroMetricas METRICAS = RegistroMetricas.global();
+
+    // Parámetros habituales de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Hueco de posiciones entre un campo y el siguiente: una frase no coincide entre dos campos
+    private static final int SEPARACION_CAMPOS = 1000;
+
+    // Un prefijo muy corto expande demasiadas palabras
+    private static final int LONGITUD_MINIMA_PREFIJO = 2;
+    private static final int MAXIMO_EXPANSION_PREFIJO = 500;
+
+    private static final Pattern PALABRA = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern CLAUSULA = Pattern.compile("\"([^\"]*)\"?|(\\S+)");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+        "a", "al", "de", "del", "e", "el", "en", "es", "la", "las", "le", "les", "lo", "los",
+        "o", "para", "por", "que", "se", "su", "sus", "u", "un", "una", "unas", "unos", "y"
+    );
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    // palabra -> (id de historia -> posiciones ordenadas); ordenado para las búsquedas por prefijo
+    private final TreeMap<String, Map<Long, int[]>> postings = new TreeMap<>();
+    // id de historia -> palabras que contiene y cantidad de palabras indexadas
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private long palabrasTotales;
+
+    private final Object construccion = new Object();
+    private volatile boolean construido;
+    // Mientras se arma: historias agregadas o quitadas por los servicios, que el recorrido no pisa
+    private Set<Long> cambiadasDuranteConstruccion;
+
+    IndiceTextoClinico() {
+    }
+
+    /**
+     * Devuelve el índice compartido por los servicios
+     */
+    public static IndiceTextoClinico getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Resultado de una búsqueda: el ID de la historia y su puntaje de relevancia
+     */
+    public static final class Coincidencia {
+        private final Long idHistoria;
+        private final double puntaje;
+
+        Coincidencia(Long idHistoria, double puntaje) {
+            this.idHistoria = idHistoria;
+            this.puntaje = puntaje;
+        }
+
+        public Long getIdHistoria() {
+            return idHistoria;
+        }
+
+        public double getPuntaje() {
+            return puntaje;
+        }
+    }
+
+    /**
+     * Arma el índice si todavía no se armó
+     *
+     * @param historias proveedor del recorrido de las historias clínicas activas, leído del primario
+     *                  para no perder las escrituras que la réplica todavía no tiene (se cierra al terminar)
+     */
+    void asegurarConstruido(Supplier<Stream<HistoriaClinica>> historias) {
+        if (construido) {
+            return;
+        }
+        synchronized (construccion) {
+            if (construido) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            candado.writeLock().lock();
+            try {
+                cambiadasDuranteConstruccion = new HashSet<>();
+            } finally {
+                candado.writeLock().unlock();
+            }
+            try (Stream<HistoriaClinica> recorrido = historias.get()) {
+                recorrido.forEach(hc -> indexar(hc, true));
+                construido = true;
+            } finally {
+                candado.writeLock().lock();
+                try {
+                    cambiadasDuranteConstruccion = null;
+                } finally {
+                    candado.writeLock().unlock();
+                }
+            }
+            METRICAS.registrar("indiceTexto.construir", System.nanoTime() - inicio, false);
+        }
+    }
+
+    public boolean estaConstruido() {
+        return construido;
+    }
+
+    /**
+     * Agrega o reemplaza una historia en el índice. Las historias dadas de baja se quitan.
+     */
+    public void indexar(HistoriaClinica hc) {
+        indexar(hc, false);
+    }
+
+    /**
+     * @param desdeRecorrido true para las filas del recorrido de construcción: se saltean las
+     *                       historias que cambiaron mientras tanto (el cambio es más nuevo que la fila)
+     */
+    private void indexar(HistoriaClinica hc, boolean desdeRecorrido) {
+        if (hc == null || hc.getId() == null) {
+            return;
+        }
+        if (hc.isEliminado()) {
+            if (!desdeRecorrido) {
+                quitar(hc.getId());
+            }
+            return;
+        }
+
+        // La tokenización se hace fuera del candado
+        Map<String, List<Integer>> posiciones = new HashMap<>();
+        int siguiente = 0;
+        for (String campo : new String[] { hc.getAntecedentes(), hc.getMedicacionActual(), hc.getObservaciones() }) {
+            siguiente = tokenizar(campo, siguiente, posiciones) + SEPARACION_CAMPOS;
+        }
+        int longitud = 0;
+        for (List<Integer> lista : posiciones.values()) {
+            longitud += lista.size();
+        }
+
+        candado.writeLock().lock();
+        try {
+            if (desdeRecorrido) {
+                if (cambiadasDuranteConstruccion.contains(hc.getId())) {
+                    return;
+                }
+            } else {
+                registrarCambio(hc.getId());
+            }
+            quitarSinCandado(hc.getId());
+            for (Map.Entry<String, List<Integer>> entrada : posiciones.entrySet()) {
+                postings.computeIfAbsent(entrada.getKey(), k -> new HashMap<>())
+                        .put(hc.getId(), aArreglo(entrada.getValue()));
+            }
+            documentos.put(hc.getId(), new Documento(posiciones.keySet().toArray(new String[0]), longitud));
+            palabrasTotales += longitud;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita una historia del índice
+     */
+    public void quitar(Long idHistoria) {
+        if (idHistoria == null) {
+            return;
+        }
+        candado.writeLock().lock();
+        try {
+            registrarCambio(idHistoria);
+            quitarSinCandado(idHistoria);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void registrarCambio(Long idHistoria) {
+        if (cambiadasDuranteConstruccion != null) {
+            cambiadasDuranteConstruccion.add(idHistoria);
+        }
+    }
+
+    private void quitarSinCandado(Long idHistoria) {
+        Documento anterior = documentos.remove(idHistoria);
+        if (anterior == null) {
+            return;
+        }
+        palabrasTotales -= anterior.longitud;
+        for (String palabra : anterior.palabras) {
+            Map<Long, int[]> lista = postings.get(palabra);
+            if (lista != null) {
+                lista.remove(idHistoria);
+                if (lista.isEmpty()) {
+                    postings.remove(palabra);
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca las historias que cumplen todas las partes de la consulta (palabras, prefijos
+     * terminados en * y frases entre comillas), ordenadas de mayor a menor relevancia
+     *
+     * @param limite cantidad máxima de resultados
+     */
+    public List<Coincidencia> buscar(String consulta, int limite) {
+        List<Clausula> clausulas = interpretar(consulta);
+        if (clausulas.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        candado.readLock().lock();
+        try {
+            int cantidadDocumentos = documentos.size();
+            if (cantidadDocumentos == 0) {
+                return Collections.emptyList();
+            }
+            double longitudPromedio = (double) palabrasTotales / cantidadDocumentos;
+
+            // La cláusula más selectiva primero: las siguientes solo miran las historias que quedan
+            clausulas.sort(Comparator.comparingInt(c -> c.estimacion(this)));
+            Map<Long, Double> puntajes = null;
+            for (Clausula clausula : clausulas) {
+                puntajes = clausula.evaluar(this, puntajes, cantidadDocumentos, longitudPromedio);
+                if (puntajes.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            List<Coincidencia> resultado = new ArrayList<>(puntajes.size());
+            for (Map.Entry<Long, Double> entrada : puntajes.entrySet()) {
+                resultado.add(new Coincidencia(entrada.getKey(), entrada.getValue()));
+            }
+            resultado.sort((a, b) -> a.puntaje != b.puntaje
+                    ? Double.compare(b.puntaje, a.puntaje)
+                    : a.idHistoria.compareTo(b.idHistoria));
+            return resultado.size() > limite ? new ArrayList<>(resultado.subList(0, limite)) : resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int cantidadDocumentos() {
+        candado.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int cantidadPalabras() {
+        candado.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el índice; se vuelve a armar en la próxima búsqueda
+     */
+    public void limpiar() {
+        synchronized (construccion) {
+            candado.writeLock().lock();
+            try {
+                postings.clear();
+                documentos.clear();
+                palabrasTotales = 0;
+                construido = false;
+            } finally {
+                candado.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndiceTextoClinico{historias=" + cantidadDocumentos()
+                + ", palabras=" + cantidadPalabras()
+                + ", construido=" + construido + '}';
+    }
+
+    // ==================== TOKENIZACIÓN ====================
+
+    /**
+     * Agrega a posiciones las palabras del texto, numeradas desde inicio. Las palabras vacías
+     * no se guardan ni ocupan posición, así "alergia a la penicilina" coincide con la frase
+     * "alergia penicilina".
+     *
+     * @return la posición siguiente a la última palabra
+     */
+    private static int tokenizar(String texto, int inicio, Map<String, List<Integer>> posiciones) {
+        if (texto == null || texto.isEmpty()) {
+            return inicio;
+        }
+        int posicion = inicio;
+        Matcher palabras = PALABRA.matcher(Texto.plegar(texto));
+        while (palabras.find()) {
+            String palabra = palabras.group();
+            if (!PALABRAS_VACIAS.contains(palabra)) {
+                posiciones.computeIfAbsent(palabra, k -> new ArrayList<>()).add(posicion++);
+            }
+        }
+        return posicion;
+    }
+
+    private static int[] aArreglo(List<Integer> lista) {
+        int[] arreglo = new int[lista.size()];
+        for (int i = 0; i < arreglo.length; i++) {
+            arreglo[i] = lista.get(i);
+        }
+        return arreglo;
+    }
+
+    /**
+     * Divide la consulta en cláusulas. Una palabra que al normalizarse se parte en varias
+     * (por ejemplo "beta-bloqueantes") se trata como frase.
+     */
+    private static List<Clausula> interpretar(String consulta) {
+        List<Clausula> clausulas = new ArrayList<>();
+        if (consulta == null) {
+            return clausulas;
+        }
+        Matcher partes = CLAUSULA.matcher(consulta);
+        while (partes.find()) {
+            String frase = partes.group(1);
+            String palabra = partes.group(2);
+            if (palabra != null && palabra.endsWith("*")) {
+                String prefijo = Texto.plegar(palabra.substring(0, palabra.length() - 1));
+                if (prefijo.length() >= LONGITUD_MINIMA_PREFIJO && PALABRA.matcher(prefijo).matches()) {
+                    clausulas.add(new ClausulaPrefijo(prefijo));
+                    continue;
+                }
+                palabra = palabra.substring(0, palabra.length() - 1);
+            }
+
+            List<String> terminos = new ArrayList<>();
+            List<Integer> desplazamientos = new ArrayList<>();
+            Matcher palabras = PALABRA.matcher(Texto.plegar(frase != null ? frase : palabra));
+            while (palabras.find()) {
+                if (!PALABRAS_VACIAS.contains(palabras.group())) {
+                    desplazamientos.add(terminos.size());
+                    terminos.add(palabras.group());
+                }
+            }
+            if (!terminos.isEmpty()) {
+                clausulas.add(new ClausulaFrase(terminos, desplazamientos));
+            }
+        }
+        return clausulas;
+    }
+
+    // ==================== EVALUACIÓN ====================
+
+    private double idf(int frecuenciaDocumentos, int cantidadDocumentos) {
+        return Math.log(1 + (cantidadDocumentos - frecuenciaDocumentos + 0.5) / (frecuenciaDocumentos + 0.5));
+    }
+
+    private double bm25(Long idHistoria, int frecuencia, double idf, double longitudPromedio) {
+        int longitud = documentos.get(idHistoria).longitud;
+        double normalizacion = K1 * (1 - B + B * longitud / longitudPromedio);
+        return idf * frecuencia * (K1 + 1) / (frecuencia + normalizacion);
+    }
+
+    /**
+     * Una parte de la consulta
+     */
+    private interface Clausula {
+
+        /**
+         * Cantidad aproximada de historias que la cumplen, para evaluar primero la más selectiva
+         */
+        int estimacion(IndiceTextoClinico indice);
+
+        /**
+         * Puntaje acumulado de cada historia que cumple esta cláusula y las anteriores
+         *
+         * @param previo puntajes de las cláusulas ya evaluadas (null si es la primera); solo se
+         *               consideran esas historias
+         */
+        Map<Long, Double> evaluar(IndiceTextoClinico indice, Map<Long, Double> previo,
+                                  int cantidadDocumentos, double longitudPromedio);
+    }
+
+    /**
+     * Palabra suelta (una sola palabra) o frase exacta (varias, a las distancias indicadas)
+     */
+    private static final class ClausulaFrase implements Clausula {
+        private final List<String> terminos;
+        private final List<Integer> desplazamientos;
+
+        ClausulaFrase(List<String> terminos, List<Integer> desplazamientos) {
+            this.terminos = terminos;
+            this.desplazamientos = desplazamientos;
+        }
+
+        @Override
+        public int estimacion(IndiceTextoClinico indice) {
+            int minimo = Integer.MAX_VALUE;
+            for (String termino : terminos) {
+                Map<Long, int[]> lista = indice.postings.get(termino);
+                minimo = Math.min(minimo, lista == null ? 0 : lista.size());
+            }
+            return minimo;
+        }
+
+        @Override
+        public Map<Long, Double> evaluar(IndiceTextoClinico indice, Map<Long, Double> previo,
+                                         int cantidadDocumentos, double longitudPromedio) {
+            List<Map<Long, int[]>> listas = new ArrayList<>(terminos.size());
+            Map<Long, int[]> masCorta = null;
+            for (String termino : terminos) {
+                Map<Long, int[]> lista = indice.postings.get(termino);
+                if (lista == null) {
+                    return Collections.emptyMap();
+                }
+                listas.add(lista);
+                if (masCorta == null || lista.size() < masCorta.size()) {
+                    masCorta = lista;
+                }
+            }
+
+            // Para las frases se usa la frecuencia de la palabra menos común (cota de la de la frase)
+            double idf = indice.idf(masCorta.size(), cantidadDocumentos);
+            Iterable<Long> candidatas = previo != null && previo.size() < masCorta.size()
+                    ? previo.keySet() : masCorta.keySet();
+
+            Map<Long, Double> puntajes = new HashMap<>();
+            for (Long idHistoria : candidatas) {
+                Double acumulado = 0.0;
+                if (previo != null && (acumulado = previo.get(idHistoria)) == null) {
+                    continue;
+                }
+                int frecuencia = terminos.size() == 1 ? frecuencia(listas.get(0), idHistoria)
+                        : contarFrase(listas, idHistoria);
+                if (frecuencia > 0) {
+                    puntajes.put(idHistoria, acumulado + indice.bm25(idHistoria, frecuencia, idf, longitudPromedio));
+                }
+            }
+            return puntajes;
+        }
+
+        private static int frecuencia(Map<Long, int[]> lista, Long idHistoria) {
+            int[] posiciones = lista.get(idHistoria);
+            return posiciones == null ? 0 : posiciones.length;
+        }
+
+        private int contarFrase(List<Map<Long, int[]>> listas, Long idHistoria) {
+            int[][] posiciones = new int[listas.size()][];
+            for (int i = 0; i < listas.size(); i++) {
+                posiciones[i] = listas.get(i).get(idHistoria);
+                if (posiciones[i] == null) {
+                    return 0;
+                }
+            }
+            int cantidad = 0;
+            for (int inicio : posiciones[0]) {
+                boolean coincide = true;
+                for (int i = 1; i < posiciones.length && coincide; i++) {
+                    coincide = Arrays.binarySearch(posiciones[i], inicio + desplazamientos.get(i)) >= 0;
+                }
+                if (coincide) {
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        }
+    }
+
+    /**
+     * Palabras que empiezan con un prefijo. Cada historia suma el puntaje de su mejor palabra.
+     */
+    private static final class ClausulaPrefijo implements Clausula {
+        private final String prefijo;
+
+        ClausulaPrefijo(String prefijo) {
+            this.prefijo = prefijo;
+        }
+
+        private Iterable<Map<Long, int[]>> expansion(IndiceTextoClinico indice) {
+            SortedMap<String, Map<Long, int[]>> palabras = indice.postings.subMap(prefijo, prefijo + Character.MAX_VALUE);
+            return () -> palabras.values().stream().limit(MAXIMO_EXPANSION_PREFIJO).iterator();
+        }
+
+        @Override
+        public int estimacion(IndiceTextoClinico indice) {
+            long total = 0;
+            for (Map<Long, int[]> lista : expansion(indice)) {
+                total += lista.size();
+            }
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public Map<Long, Double> evaluar(IndiceTextoClinico indice, Map<Long, Double> previo,
+                                         int cantidadDocumentos, double longitudPromedio) {
+            Map<Long, Double> mejores = new HashMap<>();
+            for (Map<Long, int[]> lista : expansion(indice)) {
+                double idf = indice.idf(lista.size(), cantidadDocumentos);
+                if (previo != null && previo.size() < lista.size()) {
+                    for (Long idHistoria : previo.keySet()) {
+                        int[] posiciones = lista.get(idHistoria);
+                        if (posiciones != null) {
+                            mejores.merge(idHistoria, indice.bm25(idHistoria, posiciones.length, idf, longitudPromedio), Math::max);
+                        }
+                    }
+                } else {
+                    for (Map.Entry<Long, int[]> entrada : lista.entrySet()) {
+                        if (previo == null || previo.containsKey(entrada.getKey())) {
+                            mejores.merge(entrada.getKey(),
+                                    indice.bm25(entrada.getKey(), entrada.getValue().length, idf, longitudPromedio), Math::max);
+                        }
+                    }
+                }
+            }
+            if (previo != null) {
+                mejores.replaceAll((idHistoria, puntaje) -> puntaje + previo.get(idHistoria));
+            }
+            return mejores;
+        }
+    }
+
+    /**
+     * Lo que se necesita de cada historia indexada para quitarla y para normalizar su puntaje
+     */
+    private static final class Documento {
+        private final String[] palabras;
+        private final int longitud;
+
+        Documento(String[] palabras, int longitud) {
+            this.palabras = palabras;
+            this.longitud = longitud;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package service;
+
+import config.DatabaseConnection;
+import entities.HistoriaClinica;
+import entities.Paciente;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de pacientes, indexada por ID y por DNI.
+ *
+ * Es opcional y se configura en database.properties:
+ * cache.pacientes.habilitado (false por defecto), cache.pacientes.tamanioMaximo,
+ * cache.pacientes.ttlSegundos
+ *
+ * Desaloja por LRU al superar el tamaño máximo y por TTL al vencer cada entrada.
+ * Guarda y devuelve copias, así las modificaciones que hagan los llamadores
+ * sobre el objeto obtenido no alteran el contenido de la caché.
+ * La comparten todas las instancias de los servicios para que las escrituras
+ * hechas desde cualquiera de ellos invaliden las mismas entradas.
+ */
+public class PacienteCache {
+
+    private static final PacienteCache INSTANCIA = new PacienteCache(
+        DatabaseConnection.getPropiedadBooleana("cache.pacientes.habilitado", false),
+        DatabaseConnection.getPropiedadEntera("cache.pacientes.tamanioMaximo", 1000),
+        DatabaseConnection.getPropiedadEntera("cache.pacientes.ttlSegundos", 60)
+    );
+
+    private final boolean habilitado;
+    private final int tamanioMaximo;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Long, Entrada> porId;
+    private final Map<String, Long> idPorDni = new HashMap<>();
+
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+
+    public PacienteCache(boolean habilitado, int tamanioMaximo, long ttlSegundos) {
+        this.habilitado = habilitado && tamanioMaximo > 0;
+        this.tamanioMaximo = tamanioMaximo;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        // accessOrder = true: el recorrido va del menos al más recientemente usado (LRU)
+        this.porId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> mayor) {
+                if (size() > PacienteCache.this.tamanioMaximo) {
+                    idPorDni.remove(mayor.getValue().paciente.getDni());
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la caché compartida por los servicios
+     */
+    public static PacienteCache getInstancia() {
+        return INSTANCIA;
+    }
+
+    public boolean estaHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Busca un paciente por ID
+     *
+     * @return una copia del paciente, o null si no está en caché o venció
+     */
+    public synchronized Paciente obtenerPorId(Long id) {
+        if (!habilitado || id == null) {
+            return null;
+        }
+        Entrada entrada = porId.get(id);
+        if (entrada == null || entrada.vencida()) {
+            if (entrada != null) {
+                quitar(id);
+            }
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return copiar(entrada.paciente);
+    }
+
+    /**
+     * Busca un paciente por DNI usando el índice secundario
+     *
+     * @return una copia del paciente, o null si no está en caché o venció
+     */
+    public synchronized Paciente obtenerPorDni(String dni) {
+        if (!habilitado || dni == null) {
+            return null;
+        }
+        Long id = idPorDni.get(dni);
+        if (id == null) {
+            fallos++;
+            return null;
+        }
+        return obtenerPorId(id);
+    }
+
+    /**
+     * Guarda (o reemplaza) un paciente en la caché
+     */
+    public synchronized void guardar(Paciente paciente) {
+        if (!habilitado || paciente == null || paciente.getId() == null) {
+            return;
+        }
+        quitar(paciente.getId());
+        Paciente copia = copiar(paciente);
+        porId.put(copia.getId(), new Entrada(copia, System.nanoTime() + ttlNanos));
+        idPorDni.put(copia.getDni(), copia.getId());
+    }
+
+    /**
+     * Invalida la entrada de un paciente (y su DNI en el índice secundario)
+     */
+    public synchronized void invalidar(Long id) {
+        if (habilitado && id != null) {
+            quitar(id);
+        }
+    }
+
+    /**
+     * Vacía la caché
+     */
+    public synchronized void limpiar() {
+        porId.clear();
+        idPorDni.clear();
+    }
+
+    private void quitar(Long id) {
+        Entrada entrada = porId.remove(id);
+        if (entrada != null) {
+            idPorDni.remove(entrada.paciente.getDni(), id);
+        }
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    public synchronized long getDesalojos() {
+        return desalojos;
+    }
+
+    public synchronized int getTamanio() {
+        return porId.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long consultas = aciertos + fallos;
+        return "PacienteCache{" +
+                "habilitado=" + habilitado +
+                ", tamanio=" + porId.size() + "/" + tamanioMaximo +
+                ", aciertos=" + aciertos +
+                ", fallos=" + fallos +
+                ", desalojos=" + desalojos +
+                ", tasaAciertos=" + (consultas == 0 ? "0%" : (aciertos * 100 / consultas) + "%") +
+                '}';
+    }
+
+    /**
+     * Copia profunda de un paciente y su historia clínica
+     */
+    private static Paciente copiar(Paciente original) {
+        Supplier<HistoriaClinica> cargador = original.getCargadorHistoriaClinica();
+        if (cargador != null) {
+            // Carga diferida pendiente: la copia comparte el cargador (que lee una sola vez)
+            // y recibe su propia copia de la historia
+            Paciente copia = new Paciente(original.getId(), original.isEliminado(), original.getApellido(),
+                original.getNombre(), original.getDni(), original.getFechaNacimiento(), null);
+            copia.setVersion(original.getVersion());
+            copia.setCargadorHistoriaClinica(() -> copiar(cargador.get()));
+            return copia;
+        }
+        Paciente copia = new Paciente(original.getId(), original.isEliminado(), original.getApellido(),
+            original.getNombre(), original.getDni(), original.getFechaNacimiento(),
+            copiar(original.getHistoriaClinica()));
+        // La versión se conserva para el control de concurrencia optimista de actualizar()
+        copia.setVersion(original.getVersion());
+        return copia;
+    }
+
+    private static HistoriaClinica copiar(HistoriaClinica hc) {
+        if (hc == null) {
+            return null;
+        }
+        HistoriaClinica copia = new HistoriaClinica(hc.getId(), hc.isEliminado(), hc.getNroHistoria(),
+            hc.getGrupoSanguineo(), hc.getAntecedentes(), hc.getMedicacionActual(),
+            hc.getObservaciones(), hc.getIdPaciente());
+        copia.setVersion(hc.getVersion());
+        return copia;
+    }
+
+    private static class Entrada {
+        private final Paciente paciente;
+        private final long venceEn;
+
+        Entrada(Paciente paciente, long venceEn) {
+            this.paciente = paciente;
+            this.venceEn = venceEn;
+        }
+
+        boolean vencida() {
+            return System.nanoTime() - venceEn > 0;
+        }
+    }
+}
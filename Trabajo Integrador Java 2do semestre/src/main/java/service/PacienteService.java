@@ -1,18 +1,33 @@
 package service;
 
 import config.DatabaseConnection;
+import config.PlantillaTransaccion;
 import dao.HistoriaClinicaDao;
+import dao.Pagina;
 import dao.PacienteDao;
 import entities.HistoriaClinica;
 import entities.Paciente;
+import entities.PacienteResumen;
+import enums.EstrategiaCarga;
+import exceptions.ConflictoConcurrenciaException;
 import exceptions.DatabaseException;
 import exceptions.ValidacionException;
 import util.Validador;
 
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Servicio para gestionar operaciones de Paciente
@@ -22,17 +37,38 @@ public class PacienteService implements GenericService<Paciente> {
 
     private final PacienteDao pacienteDao;
     private final HistoriaClinicaDao historiaClinicaDao;
+    private final PacienteCache cache;
+    private final IndiceTextoClinico indiceTexto;
+    private final IndiceNombresPacientes indiceNombres;
 
+    /**
+     * Servicio con la estrategia de carga de pacientes.cargaHistorias (ANTICIPADA por defecto)
+     */
     public PacienteService() {
-        this.pacienteDao = new PacienteDao();
+        this(EstrategiaCarga.valueOf(DatabaseConnection.getPropiedad("pacientes.cargaHistorias", "ANTICIPADA")
+            .trim().toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * @param estrategia cómo se leen las historias clínicas de los pacientes consultados;
+     *                   con DIFERIDA se leen en el primer getHistoriaClinica()
+     */
+    public PacienteService(EstrategiaCarga estrategia) {
+        this.pacienteDao = new PacienteDao(estrategia);
         this.historiaClinicaDao = new HistoriaClinicaDao();
+        this.cache = PacienteCache.getInstancia();
+        this.indiceTexto = IndiceTextoClinico.getInstancia();
+        this.indiceNombres = IndiceNombresPacientes.getInstancia();
     }
 
     public Paciente insertar(Paciente entidad) {
         validar(entidad);
-        validarDniUnico(entidad.getDni(), null);
+        // El DNI duplicado lo detecta el índice UNIQUE en el mismo INSERT (ValidacionException del DAO)
         try { // <-- AÑADIR try
-        return pacienteDao.crear(entidad);
+        Paciente creado = pacienteDao.crear(entidad);
+        cache.guardar(creado);
+        indiceNombres.indexar(creado);
+        return creado;
     } catch (DatabaseException e) { // <-- CAPTURAR errores del DAO
         // Se lanza la excepción para que el menú la muestre claramente
         throw new DatabaseException("Error al guardar el paciente: " + e.getMessage(), e); 
@@ -41,68 +77,69 @@ public class PacienteService implements GenericService<Paciente> {
         
     
 
+    /**
+     * Inserta varios pacientes en una única transacción usando inserciones por lotes.
+     * Si algún paciente no es válido o su DNI ya existe, no se inserta ninguno.
+     */
+    public List<Paciente> insertarEnLote(List<Paciente> pacientes) {
+        Validador.validarNoNulo(pacientes, "Pacientes");
+
+        Set<String> dnis = new HashSet<>();
+        for (Paciente paciente : pacientes) {
+            validar(paciente);
+            if (!dnis.add(paciente.getDni())) {
+                throw new ValidacionException("DNI repetido en el lote: " + paciente.getDni());
+            }
+        }
+
+        if (pacientes.isEmpty()) {
+            return pacientes;
+        }
+        // La unicidad contra la base la garantiza el índice UNIQUE de paciente.dni
+        List<Paciente> creados = pacienteDao.crearEnLote(pacientes);
+        creados.forEach(indiceNombres::indexar);
+        return creados;
+    }
+
     /**
      * Crea un paciente junto con su historia clínica en una transacción
      * Esto garantiza que ambas operaciones se completen o ninguna
      */
     public Paciente crearConHistoriaClinica(Paciente paciente, HistoriaClinica historiaClinica) {
         validar(paciente);
-        validarDniUnico(paciente.getDni(), null);
         
         // Validar historia clínica
         if (historiaClinica == null) {
             throw new ValidacionException("La historia clínica no puede ser nula");
         }
         validarHistoriaClinica(historiaClinica);
-        validarNroHistoriaUnico(historiaClinica.getNroHistoria(), null);
+        // DNI y número de historia duplicados los rechazan los índices UNIQUE dentro de la transacción
 
-        Connection conexion = null;
-        
+        Paciente pacienteCreado;
         try {
-            // Obtener conexión y comenzar transacción
-            conexion = DatabaseConnection.getConnection();
-            conexion.setAutoCommit(false);
-
-            // 1. Crear el paciente
-            Paciente pacienteCreado = pacienteDao.crear(conexion, paciente);
-
-            // 2. Asociar la historia clínica al paciente
-            historiaClinica.setIdPaciente(pacienteCreado.getId());
+            pacienteCreado = PlantillaTransaccion.ejecutar("paciente.crearConHistoriaClinica", conexion -> {
+                // 1. Crear el paciente
+                Paciente creado = pacienteDao.crear(conexion, paciente);
 
-            // 3. Crear la historia clínica
-            HistoriaClinica hcCreada = historiaClinicaDao.crear(conexion, historiaClinica);
+                // 2. Asociar la historia clínica al paciente
+                historiaClinica.setIdPaciente(creado.getId());
 
-            // 4. Asociar la HC al paciente
-            pacienteCreado.setHistoriaClinica(hcCreada);
+                // 3. Crear la historia clínica
+                HistoriaClinica hcCreada = historiaClinicaDao.crear(conexion, historiaClinica);
 
-            // Commit de la transacción
-            conexion.commit();
-
-            return pacienteCreado;
-
-        } catch (Exception e) {
-            // Rollback en caso de error
-            if (conexion != null) {
-                try {
-                    conexion.rollback();
-                    System.err.println("Transacción revertida debido a error: " + e.getMessage());
-                } catch (SQLException ex) {
-                    System.err.println("Error al hacer rollback: " + ex.getMessage());
-                }
-            }
+                // 4. Asociar la HC al paciente
+                creado.setHistoriaClinica(hcCreada);
+                return creado;
+            });
+        } catch (DatabaseException e) {
             throw new DatabaseException("Error al crear paciente con historia clínica: " + e.getMessage(), e);
-            
-        } finally {
-            // Restablecer autoCommit y cerrar conexión
-            if (conexion != null) {
-                try {
-                    conexion.setAutoCommit(true);
-                    conexion.close();
-                } catch (SQLException e) {
-                    System.err.println("Error al cerrar la conexión: " + e.getMessage());
-                }
-            }
         }
+
+        // Solo después del commit
+        cache.guardar(pacienteCreado);
+        indiceNombres.indexar(pacienteCreado);
+        indiceTexto.indexar(pacienteCreado.getHistoriaClinica());
+        return pacienteCreado;
     }
 
     /**
@@ -112,64 +149,47 @@ public class PacienteService implements GenericService<Paciente> {
         Validador.validarNoNulo(idPaciente, "ID del paciente");
         Validador.validarNoNulo(idHistoriaClinica, "ID de la historia clínica");
 
-        Connection conexion = null;
-
         try {
-            conexion = DatabaseConnection.getConnection();
-            conexion.setAutoCommit(false);
-
-            // Verificar que el paciente existe
-            Optional<Paciente> paciente = pacienteDao.leer(conexion, idPaciente);
-            if (paciente.isEmpty()) {
-                throw new ValidacionException("No existe un paciente con ID: " + idPaciente);
-            }
-
-            // Verificar que la historia clínica existe
-            Optional<HistoriaClinica> hc = historiaClinicaDao.leer(conexion, idHistoriaClinica);
-            if (hc.isEmpty()) {
-                throw new ValidacionException("No existe una historia clínica con ID: " + idHistoriaClinica);
-            }
-
-            // Verificar que el paciente no tenga ya una historia clínica
-            if (paciente.get().getHistoriaClinica() != null) {
-                throw new ValidacionException(
-                    "El paciente ya tiene una historia clínica asociada (relación 1->1)"
-                );
-            }
+            PlantillaTransaccion.ejecutar("paciente.asociarHistoriaClinica", conexion -> {
+                // Verificar que el paciente existe
+                Optional<Paciente> paciente = pacienteDao.leer(conexion, idPaciente);
+                if (paciente.isEmpty()) {
+                    throw new ValidacionException("No existe un paciente con ID: " + idPaciente);
+                }
 
-            // Verificar que la historia clínica no esté asociada a otro paciente
-            if (hc.get().getIdPaciente() != null) {
-                throw new ValidacionException(
-                    "La historia clínica ya está asociada a otro paciente (relación 1->1)"
-                );
-            }
+                // Verificar que la historia clínica existe
+                Optional<HistoriaClinica> hc = historiaClinicaDao.leer(conexion, idHistoriaClinica);
+                if (hc.isEmpty()) {
+                    throw new ValidacionException("No existe una historia clínica con ID: " + idHistoriaClinica);
+                }
 
-            // Actualizar la asociación
-            HistoriaClinica historiaActualizada = hc.get();
-            historiaActualizada.setIdPaciente(idPaciente);
-            historiaClinicaDao.actualizar(conexion, historiaActualizada);
+                // Verificar que el paciente no tenga ya una historia clínica
+                if (paciente.get().getHistoriaClinica() != null) {
+                    throw new ValidacionException(
+                        "El paciente ya tiene una historia clínica asociada (relación 1->1)"
+                    );
+                }
 
-            conexion.commit();
+                // Verificar que la historia clínica no esté asociada a otro paciente
+                if (hc.get().getIdPaciente() != null) {
+                    throw new ValidacionException(
+                        "La historia clínica ya está asociada a otro paciente (relación 1->1)"
+                    );
+                }
 
-        } catch (Exception e) {
-            if (conexion != null) {
-                try {
-                    conexion.rollback();
-                } catch (SQLException ex) {
-                    System.err.println("Error al hacer rollback: " + ex.getMessage());
+                // Actualizar la asociación
+                HistoriaClinica historiaActualizada = hc.get();
+                historiaActualizada.setIdPaciente(idPaciente);
+                if (!historiaClinicaDao.actualizar(conexion, historiaActualizada)) {
+                    throw new ConflictoConcurrenciaException("La historia clínica con ID " + idHistoriaClinica
+                            + " fue modificada por otra operación. Intente de nuevo");
                 }
-            }
+                return null;
+            });
+        } catch (DatabaseException e) {
             throw new DatabaseException("Error al asociar historia clínica: " + e.getMessage(), e);
-
         } finally {
-            if (conexion != null) {
-                try {
-                    conexion.setAutoCommit(true);
-                    conexion.close();
-                } catch (SQLException e) {
-                    System.err.println("Error al cerrar la conexión: " + e.getMessage());
-                }
-            }
+            cache.invalidar(idPaciente);
         }
     }
 
@@ -179,82 +199,137 @@ public class PacienteService implements GenericService<Paciente> {
         Validador.validarNoNulo(entidad.getId(), "ID");
 
         // Verificar que existe
-        Optional<Paciente> existente = pacienteDao.leer(entidad.getId());
+        Optional<Paciente> existente = leerConCache(entidad.getId());
         if (existente.isEmpty()) {
             throw new ValidacionException("No existe un paciente con ID: " + entidad.getId());
         }
 
-        // Validar que el DNI sea único (excepto para el mismo registro)
-        validarDniUnico(entidad.getDni(), entidad.getId());
+        // Sin versión (por ejemplo, un cliente que no la envía) se toma la leída recién
+        if (entidad.getVersion() == null) {
+            entidad.setVersion(existente.get().getVersion());
+        }
+
+        // Un DNI que ya usa otro paciente lo rechaza el índice UNIQUE en el UPDATE
 
-        boolean actualizado = pacienteDao.actualizar(entidad);
+        boolean actualizado;
+        try {
+            actualizado = pacienteDao.actualizar(entidad);
+        } finally {
+            cache.invalidar(entidad.getId());
+        }
         if (!actualizado) {
-            throw new ValidacionException("No se pudo actualizar el paciente");
+            throw new ConflictoConcurrenciaException("El paciente con ID " + entidad.getId()
+                    + " fue modificado o eliminado por otra operación. Vuelva a leerlo e intente de nuevo");
         }
+        indiceNombres.indexar(entidad);
 
         return entidad;
     }
 
+    /**
+     * Lee el paciente, le aplica los cambios y lo actualiza. Si otra operación lo modificó
+     * en el medio, vuelve a leerlo y reaplica los cambios (hasta ReintentoOptimista.INTENTOS_POR_DEFECTO veces).
+     *
+     * @param cambios modificaciones a aplicar sobre la versión más reciente del paciente
+     */
+    public Paciente actualizarConReintento(Long id, Consumer<Paciente> cambios) {
+        Validador.validarNoNulo(id, "ID");
+        return ReintentoOptimista.ejecutar(() -> {
+            // Se lee de la base y no de la caché, para partir siempre de la última versión
+            Paciente paciente = pacienteDao.leer(id)
+                    .orElseThrow(() -> new ValidacionException("No existe un paciente con ID: " + id));
+            cambios.accept(paciente);
+            return actualizar(paciente);
+        });
+    }
+
     @Override
     public void eliminar(Long id) {
         Validador.validarNoNulo(id, "ID");
 
-        Optional<Paciente> existente = pacienteDao.leer(id);
-        if (existente.isEmpty()) {
-            throw new ValidacionException("No existe un paciente con ID: " + id);
-        }
-
-        Connection conexion = null;
-
         try {
-            conexion = DatabaseConnection.getConnection();
-            conexion.setAutoCommit(false);
-
-            // Eliminar el paciente (baja lógica)
-            boolean eliminado = pacienteDao.eliminar(conexion, id);
-            if (!eliminado) {
-                throw new ValidacionException("No se pudo eliminar el paciente");
-            }
-
-            // Si tiene historia clínica, también eliminarla (baja lógica)
-            if (existente.get().getHistoriaClinica() != null) {
-                Long idHc = existente.get().getHistoriaClinica().getId();
-                historiaClinicaDao.eliminar(conexion, idHc);
-            }
+            // Las lecturas y las bajas en la misma transacción: la historia a eliminar se busca en
+            // el primario y no sale de la caché ni de la carga diferida del paciente
+            Long idHistoria = PlantillaTransaccion.ejecutar("paciente.eliminar", conexion -> {
+                if (pacienteDao.leer(conexion, id).isEmpty()) {
+                    throw new ValidacionException("No existe un paciente con ID: " + id);
+                }
+                Optional<HistoriaClinica> historia = historiaClinicaDao.buscarPorIdPaciente(id);
 
-            conexion.commit();
+                // Eliminar el paciente (baja lógica)
+                boolean eliminado = pacienteDao.eliminar(conexion, id);
+                if (!eliminado) {
+                    throw new ValidacionException("No se pudo eliminar el paciente");
+                }
 
-        } catch (Exception e) {
-            if (conexion != null) {
-                try {
-                    conexion.rollback();
-                } catch (SQLException ex) {
-                    System.err.println("Error al hacer rollback: " + ex.getMessage());
+                // Si tiene historia clínica, también eliminarla (baja lógica)
+                if (historia.isPresent()) {
+                    historiaClinicaDao.eliminar(conexion, historia.get().getId());
+                    return historia.get().getId();
                 }
+                return null;
+            });
+            indiceNombres.quitar(id);
+            if (idHistoria != null) {
+                indiceTexto.quitar(idHistoria);
             }
+        } catch (DatabaseException e) {
             throw new DatabaseException("Error al eliminar paciente: " + e.getMessage(), e);
-
         } finally {
-            if (conexion != null) {
-                try {
-                    conexion.setAutoCommit(true);
-                    conexion.close();
-                } catch (SQLException e) {
-                    System.err.println("Error al cerrar la conexión: " + e.getMessage());
-                }
-            }
+            cache.invalidar(id);
         }
     }
 
     @Override
     public Optional<Paciente> obtenerPorId(Long id) {
         Validador.validarNoNulo(id, "ID");
-        return pacienteDao.leer(id);
+        return DatabaseConnection.leerDeReplica(() -> leerConCache(id));
+    }
+
+    /**
+     * Obtiene varios pacientes por ID: los que están en la caché no se vuelven a leer y el
+     * resto se lee con consultas "id IN (...)" en bloques
+     */
+    @Override
+    public Map<Long, Paciente> obtenerPorIds(Collection<Long> ids) {
+        Validador.validarNoNulo(ids, "IDs");
+        for (Long id : ids) {
+            Validador.validarNoNulo(id, "ID");
+        }
+        return DatabaseConnection.leerDeReplica(
+            () -> leerVariosConCache(ids, cache::obtenerPorId, pacienteDao::leerPorIds));
     }
 
     @Override
     public List<Paciente> obtenerTodos() {
-        return pacienteDao.leerTodos();
+        return DatabaseConnection.leerDeReplica(pacienteDao::leerTodos);
+    }
+
+    @Override
+    public Pagina<Paciente> obtenerPagina(Long despuesDeId, int tamanio) {
+        Validador.validarPositivo(tamanio, "Tamaño de página");
+        return DatabaseConnection.leerDeReplica(() -> pacienteDao.leerPagina(despuesDeId, tamanio));
+    }
+
+    /**
+     * Página de pacientes activos para listados: solo los datos del paciente y el número de
+     * su historia clínica, sin leer los textos de la historia
+     */
+    public Pagina<PacienteResumen> obtenerPaginaResumen(Long despuesDeId, int tamanio) {
+        Validador.validarPositivo(tamanio, "Tamaño de página");
+        return DatabaseConnection.leerDeReplica(() -> pacienteDao.leerPaginaResumen(despuesDeId, tamanio));
+    }
+
+    /**
+     * Todos los pacientes activos en su versión resumida (ver obtenerPaginaResumen)
+     */
+    public List<PacienteResumen> obtenerTodosResumen() {
+        return DatabaseConnection.leerDeReplica(pacienteDao::leerTodosResumen);
+    }
+
+    @Override
+    public Stream<Paciente> obtenerTodosStream() {
+        return DatabaseConnection.leerDeReplica(pacienteDao::leerTodosStream);
     }
 
     /**
@@ -262,13 +337,123 @@ public class PacienteService implements GenericService<Paciente> {
      */
     public Optional<Paciente> buscarPorDni(String dni) {
         Validador.validarDni(dni);
-        return pacienteDao.buscarPorDni(dni);
+        return DatabaseConnection.leerDeReplica(() -> buscarPorDniConCache(dni));
+    }
+
+    /**
+     * Busca varios pacientes por DNI (por ejemplo, para conciliar resultados de laboratorio)
+     * con consultas "dni IN (...)" en bloques, pasando primero por la caché
+     *
+     * @return los pacientes encontrados por DNI, en el orden de los DNI; los que no existen no aparecen
+     */
+    public Map<String, Paciente> buscarPorDnis(Collection<String> dnis) {
+        Validador.validarNoNulo(dnis, "DNIs");
+        for (String dni : dnis) {
+            Validador.validarDni(dni);
+        }
+        return DatabaseConnection.leerDeReplica(
+            () -> leerVariosConCache(dnis, cache::obtenerPorDni, pacienteDao::buscarPorDnis));
+    }
+
+    /**
+     * Busca pacientes por apellido y/o nombre para el autocompletado: cada palabra de la consulta
+     * es un prefijo, sin distinguir mayúsculas ni acentos y tolerando un error de tipeo en las de
+     * 4 o más letras (ver IndiceNombresPacientes). La primera búsqueda arma el índice.
+     *
+     * @param desde cantidad de resultados a saltear (paginado)
+     * @param tamanio cantidad máxima de resultados
+     */
+    public List<IndiceNombresPacientes.Coincidencia> buscarPorNombre(String consulta, int desde, int tamanio) {
+        Validador.validarNoVacio(consulta, "Consulta");
+        Validador.validarPositivo(tamanio, "Tamaño de página");
+        if (desde < 0) {
+            throw new ValidacionException("El desplazamiento no puede ser negativo");
+        }
+        // Del primario: con la réplica atrasada el índice quedaría armado sin las últimas altas
+        indiceNombres.asegurarConstruido(pacienteDao::leerNombresStream);
+        return indiceNombres.buscar(consulta, desde, tamanio);
+    }
+
+    /**
+     * Estadísticas de la caché de pacientes (aciertos, fallos, tamaño)
+     */
+    public PacienteCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Lee un paciente por ID pasando primero por la caché. Lo leído de una réplica no se guarda:
+     * podría devolver una versión anterior a la última escritura a todas las sesiones hasta que venza.
+     */
+    private Optional<Paciente> leerConCache(Long id) {
+        Paciente enCache = cache.obtenerPorId(id);
+        if (enCache != null) {
+            return Optional.of(enCache);
+        }
+        boolean guardar = !DatabaseConnection.puedeLeerDeReplica();
+        Optional<Paciente> leido = pacienteDao.leer(id);
+        if (guardar) {
+            leido.ifPresent(cache::guardar);
+        }
+        return leido;
+    }
+
+    /**
+     * Busca un paciente por DNI pasando primero por la caché (lo leído de una réplica no se guarda)
+     */
+    private Optional<Paciente> buscarPorDniConCache(String dni) {
+        Paciente enCache = cache.obtenerPorDni(dni);
+        if (enCache != null) {
+            return Optional.of(enCache);
+        }
+        boolean guardar = !DatabaseConnection.puedeLeerDeReplica();
+        Optional<Paciente> leido = pacienteDao.buscarPorDni(dni);
+        if (guardar) {
+            leido.ifPresent(cache::guardar);
+        }
+        return leido;
+    }
+
+    /**
+     * Lee varios pacientes por clave (ID o DNI): toma de la caché los que están y lee el resto
+     * con una sola llamada al DAO (lo leído de una réplica no se guarda)
+     */
+    private <K> Map<K, Paciente> leerVariosConCache(Collection<K> claves, Function<K, Paciente> desdeCache,
+                                                     Function<Collection<K>, Map<K, Paciente>> lectura) {
+        Map<K, Paciente> encontrados = new HashMap<>();
+        List<K> faltantes = new ArrayList<>();
+        for (K clave : new LinkedHashSet<>(claves)) {
+            Paciente enCache = desdeCache.apply(clave);
+            if (enCache != null) {
+                encontrados.put(clave, enCache);
+            } else {
+                faltantes.add(clave);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            boolean guardar = !DatabaseConnection.puedeLeerDeReplica();
+            Map<K, Paciente> leidos = lectura.apply(faltantes);
+            if (guardar) {
+                leidos.values().forEach(cache::guardar);
+            }
+            encontrados.putAll(leidos);
+        }
+
+        Map<K, Paciente> resultado = new LinkedHashMap<>();
+        for (K clave : claves) {
+            Paciente paciente = encontrados.get(clave);
+            if (paciente != null) {
+                resultado.put(clave, paciente);
+            }
+        }
+        return resultado;
     }
 
     /**
-     * Valida los datos de un paciente
+     * Valida los datos de un paciente.
+     * Visibilidad de paquete para reutilizar las reglas desde ImportacionService.
      */
-    private void validar(Paciente paciente) {
+    void validar(Paciente paciente) {
         if (paciente == null) {
             throw new ValidacionException("El paciente no puede ser nulo");
         }
@@ -292,7 +477,7 @@ public class PacienteService implements GenericService<Paciente> {
     /**
      * Valida los datos de una historia clínica
      */
-    private void validarHistoriaClinica(HistoriaClinica hc) {
+    void validarHistoriaClinica(HistoriaClinica hc) {
         Validador.validarNoVacio(hc.getNroHistoria(), "Número de historia");
         Validador.validarNoNulo(hc.getGrupoSanguineo(), "Grupo sanguíneo");
         Validador.validarNoVacio(hc.getAntecedentes(), "Antecedentes");
@@ -301,32 +486,4 @@ public class PacienteService implements GenericService<Paciente> {
         Validador.validarLongitudMaxima(hc.getNroHistoria(), 20, "Número de historia");
         Validador.validarLongitudMaxima(hc.getMedicacionActual(), 255, "Medicación actual");
     }
-
-    /**
-     * Valida que el DNI sea único
-     */
-    private void validarDniUnico(String dni, Long idExcluir) {
-        Optional<Paciente> existente = pacienteDao.buscarPorDni(dni);
-
-        if (existente.isPresent()) {
-            // Si estamos actualizando, verificar que no sea el mismo registro
-            if (idExcluir == null || !existente.get().getId().equals(idExcluir)) {
-                throw new ValidacionException("Ya existe un paciente con DNI: " + dni);
-            }
-        }
-    }
-
-    /**
-     * Valida que el número de historia sea único
-     */
-    private void validarNroHistoriaUnico(String nroHistoria, Long idExcluir) {
-        Optional<HistoriaClinica> existente = historiaClinicaDao.buscarPorNroHistoria(nroHistoria);
-
-        if (existente.isPresent()) {
-            if (idExcluir == null || !existente.get().getId().equals(idExcluir)) {
-                throw new ValidacionException("Ya existe una historia clínica con el número: " + nroHistoria);
-            }
-        }
-    }
 }
-
@@ -0,0 +1,84 @@
+package service;
+
+import dao.Pagina;
+import entities.HistoriaClinica;
+import entities.Paciente;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asincrónica de PacienteService.
+ * Delega cada operación en el servicio bloqueante y la ejecuta en el EjecutorAsincrono.
+ */
+public class PacienteServiceAsync implements AsyncGenericService<Paciente> {
+
+    private final PacienteService servicio;
+    private final EjecutorAsincrono ejecutor;
+
+    public PacienteServiceAsync() {
+        this(new PacienteService(), EjecutorAsincrono.global());
+    }
+
+    public PacienteServiceAsync(PacienteService servicio, EjecutorAsincrono ejecutor) {
+        this.servicio = servicio;
+        this.ejecutor = ejecutor;
+    }
+
+    @Override
+    public CompletableFuture<Paciente> insertarAsync(Paciente entidad) {
+        return ejecutor.ejecutar(() -> servicio.insertar(entidad));
+    }
+
+    @Override
+    public CompletableFuture<Paciente> actualizarAsync(Paciente entidad) {
+        return ejecutor.ejecutar(() -> servicio.actualizar(entidad));
+    }
+
+    @Override
+    public CompletableFuture<Void> eliminarAsync(Long id) {
+        return ejecutor.ejecutarSinResultado(() -> servicio.eliminar(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Paciente>> obtenerPorIdAsync(Long id) {
+        return ejecutor.ejecutar(() -> servicio.obtenerPorId(id));
+    }
+
+    @Override
+    public CompletableFuture<List<Paciente>> obtenerTodosAsync() {
+        return ejecutor.ejecutar(servicio::obtenerTodos);
+    }
+
+    @Override
+    public CompletableFuture<Pagina<Paciente>> obtenerPaginaAsync(Long despuesDeId, int tamanio) {
+        return ejecutor.ejecutar(() -> servicio.obtenerPagina(despuesDeId, tamanio));
+    }
+
+    /**
+     * Busca un paciente por su DNI
+     */
+    public CompletableFuture<Optional<Paciente>> buscarPorDniAsync(String dni) {
+        return ejecutor.ejecutar(() -> servicio.buscarPorDni(dni));
+    }
+
+    /**
+     * Crea un paciente junto con su historia clínica en una transacción
+     */
+    public CompletableFuture<Paciente> crearConHistoriaClinicaAsync(Paciente paciente, HistoriaClinica historiaClinica) {
+        return ejecutor.ejecutar(() -> servicio.crearConHistoriaClinica(paciente, historiaClinica));
+    }
+
+    /**
+     * Busca varios pacientes por ID con PacienteService.obtenerPorIds (consultas "id IN (...)").
+     * La lista resultante conserva el orden de los IDs; los que no existen y los repetidos se omiten.
+     */
+    public CompletableFuture<List<Paciente>> obtenerPorIdsAsync(List<Long> ids) {
+        return ejecutor.ejecutar(() -> List.copyOf(servicio.obtenerPorIds(ids).values()));
+    }
+
+    public PacienteService getServicio() {
+        return servicio;
+    }
+}
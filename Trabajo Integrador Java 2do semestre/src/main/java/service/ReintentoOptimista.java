@@ -0,0 +1,57 @@
+package service;
+
+import exceptions.ConflictoConcurrenciaException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reintenta operaciones de lectura-modificación-escritura que fallan por un conflicto
+ * de concurrencia optimista. Cada intento debe volver a leer el registro, así aplica
+ * sus cambios sobre la versión más reciente.
+ */
+public final class ReintentoOptimista {
+
+    public static final int INTENTOS_POR_DEFECTO = 3;
+
+    // Espera base entre intentos; se duplica en cada intento y se le suma un valor aleatorio
+    private static final long ESPERA_BASE_MS = 5;
+
+    private ReintentoOptimista() {
+    }
+
+    public static <T> T ejecutar(Supplier<T> operacion) {
+        return ejecutar(INTENTOS_POR_DEFECTO, operacion);
+    }
+
+    /**
+     * Ejecuta la operación y la repite mientras lance ConflictoConcurrenciaException,
+     * hasta maxIntentos veces. Si el último intento también choca, se propaga el conflicto.
+     */
+    public static <T> T ejecutar(int maxIntentos, Supplier<T> operacion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.get();
+            } catch (ConflictoConcurrenciaException e) {
+                if (intento >= maxIntentos) {
+                    throw e;
+                }
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Espera exponencial con variación aleatoria, para que dos editores que chocaron
+     * no vuelvan a chocar en el reintento
+     */
+    private static void esperar(int intento) {
+        long base = ESPERA_BASE_MS << (intento - 1);
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictoConcurrenciaException("Reintento interrumpido", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package service;
+
+/**
+ * Resumen de una exportación
+ */
+public class ResultadoExportacion {
+    private final long filasExportadas;
+    private final long bytesEscritos;
+    private final long duracionMs;
+
+    public ResultadoExportacion(long filasExportadas, long bytesEscritos, long duracionMs) {
+        this.filasExportadas = filasExportadas;
+        this.bytesEscritos = bytesEscritos;
+        this.duracionMs = duracionMs;
+    }
+
+    public long getFilasExportadas() {
+        return filasExportadas;
+    }
+
+    /**
+     * Tamaño final del archivo (comprimido si se usó gzip)
+     */
+    public long getBytesEscritos() {
+        return bytesEscritos;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public double getFilasPorSegundo() {
+        return duracionMs == 0 ? 0 : filasExportadas * 1000.0 / duracionMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoExportacion{" +
+                "filas=" + filasExportadas +
+                ", bytes=" + bytesEscritos +
+                ", duracionMs=" + duracionMs +
+                ", filasPorSegundo=" + String.format("%.0f", getFilasPorSegundo()) +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package service;
+
+/**
+ * Resumen de una importación masiva
+ */
+public class ResultadoImportacion {
+    private final long filasLeidas;
+    private final long filasInsertadas;
+    private final long filasRechazadas;
+    private final long duracionMs;
+
+    public ResultadoImportacion(long filasLeidas, long filasInsertadas, long filasRechazadas, long duracionMs) {
+        this.filasLeidas = filasLeidas;
+        this.filasInsertadas = filasInsertadas;
+        this.filasRechazadas = filasRechazadas;
+        this.duracionMs = duracionMs;
+    }
+
+    public long getFilasLeidas() {
+        return filasLeidas;
+    }
+
+    public long getFilasInsertadas() {
+        return filasInsertadas;
+    }
+
+    public long getFilasRechazadas() {
+        return filasRechazadas;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    /**
+     * Filas procesadas (insertadas o rechazadas) por segundo
+     */
+    public double getFilasPorSegundo() {
+        return duracionMs == 0 ? 0 : filasLeidas * 1000.0 / duracionMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoImportacion{" +
+                "leidas=" + filasLeidas +
+                ", insertadas=" + filasInsertadas +
+                ", rechazadas=" + filasRechazadas +
+                ", duracionMs=" + duracionMs +
+                ", filasPorSegundo=" + String.format("%.0f", getFilasPorSegundo()) +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Archivo de log que se escribe en un hilo aparte.
+ *
+ * registrar() nunca bloquea al llamador: los registros se encolan en un buffer circular
+ * de capacidad fija y, si el escritor no da abasto, se descarta el registro más viejo.
+ * El formateo a texto también se hace en el hilo escritor.
+ *
+ * @param <T> el tipo de registro
+ */
+public class BitacoraAsincrona<T> implements AutoCloseable {
+
+    private final ArrayBlockingQueue<T> pendientes;
+    private final Function<T, String> formato;
+    private final BufferedWriter salida;
+    private final Thread escritor;
+    private final AtomicLong descartados = new AtomicLong();
+    private volatile boolean abierta = true;
+
+    /**
+     * Abre (o crea) el archivo en modo append e inicia el hilo escritor
+     *
+     * @param capacidad cantidad máxima de registros pendientes de escribir
+     * @param formato convierte cada registro en una línea (sin salto de línea)
+     */
+    public BitacoraAsincrona(Path archivo, int capacidad, Function<T, String> formato) throws IOException {
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if (carpeta != null) {
+            Files.createDirectories(carpeta);
+        }
+        this.pendientes = new ArrayBlockingQueue<>(Math.max(1, capacidad));
+        this.formato = formato;
+        this.salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        this.escritor = new Thread(this::escribir, "bitacora-" + archivo.getFileName());
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Encola un registro; si el buffer está lleno descarta el más viejo
+     */
+    public void registrar(T registro) {
+        if (!abierta) {
+            return;
+        }
+        while (!pendientes.offer(registro)) {
+            if (pendientes.poll() != null) {
+                descartados.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Registros perdidos por buffer lleno desde que se abrió la bitácora
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    private void escribir() {
+        try {
+            while (abierta || !pendientes.isEmpty()) {
+                T registro = pendientes.poll(200, TimeUnit.MILLISECONDS);
+                if (registro == null) {
+                    continue;
+                }
+                escribirLinea(registro);
+                // Se escribe todo lo acumulado y recién entonces se hace flush
+                while ((registro = pendientes.poll()) != null) {
+                    escribirLinea(registro);
+                }
+                salida.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            abierta = false;
+            System.err.println("[BITACORA] Error al escribir, se deja de registrar: " + e.getMessage());
+        } finally {
+            try {
+                salida.close();
+            } catch (IOException e) {
+                System.err.println("[BITACORA] Error al cerrar el archivo: " + e.getMessage());
+            }
+        }
+    }
+
+    private void escribirLinea(T registro) throws IOException {
+        salida.write(formato.apply(registro));
+        salida.newLine();
+    }
+
+    /**
+     * Deja de aceptar registros y espera a que se escriban los pendientes
+     */
+    @Override
+    public void close() {
+        abierta = false;
+        try {
+            escritor.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura y escritura de líneas CSV (RFC 4180) sin dependencias externas.
+ *
+ * Soporta campos entre comillas con separadores y comillas duplicadas ("").
+ * No soporta saltos de línea dentro de un campo: cada registro ocupa una línea.
+ */
+public class Csv {
+
+    public static final char SEPARADOR = ',';
+
+    private Csv() {
+    }
+
+    /**
+     * Separa una línea CSV en sus campos
+     *
+     * @throws IllegalArgumentException si una comilla queda sin cerrar
+     */
+    public static List<String> parsearLinea(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == SEPARADOR) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comilla sin cerrar en la línea CSV");
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /**
+     * Agrega un campo al buffer, entre comillas solo si hace falta
+     */
+    public static void escribirCampo(StringBuilder destino, String valor) {
+        if (valor == null) {
+            return;
+        }
+        boolean requiereComillas = false;
+        for (int i = 0; i < valor.length() && !requiereComillas; i++) {
+            char c = valor.charAt(i);
+            requiereComillas = c == SEPARADOR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!requiereComillas) {
+            destino.append(valor);
+            return;
+        }
+        destino.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                destino.append("\"\"");
+            } else if (c == '\n' || c == '\r') {
+                // Un registro por línea: los saltos se reemplazan por espacios
+                destino.append(' ');
+            } else {
+                destino.append(c);
+            }
+        }
+        destino.append('"');
+    }
+
+    /**
+     * Arma una línea CSV (sin salto de línea final) con los valores dados
+     */
+    public static String unirLinea(String... valores) {
+        StringBuilder linea = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                linea.append(SEPARADOR);
+            }
+            escribirCampo(linea, valores[i]);
+        }
+        return linea.toString();
+    }
+}
@@ -0,0 +1,296 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura mínima de JSON sin dependencias externas.
+ *
+ * parsear() devuelve Map (objetos), List (arreglos), String, Long/Double (números),
+ * Boolean o null. Alcanza para JSON-lines y para los cuerpos de la API HTTP.
+ */
+public class Json {
+
+    private final String texto;
+    private int pos;
+
+    private Json(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Parsea un documento JSON completo
+     *
+     * @throws IllegalArgumentException si el texto no es JSON válido
+     */
+    public static Object parsear(String texto) {
+        Json parser = new Json(texto);
+        parser.saltarEspacios();
+        Object valor = parser.leerValor();
+        parser.saltarEspacios();
+        if (parser.pos != texto.length()) {
+            throw parser.error("Contenido inesperado después del valor JSON");
+        }
+        return valor;
+    }
+
+    /**
+     * Parsea un documento que debe ser un objeto JSON
+     *
+     * @throws IllegalArgumentException si el texto no es un objeto JSON válido
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parsearObjeto(String texto) {
+        Object valor = parsear(texto);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    /**
+     * Devuelve el valor de un campo como texto (null si no existe o es null)
+     */
+    public static String texto(Map<String, Object> objeto, String campo) {
+        Object valor = objeto.get(campo);
+        return valor == null ? null : valor.toString();
+    }
+
+    /**
+     * Agrega una cadena JSON (entre comillas y escapada) al buffer; null se escribe como null
+     */
+    public static void escribirCadena(StringBuilder destino, String valor) {
+        if (valor == null) {
+            destino.append("null");
+            return;
+        }
+        destino.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    destino.append("\\\"");
+                    break;
+                case '\\':
+                    destino.append("\\\\");
+                    break;
+                case '\n':
+                    destino.append("\\n");
+                    break;
+                case '\r':
+                    destino.append("\\r");
+                    break;
+                case '\t':
+                    destino.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        destino.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        destino.append(c);
+                    }
+            }
+        }
+        destino.append('"');
+    }
+
+    /**
+     * Agrega "campo":"valor" al buffer
+     */
+    public static void escribirCampo(StringBuilder destino, String campo, String valor) {
+        escribirCadena(destino, campo);
+        destino.append(':');
+        escribirCadena(destino, valor);
+    }
+
+    /**
+     * Agrega "campo":numero al buffer (null si el valor es null)
+     */
+    public static void escribirCampo(StringBuilder destino, String campo, Number valor) {
+        escribirCadena(destino, campo);
+        destino.append(':').append(valor == null ? "null" : valor.toString());
+    }
+
+    private Object leerValor() {
+        if (pos >= texto.length()) {
+            throw error("Fin inesperado del JSON");
+        }
+        char c = texto.charAt(pos);
+        switch (c) {
+            case '{':
+                return leerObjeto();
+            case '[':
+                return leerArreglo();
+            case '"':
+                return leerCadena();
+            case 't':
+                return leerLiteral("true", Boolean.TRUE);
+            case 'f':
+                return leerLiteral("false", Boolean.FALSE);
+            case 'n':
+                return leerLiteral("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return leerNumero();
+                }
+                throw error("Carácter inesperado '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> leerObjeto() {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        pos++;
+        saltarEspacios();
+        if (consumir('}')) {
+            return objeto;
+        }
+        while (true) {
+            saltarEspacios();
+            if (pos >= texto.length() || texto.charAt(pos) != '"') {
+                throw error("Se esperaba el nombre de un campo");
+            }
+            String clave = leerCadena();
+            saltarEspacios();
+            if (!consumir(':')) {
+                throw error("Se esperaba ':'");
+            }
+            saltarEspacios();
+            objeto.put(clave, leerValor());
+            saltarEspacios();
+            if (consumir('}')) {
+                return objeto;
+            }
+            if (!consumir(',')) {
+                throw error("Se esperaba ',' o '}'");
+            }
+        }
+    }
+
+    private List<Object> leerArreglo() {
+        List<Object> arreglo = new ArrayList<>();
+        pos++;
+        saltarEspacios();
+        if (consumir(']')) {
+            return arreglo;
+        }
+        while (true) {
+            saltarEspacios();
+            arreglo.add(leerValor());
+            saltarEspacios();
+            if (consumir(']')) {
+                return arreglo;
+            }
+            if (!consumir(',')) {
+                throw error("Se esperaba ',' o ']'");
+            }
+        }
+    }
+
+    private String leerCadena() {
+        StringBuilder resultado = new StringBuilder();
+        pos++;
+        while (pos < texto.length()) {
+            char c = texto.charAt(pos++);
+            if (c == '"') {
+                return resultado.toString();
+            }
+            if (c != '\\') {
+                resultado.append(c);
+                continue;
+            }
+            if (pos >= texto.length()) {
+                break;
+            }
+            char escape = texto.charAt(pos++);
+            switch (escape) {
+                case '"':
+                case '\\':
+                case '/':
+                    resultado.append(escape);
+                    break;
+                case 'b':
+                    resultado.append('\b');
+                    break;
+                case 'f':
+                    resultado.append('\f');
+                    break;
+                case 'n':
+                    resultado.append('\n');
+                    break;
+                case 'r':
+                    resultado.append('\r');
+                    break;
+                case 't':
+                    resultado.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > texto.length()) {
+                        throw error("Secuencia \\u incompleta");
+                    }
+                    try {
+                        resultado.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Secuencia \\u inválida");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("Escape inválido '\\" + escape + "'");
+            }
+        }
+        throw error("Cadena sin cerrar");
+    }
+
+    private Number leerNumero() {
+        int inicio = pos;
+        boolean decimal = false;
+        if (texto.charAt(pos) == '-') {
+            pos++;
+        }
+        while (pos < texto.length()) {
+            char c = texto.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                pos++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                decimal = true;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        String numero = texto.substring(inicio, pos);
+        try {
+            return decimal ? (Number) Double.parseDouble(numero) : (Number) Long.parseLong(numero);
+        } catch (NumberFormatException e) {
+            throw error("Número inválido: " + numero);
+        }
+    }
+
+    private Object leerLiteral(String literal, Object valor) {
+        if (!texto.startsWith(literal, pos)) {
+            throw error("Literal inválido");
+        }
+        pos += literal.length();
+        return valor;
+    }
+
+    private boolean consumir(char esperado) {
+        if (pos < texto.length() && texto.charAt(pos) == esperado) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void saltarEspacios() {
+        while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException(mensaje + " (posición " + pos + ")");
+    }
+}
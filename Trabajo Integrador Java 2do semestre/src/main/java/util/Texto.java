@@ -0,0 +1,32 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de textos para búsquedas
+ */
+public class Texto {
+
+    // Marcas diacríticas que quedan separadas de la letra después de la descomposición NFD
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    private Texto() {
+    }
+
+    /**
+     * Pasa el texto a minúsculas y le quita los acentos y la diéresis
+     * ("Penicilina ALÉRGICA" -> "penicilina alergica", "Ñandú" -> "nandu"),
+     * de modo que una búsqueda no dependa de cómo se cargó el dato
+     *
+     * @return el texto normalizado, o null si el texto es null
+     */
+    public static String plegar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return DIACRITICOS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}